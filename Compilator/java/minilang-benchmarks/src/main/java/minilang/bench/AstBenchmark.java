@@ -0,0 +1,151 @@
+package minilang.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.MiniLangBaseListener;
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.ast.AstBuilder;
+import minilang.ast.Expr;
+import minilang.ast.FunctionDecl;
+import minilang.ast.Item;
+import minilang.ast.Program;
+import minilang.ast.Stmt;
+import minilang.parse.IterativeWalker;
+
+/**
+ * Cost of building the {@link Program} AST from a parse tree, and of one
+ * analysis pass over each: counting the names an expression reads.
+ *
+ * <p>{@code build} converts a tree parsed during setup; {@code countNamesTree}
+ * walks the parse tree with a {@link ParseTreeWalker} and a listener,
+ * {@code countNamesIterative} with the {@link IterativeWalker} and the same
+ * listener, and {@code countNamesAst} recurses over the AST.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AstBenchmark {
+
+    @State(Scope.Thread)
+    public static class Trees {
+        MiniLangParser.ProgramContext tree;
+        Program ast;
+
+        @Setup(Level.Trial)
+        public void parse(SourceState state) {
+            MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(state.source));
+            tree = new MiniLangParser(new CommonTokenStream(lexer)).program();
+            ast = AstBuilder.build(tree);
+            if (countNamesTree(this) != countNamesAst(this) || countNamesIterative(this) != countNamesAst(this)) {
+                throw new IllegalStateException("The parse tree and the AST read different numbers of names");
+            }
+        }
+    }
+
+    @Benchmark
+    public Program build(Trees state) {
+        return AstBuilder.build(state.tree);
+    }
+
+    @Benchmark
+    public static long countNamesTree(Trees state) {
+        NameCounter counter = new NameCounter();
+        ParseTreeWalker.DEFAULT.walk(counter, state.tree);
+        return counter.names;
+    }
+
+    @Benchmark
+    public static long countNamesIterative(Trees state) {
+        NameCounter counter = new NameCounter();
+        IterativeWalker.walk(counter, state.tree);
+        return counter.names;
+    }
+
+    @Benchmark
+    public static long countNamesAst(Trees state) {
+        long names = 0;
+        for (Stmt.VarDecl global : state.ast.globals()) {
+            names += statement(global);
+        }
+        for (Item item : state.ast.items()) {
+            names += item instanceof FunctionDecl function ? statements(function.body()) : statement((Stmt) item);
+        }
+        return names;
+    }
+
+    private static final class NameCounter extends MiniLangBaseListener {
+        long names;
+
+        @Override
+        public void enterIdentifierExpr(MiniLangParser.IdentifierExprContext ctx) {
+            names++;
+        }
+    }
+
+    private static long statements(List<Stmt> statements) {
+        long names = 0;
+        for (Stmt statement : statements) {
+            names += statement(statement);
+        }
+        return names;
+    }
+
+    private static long statement(Stmt statement) {
+        if (statement instanceof Stmt.VarDecl declaration) {
+            return declaration.init() == null ? 0 : expression(declaration.init());
+        } else if (statement instanceof Stmt.Assign assignment) {
+            return expression(assignment.value());
+        } else if (statement instanceof Stmt.If ifStatement) {
+            return expression(ifStatement.condition()) + statements(ifStatement.then())
+                    + (ifStatement.otherwise() == null ? 0 : statements(ifStatement.otherwise()));
+        } else if (statement instanceof Stmt.For forStatement) {
+            return statement(forStatement.init()) + expression(forStatement.condition())
+                    + statement(forStatement.update()) + statements(forStatement.body());
+        } else if (statement instanceof Stmt.While whileStatement) {
+            return expression(whileStatement.condition()) + statements(whileStatement.body());
+        } else if (statement instanceof Stmt.Return returnStatement) {
+            return returnStatement.value() == null ? 0 : expression(returnStatement.value());
+        } else if (statement instanceof Stmt.CallStmt call) {
+            return expression(call.call());
+        }
+        return 0;
+    }
+
+    private static long expression(Expr expr) {
+        if (expr instanceof Expr.Name) {
+            return 1;
+        } else if (expr instanceof Expr.BinaryOp binary) {
+            return expression(binary.left()) + expression(binary.right());
+        } else if (expr instanceof Expr.Not not) {
+            return expression(not.operand());
+        } else if (expr instanceof Expr.Assign assign) {
+            return expression(assign.value());
+        } else if (expr instanceof Expr.Call call) {
+            long names = 0;
+            for (Expr argument : call.arguments()) {
+                names += expression(argument);
+            }
+            return names;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,53 @@
+package minilang.bench;
+
+import java.util.Collection;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached and prints the allocation
+ * per kilobyte of source next to the usual JMH report.
+ *
+ * <p>Accepts the regular JMH command line, e.g.
+ * {@code java -jar benchmarks.jar ParserBenchmark -p shape=LONG_FILE}.</p>
+ */
+public final class BenchmarkMain {
+
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        System.out.println();
+        System.out.printf("%-45s %-16s %8s %14s%n", "Benchmark", "Shape", "KB", "Alloc B/KB");
+        for (RunResult result : results) {
+            Result<?> allocated = result.getSecondaryResults().get(ALLOC_NORM);
+            String size = result.getParams().getParam("sizeKb");
+            if (allocated == null || size == null) {
+                continue;
+            }
+            int kilobytes = Integer.parseInt(size);
+            System.out.printf("%-45s %-16s %8d %14.1f%n",
+                    result.getParams().getBenchmark(),
+                    result.getParams().getParam("shape"),
+                    kilobytes,
+                    allocated.getScore() / kilobytes);
+        }
+    }
+}
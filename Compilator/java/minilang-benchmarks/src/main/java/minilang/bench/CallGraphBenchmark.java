@@ -0,0 +1,52 @@
+package minilang.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.sema.CallGraph;
+
+/**
+ * Time to build the {@link CallGraph} of {@link Corpus#calls} programs of
+ * growing size, from a parse tree made during setup; its time per function
+ * should not grow with their number.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallGraphBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int functions;
+
+    private MiniLangParser.ProgramContext tree;
+
+    @Setup(Level.Trial)
+    public void parse() {
+        String source = Corpus.calls(functions);
+        tree = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source)))).program();
+    }
+
+    @Benchmark
+    public CallGraph build() {
+        return CallGraph.build(tree);
+    }
+}
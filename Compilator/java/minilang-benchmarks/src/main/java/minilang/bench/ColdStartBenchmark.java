@@ -0,0 +1,75 @@
+package minilang.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.dfa.DfaCache;
+
+/**
+ * Time of the first lex and parse of a source after the DFAs are emptied,
+ * with and without a {@link DfaCache} preloaded.
+ *
+ * <p>Every iteration starts from empty DFAs, so each one measures what a
+ * fresh compiler run pays before its DFAs are warm; {@code preload=true}
+ * loads the DFAs saved from a parse of the same source first.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(3)
+public class ColdStartBenchmark {
+
+    @Param({"false", "true"})
+    public boolean preload;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void save(SourceState state) throws IOException {
+        file = Files.createTempFile("minilang", ".dfa");
+        DfaCache.clear();
+        firstParse(state);
+        DfaCache.save(file);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() throws IOException {
+        DfaCache.clear();
+        if (preload) {
+            DfaCache.load(file);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public MiniLangParser.ProgramContext firstParse(SourceState state) {
+        MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(state.source));
+        return new MiniLangParser(new CommonTokenStream(lexer)).program();
+    }
+}
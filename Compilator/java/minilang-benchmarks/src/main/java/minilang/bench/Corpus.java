@@ -0,0 +1,267 @@
+package minilang.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+
+/**
+ * Deterministic MiniLang sources used by the benchmarks.
+ *
+ * <p>Every shape is grown until it reaches the requested size, so results for
+ * different shapes can be compared per kilobyte of source.</p>
+ */
+public final class Corpus {
+
+    public enum Shape {
+        /** Many short functions with a couple of statements each. */
+        SMALL_FUNCTIONS,
+        /** Functions whose bodies are dominated by deeply nested expressions and blocks. */
+        DEEP_NESTING,
+        /** {@code ProgramExemple.txt} repeated with renamed top-level symbols. */
+        LONG_FILE,
+        /** Random expressions over every operator, with calls, assignments and parentheses. */
+        EXPRESSIONS
+    }
+
+    private static final String SEED_RESOURCE = "ProgramExemple.txt";
+
+    private static final int NESTING_DEPTH = 48;
+
+    private static final int EXPRESSION_DEPTH = 6;
+
+    private static final String[] OPERATORS =
+            {"+", "-", "*", "/", "%", "<", ">", "<=", ">=", "==", "!=", "&&", "||"};
+
+    private static final String MALFORMED_PUNCTUATION = ";(){},=+*<!";
+
+    private Corpus() {
+    }
+
+    public static String generate(Shape shape, int targetKb) {
+        int targetChars = targetKb * 1024;
+        StringBuilder sb = new StringBuilder(targetChars + 4096);
+        switch (shape) {
+            case SMALL_FUNCTIONS -> smallFunctions(sb, targetChars);
+            case DEEP_NESTING -> deepNesting(sb, targetChars);
+            case LONG_FILE -> longFile(sb, targetChars);
+            case EXPRESSIONS -> expressions(sb, targetChars);
+        }
+        return sb.toString();
+    }
+
+    public static String seed() {
+        try (InputStream in = Corpus.class.getResourceAsStream(SEED_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing benchmark resource " + SEED_RESOURCE);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A program that declares {@code count} variables and parameters, all
+     * valid: a quarter of them globals, each initialised from the one before,
+     * and the rest in functions of five declarations each, which read
+     * globals and call the function before them.
+     */
+    public static String declarations(int count) {
+        StringBuilder sb = new StringBuilder(count * 40);
+        int globals = Math.max(count / 4, 1);
+        sb.append("int g0 = 0;\n");
+        for (int i = 1; i < globals; i++) {
+            sb.append("int g").append(i).append(" = g").append(i - 1).append(" + 1;\n");
+        }
+        for (int i = 0, declared = globals; declared < count; i++, declared += 5) {
+            sb.append("double f").append(i).append("(int a, double b)\n{\n")
+              .append(" int c = a + g").append(i * 7919 % globals).append(";\n")
+              .append(" double d = c * b;\n")
+              .append(" if (c < d)\n {\n")
+              .append("  int e = c;\n")
+              .append("  c = e + d;\n }\n")
+              .append(" return d");
+            if (i > 0) {
+                sb.append(" + f").append(i - 1).append("(c, 1.5)");
+            }
+            sb.append(";\n}\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A program of {@code count} functions in groups of ten, each calling
+     * the one before it in its group: every other group is closed into a
+     * cycle by its first function calling its last, and every seventh
+     * function also calls itself.
+     */
+    public static String calls(int count) {
+        StringBuilder sb = new StringBuilder(count * 80);
+        for (int i = 0; i < count; i++) {
+            sb.append("int c").append(i).append("(int n)\n{\n if (n > 0)\n {\n  print(n);\n");
+            if (i % 10 != 0) {
+                sb.append("  n = c").append(i - 1).append("(n - 1);\n");
+            } else if (i % 20 == 0 && i + 9 < count) {
+                sb.append("  n = c").append(i + 9).append("(n - 1);\n");
+            }
+            if (i % 7 == 3) {
+                sb.append("  n = c").append(i).append("(n - 2);\n");
+            }
+            sb.append(" }\n return n;\n}\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@code source} with about {@code errorsPerKb} random edits per
+     * kilobyte, as a fuzzer makes them: a character deleted or doubled, or
+     * punctuation, a keyword or a character the lexer rejects inserted.
+     */
+    public static String malformed(String source, int errorsPerKb, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(source);
+        int edits = (int) ((long) source.length() * errorsPerKb / 1024);
+        for (int i = 0; i < edits && sb.length() > 0; i++) {
+            int at = random.nextInt(sb.length());
+            switch (random.nextInt(5)) {
+                case 0 -> sb.deleteCharAt(at);
+                case 1 -> sb.insert(at, sb.charAt(at));
+                case 2 -> sb.insert(at, MALFORMED_PUNCTUATION.charAt(random.nextInt(MALFORMED_PUNCTUATION.length())));
+                case 3 -> sb.insert(at, random.nextBoolean() ? " int " : " return ");
+                default -> sb.insert(at, random.nextBoolean() ? '#' : '@');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void smallFunctions(StringBuilder sb, int targetChars) {
+        sb.append("double scale = 1.5;\n");
+        for (int i = 0; sb.length() < targetChars; i++) {
+            sb.append("int f").append(i).append("(int a, int b)\n{\n")
+              .append(" int t = a + b * ").append(i % 97).append(";\n")
+              .append(" if (t > ").append(i % 13).append(")\n {\n")
+              .append("  t -= 1;\n }\n")
+              .append(" return t;\n}\n");
+        }
+    }
+
+    private static void deepNesting(StringBuilder sb, int targetChars) {
+        for (int i = 0; sb.length() < targetChars; i++) {
+            sb.append("int nested").append(i).append("(int x, int y)\n{\n int acc = ");
+            for (int d = 0; d < NESTING_DEPTH; d++) {
+                sb.append('(');
+            }
+            sb.append('x');
+            for (int d = 0; d < NESTING_DEPTH; d++) {
+                sb.append(" + ").append(d).append(") * y");
+            }
+            sb.append(";\n");
+            for (int d = 0; d < NESTING_DEPTH / 4; d++) {
+                sb.append(" if (acc > ").append(d).append(" && !(y == ").append(d).append("))\n {\n");
+            }
+            sb.append(" acc = acc - 1;\n");
+            for (int d = 0; d < NESTING_DEPTH / 4; d++) {
+                sb.append(" }\n");
+            }
+            sb.append(" return acc;\n}\n");
+        }
+    }
+
+    private static void expressions(StringBuilder sb, int targetChars) {
+        Random random = new Random(42);
+        for (int i = 0; sb.length() < targetChars; i++) {
+            sb.append("double e").append(i).append("(int a, int b, int c)\n{\n");
+            for (int s = 0; s < 8; s++) {
+                sb.append(" double v").append(s).append(" = ");
+                expression(sb, random, EXPRESSION_DEPTH);
+                sb.append(";\n");
+            }
+            sb.append(" return ");
+            expression(sb, random, EXPRESSION_DEPTH);
+            sb.append(";\n}\n");
+        }
+    }
+
+    private static void expression(StringBuilder sb, Random random, int depth) {
+        int choice = depth == 0 ? 5 + random.nextInt(3) : random.nextInt(12);
+        switch (choice) {
+            case 0 -> {
+                sb.append('!');
+                expression(sb, random, depth - 1);
+            }
+            case 1 -> {
+                sb.append('(');
+                expression(sb, random, depth - 1);
+                sb.append(')');
+            }
+            case 2 -> {
+                sb.append("a = ");
+                expression(sb, random, depth - 1);
+            }
+            case 3 -> {
+                sb.append("e0(");
+                expression(sb, random, depth - 1);
+                sb.append(", b, ");
+                expression(sb, random, depth - 1);
+                sb.append(')');
+            }
+            case 4 -> sb.append("\"s\"");
+            case 5 -> sb.append((char) ('a' + random.nextInt(3)));
+            case 6, 7 -> sb.append(random.nextInt(100));
+            default -> {
+                expression(sb, random, depth - 1);
+                sb.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+                expression(sb, random, depth - 1);
+            }
+        }
+    }
+
+    /**
+     * Appends copies of the seed program, suffixing every function and
+     * top-level variable so that the copies stay semantically distinct.
+     */
+    private static void longFile(StringBuilder sb, int targetChars) {
+        String seed = seed();
+        CommonTokenStream tokens = new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(seed)));
+        MiniLangParser.ProgramContext program = new MiniLangParser(tokens).program();
+
+        Set<String> topLevel = new HashSet<>();
+        for (MiniLangParser.FunctionDeclarationContext function : program.functionDeclaration()) {
+            topLevel.add(function.IDENTIFIER().getText());
+        }
+        for (MiniLangParser.GlobalDeclarationsContext globals : program.globalDeclarations()) {
+            for (MiniLangParser.VarDeclarationContext variable : globals.varDeclaration()) {
+                topLevel.add(variable.IDENTIFIER().getText());
+            }
+        }
+        for (MiniLangParser.StatementContext statement : program.statement()) {
+            if (statement.declaration() != null) {
+                topLevel.add(statement.declaration().IDENTIFIER().getText());
+            }
+        }
+
+        // Comments and whitespace are skipped by the lexer, so the copies are
+        // spliced from the original text rather than rebuilt from tokens.
+        for (int copy = 0; sb.length() < targetChars; copy++) {
+            int last = 0;
+            for (Token token : tokens.getTokens()) {
+                if (token.getType() == MiniLangParser.IDENTIFIER && topLevel.contains(token.getText())) {
+                    sb.append(seed, last, token.getStopIndex() + 1).append('_').append(copy);
+                    last = token.getStopIndex() + 1;
+                }
+            }
+            sb.append(seed, last, seed.length()).append('\n');
+        }
+    }
+}
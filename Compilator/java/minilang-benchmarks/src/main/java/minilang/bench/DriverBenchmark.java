@@ -0,0 +1,87 @@
+package minilang.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.driver.BatchReport;
+import minilang.driver.CompilationDriver;
+
+/**
+ * Time for {@link CompilationDriver} to parse a directory of small files,
+ * by pool size, to show how the batch scales with the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DriverBenchmark {
+
+    @Param({"SMALL_FUNCTIONS", "LONG_FILE"})
+    public Corpus.Shape shape;
+
+    @Param({"1000"})
+    public int files;
+
+    @Param({"8"})
+    public int fileKb;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Path dir;
+
+    private List<Path> sources;
+
+    private CompilationDriver driver;
+
+    @Setup(Level.Trial)
+    public void write() throws IOException {
+        dir = Files.createTempDirectory("minilang-batch");
+        String source = Corpus.generate(shape, fileKb);
+        sources = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            sources.add(Files.writeString(dir.resolve("file" + i + ".txt"), source));
+        }
+        driver = new CompilationDriver(threads);
+        if (driver.compile(sources).failedFiles() > 0) {
+            throw new IllegalStateException("The generated batch has syntax errors");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        driver.close();
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public BatchReport compile() {
+        return driver.compile(sources);
+    }
+}
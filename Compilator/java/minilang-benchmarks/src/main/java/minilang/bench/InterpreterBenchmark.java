@@ -0,0 +1,91 @@
+package minilang.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.ast.Program;
+import minilang.interp.Interpreter;
+import minilang.jvm.JvmProgram;
+import minilang.vm.VirtualMachine;
+
+/**
+ * Time to run each {@link Workload} through the {@link Interpreter}, as
+ * bytecode through {@link JvmProgram}, and as register code on the
+ * {@link VirtualMachine}.
+ *
+ * <p>{@code run} executes a program loaded during setup; {@code loadAndRun}
+ * adds resolving and compiling its AST. The {@code Bytecode} variants do the
+ * same with {@link JvmProgram}, whose loading includes generating and
+ * defining a class; all its runs share that class, so HotSpot compiles
+ * it. The {@code Vm} variants use the {@link VirtualMachine}, whose loading
+ * is a single pass over the AST.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+
+    @Param({"FIB", "SUM_MULTIPLES", "PRIMES", "MANDELBROT", "CONSTANTS"})
+    public Workload workload;
+
+    private Program ast;
+
+    private Interpreter interpreter;
+
+    private JvmProgram bytecode;
+
+    private VirtualMachine vm;
+
+    @Setup(Level.Trial)
+    public void load() {
+        ast = workload.ast();
+        interpreter = Interpreter.load(ast);
+        bytecode = JvmProgram.load(ast);
+        vm = VirtualMachine.load(ast);
+    }
+
+    @Benchmark
+    public Object run() {
+        return interpreter.run();
+    }
+
+    @Benchmark
+    public Object loadAndRun() {
+        return Interpreter.load(ast).run();
+    }
+
+    @Benchmark
+    public Object runBytecode() {
+        return bytecode.run();
+    }
+
+    @Benchmark
+    public Object loadAndRunBytecode() {
+        return JvmProgram.load(ast).run();
+    }
+
+    @Benchmark
+    public Object runVm() {
+        return vm.run();
+    }
+
+    @Benchmark
+    public Object loadAndRunVm() {
+        return VirtualMachine.load(ast).run();
+    }
+}
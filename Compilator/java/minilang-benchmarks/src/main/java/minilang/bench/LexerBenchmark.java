@@ -0,0 +1,126 @@
+package minilang.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.MiniLangLexer;
+import minilang.lex.FlatTokenStream;
+import minilang.lex.MappedCharStream;
+import minilang.lex.TableLexer;
+
+/**
+ * Tokens per second of the generated {@link MiniLangLexer} and of the
+ * hand-written {@link TableLexer}.
+ *
+ * <p>The primary score is whole-source lexes per second; the {@code tokens}
+ * secondary result is the token throughput.</p>
+ *
+ * <p>{@code lexFile} and {@code lexMapped} read the source from a file, through
+ * {@link CharStreams#fromPath} and through a {@link MappedCharStream}; the
+ * allocation column shows the copy of the file that the mapped stream avoids.</p>
+ *
+ * <p>{@code bufferCommon} and {@code bufferFlat} buffer every token, in a
+ * {@link CommonTokenStream} and in a {@link FlatTokenStream}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class TokenCounter {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+
+    /** The source written to a file, for the benchmarks that read it from disk. */
+    @State(Scope.Benchmark)
+    public static class SourceFile {
+        Path file;
+
+        @Setup(Level.Trial)
+        public void write(SourceState state) throws IOException {
+            file = Files.createTempFile("minilang", ".txt");
+            Files.writeString(file, state.source);
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public int lex(SourceState state, TokenCounter counter) {
+        CharStream input = CharStreams.fromString(state.source);
+        return drain(new MiniLangLexer(input), counter);
+    }
+
+    @Benchmark
+    public int lexTable(SourceState state, TokenCounter counter) {
+        CharStream input = CharStreams.fromString(state.source);
+        return drain(new TableLexer(input), counter);
+    }
+
+    @Benchmark
+    public int lexFile(SourceFile source, TokenCounter counter) throws IOException {
+        return drain(new MiniLangLexer(CharStreams.fromPath(source.file)), counter);
+    }
+
+    @Benchmark
+    public int lexMapped(SourceFile source, TokenCounter counter) throws IOException {
+        return drain(new MiniLangLexer(MappedCharStream.open(source.file)), counter);
+    }
+
+    @Benchmark
+    public CommonTokenStream bufferCommon(SourceState state) {
+        CommonTokenStream tokens = new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(state.source)));
+        tokens.fill();
+        return tokens;
+    }
+
+    @Benchmark
+    public FlatTokenStream bufferFlat(SourceState state) {
+        FlatTokenStream tokens = new FlatTokenStream(new MiniLangLexer(CharStreams.fromString(state.source)));
+        tokens.fill();
+        return tokens;
+    }
+
+    private static int drain(TokenSource lexer, TokenCounter counter) {
+        int count = 0;
+        while (lexer.nextToken().getType() != Token.EOF) {
+            count++;
+        }
+        counter.tokens += count;
+        return count;
+    }
+}
@@ -0,0 +1,149 @@
+package minilang.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.TokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.parse.Diagnostics;
+import minilang.parse.StacklessErrorStrategy;
+
+/**
+ * Time to parse a fuzzer's batch of malformed sources: {@code sources}
+ * copies of a {@code sizeKb} program of one corpus shape, each with
+ * {@code errorsPerKb} different random edits per kilobyte.
+ *
+ * <p>{@code defaultStrategy} reports every error as a message to a listener
+ * that keeps it, as the driver used to; {@code stackless} records them with
+ * a {@link StacklessErrorStrategy} and builds the same messages after each source;
+ * {@code stacklessCount} only counts them. Each lexes and parses with a
+ * lexer and parser reused from one source to the next. MiniLang's
+ * {@code program} rule does not end with {@code EOF}, so a parse stops
+ * wherever recovery leaves the parser outside every rule.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MalformedInputBenchmark {
+
+    @Param({"SMALL_FUNCTIONS", "EXPRESSIONS"})
+    public Corpus.Shape shape;
+
+    @Param({"1"})
+    public int sizeKb;
+
+    @Param({"256"})
+    public int sources;
+
+    @Param({"1", "10", "50"})
+    public int errorsPerKb;
+
+    private String[] malformed;
+
+    private final List<String> messages = new ArrayList<>();
+
+    private final MiniLangLexer lexer = new MiniLangLexer(null);
+
+    private final CommonTokenStream tokens = new CommonTokenStream(lexer);
+
+    private final MiniLangParser parser = new MiniLangParser((TokenStream) null);
+
+    private final MiniLangLexer stacklessLexer = new MiniLangLexer(null);
+
+    private final CommonTokenStream stacklessTokens = new CommonTokenStream(stacklessLexer);
+
+    private final MiniLangParser stacklessParser = new MiniLangParser((TokenStream) null);
+
+    private final Diagnostics diagnostics = new Diagnostics();
+
+    @Setup(Level.Trial)
+    public void generate() {
+        String source = Corpus.generate(shape, sizeKb);
+        malformed = new String[sources];
+        for (int i = 0; i < sources; i++) {
+            malformed[i] = Corpus.malformed(source, errorsPerKb, i);
+        }
+
+        BaseErrorListener listener = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                messages.add(line + ":" + charPositionInLine + ": " + msg);
+            }
+        };
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(listener);
+        parser.removeErrorListeners();
+        parser.addErrorListener(listener);
+
+        stacklessLexer.removeErrorListeners();
+        stacklessLexer.addErrorListener(diagnostics);
+        stacklessParser.removeErrorListeners();
+        StacklessErrorStrategy.install(stacklessParser, diagnostics);
+    }
+
+    @Benchmark
+    public int defaultStrategy() {
+        int errors = 0;
+        for (String source : malformed) {
+            messages.clear();
+            lexer.setInputStream(CharStreams.fromString(source));
+            tokens.setTokenSource(lexer);
+            parser.setTokenStream(tokens);
+            parser.program();
+            errors += messages.size();
+        }
+        return errors;
+    }
+
+    @Benchmark
+    public int stackless() {
+        int errors = 0;
+        for (String source : malformed) {
+            parseStackless(source);
+            errors += diagnostics.format("").size();
+        }
+        return errors;
+    }
+
+    @Benchmark
+    public int stacklessCount() {
+        int errors = 0;
+        for (String source : malformed) {
+            parseStackless(source);
+            errors += diagnostics.size();
+        }
+        return errors;
+    }
+
+    private void parseStackless(String source) {
+        diagnostics.clear();
+        stacklessLexer.setInputStream(CharStreams.fromString(source));
+        stacklessTokens.setTokenSource(stacklessLexer);
+        stacklessParser.setTokenStream(stacklessTokens);
+        stacklessParser.program();
+    }
+}
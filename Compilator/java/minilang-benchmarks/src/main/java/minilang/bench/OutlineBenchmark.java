@@ -0,0 +1,77 @@
+package minilang.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.parse.DescentParser;
+import minilang.parse.LazyBlockContext;
+
+/**
+ * Time to answer a signature-level query, the parameter count of every
+ * function, from a token stream filled during setup.
+ *
+ * <p>{@code signaturesFromParse} reads them from a full
+ * {@link DescentParser} tree, {@code signaturesFromOutline} from an
+ * outline whose bodies stay unparsed. {@code outlineThenBodies} outlines
+ * and then parses every body, the cost of an outline when every body ends
+ * up being read.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutlineBenchmark {
+
+    private CommonTokenStream tokens;
+
+    private MiniLangParser parser;
+
+    @Setup(Level.Trial)
+    public void lex(SourceState state) {
+        tokens = new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(state.source)));
+        tokens.fill();
+        parser = new MiniLangParser(tokens);
+    }
+
+    @Benchmark
+    public int signaturesFromParse() {
+        return parameters(new DescentParser(tokens).program());
+    }
+
+    @Benchmark
+    public int signaturesFromOutline() {
+        return parameters(DescentParser.outline(parser).tree());
+    }
+
+    @Benchmark
+    public int outlineThenBodies() {
+        return LazyBlockContext.parseAll(DescentParser.outline(parser).tree());
+    }
+
+    private static int parameters(MiniLangParser.ProgramContext program) {
+        int parameters = 0;
+        for (MiniLangParser.FunctionDeclarationContext function : program.functionDeclaration()) {
+            if (function.parameterList() != null) {
+                parameters += function.parameterList().parameter().size();
+            }
+        }
+        return parameters;
+    }
+}
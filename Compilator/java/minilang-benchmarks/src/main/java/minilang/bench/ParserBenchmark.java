@@ -0,0 +1,95 @@
+package minilang.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.lex.FlatTokenStream;
+import minilang.parse.DescentParser;
+import minilang.parse.ParseResult;
+import minilang.parse.StreamingParser;
+import minilang.parse.TwoStageParser;
+
+/**
+ * Parse trees per second of {@link MiniLangParser#program()}.
+ *
+ * <p>{@code parse} works on a token stream that was filled during setup, so it
+ * measures the parser alone; {@code parseTwoStage} and {@code parseDescent}
+ * do the same through {@link TwoStageParser} and the hand-written
+ * {@link DescentParser}; {@code lexAndParse} is the end-to-end cost, and
+ * {@code lexAndParseFlat} the same over a {@link FlatTokenStream}.
+ * {@code lexAndParseStreaming} hands each top-level item to a blackhole
+ * through {@link StreamingParser}, which holds one item at a time.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @State(Scope.Thread)
+    public static class Tokens {
+        CommonTokenStream tokens;
+        MiniLangParser parser;
+
+        @Setup(Level.Trial)
+        public void lex(SourceState state) {
+            tokens = new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(state.source)));
+            tokens.fill();
+            parser = new MiniLangParser(tokens);
+        }
+    }
+
+    @Benchmark
+    public MiniLangParser.ProgramContext parse(Tokens state) {
+        state.tokens.seek(0);
+        state.parser.setTokenStream(state.tokens);
+        return state.parser.program();
+    }
+
+    @Benchmark
+    public ParseResult parseTwoStage(Tokens state) {
+        state.tokens.seek(0);
+        state.parser.setTokenStream(state.tokens);
+        return new TwoStageParser(state.parser).program();
+    }
+
+    @Benchmark
+    public MiniLangParser.ProgramContext parseDescent(Tokens state) {
+        return new DescentParser(state.tokens).program();
+    }
+
+    @Benchmark
+    public MiniLangParser.ProgramContext lexAndParse(SourceState state) {
+        MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(state.source));
+        return new MiniLangParser(new CommonTokenStream(lexer)).program();
+    }
+
+    @Benchmark
+    public MiniLangParser.ProgramContext lexAndParseFlat(SourceState state) {
+        MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(state.source));
+        return new MiniLangParser(new FlatTokenStream(lexer)).program();
+    }
+
+    @Benchmark
+    public long lexAndParseStreaming(SourceState state, Blackhole blackhole) {
+        MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(state.source));
+        return StreamingParser.of(lexer).program(blackhole::consume);
+    }
+}
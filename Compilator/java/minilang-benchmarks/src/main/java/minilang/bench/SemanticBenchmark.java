@@ -0,0 +1,84 @@
+package minilang.bench;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.ast.AstBuilder;
+import minilang.interp.Interpreter;
+import minilang.sema.SemanticAnalyzer;
+
+/**
+ * Time to check the names and types of {@link Corpus#declarations} programs
+ * of growing size, from a parse tree made during setup.
+ *
+ * <p>{@code analyze} runs the {@link SemanticAnalyzer}; its time per
+ * declaration should not grow with their number. {@code buildAndLoad} finds
+ * the same errors by building the AST and loading it into the
+ * {@link Interpreter}, which also compiles it. {@code analyzeParallel}
+ * checks the function bodies on a pool of {@code threads} threads, which
+ * defaults to every processor.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SemanticBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int declarations;
+
+    @Param("0")
+    public int threads;
+
+    private MiniLangParser.ProgramContext tree;
+
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void parse() {
+        String source = Corpus.declarations(declarations);
+        tree = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source)))).program();
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<String> analyze() {
+        return SemanticAnalyzer.analyze(tree);
+    }
+
+    @Benchmark
+    public List<String> analyzeParallel() {
+        return SemanticAnalyzer.analyze(tree, pool);
+    }
+
+    @Benchmark
+    public Interpreter buildAndLoad() {
+        return Interpreter.load(AstBuilder.build(tree));
+    }
+}
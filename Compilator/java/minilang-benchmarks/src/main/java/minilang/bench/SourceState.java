@@ -0,0 +1,27 @@
+package minilang.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The generated source a benchmark runs against, shared by all threads of a trial.
+ */
+@State(Scope.Benchmark)
+public class SourceState {
+
+    @Param({"SMALL_FUNCTIONS", "DEEP_NESTING", "LONG_FILE", "EXPRESSIONS"})
+    public Corpus.Shape shape;
+
+    @Param({"64", "1024", "4096"})
+    public int sizeKb;
+
+    public String source;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        source = Corpus.generate(shape, sizeKb);
+    }
+}
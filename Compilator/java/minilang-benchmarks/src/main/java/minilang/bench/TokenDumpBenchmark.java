@@ -0,0 +1,98 @@
+package minilang.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.MiniLangLexer;
+import minilang.lex.TokenDump;
+
+/**
+ * Time to save the lexical units of a source and to read them back, from
+ * tokens lexed during setup.
+ *
+ * <p>{@code writeText} writes one {@code <TOKEN, lexeme, Line n>} line per
+ * token, as the original compiler's report does; {@code writeBinary} writes
+ * a {@link TokenDump}. {@code readBinary} maps a dump and goes through every
+ * token, reading its type, position and line.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenDumpBenchmark {
+
+    private List<? extends Token> tokens;
+
+    private Path text;
+
+    private Path binary;
+
+    private Path dump;
+
+    @Setup(Level.Trial)
+    public void lex(SourceState state) throws IOException {
+        CharStream input = CharStreams.fromString(state.source);
+        tokens = new MiniLangLexer(input).getAllTokens();
+        text = Files.createTempFile("minilang", ".txt");
+        binary = Files.createTempFile("minilang", ".tokens");
+        dump = Files.createTempFile("minilang", ".tokens");
+        TokenDump.write(new ListTokenSource(tokens), dump);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(text);
+        Files.deleteIfExists(binary);
+        Files.deleteIfExists(dump);
+    }
+
+    @Benchmark
+    public int writeText() throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(text)) {
+            for (Token token : tokens) {
+                writer.write("<" + MiniLangLexer.VOCABULARY.getSymbolicName(token.getType()) + ", " + token.getText()
+                        + ", Line " + token.getLine() + ">");
+                writer.newLine();
+            }
+        }
+        return tokens.size();
+    }
+
+    @Benchmark
+    public int writeBinary() throws IOException {
+        return TokenDump.write(new ListTokenSource(tokens), binary);
+    }
+
+    @Benchmark
+    public long readBinary() throws IOException {
+        TokenDump.Cursor cursor = TokenDump.open(dump).cursor();
+        long sum = 0;
+        while (cursor.next()) {
+            sum += cursor.type() + cursor.start() + cursor.line();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,84 @@
+package minilang.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.TokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.parse.DescentParser;
+import minilang.parse.ParseResult;
+import minilang.parse.SyntaxChecker;
+import minilang.parse.TwoStageParser;
+
+/**
+ * Valid sources checked per second, from their text, by a
+ * {@link SyntaxChecker} and by parsers that build the tree.
+ *
+ * <p>{@code parseTwoStage} and {@code parseDescent} reuse a lexer, token
+ * stream and parser as the driver does, and parse through
+ * {@link TwoStageParser} and {@link DescentParser}; {@code validate} runs a
+ * reused checker. Run with {@code -prof gc} to compare allocation.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidateBenchmark {
+
+    private final MiniLangLexer lexer = new MiniLangLexer(null);
+
+    private final CommonTokenStream tokens = new CommonTokenStream(lexer);
+
+    private final MiniLangParser parser = new MiniLangParser((TokenStream) null);
+
+    private final SyntaxChecker checker = new SyntaxChecker();
+
+    @Setup(Level.Trial)
+    public void verify(SourceState state) {
+        if (!checker.check(CharStreams.fromString(state.source)).isEmpty()) {
+            throw new IllegalStateException("The corpus is not valid");
+        }
+        lexer.removeErrorListeners();
+        parser.removeErrorListeners();
+    }
+
+    @Benchmark
+    public ParseResult parseTwoStage(SourceState state) {
+        setSource(state.source);
+        return new TwoStageParser(parser).program();
+    }
+
+    @Benchmark
+    public ParseResult parseDescent(SourceState state) {
+        setSource(state.source);
+        return DescentParser.parse(parser);
+    }
+
+    @Benchmark
+    public List<String> validate(SourceState state) {
+        return checker.check(CharStreams.fromString(state.source));
+    }
+
+    private void setSource(String source) {
+        lexer.setInputStream(CharStreams.fromString(source));
+        tokens.setTokenSource(lexer);
+        parser.setTokenStream(tokens);
+    }
+}
@@ -0,0 +1,137 @@
+package minilang.bench;
+
+import static minilang.MiniLangParser.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minilang.MiniLangBaseListener;
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.parse.FusedWalker;
+
+/**
+ * Cost of running three listeners over one parse tree: metrics (functions
+ * and statements), a lint (empty blocks) and symbol collection (declared
+ * names).
+ *
+ * <p>{@code separate} walks the tree once per listener with a
+ * {@link ParseTreeWalker}; {@code fused} walks it once with a
+ * {@link FusedWalker}, which skips the expressions none of them look
+ * at.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WalkerBenchmark {
+
+    @State(Scope.Thread)
+    public static class Tree {
+        MiniLangParser.ProgramContext tree;
+
+        @Setup(Level.Trial)
+        public void parse(SourceState state) {
+            MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(state.source));
+            tree = new MiniLangParser(new CommonTokenStream(lexer)).program();
+            if (separate(this) != fused(this)) {
+                throw new IllegalStateException("Fused listeners found something else than separate ones");
+            }
+        }
+    }
+
+    @Benchmark
+    public static long separate(Tree state) {
+        Metrics metrics = new Metrics();
+        Lint lint = new Lint();
+        Symbols symbols = new Symbols();
+        ParseTreeWalker.DEFAULT.walk(metrics, state.tree);
+        ParseTreeWalker.DEFAULT.walk(lint, state.tree);
+        ParseTreeWalker.DEFAULT.walk(symbols, state.tree);
+        return result(metrics, lint, symbols);
+    }
+
+    @Benchmark
+    public static long fused(Tree state) {
+        Metrics metrics = new Metrics();
+        Lint lint = new Lint();
+        Symbols symbols = new Symbols();
+        new FusedWalker()
+                .add(metrics, RULE_functionDeclaration, RULE_statement)
+                .add(lint, RULE_block)
+                .add(symbols, RULE_varDeclaration, RULE_declaration, RULE_parameter, RULE_functionDeclaration)
+                .walk(state.tree);
+        return result(metrics, lint, symbols);
+    }
+
+    private static long result(Metrics metrics, Lint lint, Symbols symbols) {
+        return metrics.functions * 31L + metrics.statements * 17L + lint.emptyBlocks * 7L + symbols.names.hashCode();
+    }
+
+    private static final class Metrics extends MiniLangBaseListener {
+        int functions;
+        int statements;
+
+        @Override
+        public void enterFunctionDeclaration(FunctionDeclarationContext ctx) {
+            functions++;
+        }
+
+        @Override
+        public void enterStatement(StatementContext ctx) {
+            statements++;
+        }
+    }
+
+    private static final class Lint extends MiniLangBaseListener {
+        int emptyBlocks;
+
+        @Override
+        public void enterBlock(BlockContext ctx) {
+            if (ctx.statement().isEmpty()) {
+                emptyBlocks++;
+            }
+        }
+    }
+
+    private static final class Symbols extends MiniLangBaseListener {
+        final List<String> names = new ArrayList<>();
+
+        @Override
+        public void enterVarDeclaration(VarDeclarationContext ctx) {
+            names.add(ctx.IDENTIFIER().getText());
+        }
+
+        @Override
+        public void enterDeclaration(DeclarationContext ctx) {
+            names.add(ctx.IDENTIFIER().getText());
+        }
+
+        @Override
+        public void enterParameter(ParameterContext ctx) {
+            names.add(ctx.IDENTIFIER().getText());
+        }
+
+        @Override
+        public void enterFunctionDeclaration(FunctionDeclarationContext ctx) {
+            names.add(ctx.IDENTIFIER().getText());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package minilang.bench;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.ast.AstBuilder;
+import minilang.ast.Program;
+
+/**
+ * Small numeric MiniLang programs for the execution benchmarks, each with
+ * the value its {@code main} returns, computed here in Java.
+ *
+ * <p>MiniLang gives {@code +} and {@code -} higher precedence than
+ * {@code *}, {@code /} and {@code %}, so mixed arithmetic is
+ * parenthesised.</p>
+ */
+public enum Workload {
+
+    /** Doubly recursive Fibonacci: calls and returns. */
+    FIB("""
+            int fib(int n)
+            {
+                if (n < 2)
+                {
+                    return n;
+                }
+                return fib(n - 1) + fib(n - 2);
+            }
+            int main()
+            {
+                return fib(24);
+            }
+            """, fib(24)),
+
+    /** A counted loop with a branch and compound assignments. */
+    SUM_MULTIPLES("""
+            int main()
+            {
+                int sum = 0;
+                for (int i = 0; i < 300000; i++)
+                {
+                    if (i % 3 == 0 || i % 5 == 0)
+                    {
+                        sum += i;
+                        sum %= 1000003;
+                    }
+                }
+                return sum;
+            }
+            """, sumMultiples(300000)),
+
+    /** Trial division in nested while loops. */
+    PRIMES("""
+            int isPrime(int n)
+            {
+                if (n < 2)
+                {
+                    return 0;
+                }
+                int d = 2;
+                while (d * d <= n)
+                {
+                    if (n % d == 0)
+                    {
+                        return 0;
+                    }
+                    d++;
+                }
+                return 1;
+            }
+            int main()
+            {
+                int count = 0;
+                for (int n = 0; n < 30000; n++)
+                {
+                    count += isPrime(n);
+                }
+                return count;
+            }
+            """, primes(30000)),
+
+    /** Escape-time iterations over a grid, in double arithmetic. */
+    MANDELBROT("""
+            int main()
+            {
+                int total = 0;
+                for (int py = 0; py < 60; py++)
+                {
+                    for (int px = 0; px < 80; px++)
+                    {
+                        double x0 = (px * 0.0375) - 2.0;
+                        double y0 = (py * 0.04) - 1.2;
+                        double x = 0.0;
+                        double y = 0.0;
+                        int k = 0;
+                        while (k < 100 && (x * x) + (y * y) <= 4.0)
+                        {
+                            double t = ((x * x) - (y * y)) + x0;
+                            y = (2.0 * x * y) + y0;
+                            x = t;
+                            k++;
+                        }
+                        total += k;
+                    }
+                }
+                return total;
+            }
+            """, mandelbrot()),
+
+    /** Constant subexpressions and constant globals in a loop, which {@link minilang.ast.ConstantFolder} folds. */
+    CONSTANTS("""
+            double scale = 15.67;
+            int steps = 200000;
+            int main()
+            {
+                int hits = 0;
+                for (int i = 0; i < steps * 1; i++)
+                {
+                    double x = (i % (4 * 25)) * ((scale * 2) / (1 + 1));
+                    if (x >= scale * (60 - 10) && !!(i % 2))
+                    {
+                        hits += 1 * 1;
+                    }
+                }
+                return hits;
+            }
+            """, constants(200000));
+
+    public final String source;
+
+    public final Object expected;
+
+    Workload(String source, Object expected) {
+        this.source = source;
+        this.expected = expected;
+    }
+
+    public Program ast() {
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source))));
+        return AstBuilder.build(parser.program());
+    }
+
+    private static int fib(int n) {
+        return n < 2 ? n : fib(n - 1) + fib(n - 2);
+    }
+
+    private static int sumMultiples(int limit) {
+        int sum = 0;
+        for (int i = 0; i < limit; i++) {
+            if (i % 3 == 0 || i % 5 == 0) {
+                sum += i;
+                sum %= 1000003;
+            }
+        }
+        return sum;
+    }
+
+    private static int primes(int limit) {
+        int count = 0;
+        for (int n = 2; n < limit; n++) {
+            int d = 2;
+            while (d * d <= n && n % d != 0) {
+                d++;
+            }
+            count += d * d > n ? 1 : 0;
+        }
+        return count;
+    }
+
+    private static int constants(int steps) {
+        double scale = 15.67;
+        int hits = 0;
+        for (int i = 0; i < steps; i++) {
+            double x = i % 100 * (scale * 2 / 2);
+            if (x >= scale * 50 && i % 2 != 0) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static int mandelbrot() {
+        int total = 0;
+        for (int py = 0; py < 60; py++) {
+            for (int px = 0; px < 80; px++) {
+                double x0 = px * 0.0375 - 2.0;
+                double y0 = py * 0.04 - 1.2;
+                double x = 0.0;
+                double y = 0.0;
+                int k = 0;
+                while (k < 100 && x * x + y * y <= 4.0) {
+                    double t = x * x - y * y + x0;
+                    y = 2.0 * x * y + y0;
+                    x = t;
+                    k++;
+                }
+                total += k;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,140 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.ast.AstBuilder;
+import minilang.ast.AstPrinter;
+import minilang.ast.Identifier;
+import minilang.ast.Program;
+import minilang.parse.DescentParser;
+import minilang.parse.StreamingParser;
+
+/**
+ * Round-trip test of {@link AstBuilder}: printing the AST of a source and
+ * parsing the output must give the same AST, and the trees built by the
+ * generated, hand-written and streaming parsers must give the same AST.
+ */
+class AstBuilderTest {
+
+    static List<String> edgeCases() {
+        return List.of(
+                "x = 1;",
+                "int a = 1; int b = 2;",
+                "float f = 0.5; void g() { return; } g();",
+                "int f(int a, double b) { if (!(a < b) && a == 1 || b != 2) { a++; } else { --a; } "
+                        + "return (a = b) % 3; }",
+                "for (int i = 0; i <= 10; i += 1;) { while (i >= 2) { i -= 1; s = \"a b\"; } } "
+                        + "for (int j; j; ++j) { }");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) {
+        assertRoundTrips(Corpus.generate(shape, 256));
+    }
+
+    @ParameterizedTest
+    @MethodSource("edgeCases")
+    void edgeCases(String source) {
+        assertRoundTrips(source);
+    }
+
+    /** Lower-casing INT in Turkish gives a dotless ı: type keywords must not depend on the default locale. */
+    @ParameterizedTest
+    @MethodSource("edgeCases")
+    void turkishLocale(String source) {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            assertRoundTrips(source);
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    /** Trees that single-token insertion or deletion recovered without leaving an exception. */
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "x = 1 y = 2;",
+        "int f() { return 1 }",
+        "int f() { x = 1;; return x; }",
+        "int f() { x = = 1; return x; }",
+        "int a = 1 int b = 2;",
+    })
+    void recoveredTreesAreRejected(String source) {
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source))));
+        parser.removeErrorListeners();
+        MiniLangParser.ProgramContext program = parser.program();
+        assertTrue(parser.getNumberOfSyntaxErrors() > 0, "no syntax error in " + source);
+        assertThrows(IllegalArgumentException.class, () -> AstBuilder.build(program));
+    }
+
+    @Test
+    void astRetainsLessThanTree() {
+        String source = Corpus.generate(Corpus.Shape.LONG_FILE, 1024);
+        long before = usedHeap();
+        MiniLangParser.ProgramContext tree = parse(source);
+        long treeBytes = usedHeap() - before;
+        Program ast = AstBuilder.build(tree);
+        tree = null;
+        long astBytes = usedHeap() - before;
+        assertTrue(astBytes < treeBytes, "AST of " + ast.identifiers().size() + " identifiers retains "
+                + astBytes + " bytes, the parse tree " + treeBytes);
+    }
+
+    private static void assertRoundTrips(String source) {
+        Program ast = AstBuilder.build(parse(source));
+        String printed = AstPrinter.print(ast);
+        Program reparsed = AstBuilder.build(parse(printed));
+        assertEquals(printed, AstPrinter.print(reparsed), "printed AST");
+        assertEquals(names(ast.identifiers()), names(reparsed.identifiers()), "identifiers");
+
+        CommonTokenStream tokens = new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source)));
+        assertEquals(printed, AstPrinter.print(AstBuilder.build(new DescentParser(tokens).program())), "descent AST");
+
+        AstBuilder builder = new AstBuilder();
+        StringBuilder streamed = new StringBuilder();
+        StreamingParser.of(new MiniLangLexer(CharStreams.fromString(source)))
+                .program(item -> streamed.append(AstPrinter.print(builder.item(item))));
+        assertEquals(printed, streamed.toString(), "streamed AST");
+    }
+
+    private static MiniLangParser.ProgramContext parse(String source) {
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source))));
+        parser.removeErrorListeners();
+        MiniLangParser.ProgramContext program = parser.program();
+        assertEquals(0, parser.getNumberOfSyntaxErrors(), () -> "Syntax errors in:\n" + source);
+        return program;
+    }
+
+    private static String names(List<Identifier> identifiers) {
+        StringBuilder sb = new StringBuilder();
+        for (Identifier identifier : identifiers) {
+            sb.append(identifier.id()).append(':').append(identifier.name()).append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
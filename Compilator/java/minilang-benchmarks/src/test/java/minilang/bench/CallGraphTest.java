@@ -0,0 +1,130 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.StringJoiner;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.sema.CallGraph;
+
+/**
+ * Test of {@link CallGraph} on small programs with known recursion, against
+ * a naive search for cycles on {@link Corpus#calls}, and on a call chain too
+ * long for a recursive depth-first search.
+ */
+class CallGraphTest {
+
+    private static final int CHAIN = 100_000;
+
+    /** Source, then each function as {@code name:recursion callees}. */
+    static String[][] cases() {
+        return new String[][] {
+            {"int fib(int n) { if (n < 2) { return n; } return fib(n - 1) + fib(n - 2); }", "fib:DIRECT 0"},
+            {"int even(int n) { if (n == 0) { return 1; } return odd(n - 1); }"
+                + " int odd(int n) { if (n == 0) { return 0; } return even(n - 1); }", "even:MUTUAL 1, odd:MUTUAL 0"},
+            {"int f() { int ff = 1; print(ff); return g(); } int g() { return missing(1); }", "f:NONE 1, g:NONE"},
+            {"int a() { return b(); } int b() { return a() + b(); } int c() { return a() + (b() * a()); }",
+                "a:MUTUAL 1, b:MUTUAL 0 1, c:NONE 0 1"},
+            {"int h() { return 1; } int h() { return h(); } h();", "h:NONE"},
+            {"void top() { while (top2()) { } } int top2() { if (1) { for (int i = 0; i < 2; i++) { top(); } } return 0; }",
+                "top:MUTUAL 1, top2:MUTUAL 0"},
+        };
+    }
+
+    @ParameterizedTest
+    @MethodSource("cases")
+    void knownRecursion(String source, String expected) {
+        assertEquals(expected, describe(CallGraph.build(parse(source))));
+    }
+
+    /**
+     * Every function must have the recursion that a search from each of its
+     * callees finds, and only call functions of its own or lower-numbered
+     * components. The naive search is quadratic, so the programs stay small.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {10, 500, 1000})
+    void sameRecursionAsNaiveSearch(int functions) {
+        CallGraph graph = CallGraph.build(parse(Corpus.calls(functions)));
+        for (int f = 0; f < graph.size(); f++) {
+            boolean self = false;
+            boolean cycle = false;
+            for (int callee : graph.callees(f)) {
+                if (callee == f) {
+                    self = true;
+                } else {
+                    cycle |= reaches(graph, callee, f);
+                }
+                assertTrue(graph.component(callee) <= graph.component(f),
+                        graph.name(f) + " calls into a later component");
+            }
+            CallGraph.Recursion expected = cycle ? CallGraph.Recursion.MUTUAL
+                    : self ? CallGraph.Recursion.DIRECT : CallGraph.Recursion.NONE;
+            assertEquals(expected, graph.recursion(f), graph.name(f));
+        }
+    }
+
+    /** Each function calls the next, so the search from the first goes down the whole chain. */
+    @Test
+    void longChain() {
+        StringBuilder chain = new StringBuilder();
+        for (int i = 0; i < CHAIN; i++) {
+            chain.append("int f").append(i).append("() { return f").append(i + 1).append("(); }\n");
+        }
+        chain.append("int f").append(CHAIN).append("() { return 0; }\n");
+        CallGraph graph = CallGraph.build(parse(chain.toString()));
+        for (int f = 0; f < graph.size(); f++) {
+            assertFalse(graph.isRecursive(f), graph.name(f));
+            assertEquals(CHAIN - f, graph.component(f), graph.name(f));
+        }
+    }
+
+    private static boolean reaches(CallGraph graph, int from, int to) {
+        boolean[] seen = new boolean[graph.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(from);
+        seen[from] = true;
+        while (!queue.isEmpty()) {
+            int f = queue.poll();
+            if (f == to) {
+                return true;
+            }
+            for (int callee : graph.callees(f)) {
+                if (!seen[callee]) {
+                    seen[callee] = true;
+                    queue.add(callee);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String describe(CallGraph graph) {
+        StringJoiner functions = new StringJoiner(", ");
+        for (int f = 0; f < graph.size(); f++) {
+            StringBuilder sb = new StringBuilder(graph.name(f)).append(':').append(graph.recursion(f));
+            for (int callee : graph.callees(f)) {
+                sb.append(' ').append(callee);
+            }
+            functions.add(sb);
+        }
+        return functions.toString();
+    }
+
+    private static MiniLangParser.ProgramContext parse(String source) {
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source))));
+        return parser.program();
+    }
+}
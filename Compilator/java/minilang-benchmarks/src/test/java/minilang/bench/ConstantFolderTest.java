@@ -0,0 +1,68 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.ast.AstBuilder;
+import minilang.ast.AstPrinter;
+import minilang.ast.ConstantFolder;
+import minilang.ast.Program;
+
+/**
+ * Test of what {@link ConstantFolder} folds and what it must leave alone:
+ * each program must fold to the AST of the one after it, and folding that
+ * again must change nothing. That the folded programs still run the same is
+ * tested by {@link InterpreterTest}, as every backend folds on load.
+ */
+class ConstantFolderTest {
+
+    /** Source, then the source it folds to. */
+    static String[][] cases() {
+        return new String[][] {
+            {"int main() { return (2 * 3) + 4; }", "int main() { return 10; }"},
+            {"double main() { return 1 + 0.5; }", "double main() { return 1.5; }"},
+            {"string main() { return (\"a\" + 1) + 2.5; }", "string main() { return \"a12.5\"; }"},
+            {"int main() { return (1 < 2) && (\"a\" != \"b\"); }", "int main() { return 1; }"},
+            {"int f(int x, double d, float e) { print(x + 0, 0 + x, d - 0, d * 1, e * 1, e / 1); return !!x; }",
+                "int f(int x, double d, float e) { print(x, x, d, d, e, e); return !!x; }"},
+            {"void f(double d, float e, int x) { print(d + 0, e * 1.0, x / 1.0, \"\" + 0); }",
+                "void f(double d, float e, int x) { print(d + 0, e * 1.0, x / 1.0, \"0\"); }"},
+            {"void f(int x) { if (!!x && 1) { print(!!(x < 2)); } while (0 || !!(x > 1)) { x--; } }",
+                "void f(int x) { if (x) { print(x < 2); } while (x > 1) { x--; } }"},
+            {"double g = 15.67; int n = 2; int f(int n) { return n * g; } double main() { return g * n; }",
+                "double g = 15.67; int n = 2; int f(int n) { return n * 15.67; } double main() { return 31.34; }"},
+            {"int a = g; int g = 1; int h = 2; float k = 0.5; int f() { h++; return (g + h) + k; }",
+                "int a = g; int g = 1; int h = 2; float k = 0.5; int f() { h++; return (1 + h) + k; }"},
+            {"int a = f(); int g = 1; int f() { return g; }", "int a = f(); int g = 1; int f() { return g; }"},
+            {"int main() { return ((1 / 0) + (0 && \"s\")) + ((0 - 1) + 2147483648); }",
+                "int main() { return ((1 / 0) + (0 && \"s\")) + ((0 - 1) + 2147483648); }"},
+        };
+    }
+
+    @ParameterizedTest
+    @MethodSource("cases")
+    void folds(String source, String expected) {
+        Program folded = ConstantFolder.fold(parse(source));
+        assertEquals(AstPrinter.print(parse(expected)), AstPrinter.print(folded));
+        assertEquals(AstPrinter.print(folded), AstPrinter.print(ConstantFolder.fold(folded)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Workload.class)
+    void foldedWorkloadsRoundTrip(Workload workload) {
+        String folded = AstPrinter.print(ConstantFolder.fold(workload.ast()));
+        assertEquals(folded, AstPrinter.print(parse(folded)));
+    }
+
+    private static Program parse(String source) {
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source))));
+        return AstBuilder.build(parser.program());
+    }
+}
@@ -0,0 +1,98 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.parse.DescentParser;
+
+/**
+ * Differential test of {@link DescentParser} against the generated
+ * {@link MiniLangParser}: both must build the same context classes with the
+ * same tokens, token ranges and invoking states, on every corpus shape and
+ * on the inputs where the top-level declarations are ambiguous.
+ */
+class DescentParserTest {
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) {
+        assertSameTree(Corpus.generate(shape, 256));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "int a = 1;",
+        "int a = 1; int b = 2;",
+        "int a = 1; int b = 2; int c;",
+        "int a = 1; int b = 2; int f() { return a; }",
+        "int a = 1; b = 2; int c = 3;",
+        "int f() { for (int i = 0; i < 3; i += 1;) { i++; } return !a && b || c = d + e; }",
+        "void g(int x, string y) { if (x) { } else { --x; } while (x != 0) { g(x, \"s\"); } return; }",
+    })
+    void edgeCases(String source) {
+        assertSameTree(source);
+    }
+
+    private static void assertSameTree(String source) {
+        CommonTokenStream tokens = new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source)));
+        ParseTree expected = new MiniLangParser(tokens).program();
+        ParseTree actual = new DescentParser(tokens).program();
+
+        Deque<ParseTree[]> pending = new ArrayDeque<>();
+        pending.push(new ParseTree[] {expected, actual});
+        while (!pending.isEmpty()) {
+            ParseTree[] pair = pending.pop();
+            ParseTree e = pair[0];
+            ParseTree a = pair[1];
+            if (e.getClass() != a.getClass() || e.getChildCount() != a.getChildCount()) {
+                mismatch(e, a);
+            }
+            if (e instanceof TerminalNode terminal) {
+                if (terminal.getSymbol().getTokenIndex() != ((TerminalNode) a).getSymbol().getTokenIndex()) {
+                    mismatch(e, a);
+                }
+                continue;
+            }
+            ParserRuleContext ec = (ParserRuleContext) e;
+            ParserRuleContext ac = (ParserRuleContext) a;
+            if (ec.invokingState != ac.invokingState
+                    || ec.getStart().getTokenIndex() != ac.getStart().getTokenIndex()
+                    || ec.getStop().getTokenIndex() != ac.getStop().getTokenIndex()) {
+                mismatch(e, a);
+            }
+            for (int i = 0; i < e.getChildCount(); i++) {
+                if (a.getChild(i).getParent() != a) {
+                    mismatch(e.getChild(i), a.getChild(i));
+                }
+                pending.push(new ParseTree[] {e.getChild(i), a.getChild(i)});
+            }
+        }
+    }
+
+    private static void mismatch(ParseTree expected, ParseTree actual) {
+        fail("DescentParser differs from MiniLangParser:\n  expected " + describe(expected)
+                + "\n  actual   " + describe(actual));
+    }
+
+    private static String describe(ParseTree tree) {
+        String range = "";
+        if (tree instanceof ParserRuleContext ctx) {
+            range = " [" + ctx.getStart().getTokenIndex() + ".." + ctx.getStop().getTokenIndex()
+                    + "] invokingState=" + ctx.invokingState;
+        }
+        return tree.getClass().getSimpleName() + range + " '" + tree.getText() + "'";
+    }
+}
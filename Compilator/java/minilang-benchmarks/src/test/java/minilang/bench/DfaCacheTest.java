@@ -0,0 +1,147 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.dfa.DfaCache;
+
+/**
+ * Round-trip test of {@link DfaCache}: after parsing a source, saving the
+ * DFAs, clearing them and loading the file back, the lexer and parser DFAs
+ * must print the same, and parsing the source again must give the same tree
+ * without adding a single DFA state. Damaged copies of a cache must be
+ * rejected or ignored without installing anything.
+ */
+class DfaCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void clear() {
+        DfaCache.clear();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void roundTrip(Corpus.Shape shape) throws IOException {
+        String source = Corpus.generate(shape, 256);
+        Path file = dir.resolve("minilang.dfa");
+        DfaCache.clear();
+        String expectedTree = parse(source);
+        List<String> expectedDfa = describe();
+        int expectedStates = DfaCache.stateCount();
+
+        DfaCache.save(file);
+        DfaCache.clear();
+        assertTrue(DfaCache.load(file), "DfaCache did not accept the file it just wrote");
+        assertEquals(expectedDfa, describe());
+        assertEquals(expectedTree, parse(source));
+        assertEquals(expectedStates, DfaCache.stateCount(), "states after parsing with the loaded DFAs");
+    }
+
+    @Test
+    void flippedBytes() throws IOException {
+        byte[] cache = cache();
+        Random random = new Random(42);
+        int rejected = 0;
+        for (int trial = 0; trial < 500; trial++) {
+            byte[] damaged = cache.clone();
+            for (int i = 0; i < 3; i++) {
+                damaged[random.nextInt(damaged.length)] ^= (byte) (1 + random.nextInt(255));
+            }
+            Path file = write(damaged);
+            try {
+                assertFalse(DfaCache.load(file), "A cache with 3 flipped bytes was loaded");
+            } catch (IOException e) {
+                rejected++;
+            }
+            assertEquals(0, DfaCache.stateCount(), "states installed from a damaged cache");
+        }
+        // Only a damaged version or fingerprint in the header is ignored
+        // rather than rejected.
+        assertTrue(rejected > 450, rejected + " of 500 damaged caches rejected");
+    }
+
+    @Test
+    void hugeCount() throws IOException {
+        // A count far beyond the file behind a valid checksum: the number
+        // of lexer prediction contexts, after the header, CRC and the
+        // lexer's decision count.
+        int payload = 4 + 4 + 32 + 4;
+        byte[] huge = cache();
+        ByteBuffer.wrap(huge).putInt(payload + 4, Integer.MAX_VALUE - 1);
+        CRC32 crc = new CRC32();
+        crc.update(huge, payload, huge.length - payload);
+        ByteBuffer.wrap(huge).putInt(payload - 4, (int) crc.getValue());
+        Path file = write(huge);
+        assertThrows(IOException.class, () -> DfaCache.load(file));
+        assertEquals(0, DfaCache.stateCount());
+    }
+
+    @Test
+    void truncated() throws IOException {
+        byte[] cache = cache();
+        Path file = write(Arrays.copyOf(cache, cache.length / 2));
+        assertThrows(IOException.class, () -> DfaCache.load(file));
+        assertEquals(0, DfaCache.stateCount());
+    }
+
+    /** A cache saved from a parse of the long-file corpus, with the DFAs cleared again. */
+    private byte[] cache() throws IOException {
+        DfaCache.clear();
+        parse(Corpus.generate(Corpus.Shape.LONG_FILE, 64));
+        Path file = dir.resolve("minilang.dfa");
+        DfaCache.save(file);
+        DfaCache.clear();
+        return Files.readAllBytes(file);
+    }
+
+    private Path write(byte[] bytes) throws IOException {
+        Path file = dir.resolve("damaged.dfa");
+        Files.write(file, bytes);
+        DfaCache.clear();
+        return file;
+    }
+
+    private static String parse(String source) {
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(
+                new MiniLangLexer(CharStreams.fromString(source))));
+        return parser.program().toStringTree(parser);
+    }
+
+    private static List<String> describe() {
+        List<String> dfas = new ArrayList<>();
+        for (DFA dfa : new MiniLangLexer(null).getInterpreter().decisionToDFA) {
+            dfas.add(dfa.toLexerString());
+        }
+        for (DFA dfa : new MiniLangParser((TokenStream) null).getInterpreter().decisionToDFA) {
+            dfas.add(dfa.toString(MiniLangParser.VOCABULARY));
+        }
+        return dfas;
+    }
+}
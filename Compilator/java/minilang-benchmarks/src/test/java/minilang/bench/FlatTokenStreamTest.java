@@ -0,0 +1,92 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.lex.FlatTokenStream;
+import minilang.parse.DescentParser;
+
+/**
+ * Differential test of {@link FlatTokenStream} against
+ * {@link CommonTokenStream}: the tokens it hands out must have the same
+ * fields, and the generated and hand-written parsers must build the same
+ * trees and report the same errors from it, on every corpus shape and on
+ * malformed input.
+ */
+class FlatTokenStreamTest {
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) {
+        assertSameStream(Corpus.generate(shape, 256));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        "int a = 1; int b = 2;",
+        "x = \"multi\nline\" + y; z = 1;\n\n  w = 2;",
+        "int f( { return 1 + ; }",
+        "a & b | c & @ # $",
+        "y = \"unterminated",
+    })
+    void edgeCases(String source) {
+        assertSameStream(source);
+    }
+
+    private static void assertSameStream(String source) {
+        CommonTokenStream common = new CommonTokenStream(lexer(source));
+        common.fill();
+        FlatTokenStream flat = new FlatTokenStream(lexer(source));
+        flat.fill();
+        assertEquals(common.size(), flat.size(), "token count");
+        for (int i = 0; i < common.size(); i++) {
+            assertEquals(describe(common.get(i)), describe(flat.get(i)), "token " + i);
+        }
+        assertEquals(common.getText(), flat.getText());
+
+        List<String> expectedErrors = new ArrayList<>();
+        String expected = parse(new CommonTokenStream(lexer(source)), expectedErrors);
+        List<String> actualErrors = new ArrayList<>();
+        String actual = parse(new FlatTokenStream(lexer(source)), actualErrors);
+        assertEquals(expected, actual, "parse tree");
+        assertEquals(expectedErrors, actualErrors, "syntax errors");
+
+        if (expectedErrors.isEmpty()) {
+            FlatTokenStream tokens = new FlatTokenStream(lexer(source));
+            MiniLangParser parser = new MiniLangParser(tokens);
+            assertEquals(expected, new DescentParser(tokens).program().toStringTree(parser), "descent parse tree");
+        }
+    }
+
+    private static MiniLangLexer lexer(String source) {
+        MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        return lexer;
+    }
+
+    private static String parse(TokenStream tokens, List<String> errors) {
+        MiniLangParser parser = new MiniLangParser(tokens);
+        parser.removeErrorListeners();
+        parser.addErrorListener(TableLexerTest.collect(errors));
+        return parser.program().toStringTree(parser);
+    }
+
+    private static String describe(Token token) {
+        return token.getTokenIndex() + " " + token.getType() + " [" + token.getStartIndex() + ".."
+                + token.getStopIndex() + "] " + token.getLine() + ":" + token.getCharPositionInLine()
+                + " channel " + token.getChannel() + " '" + token.getText() + "'";
+    }
+}
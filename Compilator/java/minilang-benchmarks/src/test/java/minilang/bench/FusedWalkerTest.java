@@ -0,0 +1,111 @@
+package minilang.bench;
+
+import static minilang.MiniLangParser.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangListener;
+import minilang.MiniLangParser;
+import minilang.parse.FusedWalker;
+
+/**
+ * Differential test of {@link FusedWalker} against one
+ * {@link ParseTreeWalker#DEFAULT} walk per listener: each listener must get
+ * exactly the calls of a full walk on the rules it subscribes to, in the
+ * same order.
+ */
+class FusedWalkerTest {
+
+    /** Rule subscriptions walked together; the first three skip every expression. */
+    private static final int[][] SUBSCRIPTIONS = {
+        {RULE_functionDeclaration, RULE_statement},
+        {RULE_ifStatement, RULE_whileStatement, RULE_block},
+        {RULE_varDeclaration, RULE_declaration, RULE_parameter, RULE_functionDeclaration},
+        {RULE_functionCall},
+        {RULE_type, FusedWalker.TERMINALS},
+    };
+
+    static Stream<String> programs() {
+        return Stream.of(InterpreterTest.PROGRAMS).map(program -> program[0]);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) {
+        assertSameCalls(Corpus.generate(shape, 256));
+    }
+
+    @ParameterizedTest
+    @MethodSource("programs")
+    void programs(String source) {
+        assertSameCalls(source);
+    }
+
+    /** Asserts that fused walks of {@code source}, with and without skipping, make the same calls as separate walks. */
+    private static void assertSameCalls(String source) {
+        ParseTree tree = parse(source);
+        List<String> all = new ArrayList<>();
+        ParseTreeWalker.DEFAULT.walk(recorder(all), tree);
+        // Without the last subscription to terminals nothing stops the walker from skipping.
+        for (int listeners : new int[] {SUBSCRIPTIONS.length - 1, SUBSCRIPTIONS.length}) {
+            FusedWalker walker = new FusedWalker();
+            List<List<String>> calls = new ArrayList<>();
+            for (int i = 0; i < listeners; i++) {
+                calls.add(new ArrayList<>());
+                walker.add(recorder(calls.get(i)), SUBSCRIPTIONS[i]);
+            }
+            walker.walk(tree);
+            for (int i = 0; i < listeners; i++) {
+                assertEquals(filter(all, SUBSCRIPTIONS[i]), calls.get(i), "listener " + i + " of " + listeners);
+            }
+        }
+    }
+
+    private static List<String> filter(List<String> calls, int[] rules) {
+        List<String> kept = new ArrayList<>();
+        for (String call : calls) {
+            int rule = Integer.parseInt(call.split(" ")[1]);
+            for (int subscribed : rules) {
+                if (rule == subscribed) {
+                    kept.add(call);
+                    break;
+                }
+            }
+        }
+        return kept;
+    }
+
+    /** A listener that records each call with the rule and identity of its node; -1 for terminals. */
+    private static MiniLangListener recorder(List<String> calls) {
+        return (MiniLangListener) Proxy.newProxyInstance(MiniLangListener.class.getClassLoader(),
+                new Class<?>[] {MiniLangListener.class},
+                (proxy, method, arguments) -> {
+                    int rule = arguments[0] instanceof ParserRuleContext ctx ? ctx.getRuleIndex()
+                            : FusedWalker.TERMINALS;
+                    calls.add(method.getName() + " " + rule + " " + System.identityHashCode(arguments[0]));
+                    return null;
+                });
+    }
+
+    private static ProgramContext parse(String source) {
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source))));
+        parser.removeErrorListeners();
+        parser.addErrorListener(new BaseErrorListener());
+        return parser.program();
+    }
+}
@@ -0,0 +1,167 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.ast.AstBuilder;
+import minilang.ast.Program;
+import minilang.interp.Interpreter;
+import minilang.jvm.JvmProgram;
+import minilang.vm.VirtualMachine;
+
+/**
+ * Differential test of {@link Interpreter}, {@link JvmProgram} and
+ * {@link VirtualMachine} on every {@link Workload} and on small programs
+ * covering their conversions, scoping, strings and errors. All must give
+ * the same results.
+ */
+class InterpreterTest {
+
+    /** Source, then the expected value of {@code main} and the expected output. */
+    static final String[][] PROGRAMS = {
+        {"int main() { return (7 / 2) + (7 % 3); }", "4", ""},
+        {"double main() { return 7 / 2.0; }", "3.5", ""},
+        {"int main() { float f = 2.75; int i = f * 2; return i; }", "5", ""},
+        {"float half(int n) { return n / 2; } float main() { return half(5); }", "2.0", ""},
+        {"int main() { return (1 < 2) + (2 <= 2) + (3 == 4) + (!0) + (!(5 > 1)); }", "3", ""},
+        {"int main() { int x = 0; if (x != 0 && 1 / x > 0) { return 1; } return 2; }", "2", ""},
+        {"int g = 10; int bump() { g += 5; return g; } int main() { bump(); return bump(); }", "20", ""},
+        {"int main() { int x = 1; if (x) { int x = 5; x++; } return x; }", "1", ""},
+        {"int main() { int a; int b; a = b = 3; return a * b; }", "9", ""},
+        {"int main() { int n = 0; for (int i = 10; i > 0; i -= 3;) { n++; } return n; }", "4", ""},
+        {"string greet(string who) { return \"hi \" + who; } string main() { return greet(\"bob\") + 1; }",
+            "hi bob1", ""},
+        {"int main() { string s; return s == \"\"; }", "1", ""},
+        {"void main() { int i = 0; while (i < 3) { print(\"i\", i, i * 0.5); i++; } }", "null",
+            "i 0 0.0\ni 1 0.5\ni 2 1.0\n"},
+        {"int f() { } int main() { return f() + 1; }", "1", ""},
+        {"x = 1; int x = 4; x += 2; print(x); if (x > 3) { int y = x; print(y + 1); }", "null", "6\n7\n"},
+        {"int main() { double z = 0.0; double n = z / z;"
+            + " return (n < 1) + (n > 1) + (n == n) + (n != n) + (n <= 1) + (n >= 1) + !n; }", "1", ""},
+        {"int main() { float f = 0.5; int n = 0; while (f) { f -= 0.25; n++; }"
+            + " return (n + ((1 || 0) * 10)) + (0 && 1); }", "12", ""},
+        {"string s = \"a\"; int c = 0; void main() { s += \"b\"; c += 2; c++; print(s, c, 1.5 + s); }", "null",
+            "ab 3 1.5ab\n"},
+        {"int main() { int x = 1; int y = x + (x = 5); return (y * 10) + x; }", "65", ""},
+        {"double mix(int a, string s, double d, float e) { print(s, a, d, e); return (a + d) + e; }"
+            + " double main() { float f = 0.5; return mix(1, \"n\" + 2, mix(2, \"m\", 0.25, f), 1.5); }", "5.25",
+            "m 2 0.25 0.5\nn2 1 2.75 1.5\n"},
+        {"int a = f(); int g = 5; int f() { return g; } int main() { return (a * 10) + g; }", "5", ""},
+        {"int g = 3; int f(int g) { return g * 1; } int main() { return f(7) + g; }", "10", ""},
+        {"int g = 2.7; double h = 3; string s = \"x\"; string main() { return s + (g + h) + (g / 2); }", "x5.01", ""},
+        {"string main() { double m = 0.0 * (0 - 1); float f = 0.1; return \"\" + m + (m + 0) + (m - 0) + (f * 1); }",
+            "-0.00.0-0.00.1", ""},
+        {"int main() { int x = 5; return ((((!!x) + (1 && x)) + ((x || 0) + (0 || (x > 1)))) * 10)"
+            + " + ((2147483647 + 1) < 0) + ((0.0 / 0.0) != (0.0 / 0.0)); }", "42", ""},
+    };
+
+    /** Programs that must be rejected, and a fragment of the message. */
+    static final String[][] ERRORS = {
+        {"int main() { return y; }", "line 1: variable 'y' is not declared"},
+        {"int main() { int x = 1; int x = 2; return x; }", "already declared in this scope"},
+        {"int main() { string s = 1; return 0; }", "cannot convert int to string"},
+        {"int main() { return \"a\" * 2; }", "not defined for strings"},
+        {"void f() { } int main() { return f(); }", "is void and has no value"},
+        {"int f(int a) { return a; } int main() { return f(); }", "takes 1 arguments, not 0"},
+        {"int main() { return g(); }", "function 'g' is not declared"},
+        {"return 1;", "return outside a function"},
+        {"int main() { return 0 && \"s\"; }", "a string is not a condition"},
+        {"int main() { return 4 / 2 * 2147483648; }", "does not fit an int"},
+    };
+
+    /** The ways to run a program: each loads it and returns what runs it. */
+    enum Backend {
+        INTERPRETER {
+            @Override
+            Supplier<Object> load(Program program, PrintStream out) {
+                return Interpreter.load(program, out)::run;
+            }
+        },
+        JVM_PROGRAM {
+            @Override
+            Supplier<Object> load(Program program, PrintStream out) {
+                return JvmProgram.load(program, out)::run;
+            }
+        },
+        VIRTUAL_MACHINE {
+            @Override
+            Supplier<Object> load(Program program, PrintStream out) {
+                return VirtualMachine.load(program, out)::run;
+            }
+        };
+
+        abstract Supplier<Object> load(Program program, PrintStream out);
+    }
+
+    static Stream<Arguments> programs() {
+        return Stream.of(Backend.values()).flatMap(backend -> Stream.of(PROGRAMS)
+                .map(program -> Arguments.of(backend, program[0], program[1], program[2])));
+    }
+
+    static Stream<Arguments> errors() {
+        return Stream.of(Backend.values()).flatMap(backend -> Stream.of(ERRORS)
+                .map(program -> Arguments.of(backend, program[0], program[1])));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Workload.class)
+    void workloads(Workload workload) {
+        for (Backend backend : Backend.values()) {
+            assertEquals(workload.expected, backend.load(workload.ast(), System.out).get(), backend.name());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("programs")
+    void programs(Backend backend, String source, String value, String output) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Supplier<Object> run = backend.load(parse(source), new PrintStream(out, true, StandardCharsets.UTF_8));
+        assertEquals(value, String.valueOf(run.get()));
+        assertEquals(output, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @ParameterizedTest
+    @MethodSource("errors")
+    void errors(Backend backend, String source, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> backend.load(parse(source), System.out));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+
+    /** Unbounded recursion is a runtime error of the program, not a {@link StackOverflowError}. */
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "int f(int n) { return f(n + 1) + 1; } int main() { return f(0); }",
+        "int g(int n) { return f(n); } int f(int n) { return g(n + 1); } int main() { return f(0); }",
+        "void f() { print(1); f(); } f();",
+    })
+    void stackOverflow(String source) {
+        Interpreter interpreter = Interpreter.load(parse(source), new PrintStream(OutputStream.nullOutputStream()));
+        IllegalStateException e = assertThrows(IllegalStateException.class, interpreter::run);
+        assertTrue(e.getMessage().matches("stack overflow in '[fg]'"), e.getMessage());
+        assertThrows(IllegalStateException.class, interpreter::run, "a second run");
+    }
+
+    private static Program parse(String source) {
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source))));
+        return AstBuilder.build(parser.program());
+    }
+}
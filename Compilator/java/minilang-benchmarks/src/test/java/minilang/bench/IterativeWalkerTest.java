@@ -0,0 +1,115 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangBaseListener;
+import minilang.MiniLangLexer;
+import minilang.MiniLangListener;
+import minilang.MiniLangParser;
+import minilang.parse.IterativeWalker;
+
+/**
+ * Differential test of {@link IterativeWalker} against
+ * {@link ParseTreeWalker#DEFAULT}: both must make the same listener calls, on
+ * the same nodes, in the same order, and the iterative one must also walk an
+ * expression too deep for the default walker.
+ */
+class IterativeWalkerTest {
+
+    /** Terms of the deep expression, each one a level of the tree. */
+    private static final int TERMS = 100_000;
+
+    static Stream<String> programs() {
+        return Stream.of(InterpreterTest.PROGRAMS).map(program -> program[0]);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) {
+        assertSameCalls(Corpus.generate(shape, 256));
+    }
+
+    @ParameterizedTest
+    @MethodSource("programs")
+    void programs(String source) {
+        assertSameCalls(source);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "int f( { return 1; }",
+        "int x = ; x = 2 +;",
+        "while (1) { int y = 2 } print(y);",
+    })
+    void syntaxErrors(String source) {
+        assertSameCalls(source);
+    }
+
+    @Test
+    void deepExpression() {
+        StringBuilder sb = new StringBuilder("int x = a");
+        for (int i = 1; i < TERMS; i++) {
+            sb.append(" + a");
+        }
+        NameCounter counter = new NameCounter();
+        IterativeWalker.walk(counter, parse(sb.append(';').toString()));
+        assertEquals(TERMS, counter.names);
+    }
+
+    /** Asserts that both walkers make the same calls on {@code source}, naming the first that differs. */
+    private static void assertSameCalls(String source) {
+        ParseTree tree = parse(source);
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        ParseTreeWalker.DEFAULT.walk(recorder(expected), tree);
+        IterativeWalker.walk(recorder(actual), tree);
+        int i = 0;
+        while (i < Math.min(expected.size(), actual.size()) && expected.get(i).equals(actual.get(i))) {
+            i++;
+        }
+        assertEquals(i < expected.size() ? expected.get(i) : "none", i < actual.size() ? actual.get(i) : "none",
+                "listener call " + i);
+    }
+
+    /** A listener that records each call with the identity of its node. */
+    private static MiniLangListener recorder(List<String> calls) {
+        return (MiniLangListener) Proxy.newProxyInstance(MiniLangListener.class.getClassLoader(),
+                new Class<?>[] {MiniLangListener.class},
+                (proxy, method, arguments) -> {
+                    calls.add(method.getName() + " " + System.identityHashCode(arguments[0]));
+                    return null;
+                });
+    }
+
+    private static final class NameCounter extends MiniLangBaseListener {
+        long names;
+
+        @Override
+        public void enterIdentifierExpr(MiniLangParser.IdentifierExprContext ctx) {
+            names++;
+        }
+    }
+
+    private static MiniLangParser.ProgramContext parse(String source) {
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source))));
+        parser.removeErrorListeners();
+        parser.addErrorListener(new BaseErrorListener());
+        return parser.program();
+    }
+}
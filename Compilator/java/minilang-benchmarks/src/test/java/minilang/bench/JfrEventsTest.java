@@ -0,0 +1,129 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import minilang.MiniLangBaseListener;
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.driver.BatchReport;
+import minilang.driver.CompilationDriver;
+import minilang.driver.FileResult;
+import minilang.parse.FusedWalker;
+import minilang.parse.IterativeWalker;
+import minilang.sema.CallGraph;
+import minilang.sema.SemanticAnalyzer;
+
+/**
+ * Test that compiling with a flight recording on records every phase event,
+ * with the source name, sizes and counts the driver reports and the bytes
+ * each phase allocated.
+ *
+ * <p>It records the driver parsing one file per corpus shape, then walks
+ * and analyses a tree parsed from a named stream, and reads the recording
+ * back.</p>
+ */
+class JfrEventsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void phaseEvents() throws IOException {
+        Path sources = Files.createDirectory(dir.resolve("sources"));
+        for (Corpus.Shape shape : Corpus.Shape.values()) {
+            Files.writeString(sources.resolve(shape.name().toLowerCase() + ".txt"), Corpus.generate(shape, 64));
+        }
+        Path jfr = dir.resolve("compile.jfr");
+        BatchReport report;
+        MiniLangParser.ProgramContext tree;
+        try (Recording recording = new Recording()) {
+            for (String event : List.of("minilang.Lex", "minilang.Parse", "minilang.Walk", "minilang.Analysis")) {
+                recording.enable(event).withoutThreshold();
+            }
+            recording.start();
+            try (CompilationDriver driver = new CompilationDriver(2)) {
+                report = driver.compile(CompilationDriver.sources(sources, "*.txt"));
+            }
+            tree = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(
+                    CharStreams.fromString(Corpus.seed(), "seed.txt")))).program();
+            IterativeWalker.walk(new MiniLangBaseListener(), tree);
+            new FusedWalker().add(new MiniLangBaseListener(), MiniLangParser.RULE_functionDeclaration)
+                    .add(new MiniLangBaseListener(), FusedWalker.TERMINALS).walk(tree);
+            SemanticAnalyzer.analyze(tree);
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                SemanticAnalyzer.analyze(tree, pool);
+            } finally {
+                pool.shutdown();
+            }
+            CallGraph.build(tree);
+            recording.stop();
+            recording.dump(jfr);
+        }
+
+        Map<String, FileResult> files = new HashMap<>();
+        for (FileResult file : report.files()) {
+            files.put(file.file().toString(), file);
+        }
+        int tokens = tree.getStop().getTokenIndex() + 1;
+        Map<String, Integer> counts = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(jfr)) {
+            String type = event.getEventType().getName();
+            String source = event.getString("source");
+            assertTrue(event.getLong("allocated") > 0, "bytes allocated by " + event);
+            assertFalse(event.getDuration().isNegative(), "duration of " + event);
+            switch (type) {
+                case "minilang.Lex", "minilang.Parse" -> {
+                    FileResult file = files.get(source);
+                    assertNotNull(file, "file of " + event);
+                    assertEquals(file.bytes(), event.getLong("bytes"), "bytes of " + event);
+                    assertEquals(file.tokens(), event.getInt("tokens"), "tokens of " + event);
+                    if (type.equals("minilang.Parse")) {
+                        assertEquals(file.stage().name(), event.getString("stage"), "stage of " + event);
+                        assertEquals(file.diagnostics().size(), event.getInt("errors"), "errors of " + event);
+                        assertTrue(event.getInt("rules") > 0, "rules of " + event);
+                    }
+                }
+                case "minilang.Walk" -> {
+                    assertEquals("seed.txt", source);
+                    assertEquals(tokens, event.getInt("tokens"), "tokens of " + event);
+                    assertEquals(event.getString("walker").equals("fused") ? 2 : 1, event.getInt("listeners"),
+                            "listeners of " + event);
+                    assertTrue(event.getInt("rules") > 0, "rules of " + event);
+                }
+                case "minilang.Analysis" -> {
+                    assertEquals("seed.txt", source);
+                    assertEquals(tokens, event.getInt("tokens"), "tokens of " + event);
+                    assertEquals(tree.functionDeclaration().size(), event.getInt("functions"), "functions of " + event);
+                }
+                default -> throw new AssertionError("Unexpected event " + type);
+            }
+            counts.merge(type + (event.hasField("walker") ? " " + event.getString("walker")
+                    : event.hasField("pass") ? " " + event.getString("pass") : ""), 1, Integer::sum);
+        }
+        int shapes = Corpus.Shape.values().length;
+        assertEquals(Map.of("minilang.Lex", shapes, "minilang.Parse", shapes,
+                "minilang.Walk iterative", 1, "minilang.Walk fused", 1, "minilang.Analysis semantic", 1,
+                "minilang.Analysis semantic on pool", 1, "minilang.Analysis call graph", 1), counts);
+    }
+}
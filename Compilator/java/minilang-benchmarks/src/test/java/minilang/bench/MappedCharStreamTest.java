@@ -0,0 +1,97 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangLexer;
+import minilang.lex.MappedCharStream;
+
+/**
+ * Differential test of {@link MappedCharStream} against the stream built
+ * by {@link CharStreams#fromString}: the lexer must produce the same tokens
+ * and errors from both, and random seeks, lookahead, lookbehind and text
+ * ranges must agree, on every corpus shape and on non-ASCII input.
+ */
+class MappedCharStreamTest {
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) throws IOException {
+        assertSameStream(Corpus.generate(shape, 256));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        "x = \"é\" + \"日本語\"; // ü\nint y = 1;",
+        "string s = \"😀😀\"; /* 𝄞 */ s = s + \"ÿ\";",
+        "@ # é 😀 ok \u0000 ߿ ࠀ ￿",
+    })
+    void nonAscii(String source) throws IOException {
+        assertSameStream(source);
+    }
+
+    @Test
+    void acrossCheckpoints() throws IOException {
+        assertSameStream(("int é" + "ß".repeat(700) + " = 1;\n").repeat(20)
+                + Corpus.generate(Corpus.Shape.SMALL_FUNCTIONS, 64));
+    }
+
+    private void assertSameStream(String source) throws IOException {
+        Path file = dir.resolve("source.txt");
+        Files.writeString(file, source);
+
+        List<String> expectedErrors = new ArrayList<>();
+        MiniLangLexer generated = new MiniLangLexer(CharStreams.fromString(source, file.toString()));
+        generated.removeErrorListeners();
+        generated.addErrorListener(TableLexerTest.collect(expectedErrors));
+        List<String> expected = TableLexerTest.tokens(generated);
+
+        List<String> actualErrors = new ArrayList<>();
+        MiniLangLexer mapped = new MiniLangLexer(MappedCharStream.open(file));
+        mapped.removeErrorListeners();
+        mapped.addErrorListener(TableLexerTest.collect(actualErrors));
+        assertEquals(expected, TableLexerTest.tokens(mapped));
+        assertEquals(expectedErrors, actualErrors);
+
+        CharStream reference = CharStreams.fromString(source);
+        CharStream stream = MappedCharStream.open(file);
+        Random random = new Random(7);
+        for (int n = 0; n < 2000; n++) {
+            int position = reference.size() == 0 ? 0 : random.nextInt(reference.size() + 1);
+            reference.seek(position);
+            stream.seek(position);
+            for (int i : new int[] {1, 2, 3, -1, -2}) {
+                assertEquals(reference.LA(i), stream.LA(i), "LA(" + i + ") at " + position);
+            }
+            int stop = position + random.nextInt(64) - 1;
+            assertEquals(reference.getText(Interval.of(position, stop)), stream.getText(Interval.of(position, stop)),
+                    "text at " + position + ".." + stop);
+            if (position < reference.size()) {
+                reference.consume();
+                stream.consume();
+                assertEquals(reference.index(), stream.index(), "index after consume at " + position);
+            }
+        }
+        assertEquals(reference.size(), stream.size());
+        assertEquals(source, stream.toString());
+    }
+}
@@ -0,0 +1,156 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.parse.DescentParser;
+import minilang.parse.LazyBlockContext;
+import minilang.parse.ParseResult;
+import minilang.parse.ParseStage;
+
+/**
+ * Test that {@link DescentParser#outline} leaves every function body
+ * unparsed, and that reading the bodies gives the tree a full parse builds,
+ * down to each context's parent and invoking state.
+ *
+ * <p>It also tests that a body with a syntax error is reported only when it
+ * is read, and that an outline whose braces do not match falls back to a
+ * full parse.</p>
+ */
+class OutlineTest {
+
+    private static final List<String> RULE_NAMES = List.of(MiniLangParser.ruleNames);
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) {
+        assertReadsBack(Corpus.generate(shape, 64));
+    }
+
+    @Test
+    void declarations() {
+        assertReadsBack(Corpus.declarations(2000));
+    }
+
+    @Test
+    void calls() {
+        assertReadsBack(Corpus.calls(500));
+    }
+
+    @Test
+    void noFunctions() {
+        assertReadsBack("int x = 1;");
+    }
+
+    @Test
+    void brokenBody() {
+        List<String> errors = new ArrayList<>();
+        MiniLangParser parser = parser("int f()\n{\n x = ;\n}\nint g(int a)\n{\n return a;\n}\nprint(g(1));", errors);
+        ParseResult result = DescentParser.outline(parser);
+        List<MiniLangParser.FunctionDeclarationContext> functions = result.tree().functionDeclaration();
+        assertEquals(ParseStage.DESCENT, result.stage());
+        assertEquals(2, functions.size());
+        assertEquals(List.of(), errors);
+        functions.get(1).block().statement();
+        assertEquals(List.of(), errors, "reading a valid body");
+        assertEquals(1, functions.get(0).block().statement().size());
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).startsWith("3:"), errors.get(0));
+    }
+
+    /** Recovery ends this body at the inner brace, before the one the outline matched: what it leaves has to be reported and kept. */
+    @Test
+    void bodyEndedEarly() {
+        String early = "int f() { { } return 1 } x = 2;";
+        List<String> expected = new ArrayList<>();
+        parser(early, expected).program();
+        List<String> errors = new ArrayList<>();
+        MiniLangParser.ProgramContext outline = DescentParser.outline(parser(early, errors)).tree();
+        LazyBlockContext.parseAll(outline);
+        MiniLangParser.BlockContext body = outline.functionDeclaration(0).block();
+        assertEquals(expected.size(), errors.size());
+        assertEquals(expected.get(0), errors.get(0));
+        assertEquals("{{}return1}", body.getText());
+        assertEquals(9, body.stop.getTokenIndex());
+    }
+
+    @Test
+    void unbalancedBraces() {
+        MiniLangParser parser = parser("int f()\n{\n if (x)\n {\n}\nint g()\n{\n}", new ArrayList<>());
+        assertNotEquals(ParseStage.DESCENT, DescentParser.outline(parser).stage());
+    }
+
+    /** Asserts that the outline of {@code source} reads back as its full parse. */
+    private static void assertReadsBack(String source) {
+        CommonTokenStream tokens = new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source)));
+        tokens.fill();
+        MiniLangParser.ProgramContext full = new DescentParser(tokens).program();
+
+        ParseResult result = DescentParser.outline(new MiniLangParser(tokens));
+        assertEquals(ParseStage.DESCENT, result.stage());
+        MiniLangParser.ProgramContext outline = result.tree();
+        List<LazyBlockContext> bodies = new ArrayList<>();
+        for (MiniLangParser.FunctionDeclarationContext function : outline.functionDeclaration()) {
+            LazyBlockContext body = assertInstanceOf(LazyBlockContext.class,
+                    function.children.get(function.children.size() - 1));
+            assertFalse(body.isParsed(), function.IDENTIFIER().getText());
+            assertNull(body.children, function.IDENTIFIER().getText());
+            bodies.add(body);
+        }
+        assertEquals(full.toStringTree(RULE_NAMES), outline.toStringTree(RULE_NAMES));
+        for (LazyBlockContext body : bodies) {
+            assertTrue(body.isParsed(), "a body was printed without being parsed");
+        }
+        assertSameContexts(full, outline);
+    }
+
+    private static MiniLangParser parser(String source, List<String> errors) {
+        MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(source));
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                errors.add(line + ":" + charPositionInLine + ": " + msg);
+            }
+        });
+        return parser;
+    }
+
+    private static void assertSameContexts(ParseTree expected, ParseTree actual) {
+        if (actual instanceof ParserRuleContext a && expected instanceof ParserRuleContext e) {
+            String what = a.getText();
+            assertEquals(e.invokingState, a.invokingState, what);
+            assertEquals(e.getRuleIndex(), a.getRuleIndex(), what);
+            assertSame(e.start, a.start, what);
+            assertSame(e.stop, a.stop, what);
+            assertEquals(e.getChildCount(), a.getChildCount(), what);
+        }
+        for (int i = 0; i < expected.getChildCount(); i++) {
+            assertSame(actual, actual.getChild(i).getParent(), "parent of a child of " + actual.getText());
+            assertSameContexts(expected.getChild(i), actual.getChild(i));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.parse.ParseProfiler;
+import minilang.parse.ProfileReport;
+
+/**
+ * Test that {@link ParseProfiler} builds the same trees as a plain parser,
+ * names every decision by the rule its state is in, and exports each one to
+ * JSON.
+ */
+class ParseProfilerTest {
+
+    private static final List<String> RULE_NAMES = List.of(MiniLangParser.ruleNames);
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void sameTree(Corpus.Shape shape) {
+        String source = Corpus.generate(shape, 256);
+        String expected = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source))))
+                .program().toStringTree(RULE_NAMES);
+        assertEquals(expected, new ParseProfiler().parse(CharStreams.fromString(source)).toStringTree(RULE_NAMES));
+    }
+
+    @Test
+    void report() {
+        ParseProfiler profiler = new ParseProfiler();
+        for (Corpus.Shape shape : Corpus.Shape.values()) {
+            profiler.parse(CharStreams.fromString(Corpus.generate(shape, 256)));
+        }
+        ProfileReport report = profiler.report();
+        String json = report.toJson();
+        for (ProfileReport.Decision decision : report.decisions()) {
+            int rule = MiniLangParser._ATN.getDecisionState(decision.decision()).ruleIndex;
+            assertEquals(MiniLangParser.ruleNames[rule], decision.rule(), "rule of decision " + decision.decision());
+            assertNotEquals(0, decision.invocations(), "invocations of decision " + decision.decision());
+            assertTrue(json.contains("{\"decision\":" + decision.decision() + ",\"rule\":\"" + decision.rule() + "\""),
+                    "decision " + decision.decision() + " in the JSON");
+        }
+        assertEquals(Corpus.Shape.values().length, report.sources());
+        assertTrue(report.predictionNanos() <= report.parseNanos(), json.substring(0, json.indexOf('[')));
+    }
+}
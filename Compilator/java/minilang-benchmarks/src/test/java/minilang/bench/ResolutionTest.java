@@ -0,0 +1,107 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.ast.AstBuilder;
+import minilang.ast.Expr;
+import minilang.ast.FunctionDecl;
+import minilang.ast.Program;
+import minilang.ast.Stmt;
+import minilang.ast.Type;
+import minilang.sema.Resolution;
+import minilang.sema.SemanticAnalyzer;
+
+/**
+ * Test of {@link Resolution}, which every backend compiles from: on the
+ * programs of {@link SemanticAnalyzerTest} it must report exactly the errors
+ * {@link SemanticAnalyzer} reports on the parse tree, and it must bind each
+ * name to the declaration in scope.
+ */
+class ResolutionTest {
+
+    @ParameterizedTest
+    @MethodSource("minilang.bench.SemanticAnalyzerTest#programs")
+    void programs(String source) {
+        assertSameErrors(source);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Workload.class)
+    void workloads(Workload workload) {
+        assertSameErrors(workload.source);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) {
+        assertSameErrors(Corpus.generate(shape, 64));
+    }
+
+    @Test
+    void reportsEveryError() {
+        assertSameErrors(SemanticAnalyzerTest.ERRORS);
+    }
+
+    @Test
+    void bindsNamesInScope() {
+        Program program = ast("int x = 1; double f(int x) { if (x) { string x = \"s\"; print(x); } return x * 0.5; }");
+        Resolution resolution = Resolution.resolve(program).check();
+        FunctionDecl function = (FunctionDecl) program.items().get(0);
+        Resolution.Variable parameter = resolution.function(function).parameters().get(0);
+        assertFalse(parameter.global());
+        assertTrue(resolution.globals().get(0).global());
+
+        Stmt.If ifStatement = (Stmt.If) function.body().get(0);
+        assertSame(parameter, resolution.variable((Expr.Name) ifStatement.condition()));
+        Stmt.VarDecl inner = (Stmt.VarDecl) ifStatement.then().get(0);
+        Expr.Call print = ((Stmt.CallStmt) ifStatement.then().get(1)).call();
+        assertSame(resolution.variable(inner), resolution.variable((Expr.Name) print.arguments().get(0)));
+        assertNotSame(parameter, resolution.variable(inner));
+        assertNull(resolution.function(print));
+        assertEquals(Type.VOID, resolution.type(print));
+
+        Expr.BinaryOp value = (Expr.BinaryOp) ((Stmt.Return) function.body().get(1)).value();
+        assertSame(parameter, resolution.variable((Expr.Name) value.left()));
+        assertEquals(Type.DOUBLE, resolution.type(value));
+    }
+
+    @Test
+    void noTypeInError() {
+        Program program = ast("int main() { return (1 + y) * 2; }");
+        Resolution resolution = Resolution.resolve(program);
+        Expr.BinaryOp value = (Expr.BinaryOp) ((Stmt.Return) ((FunctionDecl) program.items().get(0)).body().get(0))
+                .value();
+        assertNull(resolution.type(value));
+        assertEquals(Type.INT, resolution.type(value.right()));
+        assertEquals(List.of("line 1: variable 'y' is not declared"), resolution.diagnostics());
+    }
+
+    private static void assertSameErrors(String source) {
+        assertEquals(SemanticAnalyzer.analyze(parse(source)), Resolution.resolve(ast(source)).diagnostics());
+    }
+
+    private static Program ast(String source) {
+        return AstBuilder.build(parse(source));
+    }
+
+    private static MiniLangParser.ProgramContext parse(String source) {
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source))));
+        return parser.program();
+    }
+}
@@ -0,0 +1,129 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.ast.AstBuilder;
+import minilang.interp.Interpreter;
+import minilang.sema.SemanticAnalyzer;
+
+/**
+ * Differential test of {@link SemanticAnalyzer} against {@link Interpreter}:
+ * on every program of {@link InterpreterTest}, every workload and every corpus
+ * shape, its first diagnostic must be the error the interpreter rejects the
+ * program with, or there must be none if the interpreter loads it. It must
+ * also report every error of a program, not just the first, and report the
+ * same ones when the function bodies are checked on a pool.
+ */
+class SemanticAnalyzerTest {
+
+    /** A program with one error per line, and what must be reported. */
+    static final String ERRORS = """
+            int main()
+            {
+                int x = y;
+                string s = 1;
+                x = s * 2;
+                int x = 3;
+                return (z + w) + f(1);
+            }
+            void v(int a, void b, int a) { return a; }
+            """;
+
+    private static final List<String> DIAGNOSTICS = List.of(
+            "line 9: parameter 'b' cannot be void",
+            "line 3: variable 'y' is not declared",
+            "line 4: cannot convert int to string",
+            "line 5: operator * is not defined for strings",
+            "line 6: variable 'x' is already declared in this scope",
+            "line 7: variable 'z' is not declared",
+            "line 7: variable 'w' is not declared",
+            "line 7: function 'f' is not declared",
+            "line 9: parameter 'a' is already declared in 'v'",
+            "line 9: 'v' is void and cannot return a value");
+
+    /** More threads than this machine may have, so that tasks do interleave. */
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    static Stream<String> programs() {
+        return Stream.concat(Stream.of(InterpreterTest.PROGRAMS), Stream.of(InterpreterTest.ERRORS))
+                .map(program -> program[0]);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @ParameterizedTest
+    @MethodSource("programs")
+    void programs(String source) {
+        assertSameErrors(source);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Workload.class)
+    void workloads(Workload workload) {
+        assertSameErrors(workload.source);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) {
+        assertSameErrors(Corpus.generate(shape, 64));
+    }
+
+    @Test
+    void declarations() {
+        assertSameErrors(Corpus.declarations(1000));
+    }
+
+    @Test
+    void reportsEveryError() {
+        assertEquals(DIAGNOSTICS, SemanticAnalyzer.analyze(parse(ERRORS)));
+    }
+
+    /** Enough functions for several tasks, each with errors. */
+    @Test
+    void reportsEveryErrorOnAPool() {
+        assertSameErrors(ERRORS.repeat(200));
+    }
+
+    @Test
+    void manyDeclarations() {
+        MiniLangParser.ProgramContext tree = parse(Corpus.declarations(100_000));
+        assertEquals(List.of(), SemanticAnalyzer.analyze(tree));
+        assertEquals(List.of(), SemanticAnalyzer.analyze(tree, POOL));
+    }
+
+    /** Asserts that the analyzer and the interpreter agree on {@code source}, and the analyzer reports the same on a pool. */
+    private static void assertSameErrors(String source) {
+        List<String> diagnostics = SemanticAnalyzer.analyze(parse(source));
+        assertEquals(diagnostics, SemanticAnalyzer.analyze(parse(source), POOL), "diagnostics on a pool");
+        String expected = null;
+        try {
+            Interpreter.load(AstBuilder.build(parse(source)));
+        } catch (IllegalArgumentException e) {
+            expected = e.getMessage();
+        }
+        assertEquals(expected, diagnostics.isEmpty() ? null : diagnostics.get(0));
+    }
+
+    private static MiniLangParser.ProgramContext parse(String source) {
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(new MiniLangLexer(CharStreams.fromString(source))));
+        return parser.program();
+    }
+}
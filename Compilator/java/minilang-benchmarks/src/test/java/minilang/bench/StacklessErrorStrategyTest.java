@@ -0,0 +1,93 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.parse.Diagnostics;
+import minilang.parse.StacklessErrorStrategy;
+
+/**
+ * Differential test of a parser with a {@link StacklessErrorStrategy}
+ * against the default strategy: it must recover from syntax errors into the
+ * same tree, with the same messages at the same positions once read from
+ * its {@link Diagnostics}.
+ */
+class StacklessErrorStrategyTest {
+
+    private static final List<String> RULE_NAMES = List.of(MiniLangParser.ruleNames);
+
+    /** Every corpus shape at several error rates, with a few seeds each. */
+    static Stream<Arguments> malformed() {
+        return Stream.of(Corpus.Shape.values()).flatMap(shape -> Stream.of(1, 10, 50)
+                .flatMap(errorsPerKb -> LongStream.rangeClosed(1, 3)
+                        .mapToObj(seed -> Arguments.of(shape, errorsPerKb, seed))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("malformed")
+    void malformed(Corpus.Shape shape, int errorsPerKb, long seed) {
+        assertSameRecovery(Corpus.malformed(Corpus.generate(shape, 16), errorsPerKb, seed));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        "int",
+        "int f(",
+        "x = ;",
+        "int x = 1 int y = 2;",
+        "while (x < ) { x++ }",
+        "int f(int a,) { return a +; }",
+        "# @ int x = 1;",
+        "print(\"unterminated);",
+        "if (x) { } else else { }",
+    })
+    void edgeCases(String source) {
+        assertSameRecovery(source);
+    }
+
+    /** Asserts that both strategies build the same tree and report the same errors for {@code source}. */
+    private static void assertSameRecovery(String source) {
+        List<String> expected = new ArrayList<>();
+        BaseErrorListener listener = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                expected.add(line + ":" + charPositionInLine + ": " + msg);
+            }
+        };
+        MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(listener);
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(listener);
+        String tree = parser.program().toStringTree(RULE_NAMES);
+
+        Diagnostics diagnostics = new Diagnostics(4);
+        lexer = new MiniLangLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(diagnostics);
+        parser = new MiniLangParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        StacklessErrorStrategy.install(parser, diagnostics);
+        assertEquals(tree, parser.program().toStringTree(RULE_NAMES));
+        assertEquals(expected, diagnostics.format(""));
+    }
+}
@@ -0,0 +1,123 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.parse.StreamingParser;
+
+/**
+ * Differential test of {@link StreamingParser} against the generated
+ * {@code program} rule: the items it hands over must be the program's
+ * children, with every global declaration on its own, and the same syntax
+ * errors must be reported.
+ *
+ * <p>The edge cases leave out a run of global declarations with a syntax
+ * error in it: the generated rule predicts over the whole run and may reject
+ * it as one, while the streaming parser keeps the declarations before the
+ * error.</p>
+ */
+class StreamingParserTest {
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) {
+        assertSameItems(Corpus.generate(shape, 256));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        "int a = 1;",
+        "int a = 1; int b = 2;",
+        "int a = 1; int b = 2; x = a;",
+        "int a = 1; int f() { return a; } int b = 2;",
+        "int f( { return 1 + ; } x = 1;",
+        "x = ; y = 2; }",
+        "a & b | c & @ # $",
+    })
+    void edgeCases(String source) {
+        assertSameItems(source);
+    }
+
+    /** Items handed over are dropped: the first one is collectable once the file is streamed. */
+    @Test
+    void itemsAreNotRetained() throws IOException {
+        Path file = dir.resolve("long.txt");
+        Files.writeString(file, Corpus.generate(Corpus.Shape.LONG_FILE, 1024));
+        List<WeakReference<ParserRuleContext>> first = new ArrayList<>();
+        long items = StreamingParser.open(file).program(item -> {
+            if (first.isEmpty()) {
+                first.add(new WeakReference<>(item));
+            }
+        });
+        for (int i = 0; i < 10 && first.get(0).get() != null; i++) {
+            System.gc();
+        }
+        assertNull(first.get(0).get(), "the first of " + items + " items is still reachable");
+    }
+
+    private static void assertSameItems(String source) {
+        List<String> expectedErrors = new ArrayList<>();
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(lexer(source)));
+        parser.removeErrorListeners();
+        parser.addErrorListener(TableLexerTest.collect(expectedErrors));
+        List<String> expected = new ArrayList<>();
+        MiniLangParser.ProgramContext program = parser.program();
+        for (ParseTree child : program.children == null ? List.<ParseTree>of() : program.children) {
+            if (child instanceof MiniLangParser.GlobalDeclarationsContext globals) {
+                for (ParseTree declaration : globals.children) {
+                    expected.add(describe(declaration, parser));
+                }
+            } else {
+                expected.add(describe(child, parser));
+            }
+        }
+
+        List<String> actualErrors = new ArrayList<>();
+        StreamingParser streaming = StreamingParser.of(lexer(source));
+        streaming.parser().removeErrorListeners();
+        streaming.parser().addErrorListener(TableLexerTest.collect(actualErrors));
+        List<String> actual = new ArrayList<>();
+        long items = streaming.program(item -> actual.add(describe(item, streaming.parser())));
+
+        assertEquals(expected.size(), (int) items, "item count");
+        assertEquals(expected, actual);
+        assertEquals(expectedErrors, actualErrors);
+    }
+
+    private static String describe(ParseTree item, MiniLangParser parser) {
+        if (!(item instanceof ParserRuleContext ctx)) {
+            return item.toStringTree(parser);
+        }
+        return ctx.getClass().getSimpleName() + " in " + ctx.getParent().getClass().getSimpleName()
+                + " from " + ctx.invokingState + " " + ctx.toStringTree(parser);
+    }
+
+    private static MiniLangLexer lexer(String source) {
+        MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        return lexer;
+    }
+}
@@ -0,0 +1,95 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.parse.SyntaxChecker;
+
+/**
+ * Differential test of {@link SyntaxChecker} against a full parse: it must
+ * find the corpus valid and report, for malformed sources, the errors a full
+ * parse reports, plus any input the parse leaves unread. One checker is
+ * reused for every source, as its callers do.
+ */
+class SyntaxCheckerTest {
+
+    private static final SyntaxChecker CHECKER = new SyntaxChecker();
+
+    /** Every corpus shape at several error rates, with a few seeds each. */
+    static Stream<Arguments> malformed() {
+        return Stream.of(Corpus.Shape.values()).flatMap(shape -> Stream.of(1, 10, 50)
+                .flatMap(errorsPerKb -> LongStream.rangeClosed(1, 3)
+                        .mapToObj(seed -> Arguments.of(shape, errorsPerKb, seed))));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpusIsValid(Corpus.Shape shape) {
+        assertEquals(List.of(), CHECKER.check(CharStreams.fromString(Corpus.generate(shape, 16), "check")));
+    }
+
+    @ParameterizedTest
+    @MethodSource("malformed")
+    void malformed(Corpus.Shape shape, int errorsPerKb, long seed) {
+        assertSameErrors(Corpus.malformed(Corpus.generate(shape, 16), errorsPerKb, seed));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        "int x = 1;",
+        "int x = 1; }",
+        "int f() { return 1; } ) int y = 2;",
+        "x = ;",
+        "# int x = 1;",
+        "while (x < ) { x++ }",
+    })
+    void edgeCases(String source) {
+        assertSameErrors(source);
+    }
+
+    /** Asserts that the checker reports the errors a full parse of {@code source} reports. */
+    private static void assertSameErrors(String source) {
+        List<String> expected = new ArrayList<>();
+        BaseErrorListener listener = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                expected.add("check:" + line + ":" + charPositionInLine + ": " + msg);
+            }
+        };
+        MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(listener);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+        MiniLangParser parser = new MiniLangParser(tokens);
+        parser.removeErrorListeners();
+        parser.addErrorListener(listener);
+        parser.program();
+        if (tokens.LA(1) != Token.EOF) {
+            Token token = tokens.LT(1);
+            expected.add("check:" + token.getLine() + ":" + token.getCharPositionInLine() + ": extraneous input '"
+                    + token.getText() + "' expecting <EOF>");
+        }
+        assertEquals(expected, CHECKER.check(CharStreams.fromString(source, "check")));
+    }
+}
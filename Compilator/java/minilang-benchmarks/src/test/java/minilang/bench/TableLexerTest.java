@@ -0,0 +1,95 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangLexer;
+import minilang.lex.TableLexer;
+
+/**
+ * Differential test of {@link TableLexer} against the generated
+ * {@link MiniLangLexer}: both must produce the same tokens (type, text range,
+ * line and column) and report the same recognition errors, on every corpus
+ * shape and on malformed input.
+ */
+class TableLexerTest {
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) {
+        assertSameTokens(Corpus.generate(shape, 256));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "int integer if ifx _if while1 return returns string strings void voidx",
+        "1 1.5 1. 1.x .5 12.34.56",
+        "a+=b++ c-=d-- e*=f g/=h i%=j k<=l m>=n o==p q!=r s&&t u||v !w",
+        "a & b | c &",
+        "x = \"str\" + \"multi\nline\";",
+        "y = \"unterminated",
+        "// comment\nint a; /* block\n comment */ int b; /* unterminated *= 2\n",
+        "a /*/ b */ c",
+        "@ # $ . ~ é 😀 ok",
+    })
+    void edgeCases(String source) {
+        assertSameTokens(source);
+    }
+
+    /** Input that ends right after an operator that may take a second character. */
+    @ParameterizedTest
+    @ValueSource(strings = {"x = a *", "x %", "a <", "a >", "x =", "!", "a +", "a -", "a &", "a |", "a /"})
+    void endsAfterOperator(String source) {
+        assertSameTokens(source);
+    }
+
+    private static void assertSameTokens(String source) {
+        List<String> expectedErrors = new ArrayList<>();
+        MiniLangLexer generated = new MiniLangLexer(CharStreams.fromString(source));
+        generated.removeErrorListeners();
+        generated.addErrorListener(collect(expectedErrors));
+        List<String> expected = tokens(generated);
+
+        List<String> actualErrors = new ArrayList<>();
+        TableLexer table = new TableLexer(CharStreams.fromString(source));
+        table.removeErrorListeners();
+        table.addErrorListener(collect(actualErrors));
+        assertEquals(expected, tokens(table));
+        assertEquals(expectedErrors, actualErrors);
+    }
+
+    /** Every token of {@code lexer} up to {@code EOF}, with its type, range, position and text. */
+    static List<String> tokens(TokenSource lexer) {
+        List<String> tokens = new ArrayList<>();
+        Token token;
+        do {
+            token = lexer.nextToken();
+            tokens.add(token.getType() + " [" + token.getStartIndex() + ".." + token.getStopIndex() + "] "
+                    + token.getLine() + ":" + token.getCharPositionInLine() + " '" + token.getText() + "'");
+        } while (token.getType() != Token.EOF);
+        return tokens;
+    }
+
+    /** A listener that adds every error it hears to {@code errors} as {@code line:column message}. */
+    static BaseErrorListener collect(List<String> errors) {
+        return new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                errors.add(line + ":" + charPositionInLine + " " + msg);
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import minilang.MiniLangLexer;
+import minilang.lex.TokenDump;
+
+/**
+ * Test that a {@link TokenDump} reads back every token the lexer made, with
+ * its type, position, line and text, and that a truncated dump is rejected.
+ */
+class TokenDumpTest {
+
+    @TempDir
+    Path dir;
+
+    static List<String> edgeCases() {
+        return List.of(
+                "",
+                "x = \"é\" + \"日本語\"; // ü\nint y = 1;",
+                "string s = \"😀😀\"; /* 𝄞 */\n\n\n s = s + \"ÿ\";",
+                "int " + "x".repeat(300) + " = 1" + "0".repeat(200) + ";");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) throws IOException {
+        assertReadsBack(Corpus.generate(shape, 1024), dir.resolve("corpus.tokens"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("edgeCases")
+    void edgeCases(String source) throws IOException {
+        assertReadsBack(source, dir.resolve("edge.tokens"));
+    }
+
+    @Test
+    void truncated() throws IOException {
+        Path file = dir.resolve("truncated.tokens");
+        assertReadsBack(Corpus.generate(Corpus.Shape.SMALL_FUNCTIONS, 16), file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        assertThrows(IOException.class, () -> TokenDump.open(file));
+    }
+
+    /** Asserts that {@code source} dumped to {@code file} reads back the same tokens. */
+    private static void assertReadsBack(String source, Path file) throws IOException {
+        CharStream input = CharStreams.fromString(source);
+        MiniLangLexer lexer = new MiniLangLexer(input);
+        lexer.removeErrorListeners();
+        List<? extends Token> tokens = lexer.getAllTokens();
+        lexer.reset();
+        assertEquals(tokens.size(), TokenDump.write(lexer, file), "tokens written");
+
+        TokenDump dump = TokenDump.open(file);
+        assertEquals(tokens.size(), dump.size(), "tokens read");
+        TokenDump.Cursor cursor = dump.cursor();
+        for (Token token : tokens) {
+            assertTrue(cursor.next(), "the dump ends before " + token);
+            String what = "token " + cursor.index();
+            assertEquals(token.getType(), cursor.type(), what);
+            assertEquals(token.getType(), dump.type(cursor.index()), what);
+            assertEquals(token.getStartIndex(), cursor.start(), what);
+            assertEquals(token.getStopIndex(), cursor.stop(), what);
+            assertEquals(token.getLine(), cursor.line(), what);
+            assertEquals(token.getText(), cursor.text(input), what);
+        }
+        assertFalse(cursor.next(), "the dump has more tokens than the lexer made");
+    }
+}
@@ -0,0 +1,99 @@
+package minilang.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.parse.ParseResult;
+import minilang.parse.ParseStage;
+import minilang.parse.TwoStageParser;
+
+/**
+ * Test that {@link TwoStageParser} gives the tree and errors of
+ * {@link MiniLangParser#program()}, falls back with the parser's own
+ * prediction mode unless that is SLL, and leaves the parser as it found it.
+ */
+class TwoStageParserTest {
+
+    private static final List<String> RULE_NAMES = List.of(MiniLangParser.ruleNames);
+
+    @ParameterizedTest
+    @EnumSource(Corpus.Shape.class)
+    void corpus(Corpus.Shape shape) {
+        assertSameParse(Corpus.generate(shape, 64), ParseStage.SLL);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "int f( { return 1; }",
+        "int x = ; x = 2 +;",
+        "while (1) { int y = 2 } print(y);",
+    })
+    void syntaxErrors(String source) {
+        assertSameParse(source, ParseStage.LL);
+    }
+
+    /** The fallback reports errors with the mode it parses in; SLL is the one mode it must not keep. */
+    @ParameterizedTest
+    @EnumSource(PredictionMode.class)
+    void fallbackMode(PredictionMode mode) {
+        MiniLangParser parser = parser("int x = ;", new ArrayList<>());
+        List<PredictionMode> modes = new ArrayList<>();
+        parser.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                modes.add(((Parser) recognizer).getInterpreter().getPredictionMode());
+            }
+        });
+        parser.getInterpreter().setPredictionMode(mode);
+        ANTLRErrorStrategy errorHandler = parser.getErrorHandler();
+
+        assertEquals(ParseStage.LL, new TwoStageParser(parser).program().stage());
+        assertEquals(List.of(mode == PredictionMode.SLL ? PredictionMode.LL : mode), modes);
+        assertEquals(mode, parser.getInterpreter().getPredictionMode());
+        assertSame(errorHandler, parser.getErrorHandler());
+        assertEquals(2, parser.getErrorListeners().size());
+    }
+
+    private static void assertSameParse(String source, ParseStage stage) {
+        List<String> expected = new ArrayList<>();
+        String tree = parser(source, expected).program().toStringTree(RULE_NAMES);
+        List<String> errors = new ArrayList<>();
+        ParseResult result = new TwoStageParser(parser(source, errors)).program();
+        assertEquals(stage, result.stage());
+        assertEquals(tree, result.tree().toStringTree(RULE_NAMES));
+        assertEquals(expected, errors);
+    }
+
+    private static MiniLangParser parser(String source, List<String> errors) {
+        MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        MiniLangParser parser = new MiniLangParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                errors.add(line + ":" + charPositionInLine + ": " + msg);
+            }
+        });
+        return parser;
+    }
+}
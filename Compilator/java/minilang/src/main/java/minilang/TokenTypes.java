@@ -0,0 +1,61 @@
+package minilang;
+
+/**
+ * Readable names for the implicit keyword tokens of {@code MiniLang.g4}.
+ *
+ * <p>ANTLR names the literals used directly in parser rules {@code T__0},
+ * {@code T__1}, ... in order of first use; the values here are looked up by
+ * literal so they follow the grammar if that order changes.</p>
+ */
+public final class TokenTypes {
+
+    public static final int RETURN = literal("return");
+    public static final int IF = literal("if");
+    public static final int ELSE = literal("else");
+    public static final int FOR = literal("for");
+    public static final int WHILE = literal("while");
+
+    public static final int TYPE_INT = literal("int");
+    public static final int TYPE_FLOAT = literal("float");
+    public static final int TYPE_DOUBLE = literal("double");
+    public static final int TYPE_STRING = literal("string");
+    public static final int TYPE_VOID = literal("void");
+
+    private TokenTypes() {
+    }
+
+    /** Whether {@code type} starts the {@code type} rule. */
+    public static boolean isType(int type) {
+        return type == TYPE_INT || type == TYPE_FLOAT || type == TYPE_DOUBLE
+                || type == TYPE_STRING || type == TYPE_VOID;
+    }
+
+    /** Whether {@code type} can start an {@code expression}. */
+    public static boolean isExpressionStart(int type) {
+        return type == MiniLangParser.IDENTIFIER || type == MiniLangParser.NUMBER
+                || type == MiniLangParser.STRING || type == MiniLangParser.NOT
+                || type == MiniLangParser.LPAREN;
+    }
+
+    /** Whether {@code type} can start a {@code statement}. */
+    public static boolean isStatementStart(int type) {
+        return isType(type) || type == MiniLangParser.IDENTIFIER
+                || type == MiniLangParser.INCREMENT || type == MiniLangParser.DECREMENT
+                || type == IF || type == FOR || type == WHILE || type == RETURN;
+    }
+
+    /** Whether {@code type} is one of the compound or plain assignment operators. */
+    public static boolean isAssignmentOperator(int type) {
+        return type >= MiniLangParser.ASSIGN && type <= MiniLangParser.MOD_ASSIGN;
+    }
+
+    private static int literal(String text) {
+        String quoted = "'" + text + "'";
+        for (int type = 0; type <= MiniLangParser.VOCABULARY.getMaxTokenType(); type++) {
+            if (quoted.equals(MiniLangParser.VOCABULARY.getLiteralName(type))) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("MiniLang.g4 has no literal " + quoted);
+    }
+}
@@ -0,0 +1,29 @@
+package minilang.ast;
+
+/** {@code =} and the compound assignment operators of the {@code assignment} statement. */
+public enum AssignOperator {
+    ASSIGN("=", null),
+    ADD_ASSIGN("+=", BinaryOperator.ADD),
+    SUB_ASSIGN("-=", BinaryOperator.SUB),
+    MUL_ASSIGN("*=", BinaryOperator.MUL),
+    DIV_ASSIGN("/=", BinaryOperator.DIV),
+    MOD_ASSIGN("%=", BinaryOperator.MOD);
+
+    private final String symbol;
+
+    private final BinaryOperator operator;
+
+    AssignOperator(String symbol, BinaryOperator operator) {
+        this.symbol = symbol;
+        this.operator = operator;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    /** The operator a compound assignment applies, or {@code null} for {@code =}. */
+    public BinaryOperator operator() {
+        return operator;
+    }
+}
@@ -0,0 +1,371 @@
+package minilang.ast;
+
+import static minilang.MiniLangParser.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import minilang.MiniLangBaseVisitor;
+
+/**
+ * Builds the {@link Program} AST from a {@link ProgramContext} in one pass.
+ *
+ * <p>Expressions are built by this visitor, statements and declarations by
+ * plain methods that look at the first child of each context. Names are
+ * interned as they are met, so one builder gives every occurrence of a name
+ * the same {@link Identifier}; a builder can be fed the items of a
+ * {@link minilang.parse.StreamingParser} one at a time through
+ * {@link #item}.</p>
+ *
+ * <p>The parse tree must come from a parse without syntax errors. A context
+ * left incomplete by error recovery, or holding a token that recovery
+ * deleted or made up, is rejected with an
+ * {@link IllegalArgumentException}.</p>
+ */
+public final class AstBuilder extends MiniLangBaseVisitor<Expr> {
+
+    private final Map<String, Identifier> names = new HashMap<>();
+
+    private final List<Identifier> identifiers = new ArrayList<>();
+
+    public static Program build(ProgramContext program) {
+        return new AstBuilder().program(program);
+    }
+
+    public Program program(ProgramContext ctx) {
+        List<Stmt.VarDecl> globals = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        if (ctx.exception != null || ctx.children == null) {
+            throw syntaxError(ctx);
+        }
+        for (ParseTree child : ctx.children) {
+            if (child instanceof GlobalDeclarationsContext run) {
+                for (VarDeclarationContext declaration : check(run).varDeclaration()) {
+                    globals.add(varDeclaration(declaration));
+                }
+            } else if (child instanceof ParserRuleContext item) {
+                items.add(item(item));
+            } else {
+                throw syntaxError(ctx);
+            }
+        }
+        return new Program(List.copyOf(globals), List.copyOf(items), identifiers());
+    }
+
+    /**
+     * Builds one top-level item: a {@link FunctionDecl} or a {@link Stmt},
+     * or the {@link Stmt.VarDecl} of a global {@code varDeclaration}.
+     */
+    public Item item(ParserRuleContext ctx) {
+        if (ctx instanceof FunctionDeclarationContext function) {
+            return functionDeclaration(function);
+        } else if (ctx instanceof StatementContext statement) {
+            return statement(statement);
+        } else if (ctx instanceof VarDeclarationContext declaration) {
+            return varDeclaration(declaration);
+        }
+        throw new IllegalArgumentException("Not a top-level item: " + ctx.getClass().getSimpleName());
+    }
+
+    /** The names interned so far, indexed by {@link Identifier#id()}. */
+    public List<Identifier> identifiers() {
+        return List.copyOf(identifiers);
+    }
+
+    private Stmt.VarDecl varDeclaration(VarDeclarationContext ctx) {
+        check(ctx);
+        return new Stmt.VarDecl(type(ctx.type()), identifier(ctx.IDENTIFIER()), expression(ctx.expression()),
+                line(ctx));
+    }
+
+    private FunctionDecl functionDeclaration(FunctionDeclarationContext ctx) {
+        check(ctx);
+        List<FunctionDecl.Param> parameters = List.of();
+        if (ctx.parameterList() != null) {
+            List<ParameterContext> list = check(ctx.parameterList()).parameter();
+            FunctionDecl.Param[] built = new FunctionDecl.Param[list.size()];
+            for (int i = 0; i < built.length; i++) {
+                ParameterContext parameter = check(list.get(i));
+                built[i] = new FunctionDecl.Param(type(parameter.type()), identifier(parameter.IDENTIFIER()));
+            }
+            parameters = List.of(built);
+        }
+        return new FunctionDecl(type(ctx.type()), identifier(ctx.IDENTIFIER()), parameters, block(ctx.block()),
+                line(ctx));
+    }
+
+    private List<Stmt> block(BlockContext ctx) {
+        List<StatementContext> statements = check(ctx).statement();
+        Stmt[] built = new Stmt[statements.size()];
+        for (int i = 0; i < built.length; i++) {
+            built[i] = statement(statements.get(i));
+        }
+        return List.of(built);
+    }
+
+    private Stmt statement(StatementContext ctx) {
+        ParseTree first = check(ctx).getChild(0);
+        if (first instanceof DeclarationContext declaration) {
+            return declaration(declaration);
+        } else if (first instanceof AssignmentContext assignment) {
+            return assignment(assignment);
+        } else if (first instanceof IncrementDecrementWithSemicolonContext incDec) {
+            return incDec(incDec, incDec.IDENTIFIER(), incDec.INCREMENT() != null);
+        } else if (first instanceof IfStatementContext ifStatement) {
+            return ifStatement(ifStatement);
+        } else if (first instanceof ForStatementContext forStatement) {
+            return forStatement(forStatement);
+        } else if (first instanceof WhileStatementContext whileStatement) {
+            check(whileStatement);
+            return new Stmt.While(expression(whileStatement.expression()), block(whileStatement.block()),
+                    line(whileStatement));
+        } else if (first instanceof ReturnStatementContext returnStatement) {
+            check(returnStatement);
+            ExpressionContext value = returnStatement.expression();
+            return new Stmt.Return(value == null ? null : expression(value), line(returnStatement));
+        } else if (first instanceof FunctionCallContext call) {
+            return new Stmt.CallStmt(functionCall(call), line(ctx));
+        }
+        throw syntaxError(ctx);
+    }
+
+    private Stmt.VarDecl declaration(DeclarationContext ctx) {
+        check(ctx);
+        ExpressionContext init = ctx.expression();
+        return new Stmt.VarDecl(type(ctx.type()), identifier(ctx.IDENTIFIER()),
+                init == null ? null : expression(init), line(ctx));
+    }
+
+    private Stmt.Assign assignment(AssignmentContext ctx) {
+        check(ctx);
+        TerminalNode operator = (TerminalNode) ctx.getChild(1);
+        AssignOperator op = switch (operator.getSymbol().getType()) {
+            case ASSIGN -> AssignOperator.ASSIGN;
+            case ADD_ASSIGN -> AssignOperator.ADD_ASSIGN;
+            case SUB_ASSIGN -> AssignOperator.SUB_ASSIGN;
+            case MUL_ASSIGN -> AssignOperator.MUL_ASSIGN;
+            case DIV_ASSIGN -> AssignOperator.DIV_ASSIGN;
+            case MOD_ASSIGN -> AssignOperator.MOD_ASSIGN;
+            default -> throw syntaxError(ctx);
+        };
+        return new Stmt.Assign(identifier(ctx.IDENTIFIER()), op, expression(ctx.expression()), line(ctx));
+    }
+
+    /** Both increment rules; the operator comes first in the prefix forms. */
+    private Stmt.IncDec incDec(ParserRuleContext ctx, TerminalNode name, boolean increment) {
+        check(ctx);
+        boolean prefix = !(ctx.getChild(0) instanceof TerminalNode first)
+                || first.getSymbol().getType() != IDENTIFIER;
+        return new Stmt.IncDec(identifier(name), increment, prefix, line(ctx));
+    }
+
+    private Stmt.If ifStatement(IfStatementContext ctx) {
+        check(ctx);
+        List<Stmt> then = block(ctx.block(0));
+        List<Stmt> otherwise = ctx.block().size() > 1 ? block(ctx.block(1)) : null;
+        return new Stmt.If(expression(ctx.expression()), then, otherwise, line(ctx));
+    }
+
+    private Stmt.For forStatement(ForStatementContext ctx) {
+        check(ctx);
+        Stmt update;
+        if (ctx.assignment() != null) {
+            update = assignment(ctx.assignment());
+        } else {
+            IncrementDecrementWithoutSemicolonContext incDec = ctx.incrementDecrementWithoutSemicolon();
+            if (incDec == null) {
+                throw syntaxError(ctx);
+            }
+            update = incDec(incDec, incDec.IDENTIFIER(), incDec.INCREMENT() != null);
+        }
+        return new Stmt.For(declaration(ctx.declaration()), expression(ctx.expression()), update,
+                block(ctx.block()), line(ctx));
+    }
+
+    private Expr.Call functionCall(FunctionCallContext ctx) {
+        check(ctx);
+        List<Expr> arguments = List.of();
+        if (ctx.argumentList() != null) {
+            List<ExpressionContext> list = check(ctx.argumentList()).expression();
+            Expr[] built = new Expr[list.size()];
+            for (int i = 0; i < built.length; i++) {
+                built[i] = expression(list.get(i));
+            }
+            arguments = List.of(built);
+        }
+        return new Expr.Call(identifier(ctx.IDENTIFIER()), arguments);
+    }
+
+    private Expr expression(ExpressionContext ctx) {
+        Expr expr = check(ctx).accept(this);
+        if (expr == null) {
+            throw syntaxError(ctx);
+        }
+        return expr;
+    }
+
+    private Expr binary(BinaryOperator operator, ExpressionContext ctx) {
+        check(ctx);
+        return new Expr.BinaryOp(operator, expression(ctx.getChild(ExpressionContext.class, 0)),
+                expression(ctx.getChild(ExpressionContext.class, 1)));
+    }
+
+    @Override
+    public Expr visitAddExpr(AddExprContext ctx) {
+        return binary(BinaryOperator.ADD, ctx);
+    }
+
+    @Override
+    public Expr visitSubExpr(SubExprContext ctx) {
+        return binary(BinaryOperator.SUB, ctx);
+    }
+
+    @Override
+    public Expr visitMulExpr(MulExprContext ctx) {
+        return binary(BinaryOperator.MUL, ctx);
+    }
+
+    @Override
+    public Expr visitDivExpr(DivExprContext ctx) {
+        return binary(BinaryOperator.DIV, ctx);
+    }
+
+    @Override
+    public Expr visitModExpr(ModExprContext ctx) {
+        return binary(BinaryOperator.MOD, ctx);
+    }
+
+    @Override
+    public Expr visitLessThanExpr(LessThanExprContext ctx) {
+        return binary(BinaryOperator.LT, ctx);
+    }
+
+    @Override
+    public Expr visitGreaterThanExpr(GreaterThanExprContext ctx) {
+        return binary(BinaryOperator.GT, ctx);
+    }
+
+    @Override
+    public Expr visitLessEqualExpr(LessEqualExprContext ctx) {
+        return binary(BinaryOperator.LE, ctx);
+    }
+
+    @Override
+    public Expr visitGreaterEqualExpr(GreaterEqualExprContext ctx) {
+        return binary(BinaryOperator.GE, ctx);
+    }
+
+    @Override
+    public Expr visitEqualExpr(EqualExprContext ctx) {
+        return binary(BinaryOperator.EQ, ctx);
+    }
+
+    @Override
+    public Expr visitNotEqualExpr(NotEqualExprContext ctx) {
+        return binary(BinaryOperator.NE, ctx);
+    }
+
+    @Override
+    public Expr visitAndExpr(AndExprContext ctx) {
+        return binary(BinaryOperator.AND, ctx);
+    }
+
+    @Override
+    public Expr visitOrExpr(OrExprContext ctx) {
+        return binary(BinaryOperator.OR, ctx);
+    }
+
+    @Override
+    public Expr visitNotExpr(NotExprContext ctx) {
+        return new Expr.Not(expression(ctx.expression()));
+    }
+
+    @Override
+    public Expr visitParenExpr(ParenExprContext ctx) {
+        return expression(ctx.expression());
+    }
+
+    @Override
+    public Expr visitIdentifierExpr(IdentifierExprContext ctx) {
+        return new Expr.Name(identifier(ctx.IDENTIFIER()));
+    }
+
+    @Override
+    public Expr visitNumberExpr(NumberExprContext ctx) {
+        String text = ctx.NUMBER().getText();
+        if (text.indexOf('.') >= 0) {
+            return new Expr.FloatLiteral(Double.parseDouble(text));
+        }
+        try {
+            return new Expr.IntLiteral(Long.parseLong(text));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Integer literal " + text + " out of range at line " + line(ctx), e);
+        }
+    }
+
+    @Override
+    public Expr visitStringExpr(StringExprContext ctx) {
+        String text = ctx.STRING().getText();
+        return new Expr.StringLiteral(text.substring(1, text.length() - 1));
+    }
+
+    @Override
+    public Expr visitAssignExpr(AssignExprContext ctx) {
+        return new Expr.Assign(identifier(ctx.IDENTIFIER()), expression(ctx.expression()));
+    }
+
+    @Override
+    public Expr visitFunctionCallExpr(FunctionCallExprContext ctx) {
+        return functionCall(ctx.functionCall());
+    }
+
+    private Identifier identifier(TerminalNode node) {
+        // Tokens conjured by error recovery have no index.
+        if (node == null || node.getSymbol().getTokenIndex() < 0) {
+            throw new IllegalArgumentException("Missing identifier in the parse tree");
+        }
+        return names.computeIfAbsent(node.getText(), name -> {
+            Identifier identifier = new Identifier(name, identifiers.size());
+            identifiers.add(identifier);
+            return identifier;
+        });
+    }
+
+    private static Type type(TypeContext ctx) {
+        return Type.of(check(ctx).getStart().getType());
+    }
+
+    private static int line(ParserRuleContext ctx) {
+        return ctx.getStart().getLine();
+    }
+
+    private static <T extends ParserRuleContext> T check(T ctx) {
+        if (ctx == null) {
+            throw new IllegalArgumentException("Missing node in the parse tree");
+        }
+        if (ctx.exception != null) {
+            throw syntaxError(ctx);
+        }
+        if (ctx.children != null) {
+            for (ParseTree child : ctx.children) {
+                // Tokens deleted or made up by single-token recovery.
+                if (child instanceof ErrorNode
+                        || child instanceof TerminalNode terminal && terminal.getSymbol().getTokenIndex() < 0) {
+                    throw syntaxError(ctx);
+                }
+            }
+        }
+        return ctx;
+    }
+
+    private static IllegalArgumentException syntaxError(ParserRuleContext ctx) {
+        return new IllegalArgumentException("Syntax error in the parse tree at line " + line(ctx));
+    }
+}
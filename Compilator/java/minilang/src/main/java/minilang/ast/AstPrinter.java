@@ -0,0 +1,188 @@
+package minilang.ast;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Prints an AST back as MiniLang source.
+ *
+ * <p>Operands that are not a name, literal or call are parenthesised, so the
+ * output parses back to the same AST whatever the precedence of the
+ * operators involved.</p>
+ */
+public final class AstPrinter {
+
+    private static final String INDENT = "    ";
+
+    private final StringBuilder out = new StringBuilder();
+
+    private AstPrinter() {
+    }
+
+    public static String print(Program program) {
+        AstPrinter printer = new AstPrinter();
+        for (Stmt.VarDecl global : program.globals()) {
+            printer.statement(global, 0);
+        }
+        for (Item item : program.items()) {
+            printer.item(item);
+        }
+        return printer.out.toString();
+    }
+
+    public static String print(Item item) {
+        AstPrinter printer = new AstPrinter();
+        printer.item(item);
+        return printer.out.toString();
+    }
+
+    public static String print(Expr expr) {
+        AstPrinter printer = new AstPrinter();
+        printer.expression(expr);
+        return printer.out.toString();
+    }
+
+    private void item(Item item) {
+        if (item instanceof FunctionDecl function) {
+            out.append(function.returnType().keyword()).append(' ').append(function.name()).append('(');
+            for (int i = 0; i < function.parameters().size(); i++) {
+                FunctionDecl.Param parameter = function.parameters().get(i);
+                out.append(i == 0 ? "" : ", ").append(parameter.type().keyword()).append(' ')
+                   .append(parameter.name());
+            }
+            out.append(")\n");
+            block(function.body(), 0);
+            out.append('\n');
+        } else {
+            statement((Stmt) item, 0);
+        }
+    }
+
+    private void block(List<Stmt> statements, int depth) {
+        indent(depth).append("{\n");
+        for (Stmt statement : statements) {
+            statement(statement, depth + 1);
+        }
+        indent(depth).append('}');
+    }
+
+    private void statement(Stmt statement, int depth) {
+        indent(depth);
+        if (statement instanceof Stmt.If ifStatement) {
+            out.append("if (");
+            expression(ifStatement.condition());
+            out.append(")\n");
+            block(ifStatement.then(), depth);
+            if (ifStatement.otherwise() != null) {
+                out.append('\n');
+                indent(depth).append("else\n");
+                block(ifStatement.otherwise(), depth);
+            }
+        } else if (statement instanceof Stmt.For forStatement) {
+            out.append("for (");
+            simple(forStatement.init());
+            out.append(' ');
+            expression(forStatement.condition());
+            out.append("; ");
+            // The assignment rule ends with its own semicolon, even here.
+            simple(forStatement.update());
+            out.append(")\n");
+            block(forStatement.body(), depth);
+        } else if (statement instanceof Stmt.While whileStatement) {
+            out.append("while (");
+            expression(whileStatement.condition());
+            out.append(")\n");
+            block(whileStatement.body(), depth);
+        } else {
+            simple(statement);
+            if (statement instanceof Stmt.IncDec) {
+                out.append(';');
+            }
+        }
+        out.append('\n');
+    }
+
+    /** A statement without blocks; an increment is printed without its semicolon. */
+    private void simple(Stmt statement) {
+        if (statement instanceof Stmt.VarDecl declaration) {
+            out.append(declaration.type().keyword()).append(' ').append(declaration.name());
+            if (declaration.init() != null) {
+                out.append(" = ");
+                expression(declaration.init());
+            }
+            out.append(';');
+        } else if (statement instanceof Stmt.Assign assignment) {
+            out.append(assignment.name()).append(' ').append(assignment.operator().symbol()).append(' ');
+            expression(assignment.value());
+            out.append(';');
+        } else if (statement instanceof Stmt.IncDec incDec) {
+            String operator = incDec.increment() ? "++" : "--";
+            if (incDec.prefix()) {
+                out.append(operator).append(incDec.name());
+            } else {
+                out.append(incDec.name()).append(operator);
+            }
+        } else if (statement instanceof Stmt.Return returnStatement) {
+            out.append("return");
+            if (returnStatement.value() != null) {
+                out.append(' ');
+                expression(returnStatement.value());
+            }
+            out.append(';');
+        } else if (statement instanceof Stmt.CallStmt call) {
+            expression(call.call());
+            out.append(';');
+        } else {
+            throw new IllegalArgumentException("Not a simple statement: " + statement);
+        }
+    }
+
+    private void expression(Expr expr) {
+        if (expr instanceof Expr.BinaryOp binary) {
+            operand(binary.left());
+            out.append(' ').append(binary.operator().symbol()).append(' ');
+            operand(binary.right());
+        } else if (expr instanceof Expr.Not not) {
+            out.append('!');
+            operand(not.operand());
+        } else if (expr instanceof Expr.Assign assign) {
+            out.append(assign.name()).append(" = ");
+            expression(assign.value());
+        } else if (expr instanceof Expr.Name name) {
+            out.append(name.name());
+        } else if (expr instanceof Expr.IntLiteral literal) {
+            out.append(literal.value());
+        } else if (expr instanceof Expr.FloatLiteral literal) {
+            // NUMBER has no exponent, and needs the fraction to stay a float.
+            String text = BigDecimal.valueOf(literal.value()).toPlainString();
+            out.append(text).append(text.indexOf('.') < 0 ? ".0" : "");
+        } else if (expr instanceof Expr.StringLiteral literal) {
+            out.append('"').append(literal.value()).append('"');
+        } else if (expr instanceof Expr.Call call) {
+            out.append(call.function()).append('(');
+            for (int i = 0; i < call.arguments().size(); i++) {
+                out.append(i == 0 ? "" : ", ");
+                expression(call.arguments().get(i));
+            }
+            out.append(')');
+        }
+    }
+
+    private void operand(Expr expr) {
+        boolean compound = expr instanceof Expr.BinaryOp || expr instanceof Expr.Not || expr instanceof Expr.Assign;
+        if (compound) {
+            out.append('(');
+        }
+        expression(expr);
+        if (compound) {
+            out.append(')');
+        }
+    }
+
+    private StringBuilder indent(int depth) {
+        for (int i = 0; i < depth; i++) {
+            out.append(INDENT);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,37 @@
+package minilang.ast;
+
+/** The binary operators of {@code expression}, tightest-binding first as in the grammar. */
+public enum BinaryOperator {
+    ADD("+"),
+    SUB("-"),
+    MUL("*"),
+    DIV("/"),
+    MOD("%"),
+    LT("<"),
+    GT(">"),
+    LE("<="),
+    GE(">="),
+    EQ("=="),
+    NE("!="),
+    AND("&&"),
+    OR("||");
+
+    private final String symbol;
+
+    BinaryOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    /** Whether the result is a truth value rather than a number. */
+    public boolean isComparison() {
+        return ordinal() >= LT.ordinal() && ordinal() <= NE.ordinal();
+    }
+
+    public boolean isLogical() {
+        return this == AND || this == OR;
+    }
+}
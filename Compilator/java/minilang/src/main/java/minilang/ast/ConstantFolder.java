@@ -0,0 +1,432 @@
+package minilang.ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import minilang.sema.Resolution;
+
+/**
+ * Folds constant subexpressions and removes identity operations, so that a
+ * backend does not recompute them every time they run.
+ *
+ * <p>Arithmetic, comparisons and {@code &&}, {@code ||}, {@code !} whose
+ * operands are literals are replaced by their value, computed with the
+ * semantics of the interpreter: {@code int} arithmetic wraps at 32 bits,
+ * mixed arithmetic is done in {@code double}, {@code +} with a string
+ * concatenates. A global declared ahead of the functions and top-level
+ * statements with a literal value, that nothing assigns and that no call
+ * can read before it is initialised, is a constant too and its uses are
+ * replaced by its value; this assumes, as {@code run()} does, that the
+ * top level has run before any function is called.</p>
+ *
+ * <p>{@code x + 0}, {@code x - 0}, {@code x * 1}, {@code x / 1} become
+ * {@code x} when that leaves its type and value unchanged, so only
+ * {@code x - 0} and not {@code x + 0} for a {@code double}, which may be
+ * {@code -0.0}. {@code !!x} becomes {@code x} where only the truth of
+ * {@code x} matters, or where {@code x} is itself 0 or 1.</p>
+ *
+ * <p>Nothing is folded that a backend would reject or that would fail when
+ * it runs, such as a division by zero or an {@code int} literal out of
+ * range, so errors are reported as they would be without this pass; and an
+ * operand that {@code &&} or {@code ||} would skip is only dropped if it
+ * is well typed. Nor is a value folded that no {@code NUMBER} can spell, a
+ * negative, infinite or NaN one, so the result still prints as source with
+ * {@link AstPrinter}.</p>
+ *
+ * <p>Names and types are those {@link Resolution} finds; an expression it
+ * finds in error has no type and is left alone.</p>
+ */
+public final class ConstantFolder {
+
+    private final Resolution resolution;
+
+    /** The value of every constant global, as a literal of the global's type. */
+    private final Map<Resolution.Variable, Expr> constants = new HashMap<>();
+
+    private ConstantFolder(Resolution resolution) {
+        this.resolution = resolution;
+    }
+
+    public static Program fold(Program program) {
+        ConstantFolder folder = new ConstantFolder(Resolution.resolve(program));
+        Set<Resolution.Variable> variable = new HashSet<>();
+        for (Item item : program.items()) {
+            folder.assigned(item instanceof FunctionDecl function ? function.body() : List.of((Stmt) item), variable);
+        }
+
+        List<Stmt.VarDecl> globals = new ArrayList<>(program.globals().size());
+        boolean called = false;
+        for (Stmt.VarDecl global : program.globals()) {
+            Stmt.VarDecl folded = (Stmt.VarDecl) folder.statement(global);
+            // Until every initialiser before this one is free of calls, a function might read it too early.
+            called |= global.init() != null && calls(global.init());
+            Expr value = folded.init() == null ? null : literal(global.type(), folded.init());
+            Resolution.Variable declared = folder.resolution.variable(global);
+            if (!called && value != null && !variable.contains(declared)) {
+                folder.constants.put(declared, value);
+            }
+            globals.add(folded);
+        }
+        List<Item> items = new ArrayList<>(program.items().size());
+        for (Item item : program.items()) {
+            items.add(item instanceof FunctionDecl function ? folder.function(function)
+                    : folder.statement((Stmt) item));
+        }
+        return new Program(globals, items, program.identifiers());
+    }
+
+    /** Adds every variable that {@code statements} assign to {@code names}. */
+    private void assigned(List<Stmt> statements, Set<Resolution.Variable> names) {
+        for (Stmt statement : statements) {
+            if (statement instanceof Stmt.VarDecl declaration) {
+                assigned(declaration.init(), names);
+            } else if (statement instanceof Stmt.Assign assign) {
+                names.add(resolution.variable(assign));
+                assigned(assign.value(), names);
+            } else if (statement instanceof Stmt.IncDec incDec) {
+                names.add(resolution.variable(incDec));
+            } else if (statement instanceof Stmt.If ifStatement) {
+                assigned(ifStatement.condition(), names);
+                assigned(ifStatement.then(), names);
+                if (ifStatement.otherwise() != null) {
+                    assigned(ifStatement.otherwise(), names);
+                }
+            } else if (statement instanceof Stmt.For forStatement) {
+                assigned(List.of(forStatement.init(), forStatement.update()), names);
+                assigned(forStatement.condition(), names);
+                assigned(forStatement.body(), names);
+            } else if (statement instanceof Stmt.While whileStatement) {
+                assigned(whileStatement.condition(), names);
+                assigned(whileStatement.body(), names);
+            } else if (statement instanceof Stmt.Return returnStatement) {
+                assigned(returnStatement.value(), names);
+            } else if (statement instanceof Stmt.CallStmt call) {
+                assigned(call.call(), names);
+            }
+        }
+    }
+
+    private void assigned(Expr expr, Set<Resolution.Variable> names) {
+        if (expr instanceof Expr.Assign assign) {
+            names.add(resolution.variable(assign));
+            assigned(assign.value(), names);
+        } else if (expr instanceof Expr.BinaryOp binary) {
+            assigned(binary.left(), names);
+            assigned(binary.right(), names);
+        } else if (expr instanceof Expr.Not not) {
+            assigned(not.operand(), names);
+        } else if (expr instanceof Expr.Call call) {
+            for (Expr argument : call.arguments()) {
+                assigned(argument, names);
+            }
+        }
+    }
+
+    private static boolean calls(Expr expr) {
+        if (expr instanceof Expr.Call) {
+            return true;
+        } else if (expr instanceof Expr.Assign assign) {
+            return calls(assign.value());
+        } else if (expr instanceof Expr.BinaryOp binary) {
+            return calls(binary.left()) || calls(binary.right());
+        } else if (expr instanceof Expr.Not not) {
+            return calls(not.operand());
+        }
+        return false;
+    }
+
+    /** {@code value} converted to {@code type}, or {@code null} unless it is a literal of a type with literals. */
+    private static Expr literal(Type type, Expr value) {
+        return switch (type) {
+            case INT -> isInt(value) ? value
+                    : value instanceof Expr.FloatLiteral literal ? new Expr.IntLiteral((int) literal.value()) : null;
+            case DOUBLE -> isInt(value) ? new Expr.FloatLiteral(((Expr.IntLiteral) value).value())
+                    : value instanceof Expr.FloatLiteral ? value : null;
+            case STRING -> value instanceof Expr.StringLiteral ? value : null;
+            // There is no float literal; a double one would make float arithmetic double.
+            case FLOAT, VOID -> null;
+        };
+    }
+
+    // Statements
+
+    private FunctionDecl function(FunctionDecl function) {
+        return new FunctionDecl(function.returnType(), function.name(), function.parameters(),
+                statements(function.body()), function.line());
+    }
+
+    private List<Stmt> statements(List<Stmt> statements) {
+        List<Stmt> folded = new ArrayList<>(statements.size());
+        for (Stmt statement : statements) {
+            folded.add(statement(statement));
+        }
+        return folded;
+    }
+
+    private Stmt statement(Stmt statement) {
+        if (statement instanceof Stmt.VarDecl declaration) {
+            Expr init = declaration.init() == null ? null : expression(declaration.init(), false);
+            return new Stmt.VarDecl(declaration.type(), declaration.name(), init, declaration.line());
+        } else if (statement instanceof Stmt.Assign assign) {
+            return new Stmt.Assign(assign.name(), assign.operator(), expression(assign.value(), false),
+                    assign.line());
+        } else if (statement instanceof Stmt.If ifStatement) {
+            return new Stmt.If(expression(ifStatement.condition(), true), statements(ifStatement.then()),
+                    ifStatement.otherwise() == null ? null : statements(ifStatement.otherwise()), ifStatement.line());
+        } else if (statement instanceof Stmt.For forStatement) {
+            Stmt.VarDecl init = (Stmt.VarDecl) statement(forStatement.init());
+            Expr condition = expression(forStatement.condition(), true);
+            Stmt update = statement(forStatement.update());
+            return new Stmt.For(init, condition, update, statements(forStatement.body()), forStatement.line());
+        } else if (statement instanceof Stmt.While whileStatement) {
+            return new Stmt.While(expression(whileStatement.condition(), true), statements(whileStatement.body()),
+                    whileStatement.line());
+        } else if (statement instanceof Stmt.Return returnStatement) {
+            return returnStatement.value() == null ? returnStatement
+                    : new Stmt.Return(expression(returnStatement.value(), false), returnStatement.line());
+        } else if (statement instanceof Stmt.CallStmt call) {
+            return new Stmt.CallStmt(call(call.call()), call.line());
+        }
+        return statement;
+    }
+
+    // Expressions
+
+    /**
+     * Folds {@code expr}; if {@code truth}, only whether the result is zero
+     * has to be kept, as in a condition or an operand of {@code !}.
+     */
+    private Expr expression(Expr expr, boolean truth) {
+        if (expr instanceof Expr.Name name) {
+            Resolution.Variable variable = resolution.variable(name);
+            Expr constant = variable == null ? null : constants.get(variable);
+            return constant != null ? constant : expr;
+        } else if (expr instanceof Expr.Assign assign) {
+            return new Expr.Assign(assign.name(), expression(assign.value(), false));
+        } else if (expr instanceof Expr.Call call) {
+            return call(call);
+        } else if (expr instanceof Expr.Not not) {
+            Expr operand = expression(not.operand(), true);
+            Boolean value = truth(operand);
+            if (value != null) {
+                return truthValue(!value);
+            }
+            if (operand instanceof Expr.Not inner && (truth || isTruthValue(inner.operand()))) {
+                return inner.operand();
+            }
+            return new Expr.Not(operand);
+        } else if (expr instanceof Expr.BinaryOp binary) {
+            BinaryOperator operator = binary.operator();
+            if (operator.isLogical()) {
+                return logical(operator, expression(binary.left(), true), expression(binary.right(), true),
+                        resolution.type(binary.right()), truth);
+            }
+            Expr left = expression(binary.left(), false);
+            Expr right = expression(binary.right(), false);
+            Expr folded = operator.isComparison() ? comparison(operator, left, right)
+                    : arithmetic(operator, left, resolution.type(binary.left()), right,
+                            resolution.type(binary.right()));
+            return folded != null ? folded : new Expr.BinaryOp(operator, left, right);
+        }
+        return expr;
+    }
+
+    private Expr.Call call(Expr.Call call) {
+        List<Expr> arguments = new ArrayList<>(call.arguments().size());
+        for (Expr argument : call.arguments()) {
+            arguments.add(expression(argument, false));
+        }
+        return new Expr.Call(call.function(), arguments);
+    }
+
+    /**
+     * {@code left && right} or {@code left || right}, with both operands
+     * already folded; {@code rightType} is the type of the right one before.
+     */
+    private Expr logical(BinaryOperator operator, Expr left, Expr right, Type rightType, boolean truth) {
+        boolean and = operator == BinaryOperator.AND;
+        Boolean l = truth(left);
+        Boolean r = truth(right);
+        if (l != null && l != and) {
+            // Decided by the left operand; the right one never runs, but a backend still checks it.
+            if (isNumber(rightType)) {
+                return truthValue(l);
+            }
+        } else if (l != null) {
+            if (r != null) {
+                return truthValue(r);
+            } else if (truth || isTruthValue(right)) {
+                return right;
+            }
+        } else if (r != null && r == and && (truth || isTruthValue(left))) {
+            return left;
+        }
+        return new Expr.BinaryOp(operator, left, right);
+    }
+
+    private static Expr comparison(BinaryOperator operator, Expr left, Expr right) {
+        if (left instanceof Expr.StringLiteral l && right instanceof Expr.StringLiteral r) {
+            return switch (operator) {
+                case EQ -> truthValue(l.value().equals(r.value()));
+                case NE -> truthValue(!l.value().equals(r.value()));
+                default -> null;
+            };
+        }
+        if (isInt(left) && isInt(right)) {
+            long l = ((Expr.IntLiteral) left).value();
+            long r = ((Expr.IntLiteral) right).value();
+            return truthValue(switch (operator) {
+                case LT -> l < r;
+                case GT -> l > r;
+                case LE -> l <= r;
+                case GE -> l >= r;
+                case EQ -> l == r;
+                case NE -> l != r;
+                default -> throw new AssertionError(operator);
+            });
+        }
+        if (isNumber(left) && isNumber(right)) {
+            double l = number(left);
+            double r = number(right);
+            return truthValue(switch (operator) {
+                case LT -> l < r;
+                case GT -> l > r;
+                case LE -> l <= r;
+                case GE -> l >= r;
+                case EQ -> l == r;
+                case NE -> l != r;
+                default -> throw new AssertionError(operator);
+            });
+        }
+        return null;
+    }
+
+    /**
+     * An arithmetic operator or {@code +} on strings, or {@code null} if it
+     * cannot be folded; the operands are folded, and of the types given.
+     */
+    private static Expr arithmetic(BinaryOperator operator, Expr left, Type leftType, Expr right, Type rightType) {
+        if (left instanceof Expr.StringLiteral || right instanceof Expr.StringLiteral) {
+            if (operator == BinaryOperator.ADD && isConstant(left) && isConstant(right)) {
+                return new Expr.StringLiteral(text(left).concat(text(right)));
+            }
+            return null;
+        }
+        if (isInt(left) && isInt(right)) {
+            int l = (int) ((Expr.IntLiteral) left).value();
+            int r = (int) ((Expr.IntLiteral) right).value();
+            if (r == 0 && (operator == BinaryOperator.DIV || operator == BinaryOperator.MOD)) {
+                // Left to throw when it runs.
+                return null;
+            }
+            return number(switch (operator) {
+                case ADD -> l + r;
+                case SUB -> l - r;
+                case MUL -> l * r;
+                case DIV -> l / r;
+                case MOD -> l % r;
+                default -> throw new AssertionError(operator);
+            });
+        }
+        if (isNumber(left) && isNumber(right)) {
+            double l = number(left);
+            double r = number(right);
+            return number(switch (operator) {
+                case ADD -> l + r;
+                case SUB -> l - r;
+                case MUL -> l * r;
+                case DIV -> l / r;
+                case MOD -> l % r;
+                default -> throw new AssertionError(operator);
+            });
+        }
+        return identity(operator, left, leftType, right, rightType);
+    }
+
+    /** {@code x + 0}, {@code 0 + x}, {@code x - 0}, {@code x * 1}, {@code 1 * x} and {@code x / 1} as {@code x}. */
+    private static Expr identity(BinaryOperator operator, Expr left, Type leftType, Expr right, Type rightType) {
+        return switch (operator) {
+            case ADD -> isInt(right, 0) && leftType == Type.INT ? left
+                    : isInt(left, 0) && rightType == Type.INT ? right : null;
+            case SUB -> isNumber(right, 0) && keepsType(leftType, right) ? left : null;
+            case MUL -> isNumber(right, 1) && keepsType(leftType, right) ? left
+                    : isNumber(left, 1) && keepsType(rightType, left) ? right : null;
+            case DIV -> isNumber(right, 1) && keepsType(leftType, right) ? left : null;
+            default -> null;
+        };
+    }
+
+    /** Whether {@code x op literal} has the type of {@code x}, of type {@code type}. */
+    private static boolean keepsType(Type type, Expr literal) {
+        return isNumber(type) && (literal instanceof Expr.IntLiteral || type == Type.DOUBLE);
+    }
+
+    private static boolean isNumber(Type type) {
+        return type == Type.INT || type == Type.FLOAT || type == Type.DOUBLE;
+    }
+
+    /** Whether {@code expr} is an {@code int} or {@code double} literal. */
+    private static boolean isNumber(Expr expr) {
+        return isInt(expr) || expr instanceof Expr.FloatLiteral;
+    }
+
+    private static boolean isNumber(Expr expr, int value) {
+        return isInt(expr, value)
+                || expr instanceof Expr.FloatLiteral literal && literal.value() == value && 1 / literal.value() > 0;
+    }
+
+    /** Whether {@code expr} is an {@code int} literal in range. */
+    private static boolean isInt(Expr expr) {
+        return expr instanceof Expr.IntLiteral literal && literal.value() <= Integer.MAX_VALUE;
+    }
+
+    private static boolean isInt(Expr expr, int value) {
+        return expr instanceof Expr.IntLiteral literal && literal.value() == value;
+    }
+
+    /** {@code value} as a literal, or {@code null} if no {@code NUMBER} spells it. */
+    private static Expr number(int value) {
+        return value >= 0 ? new Expr.IntLiteral(value) : null;
+    }
+
+    private static Expr number(double value) {
+        return value > 0 && value < Double.POSITIVE_INFINITY || value == 0 && 1 / value > 0
+                ? new Expr.FloatLiteral(value) : null;
+    }
+
+    private static boolean isConstant(Expr expr) {
+        return isNumber(expr) || expr instanceof Expr.StringLiteral;
+    }
+
+    private static double number(Expr expr) {
+        return expr instanceof Expr.FloatLiteral literal ? literal.value() : (int) ((Expr.IntLiteral) expr).value();
+    }
+
+    private static String text(Expr expr) {
+        if (expr instanceof Expr.StringLiteral literal) {
+            return literal.value();
+        }
+        return expr instanceof Expr.FloatLiteral literal ? Double.toString(literal.value())
+                : Integer.toString((int) ((Expr.IntLiteral) expr).value());
+    }
+
+    /** Whether {@code expr}, a numeric literal, is true, or {@code null} if it is not one. */
+    private static Boolean truth(Expr expr) {
+        return isNumber(expr) ? number(expr) != 0 : null;
+    }
+
+    /** Whether {@code expr} always yields 0 or 1. */
+    private static boolean isTruthValue(Expr expr) {
+        return expr instanceof Expr.Not
+                || expr instanceof Expr.BinaryOp binary
+                && (binary.operator().isComparison() || binary.operator().isLogical());
+    }
+
+    private static Expr truthValue(boolean value) {
+        return new Expr.IntLiteral(value ? 1 : 0);
+    }
+}
@@ -0,0 +1,35 @@
+package minilang.ast;
+
+import java.util.List;
+
+/** An {@code expression}; parentheses are not represented. */
+public sealed interface Expr {
+
+    record BinaryOp(BinaryOperator operator, Expr left, Expr right) implements Expr {
+    }
+
+    record Not(Expr operand) implements Expr {
+    }
+
+    record Name(Identifier name) implements Expr {
+    }
+
+    /** A {@code NUMBER} without a fraction. */
+    record IntLiteral(long value) implements Expr {
+    }
+
+    /** A {@code NUMBER} with a fraction. */
+    record FloatLiteral(double value) implements Expr {
+    }
+
+    /** A {@code STRING}, without its quotes. */
+    record StringLiteral(String value) implements Expr {
+    }
+
+    /** {@code name = value} used as an expression. */
+    record Assign(Identifier name, Expr value) implements Expr {
+    }
+
+    record Call(Identifier function, List<Expr> arguments) implements Expr {
+    }
+}
@@ -0,0 +1,10 @@
+package minilang.ast;
+
+import java.util.List;
+
+public record FunctionDecl(Type returnType, Identifier name, List<Param> parameters, List<Stmt> body, int line)
+        implements Item {
+
+    public record Param(Type type, Identifier name) {
+    }
+}
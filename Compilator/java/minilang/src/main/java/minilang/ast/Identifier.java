@@ -0,0 +1,33 @@
+package minilang.ast;
+
+/**
+ * A name in a program, shared by every occurrence of that name.
+ *
+ * <p>{@link AstBuilder} creates one instance per distinct name and numbers
+ * them from zero in order of first appearance, so identifiers compare by
+ * reference and {@link #id()} can index arrays.</p>
+ */
+public final class Identifier {
+
+    private final String name;
+
+    private final int id;
+
+    Identifier(String name, int id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,8 @@
+package minilang.ast;
+
+/** What a program lists after its global declarations: a function or a statement. */
+public sealed interface Item permits FunctionDecl, Stmt {
+
+    /** Line of the item's first token. */
+    int line();
+}
@@ -0,0 +1,13 @@
+package minilang.ast;
+
+import java.util.List;
+
+/**
+ * A whole program: its global declarations, then its functions and
+ * top-level statements in source order.
+ *
+ * @param identifiers every distinct name in the program, indexed by
+ *     {@link Identifier#id()}
+ */
+public record Program(List<Stmt.VarDecl> globals, List<Item> items, List<Identifier> identifiers) {
+}
@@ -0,0 +1,37 @@
+package minilang.ast;
+
+import java.util.List;
+
+/** A {@code statement}; every statement records the line it starts on. */
+public sealed interface Stmt extends Item {
+
+    /** A {@code declaration}, or a global {@code varDeclaration}; {@code init} is {@code null} if absent. */
+    record VarDecl(Type type, Identifier name, Expr init, int line) implements Stmt {
+    }
+
+    record Assign(Identifier name, AssignOperator operator, Expr value, int line) implements Stmt {
+    }
+
+    /** {@code name++}, {@code name--}, {@code ++name} or {@code --name}. */
+    record IncDec(Identifier name, boolean increment, boolean prefix, int line) implements Stmt {
+    }
+
+    /** {@code otherwise} is {@code null} if there is no {@code else} block. */
+    record If(Expr condition, List<Stmt> then, List<Stmt> otherwise, int line) implements Stmt {
+    }
+
+    /** {@code update} is an {@link Assign} or an {@link IncDec}. */
+    record For(VarDecl init, Expr condition, Stmt update, List<Stmt> body, int line) implements Stmt {
+    }
+
+    record While(Expr condition, List<Stmt> body, int line) implements Stmt {
+    }
+
+    /** {@code value} is {@code null} for a bare {@code return;}. */
+    record Return(Expr value, int line) implements Stmt {
+    }
+
+    /** A function call made for its effect. */
+    record CallStmt(Expr.Call call, int line) implements Stmt {
+    }
+}
@@ -0,0 +1,39 @@
+package minilang.ast;
+
+import minilang.TokenTypes;
+
+/** The types a variable, parameter or function can be declared with. */
+public enum Type {
+    INT("int"),
+    FLOAT("float"),
+    DOUBLE("double"),
+    STRING("string"),
+    VOID("void");
+
+    private final String keyword;
+
+    Type(String keyword) {
+        this.keyword = keyword;
+    }
+
+    /** The type named by a {@code type} token. */
+    public static Type of(int tokenType) {
+        if (tokenType == TokenTypes.TYPE_INT) {
+            return INT;
+        } else if (tokenType == TokenTypes.TYPE_FLOAT) {
+            return FLOAT;
+        } else if (tokenType == TokenTypes.TYPE_DOUBLE) {
+            return DOUBLE;
+        } else if (tokenType == TokenTypes.TYPE_STRING) {
+            return STRING;
+        } else if (tokenType == TokenTypes.TYPE_VOID) {
+            return VOID;
+        }
+        throw new IllegalArgumentException("Not a type token: " + tokenType);
+    }
+
+    /** The keyword that names this type in source. */
+    public String keyword() {
+        return keyword;
+    }
+}
@@ -0,0 +1,37 @@
+package minilang.dfa;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.BitSet;
+
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+
+/**
+ * Access to {@code ATNConfigSet.conflictingAlts}, which the runtime keeps
+ * protected but which is part of a DFA state's identity: it marks the states
+ * at which SLL prediction stops and reports a conflict.
+ */
+final class ConflictingAlts {
+
+    private static final VarHandle FIELD;
+
+    static {
+        try {
+            FIELD = MethodHandles.privateLookupIn(ATNConfigSet.class, MethodHandles.lookup())
+                    .findVarHandle(ATNConfigSet.class, "conflictingAlts", BitSet.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private ConflictingAlts() {
+    }
+
+    static BitSet get(ATNConfigSet configs) {
+        return (BitSet) FIELD.get(configs);
+    }
+
+    static void set(ATNConfigSet configs, BitSet alts) {
+        FIELD.set(configs, alts);
+    }
+}
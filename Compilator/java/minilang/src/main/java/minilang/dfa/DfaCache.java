@@ -0,0 +1,220 @@
+package minilang.dfa;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.antlr.v4.runtime.RuntimeMetaData;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+
+/**
+ * Saves the DFA states that {@link MiniLangLexer} and {@link MiniLangParser}
+ * learn while they run, and preloads them in a later JVM.
+ *
+ * <p>The ATN simulators cache every prediction they make in DFAs that are
+ * shared by all instances of the recognizer, but those DFAs start empty in
+ * each JVM, so a short-lived compiler run spends most of its parse time
+ * simulating the ATN. Loading a saved cache at startup lets the first file
+ * parse at steady-state speed:</p>
+ *
+ * <pre>{@code
+ * Path cache = Path.of("minilang.dfa");
+ * DfaCache.load(cache);
+ * DfaCache.saveOnExit(cache);
+ * }</pre>
+ *
+ * <p>The file records a digest of both recognizers' {@code _serializedATN}
+ * and of the runtime version. A file written for another grammar or runtime
+ * is ignored by {@link #load}, and is replaced on the next save. The DFAs
+ * follow with a CRC-32, which {@link #load} checks before reading them.</p>
+ */
+public final class DfaCache {
+
+    private static final int MAGIC = 0x4D4C4446;
+
+    /** Bumped whenever the file layout written by {@link DfaWriter} changes. */
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte[] FINGERPRINT = fingerprint();
+
+    private DfaCache() {
+    }
+
+    /**
+     * Installs the DFA states saved in {@code file}.
+     *
+     * @return {@code false}, leaving the DFAs untouched, if the file does not
+     *     exist or was written for a different grammar or runtime
+     * @throws IllegalStateException if either recognizer has already built
+     *     DFA states in this JVM
+     * @throws IOException if the file cannot be read or is corrupt; the DFAs
+     *     are left untouched
+     */
+    public static synchronized boolean load(Path file) throws IOException {
+        DFA[] lexerDfa = lexerDfa();
+        DFA[] parserDfa = parserDfa();
+        if (!isEmpty(lexerDfa) || !isEmpty(parserDfa)) {
+            throw new IllegalStateException("The DFA cache must be loaded before the first parse");
+        }
+
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) {
+            throw new IOException(file + " is not a MiniLang DFA cache");
+        }
+        if (in.readInt() != FORMAT_VERSION || !Arrays.equals(in.readNBytes(FINGERPRINT.length), FINGERPRINT)) {
+            return false;
+        }
+        int checksum = in.readInt();
+        int payload = bytes.length - in.available();
+        if (checksum != crc(bytes, payload, bytes.length - payload)) {
+            throw new IOException("Corrupt DFA cache: " + file + " fails its checksum");
+        }
+        DFA[] lexerLoaded = new DfaReader(in, MiniLangLexer._ATN, true, null).read(lexerDfa.length);
+        DFA[] parserLoaded = new DfaReader(in, MiniLangParser._ATN, false, sharedContextCache())
+                .read(parserDfa.length);
+        if (in.available() != 0) {
+            throw new IOException("Corrupt DFA cache: " + in.available() + " bytes after the DFAs");
+        }
+
+        // Nothing is installed until the whole file has been read.
+        System.arraycopy(lexerLoaded, 0, lexerDfa, 0, lexerDfa.length);
+        System.arraycopy(parserLoaded, 0, parserDfa, 0, parserDfa.length);
+        return true;
+    }
+
+    /**
+     * Writes the DFA states learned so far to {@code file}, replacing it
+     * atomically so that a concurrent {@link #load} never sees a partial file.
+     * Recognizers may keep running while the cache is saved.
+     */
+    public static synchronized void save(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            DataOutputStream dfas = new DataOutputStream(payload);
+            new DfaWriter(dfas, true).write(lexerDfa());
+            new DfaWriter(dfas, false).write(parserDfa());
+            byte[] bytes = payload.toByteArray();
+            try (OutputStream stream = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.write(FINGERPRINT);
+                out.writeInt(crc(bytes, 0, bytes.length));
+                out.write(bytes);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Saves the cache to {@code file} when the JVM shuts down. */
+    public static void saveOnExit(Path file) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                save(file);
+            } catch (IOException e) {
+                System.err.println("Could not save the DFA cache to " + file + ": " + e.getMessage());
+            }
+        }, "minilang-dfa-cache"));
+    }
+
+    /** Discards every DFA state learned by the lexer and the parser. */
+    public static synchronized void clear() {
+        lexer().clearDFA();
+        parser().clearDFA();
+    }
+
+    /** Number of DFA states currently cached, lexer and parser together. */
+    public static int stateCount() {
+        int count = 0;
+        for (DFA dfa : lexerDfa()) {
+            count += dfa.states.size();
+        }
+        for (DFA dfa : parserDfa()) {
+            count += dfa.states.size();
+        }
+        return count;
+    }
+
+    private static boolean isEmpty(DFA[] decisionToDFA) {
+        for (DFA dfa : decisionToDFA) {
+            if (!dfa.states.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The DFAs and the context cache are static in the generated recognizers
+    // but only reachable through an instance's simulator.
+
+    private static LexerATNSimulator lexer() {
+        return new MiniLangLexer(null).getInterpreter();
+    }
+
+    private static ParserATNSimulator parser() {
+        return new MiniLangParser((TokenStream) null).getInterpreter();
+    }
+
+    private static DFA[] lexerDfa() {
+        return lexer().decisionToDFA;
+    }
+
+    private static DFA[] parserDfa() {
+        return parser().decisionToDFA;
+    }
+
+    private static PredictionContextCache sharedContextCache() {
+        return parser().getSharedContextCache();
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] fingerprint() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(RuntimeMetaData.VERSION.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(MiniLangLexer._serializedATN.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(MiniLangParser._serializedATN.getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package minilang.dfa;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNConfig;
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.ATNSimulator;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.ArrayPredictionContext;
+import org.antlr.v4.runtime.atn.DecisionState;
+import org.antlr.v4.runtime.atn.EmptyPredictionContext;
+import org.antlr.v4.runtime.atn.LexerATNConfig;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.LexerAction;
+import org.antlr.v4.runtime.atn.LexerActionExecutor;
+import org.antlr.v4.runtime.atn.LexerActionType;
+import org.antlr.v4.runtime.atn.LexerChannelAction;
+import org.antlr.v4.runtime.atn.LexerCustomAction;
+import org.antlr.v4.runtime.atn.LexerIndexedCustomAction;
+import org.antlr.v4.runtime.atn.LexerModeAction;
+import org.antlr.v4.runtime.atn.LexerMoreAction;
+import org.antlr.v4.runtime.atn.LexerPopModeAction;
+import org.antlr.v4.runtime.atn.LexerPushModeAction;
+import org.antlr.v4.runtime.atn.LexerSkipAction;
+import org.antlr.v4.runtime.atn.LexerTypeAction;
+import org.antlr.v4.runtime.atn.OrderedATNConfigSet;
+import org.antlr.v4.runtime.atn.PredictionContext;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.atn.SemanticContext;
+import org.antlr.v4.runtime.atn.SingletonPredictionContext;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+/**
+ * Reads the DFAs of one recognizer written by {@link DfaWriter} into new
+ * {@link DFA} objects, rebuilding each state exactly as the simulator would
+ * have: same configurations, flags and state numbers, with read-only
+ * configuration sets.
+ *
+ * <p>Every count is checked against the ATN and against the bytes left in
+ * the stream before anything is allocated for it, so a corrupt file fails
+ * with an {@link IOException} rather than an {@link OutOfMemoryError}. The
+ * stream must report the exact number of bytes left from
+ * {@link DataInputStream#available()}, as one over a byte array does.</p>
+ */
+final class DfaReader {
+
+    private final DataInputStream in;
+
+    private final ATN atn;
+
+    /** Receives the parser's prediction contexts so new DFA states share them; {@code null} for the lexer. */
+    private final PredictionContextCache contextCache;
+
+    private final boolean lexer;
+
+    private final List<PredictionContext> contexts = new ArrayList<>();
+
+    /** Length of a DFA state's edge array: one entry per symbol the simulator indexes edges by. */
+    private final int maxEdges;
+
+    DfaReader(DataInputStream in, ATN atn, boolean lexer, PredictionContextCache contextCache) {
+        this.in = in;
+        this.atn = atn;
+        this.lexer = lexer;
+        this.contextCache = contextCache;
+        this.maxEdges = lexer
+                ? LexerATNSimulator.MAX_DFA_EDGE - LexerATNSimulator.MIN_DFA_EDGE + 1
+                : atn.maxTokenType + 2;
+    }
+
+    DFA[] read(int decisions) throws IOException {
+        int count = in.readInt();
+        if (count != decisions) {
+            throw new IOException("DFA cache has " + count + " decisions, expected " + decisions);
+        }
+        readContexts();
+        DFA[] dfas = new DFA[count];
+        for (int d = 0; d < count; d++) {
+            dfas[d] = readDfa(d);
+        }
+        return dfas;
+    }
+
+    private void readContexts() throws IOException {
+        int count = count(Integer.MAX_VALUE, 5, "prediction contexts");
+        for (int i = 0; i < count; i++) {
+            int kind = in.readByte();
+            PredictionContext context;
+            if (kind == DfaWriter.SINGLETON) {
+                PredictionContext parent = context(in.readInt());
+                context = SingletonPredictionContext.create(parent, in.readInt());
+            } else if (kind == DfaWriter.ARRAY) {
+                int size = count(atn.states.size(), 8, "return states");
+                PredictionContext[] parents = new PredictionContext[size];
+                int[] returnStates = new int[size];
+                for (int j = 0; j < size; j++) {
+                    parents[j] = context(in.readInt());
+                    returnStates[j] = in.readInt();
+                }
+                context = new ArrayPredictionContext(parents, returnStates);
+            } else {
+                throw new IOException("Corrupt DFA cache: prediction context kind " + kind);
+            }
+            contexts.add(contextCache == null ? context : contextCache.add(context));
+        }
+    }
+
+    private PredictionContext context(int id) throws IOException {
+        if (id == DfaWriter.NULL_CONTEXT) {
+            return null;
+        }
+        if (id == DfaWriter.EMPTY_CONTEXT) {
+            return EmptyPredictionContext.Instance;
+        }
+        if (id < 0 || id > contexts.size()) {
+            throw new IOException("Corrupt DFA cache: prediction context " + id);
+        }
+        return contexts.get(id - 1);
+    }
+
+    private DFA readDfa(int decision) throws IOException {
+        DFA dfa = new DFA(atn.getDecisionState(decision), decision);
+        int count = count(Integer.MAX_VALUE, lexer ? 33 : 29, "DFA states");
+        Map<Integer, DFAState> byNumber = new HashMap<>(count * 2);
+        List<DFAState> states = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DFAState state = readState();
+            byNumber.put(state.stateNumber, state);
+            states.add(state);
+            dfa.states.put(state, state);
+        }
+        for (DFAState state : states) {
+            state.edges = readEdges(byNumber, maxEdges);
+        }
+
+        boolean precedence = in.readBoolean();
+        if (precedence != dfa.isPrecedenceDfa()) {
+            throw new IOException("Corrupt DFA cache: decision " + decision + " precedence mismatch");
+        }
+        if (precedence) {
+            DFAState[] starts = readEdges(byNumber, atn.states.size());
+            if (starts != null) {
+                for (int p = 0; p < starts.length; p++) {
+                    if (starts[p] != null) {
+                        dfa.setPrecedenceStartState(p, starts[p]);
+                    }
+                }
+            }
+        } else {
+            int s0 = in.readInt();
+            dfa.s0 = s0 < 0 ? null : target(byNumber, s0);
+        }
+        return dfa;
+    }
+
+    private DFAState readState() throws IOException {
+        int stateNumber = in.readInt();
+        boolean accept = in.readBoolean();
+        int prediction = in.readInt();
+        boolean requiresFullContext = in.readBoolean();
+        LexerActionExecutor executor = lexer ? readExecutor() : null;
+        DFAState.PredPrediction[] predicates = null;
+        int predicateCount = in.readInt();
+        if (predicateCount != -1) {
+            check(predicateCount, atn.states.size(), 5, "predicates");
+            predicates = new DFAState.PredPrediction[predicateCount];
+            for (int i = 0; i < predicateCount; i++) {
+                int alt = in.readInt();
+                predicates[i] = new DFAState.PredPrediction(readSemanticContext(), alt);
+            }
+        }
+
+        DFAState state = new DFAState(readConfigs());
+        state.stateNumber = stateNumber;
+        state.isAcceptState = accept;
+        state.prediction = prediction;
+        state.requiresFullContext = requiresFullContext;
+        state.lexerActionExecutor = executor;
+        state.predicates = predicates;
+        return state;
+    }
+
+    private ATNConfigSet readConfigs() throws IOException {
+        boolean fullCtx = in.readBoolean();
+        ATNConfigSet configs = lexer ? new OrderedATNConfigSet() : new ATNConfigSet(fullCtx);
+        int uniqueAlt = in.readInt();
+        BitSet conflictingAlts = null;
+        int words = in.readInt();
+        if (words != -1) {
+            check(words, atn.states.size() / Long.SIZE + 1, 8, "conflicting alternative words");
+            long[] bits = new long[words];
+            for (int i = 0; i < words; i++) {
+                bits[i] = in.readLong();
+            }
+            conflictingAlts = BitSet.valueOf(bits);
+        }
+        boolean hasSemanticContext = in.readBoolean();
+        boolean dipsIntoOuterContext = in.readBoolean();
+
+        int size = count(Integer.MAX_VALUE, 17, "configurations");
+        for (int i = 0; i < size; i++) {
+            configs.add(readConfig());
+        }
+
+        // add() derives these from the configurations; restore the saved values.
+        configs.uniqueAlt = uniqueAlt;
+        ConflictingAlts.set(configs, conflictingAlts);
+        configs.hasSemanticContext = hasSemanticContext;
+        configs.dipsIntoOuterContext = dipsIntoOuterContext;
+        configs.setReadonly(true);
+        return configs;
+    }
+
+    private ATNConfig readConfig() throws IOException {
+        ATNState state = atnState(in.readInt());
+        int alt = in.readInt();
+        PredictionContext context = context(in.readInt());
+        int reachesIntoOuterContext = in.readInt();
+
+        ATNConfig config;
+        if (lexer) {
+            boolean nonGreedy = in.readBoolean();
+            LexerActionExecutor executor = readExecutor();
+            LexerATNConfig lexerConfig = new LexerATNConfig(state, alt, context, executor);
+            if (nonGreedy) {
+                // The flag is private; it is set by passing through a non-greedy decision.
+                lexerConfig = new LexerATNConfig(new LexerATNConfig(lexerConfig, nonGreedyState()), state, context);
+            }
+            config = lexerConfig;
+        } else {
+            config = new ATNConfig(state, alt, context, readSemanticContext());
+        }
+        config.reachesIntoOuterContext = reachesIntoOuterContext;
+        return config;
+    }
+
+    private SemanticContext readSemanticContext() throws IOException {
+        int kind = in.readByte();
+        return switch (kind) {
+            case DfaWriter.SEMANTIC_NONE -> SemanticContext.Empty.Instance;
+            case DfaWriter.SEMANTIC_PREDICATE ->
+                    new SemanticContext.Predicate(in.readInt(), in.readInt(), in.readBoolean());
+            case DfaWriter.SEMANTIC_PRECEDENCE -> new SemanticContext.PrecedencePredicate(in.readInt());
+            case DfaWriter.SEMANTIC_AND, DfaWriter.SEMANTIC_OR -> {
+                int count = count(Integer.MAX_VALUE, 1, "operands");
+                SemanticContext result = readSemanticContext();
+                for (int i = 1; i < count; i++) {
+                    SemanticContext operand = readSemanticContext();
+                    result = kind == DfaWriter.SEMANTIC_AND
+                            ? new SemanticContext.AND(result, operand)
+                            : new SemanticContext.OR(result, operand);
+                }
+                yield result;
+            }
+            default -> throw new IOException("Corrupt DFA cache: semantic context kind " + kind);
+        };
+    }
+
+    private LexerActionExecutor readExecutor() throws IOException {
+        int count = in.readInt();
+        if (count == -1) {
+            return null;
+        }
+        check(count, Integer.MAX_VALUE, 1, "lexer actions");
+        LexerAction[] actions = new LexerAction[count];
+        for (int i = 0; i < count; i++) {
+            actions[i] = readAction();
+        }
+        return new LexerActionExecutor(actions);
+    }
+
+    private LexerAction readAction() throws IOException {
+        int kind = in.readByte();
+        if (kind == -1) {
+            int offset = in.readInt();
+            return new LexerIndexedCustomAction(offset, readAction());
+        }
+        LexerActionType[] types = LexerActionType.values();
+        if (kind < 0 || kind >= types.length) {
+            throw new IOException("Corrupt DFA cache: lexer action " + kind);
+        }
+        return switch (types[kind]) {
+            case CHANNEL -> new LexerChannelAction(in.readInt());
+            case CUSTOM -> new LexerCustomAction(in.readInt(), in.readInt());
+            case MODE -> new LexerModeAction(in.readInt());
+            case MORE -> LexerMoreAction.INSTANCE;
+            case POP_MODE -> LexerPopModeAction.INSTANCE;
+            case PUSH_MODE -> new LexerPushModeAction(in.readInt());
+            case SKIP -> LexerSkipAction.INSTANCE;
+            case TYPE -> new LexerTypeAction(in.readInt());
+        };
+    }
+
+    private DFAState[] readEdges(Map<Integer, DFAState> byNumber, int maxLength) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        check(length, maxLength, 0, "edges");
+        DFAState[] edges = new DFAState[length];
+        int count = count(length, 8, "edge targets");
+        for (int i = 0; i < count; i++) {
+            int index = in.readInt();
+            if (index < 0 || index >= length) {
+                throw new IOException("Corrupt DFA cache: edge " + index);
+            }
+            edges[index] = target(byNumber, in.readInt());
+        }
+        return edges;
+    }
+
+    /**
+     * Reads a count of items that take at least {@code bytes} bytes each in
+     * the stream, and of which there can be at most {@code max}.
+     */
+    private int count(int max, int bytes, String what) throws IOException {
+        return check(in.readInt(), max, bytes, what);
+    }
+
+    private int check(int count, int max, int bytes, String what) throws IOException {
+        if (count < 0 || count > max || (long) count * bytes > in.available()) {
+            throw new IOException("Corrupt DFA cache: " + count + " " + what);
+        }
+        return count;
+    }
+
+    private static DFAState target(Map<Integer, DFAState> byNumber, int stateNumber) throws IOException {
+        if (stateNumber == ATNSimulator.ERROR.stateNumber) {
+            return ATNSimulator.ERROR;
+        }
+        DFAState state = byNumber.get(stateNumber);
+        if (state == null) {
+            throw new IOException("Corrupt DFA cache: DFA state " + stateNumber);
+        }
+        return state;
+    }
+
+    private ATNState atnState(int stateNumber) throws IOException {
+        if (stateNumber < 0 || stateNumber >= atn.states.size() || atn.states.get(stateNumber) == null) {
+            throw new IOException("Corrupt DFA cache: ATN state " + stateNumber);
+        }
+        return atn.states.get(stateNumber);
+    }
+
+    private DecisionState nonGreedyState() throws IOException {
+        for (DecisionState decision : atn.decisionToState) {
+            if (decision.nonGreedy) {
+                return decision;
+            }
+        }
+        throw new IOException("Corrupt DFA cache: the lexer has no non-greedy decision");
+    }
+}
@@ -0,0 +1,296 @@
+package minilang.dfa;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.antlr.v4.runtime.atn.ATNConfig;
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.ArrayPredictionContext;
+import org.antlr.v4.runtime.atn.EmptyPredictionContext;
+import org.antlr.v4.runtime.atn.LexerATNConfig;
+import org.antlr.v4.runtime.atn.LexerAction;
+import org.antlr.v4.runtime.atn.LexerActionExecutor;
+import org.antlr.v4.runtime.atn.LexerChannelAction;
+import org.antlr.v4.runtime.atn.LexerCustomAction;
+import org.antlr.v4.runtime.atn.LexerIndexedCustomAction;
+import org.antlr.v4.runtime.atn.LexerModeAction;
+import org.antlr.v4.runtime.atn.LexerPushModeAction;
+import org.antlr.v4.runtime.atn.LexerTypeAction;
+import org.antlr.v4.runtime.atn.PredictionContext;
+import org.antlr.v4.runtime.atn.SemanticContext;
+import org.antlr.v4.runtime.atn.SingletonPredictionContext;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+/**
+ * Writes the DFAs of one recognizer.
+ *
+ * <p>The section starts with every prediction context reachable from the
+ * DFA states, parents before children, so that configurations refer to
+ * contexts by index and shared contexts stay shared once loaded. Each DFA
+ * then lists its states, their edges by target state number, and its start
+ * state.</p>
+ */
+final class DfaWriter {
+
+    static final int NULL_CONTEXT = -1;
+    static final int EMPTY_CONTEXT = 0;
+
+    static final int SINGLETON = 1;
+    static final int ARRAY = 2;
+
+    static final int SEMANTIC_NONE = 0;
+    static final int SEMANTIC_PREDICATE = 1;
+    static final int SEMANTIC_PRECEDENCE = 2;
+    static final int SEMANTIC_AND = 3;
+    static final int SEMANTIC_OR = 4;
+
+    private final DataOutputStream out;
+
+    private final boolean lexer;
+
+    private final Map<PredictionContext, Integer> contextIds = new IdentityHashMap<>();
+
+    private final List<PredictionContext> contexts = new ArrayList<>();
+
+    DfaWriter(DataOutputStream out, boolean lexer) {
+        this.out = out;
+        this.lexer = lexer;
+    }
+
+    void write(DFA[] decisionToDFA) throws IOException {
+        List<List<DFAState>> snapshots = new ArrayList<>(decisionToDFA.length);
+        for (DFA dfa : decisionToDFA) {
+            List<DFAState> states;
+            synchronized (dfa.states) {
+                states = new ArrayList<>(dfa.states.values());
+            }
+            states.sort(Comparator.comparingInt(state -> state.stateNumber));
+            for (DFAState state : states) {
+                for (ATNConfig config : state.configs) {
+                    contextId(config.context);
+                }
+            }
+            snapshots.add(states);
+        }
+
+        out.writeInt(decisionToDFA.length);
+        writeContexts();
+        for (int d = 0; d < decisionToDFA.length; d++) {
+            writeDfa(decisionToDFA[d], snapshots.get(d));
+        }
+    }
+
+    private int contextId(PredictionContext context) {
+        if (context == null) {
+            return NULL_CONTEXT;
+        }
+        if (context instanceof EmptyPredictionContext) {
+            return EMPTY_CONTEXT;
+        }
+        Integer id = contextIds.get(context);
+        if (id != null) {
+            return id;
+        }
+        for (int i = 0; i < context.size(); i++) {
+            contextId(context.getParent(i));
+        }
+        contexts.add(context);
+        contextIds.put(context, contexts.size());
+        return contexts.size();
+    }
+
+    private void writeContexts() throws IOException {
+        out.writeInt(contexts.size());
+        for (PredictionContext context : contexts) {
+            if (context instanceof SingletonPredictionContext singleton) {
+                out.writeByte(SINGLETON);
+                out.writeInt(contextId(singleton.parent));
+                out.writeInt(singleton.returnState);
+            } else {
+                ArrayPredictionContext array = (ArrayPredictionContext) context;
+                out.writeByte(ARRAY);
+                out.writeInt(array.size());
+                for (int i = 0; i < array.size(); i++) {
+                    out.writeInt(contextId(array.parents[i]));
+                    out.writeInt(array.returnStates[i]);
+                }
+            }
+        }
+    }
+
+    private void writeDfa(DFA dfa, List<DFAState> states) throws IOException {
+        out.writeInt(states.size());
+        for (DFAState state : states) {
+            writeState(state);
+        }
+
+        // Edges may point at states added after the snapshot; those are dropped.
+        Set<DFAState> written = Collections.newSetFromMap(new IdentityHashMap<>());
+        written.addAll(states);
+        for (DFAState state : states) {
+            writeEdges(state, written);
+        }
+
+        out.writeBoolean(dfa.isPrecedenceDfa());
+        if (dfa.isPrecedenceDfa()) {
+            writeEdges(dfa.s0, written);
+        } else {
+            DFAState s0 = dfa.s0;
+            out.writeInt(s0 != null && written.contains(s0) ? s0.stateNumber : -1);
+        }
+    }
+
+    private void writeState(DFAState state) throws IOException {
+        out.writeInt(state.stateNumber);
+        out.writeBoolean(state.isAcceptState);
+        out.writeInt(state.prediction);
+        out.writeBoolean(state.requiresFullContext);
+        if (lexer) {
+            writeExecutor(state.lexerActionExecutor);
+        }
+        if (state.predicates == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(state.predicates.length);
+            for (DFAState.PredPrediction prediction : state.predicates) {
+                out.writeInt(prediction.alt);
+                writeSemanticContext(prediction.pred);
+            }
+        }
+        writeConfigs(state.configs);
+    }
+
+    private void writeConfigs(ATNConfigSet configs) throws IOException {
+        out.writeBoolean(configs.fullCtx);
+        out.writeInt(configs.uniqueAlt);
+        BitSet conflicting = ConflictingAlts.get(configs);
+        if (conflicting == null) {
+            out.writeInt(-1);
+        } else {
+            long[] words = conflicting.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+        out.writeBoolean(configs.hasSemanticContext);
+        out.writeBoolean(configs.dipsIntoOuterContext);
+        out.writeInt(configs.size());
+        for (ATNConfig config : configs) {
+            out.writeInt(config.state.stateNumber);
+            out.writeInt(config.alt);
+            out.writeInt(contextId(config.context));
+            out.writeInt(config.reachesIntoOuterContext);
+            if (lexer) {
+                LexerATNConfig lexerConfig = (LexerATNConfig) config;
+                out.writeBoolean(lexerConfig.hasPassedThroughNonGreedyDecision());
+                writeExecutor(lexerConfig.getLexerActionExecutor());
+            } else {
+                writeSemanticContext(config.semanticContext);
+            }
+        }
+    }
+
+    private void writeSemanticContext(SemanticContext context) throws IOException {
+        if (context instanceof SemanticContext.Predicate predicate) {
+            out.writeByte(SEMANTIC_PREDICATE);
+            out.writeInt(predicate.ruleIndex);
+            out.writeInt(predicate.predIndex);
+            out.writeBoolean(predicate.isCtxDependent);
+        } else if (context instanceof SemanticContext.PrecedencePredicate precedence) {
+            out.writeByte(SEMANTIC_PRECEDENCE);
+            out.writeInt(precedence.precedence);
+        } else if (context instanceof SemanticContext.AND and) {
+            out.writeByte(SEMANTIC_AND);
+            writeOperands(and.opnds);
+        } else if (context instanceof SemanticContext.OR or) {
+            out.writeByte(SEMANTIC_OR);
+            writeOperands(or.opnds);
+        } else {
+            out.writeByte(SEMANTIC_NONE);
+        }
+    }
+
+    private void writeOperands(SemanticContext[] operands) throws IOException {
+        out.writeInt(operands.length);
+        for (SemanticContext operand : operands) {
+            writeSemanticContext(operand);
+        }
+    }
+
+    private void writeExecutor(LexerActionExecutor executor) throws IOException {
+        if (executor == null) {
+            out.writeInt(-1);
+            return;
+        }
+        LexerAction[] actions = executor.getLexerActions();
+        out.writeInt(actions.length);
+        for (LexerAction action : actions) {
+            writeAction(action);
+        }
+    }
+
+    private void writeAction(LexerAction action) throws IOException {
+        if (action instanceof LexerIndexedCustomAction indexed) {
+            // Shares the CUSTOM type with its wrapped action; a negative tag tells them apart.
+            out.writeByte(-1);
+            out.writeInt(indexed.getOffset());
+            writeAction(indexed.getAction());
+            return;
+        }
+        out.writeByte(action.getActionType().ordinal());
+        switch (action.getActionType()) {
+            case CHANNEL -> out.writeInt(((LexerChannelAction) action).getChannel());
+            case CUSTOM -> {
+                LexerCustomAction custom = (LexerCustomAction) action;
+                out.writeInt(custom.getRuleIndex());
+                out.writeInt(custom.getActionIndex());
+            }
+            case MODE -> out.writeInt(((LexerModeAction) action).getMode());
+            case PUSH_MODE -> out.writeInt(((LexerPushModeAction) action).getMode());
+            case TYPE -> out.writeInt(((LexerTypeAction) action).getType());
+            case MORE, POP_MODE, SKIP -> {
+                // Singletons without arguments.
+            }
+        }
+    }
+
+    private void writeEdges(DFAState state, Set<DFAState> written) throws IOException {
+        DFAState[] edges;
+        synchronized (state) {
+            edges = state.edges == null ? null : state.edges.clone();
+        }
+        if (edges == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(edges.length);
+        int count = 0;
+        for (DFAState target : edges) {
+            if (isWritable(target, written)) {
+                count++;
+            }
+        }
+        out.writeInt(count);
+        for (int i = 0; i < edges.length; i++) {
+            if (isWritable(edges[i], written)) {
+                out.writeInt(i);
+                out.writeInt(edges[i].stateNumber);
+            }
+        }
+    }
+
+    /** The shared {@code ERROR} state is written by its state number, {@link Integer#MAX_VALUE}. */
+    private static boolean isWritable(DFAState target, Set<DFAState> written) {
+        return target != null && (target.stateNumber == Integer.MAX_VALUE || written.contains(target));
+    }
+}
@@ -0,0 +1,58 @@
+package minilang.driver;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Per-file and aggregate results of a {@link CompilationDriver} run.
+ *
+ * @param files one result per input file, in input order
+ * @param threads parallelism of the pool the files were parsed on
+ * @param wallNanos elapsed time of the whole batch
+ */
+public record BatchReport(List<FileResult> files, int threads, long wallNanos) {
+
+    public long totalBytes() {
+        return files.stream().mapToLong(FileResult::bytes).sum();
+    }
+
+    public long totalTokens() {
+        return files.stream().mapToLong(FileResult::tokens).sum();
+    }
+
+    public long failedFiles() {
+        return files.stream().filter(FileResult::hasErrors).count();
+    }
+
+    /** Sum of the per-file times; divided by the wall time it gives the effective parallelism. */
+    public long busyNanos() {
+        return files.stream().mapToLong(FileResult::nanos).sum();
+    }
+
+    public double megabytesPerSecond() {
+        return totalBytes() / (wallNanos / 1e9) / (1024 * 1024);
+    }
+
+    public double filesPerSecond() {
+        return files.size() / (wallNanos / 1e9);
+    }
+
+    /** Prints one line per file when {@code perFile} is set, the diagnostics, and the totals. */
+    public void print(PrintStream out, boolean perFile) {
+        if (perFile) {
+            out.printf("%-60s %10s %8s %8s %9s %9s%n", "File", "Bytes", "Tokens", "Stage", "ms", "MB/s");
+            for (FileResult file : files) {
+                out.printf("%-60s %10d %8d %8s %9.2f %9.1f%n",
+                        file.file(), file.bytes(), file.tokens(), file.stage(),
+                        file.nanos() / 1e6, file.megabytesPerSecond());
+            }
+        }
+        for (FileResult file : files) {
+            file.diagnostics().forEach(out::println);
+        }
+        out.printf("%d files (%d with errors), %d bytes, %d tokens in %.1f ms on %d threads%n",
+                files.size(), failedFiles(), totalBytes(), totalTokens(), wallNanos / 1e6, threads);
+        out.printf("%.1f MB/s, %.0f files/s, %.2fx parallelism%n",
+                megabytesPerSecond(), filesPerSecond(), (double) busyNanos() / wallNanos);
+    }
+}
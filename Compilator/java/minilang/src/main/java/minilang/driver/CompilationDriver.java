@@ -0,0 +1,128 @@
+package minilang.driver;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+import minilang.dfa.DfaCache;
+
+/**
+ * Parses a batch of MiniLang files in parallel.
+ *
+ * <p>Files are parsed on a {@link ForkJoinPool}, one task per file. Every pool
+ * thread keeps a single lexer and parser and resets them for each file, and
+ * all of them share the recognizers' DFAs, so after the first few files each
+ * thread parses at steady-state speed. Each file goes through
+ * {@link minilang.parse.DescentParser#parse}, falling back to the generated
+ * parser only for files with syntax errors.</p>
+ *
+ * <p>From the command line:</p>
+ * <pre>
+ * CompilationDriver &lt;dir&gt; [--threads N] [--glob PATTERN] [--dfa-cache FILE] [--per-file]
+ * </pre>
+ * <p>parses every file under {@code dir} whose name matches {@code PATTERN}
+ * (default {@code *.txt}) and prints the totals, or one line per file with
+ * {@code --per-file}. It exits with status 1 if any file had errors.</p>
+ */
+public final class CompilationDriver implements AutoCloseable {
+
+    private final ForkJoinPool pool;
+
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    public CompilationDriver(int threads) {
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /** Parses {@code files}; the results are in the same order. */
+    public BatchReport compile(List<Path> files) {
+        long start = System.nanoTime();
+        List<ForkJoinTask<FileResult>> tasks = new ArrayList<>(files.size());
+        for (Path file : files) {
+            tasks.add(pool.submit(() -> workers.get().parse(file)));
+        }
+        List<FileResult> results = new ArrayList<>(files.size());
+        for (ForkJoinTask<FileResult> task : tasks) {
+            results.add(task.join());
+        }
+        return new BatchReport(results, pool.getParallelism(), System.nanoTime() - start);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /** Regular files under {@code dir} whose file name matches the glob {@code pattern}, sorted. */
+    public static List<Path> sources(Path dir, String pattern) throws IOException {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        try (Stream<Path> walk = Files.walk(dir)) {
+            return walk.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(path.getFileName()))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String pattern = "*.txt";
+        Path dfaCache = null;
+        boolean perFile = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(argument(args, ++i));
+                case "--glob" -> pattern = argument(args, ++i);
+                case "--dfa-cache" -> dfaCache = Path.of(argument(args, ++i));
+                case "--per-file" -> perFile = true;
+                default -> {
+                    if (dir != null || args[i].startsWith("--")) {
+                        usage();
+                    }
+                    dir = Path.of(args[i]);
+                }
+            }
+        }
+        if (dir == null) {
+            usage();
+        }
+
+        if (dfaCache != null) {
+            // The cache only saves warm-up: without it the run starts cold.
+            try {
+                DfaCache.load(dfaCache);
+            } catch (IOException e) {
+                System.err.println("Could not load the DFA cache from " + dfaCache + ": " + e.getMessage());
+            }
+            DfaCache.saveOnExit(dfaCache);
+        }
+        BatchReport report;
+        try (CompilationDriver driver = new CompilationDriver(threads)) {
+            report = driver.compile(sources(dir, pattern));
+        }
+        report.print(System.out, perFile);
+        if (report.failedFiles() > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String argument(String[] args, int index) {
+        if (index >= args.length) {
+            usage();
+        }
+        return args[index];
+    }
+
+    private static void usage() {
+        System.err.println("usage: CompilationDriver <dir> [--threads N] [--glob PATTERN] [--dfa-cache FILE] [--per-file]");
+        System.exit(2);
+    }
+}
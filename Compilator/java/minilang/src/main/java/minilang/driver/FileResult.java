@@ -0,0 +1,29 @@
+package minilang.driver;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import minilang.parse.ParseStage;
+
+/**
+ * Outcome of parsing one source file.
+ *
+ * @param file the source file
+ * @param bytes size of the file
+ * @param tokens number of tokens, including {@code EOF}
+ * @param stage the parsing strategy that produced the tree, or {@code null}
+ *     if the file could not be read
+ * @param diagnostics lexer and parser errors, as {@code file:line:column: message}
+ * @param nanos time spent reading, lexing and parsing the file
+ */
+public record FileResult(Path file, long bytes, int tokens, ParseStage stage, List<String> diagnostics, long nanos) {
+
+    public boolean hasErrors() {
+        return stage == null || !diagnostics.isEmpty();
+    }
+
+    /** Megabytes of source per second for this file alone. */
+    public double megabytesPerSecond() {
+        return nanos == 0 ? 0 : bytes / (nanos / 1e9) / (1024 * 1024);
+    }
+}
@@ -0,0 +1,88 @@
+package minilang.driver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.TokenStream;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.jfr.LexEvent;
+import minilang.jfr.ParseEvent;
+import minilang.jfr.PhaseEvent;
+import minilang.parse.DescentParser;
+import minilang.parse.Diagnostics;
+import minilang.parse.ParseResult;
+import minilang.parse.StacklessErrorStrategy;
+
+/**
+ * The lexer, token stream and parser of one pool thread, reset for every
+ * file instead of being rebuilt.
+ *
+ * <p>Syntax errors go to one {@link Diagnostics} buffer through a
+ * {@link StacklessErrorStrategy}, so a malformed file costs no stack traces
+ * and its messages are built once, when the file is done.</p>
+ */
+final class Worker {
+
+    private final MiniLangLexer lexer = new MiniLangLexer(null);
+
+    private final CommonTokenStream tokens = new CommonTokenStream(lexer);
+
+    private final MiniLangParser parser = new MiniLangParser((TokenStream) null);
+
+    private final Diagnostics diagnostics = new Diagnostics();
+
+    Worker() {
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(diagnostics);
+        parser.removeErrorListeners();
+        StacklessErrorStrategy.install(parser, diagnostics);
+    }
+
+    FileResult parse(Path file) {
+        long start = System.nanoTime();
+        diagnostics.clear();
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            lexer.setInputStream(CharStreams.fromString(new String(bytes, StandardCharsets.UTF_8), file.toString()));
+            tokens.setTokenSource(lexer);
+            LexEvent lex = new LexEvent();
+            lex.start();
+            tokens.fill();
+            if (lex.stop()) {
+                lex.source = file.toString();
+                lex.bytes = bytes.length;
+                lex.tokens = tokens.size();
+                lex.commit();
+            }
+            parser.setTokenStream(tokens);
+            ParseEvent parse = new ParseEvent();
+            parse.start();
+            ParseResult result = DescentParser.parse(parser);
+            if (parse.stop()) {
+                parse.source = file.toString();
+                parse.bytes = bytes.length;
+                parse.tokens = tokens.size();
+                parse.rules = PhaseEvent.rules(result.tree());
+                parse.stage = result.stage().name();
+                parse.errors = diagnostics.size();
+                parse.commit();
+            }
+            return new FileResult(file, bytes.length, tokens.size(), result.stage(), diagnostics.format(file + ":"),
+                    System.nanoTime() - start);
+        } catch (IOException e) {
+            return new FileResult(file, 0, 0, null, List.of(file + ": " + e), System.nanoTime() - start);
+        } finally {
+            // Drop the file's tokens, tree and errors so an idle worker holds no memory.
+            tokens.setTokenSource(lexer);
+            parser.setTokenStream(null);
+            diagnostics.clear();
+        }
+    }
+}
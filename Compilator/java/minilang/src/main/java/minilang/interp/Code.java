@@ -0,0 +1,48 @@
+package minilang.interp;
+
+/**
+ * The compiled forms of expressions and statements: one functional
+ * interface per static type, so values are never boxed.
+ */
+final class Code {
+
+    /** What a statement returns when execution continues with the next one. */
+    static final int NORMAL = 0;
+
+    /** What a statement returns after a {@code return}; the value is in the frame. */
+    static final int RETURN = 1;
+
+    private Code() {
+    }
+
+    interface OfInt {
+        int eval(Frame f);
+    }
+
+    interface OfFloat {
+        float eval(Frame f);
+    }
+
+    interface OfDouble {
+        double eval(Frame f);
+    }
+
+    interface OfString {
+        String eval(Frame f);
+    }
+
+    /** A condition. */
+    interface Test {
+        boolean test(Frame f);
+    }
+
+    /** A statement; returns {@link #NORMAL} or {@link #RETURN}. */
+    interface Exec {
+        int exec(Frame f);
+    }
+
+    /** Evaluates an argument in the caller's frame into a parameter slot of the callee's. */
+    interface Argument {
+        void pass(Frame caller, Frame callee);
+    }
+}
@@ -0,0 +1,723 @@
+package minilang.interp;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import minilang.ast.BinaryOperator;
+import minilang.ast.Expr;
+import minilang.ast.FunctionDecl;
+import minilang.ast.Item;
+import minilang.ast.Program;
+import minilang.ast.Stmt;
+import minilang.ast.Type;
+import minilang.sema.Resolution;
+import minilang.sema.Types;
+
+/**
+ * Compiles a {@link Program} to {@link Code}, once {@link Resolution} has
+ * checked it.
+ *
+ * <p>Each global gets a slot of the globals' frame, and each parameter and
+ * local variable a slot of its function's frame when its declaration is
+ * compiled; every name then compiles to the slot of the variable the
+ * resolution found for it. The types of all expressions are known here, so
+ * the compiled code converts values only where the source mixes types.</p>
+ */
+final class Compiler {
+
+    private final Resolution resolution;
+
+    private final Frame globals;
+
+    private final Map<Resolution.Variable, Slot> slots = new HashMap<>();
+
+    private final Map<Resolution.Function, Function> functions = new HashMap<>();
+
+    private final PrintStream out;
+
+    private Function current;
+
+    private Compiler(Resolution resolution, PrintStream out) {
+        this.resolution = resolution;
+        this.out = out;
+        int slotCount = 0;
+        int refCount = 0;
+        for (Resolution.Variable global : resolution.globals()) {
+            int index = global.type() == Type.STRING ? refCount++ : slotCount++;
+            slots.put(global, new Slot(global.type(), index, true));
+        }
+        globals = new Frame(slotCount, refCount);
+    }
+
+    /**
+     * Compiles {@code program}; the result runs the top level and holds every function.
+     *
+     * @throws IllegalArgumentException with the first error {@link Resolution} finds
+     */
+    static Compiled compile(Program program, PrintStream out) {
+        Compiler compiler = new Compiler(Resolution.resolve(program).check(), out);
+        for (Item item : program.items()) {
+            if (item instanceof FunctionDecl function) {
+                compiler.declare(function);
+            }
+        }
+        for (Item item : program.items()) {
+            if (item instanceof FunctionDecl function) {
+                compiler.define(function);
+            }
+        }
+
+        // The top level runs as a function of its own, whose frame holds the
+        // variables of blocks outside any function.
+        Function script = new Function(null, Type.VOID, new Slot[0]);
+        compiler.current = script;
+        List<Code.Exec> topLevel = new ArrayList<>();
+        for (Stmt.VarDecl global : program.globals()) {
+            topLevel.add(compiler.statement(global));
+        }
+        for (Item item : program.items()) {
+            if (item instanceof Stmt statement) {
+                topLevel.add(compiler.statement(statement));
+            }
+        }
+        script.body = block(topLevel);
+
+        Map<String, Function> byName = new HashMap<>();
+        compiler.functions.values().forEach(function -> byName.put(function.name.name(), function));
+        return new Compiled(compiler.globals, script, byName);
+    }
+
+    record Compiled(Frame globals, Function topLevel, Map<String, Function> functions) {
+    }
+
+    private void declare(FunctionDecl declaration) {
+        Resolution.Function resolved = resolution.function(declaration);
+        Function function = new Function(declaration.name(), declaration.returnType(),
+                new Slot[resolved.parameters().size()]);
+        for (int i = 0; i < function.parameters.length; i++) {
+            function.parameters[i] = allocate(function, resolved.parameters().get(i));
+        }
+        functions.put(resolved, function);
+    }
+
+    private void define(FunctionDecl declaration) {
+        current = functions.get(resolution.function(declaration));
+        current.body = block(statements(declaration.body()));
+    }
+
+    // Statements
+
+    private List<Code.Exec> statements(List<Stmt> statements) {
+        List<Code.Exec> compiled = new ArrayList<>(statements.size());
+        for (Stmt statement : statements) {
+            compiled.add(statement(statement));
+        }
+        return compiled;
+    }
+
+    private static Code.Exec block(List<Code.Exec> statements) {
+        Code.Exec[] code = statements.toArray(new Code.Exec[0]);
+        switch (code.length) {
+            case 0:
+                return f -> Code.NORMAL;
+            case 1:
+                return code[0];
+            case 2: {
+                Code.Exec first = code[0];
+                Code.Exec second = code[1];
+                return f -> first.exec(f) == Code.NORMAL ? second.exec(f) : Code.RETURN;
+            }
+            default:
+                return f -> {
+                    for (Code.Exec statement : code) {
+                        if (statement.exec(f) != Code.NORMAL) {
+                            return Code.RETURN;
+                        }
+                    }
+                    return Code.NORMAL;
+                };
+        }
+    }
+
+    private Code.Exec statement(Stmt statement) {
+        if (statement instanceof Stmt.VarDecl declaration) {
+            return declaration(declaration);
+        } else if (statement instanceof Stmt.Assign assignment) {
+            Slot slot = slots.get(resolution.variable(assignment));
+            Typed value = expression(assignment.value());
+            BinaryOperator operator = assignment.operator().operator();
+            return store(slot, operator == null ? value : binary(operator, load(slot), value));
+        } else if (statement instanceof Stmt.IncDec incDec) {
+            Slot slot = slots.get(resolution.variable(incDec));
+            BinaryOperator operator = incDec.increment() ? BinaryOperator.ADD : BinaryOperator.SUB;
+            return store(slot, binary(operator, load(slot), new Typed(Type.INT, (Code.OfInt) f -> 1)));
+        } else if (statement instanceof Stmt.If ifStatement) {
+            Code.Test condition = condition(ifStatement.condition());
+            Code.Exec then = block(statements(ifStatement.then()));
+            if (ifStatement.otherwise() == null) {
+                return f -> condition.test(f) ? then.exec(f) : Code.NORMAL;
+            }
+            Code.Exec otherwise = block(statements(ifStatement.otherwise()));
+            return f -> condition.test(f) ? then.exec(f) : otherwise.exec(f);
+        } else if (statement instanceof Stmt.While whileStatement) {
+            Code.Test condition = condition(whileStatement.condition());
+            Code.Exec body = block(statements(whileStatement.body()));
+            return f -> {
+                while (condition.test(f)) {
+                    if (body.exec(f) != Code.NORMAL) {
+                        return Code.RETURN;
+                    }
+                }
+                return Code.NORMAL;
+            };
+        } else if (statement instanceof Stmt.For forStatement) {
+            return forStatement(forStatement);
+        } else if (statement instanceof Stmt.Return returnStatement) {
+            return returnStatement(returnStatement);
+        } else if (statement instanceof Stmt.CallStmt call) {
+            Typed value = call(call.call());
+            return switch (value.type) {
+                case INT -> {
+                    Code.OfInt code = (Code.OfInt) value.code;
+                    yield f -> {
+                        code.eval(f);
+                        return Code.NORMAL;
+                    };
+                }
+                case FLOAT -> {
+                    Code.OfFloat code = (Code.OfFloat) value.code;
+                    yield f -> {
+                        code.eval(f);
+                        return Code.NORMAL;
+                    };
+                }
+                case DOUBLE -> {
+                    Code.OfDouble code = (Code.OfDouble) value.code;
+                    yield f -> {
+                        code.eval(f);
+                        return Code.NORMAL;
+                    };
+                }
+                case STRING -> {
+                    Code.OfString code = (Code.OfString) value.code;
+                    yield f -> {
+                        code.eval(f);
+                        return Code.NORMAL;
+                    };
+                }
+                case VOID -> (Code.Exec) value.code;
+            };
+        }
+        throw new IllegalArgumentException("Unknown statement " + statement);
+    }
+
+    private Code.Exec declaration(Stmt.VarDecl declaration) {
+        Typed init = declaration.init() != null ? expression(declaration.init()) : zero(declaration.type());
+        Resolution.Variable variable = resolution.variable(declaration);
+        Slot slot = variable.global() ? slots.get(variable) : allocate(current, variable);
+        return store(slot, init);
+    }
+
+    private Code.Exec forStatement(Stmt.For forStatement) {
+        Code.Exec init = statement(forStatement.init());
+        Code.Test condition = condition(forStatement.condition());
+        Code.Exec update = statement(forStatement.update());
+        Code.Exec body = block(statements(forStatement.body()));
+        return f -> {
+            init.exec(f);
+            while (condition.test(f)) {
+                if (body.exec(f) != Code.NORMAL) {
+                    return Code.RETURN;
+                }
+                update.exec(f);
+            }
+            return Code.NORMAL;
+        };
+    }
+
+    private Code.Exec returnStatement(Stmt.Return returnStatement) {
+        Type type = current.returnType;
+        if (returnStatement.value() == null) {
+            return f -> Code.RETURN;
+        }
+        Typed value = expression(returnStatement.value());
+        return switch (type) {
+            case INT -> {
+                Code.OfInt code = asInt(value);
+                yield f -> {
+                    f.result = code.eval(f);
+                    return Code.RETURN;
+                };
+            }
+            case FLOAT -> {
+                Code.OfFloat code = asFloat(value);
+                yield f -> {
+                    f.result = Float.floatToRawIntBits(code.eval(f));
+                    return Code.RETURN;
+                };
+            }
+            case DOUBLE -> {
+                Code.OfDouble code = asDouble(value);
+                yield f -> {
+                    f.result = Double.doubleToRawLongBits(code.eval(f));
+                    return Code.RETURN;
+                };
+            }
+            case STRING -> {
+                Code.OfString code = asString(value);
+                yield f -> {
+                    f.resultRef = code.eval(f);
+                    return Code.RETURN;
+                };
+            }
+            case VOID -> throw new AssertionError();
+        };
+    }
+
+    // Variables
+
+    /** The next slot of {@code function}'s frame, for {@code variable}. */
+    private Slot allocate(Function function, Resolution.Variable variable) {
+        int index = variable.type() == Type.STRING ? function.refCount++ : function.slotCount++;
+        Slot slot = new Slot(variable.type(), index, false);
+        slots.put(variable, slot);
+        return slot;
+    }
+
+    private Typed load(Slot slot) {
+        int i = slot.index();
+        Frame g = globals;
+        if (slot.global()) {
+            return switch (slot.type()) {
+                case INT -> new Typed(Type.INT, (Code.OfInt) f -> (int) g.slots[i]);
+                case FLOAT -> new Typed(Type.FLOAT, (Code.OfFloat) f -> Float.intBitsToFloat((int) g.slots[i]));
+                case DOUBLE -> new Typed(Type.DOUBLE, (Code.OfDouble) f -> Double.longBitsToDouble(g.slots[i]));
+                case STRING -> new Typed(Type.STRING, (Code.OfString) f -> text(g.refs[i]));
+                case VOID -> throw new AssertionError();
+            };
+        }
+        return switch (slot.type()) {
+            case INT -> new Typed(Type.INT, (Code.OfInt) f -> (int) f.slots[i]);
+            case FLOAT -> new Typed(Type.FLOAT, (Code.OfFloat) f -> Float.intBitsToFloat((int) f.slots[i]));
+            case DOUBLE -> new Typed(Type.DOUBLE, (Code.OfDouble) f -> Double.longBitsToDouble(f.slots[i]));
+            case STRING -> new Typed(Type.STRING, (Code.OfString) f -> text(f.refs[i]));
+            case VOID -> throw new AssertionError();
+        };
+    }
+
+    private Code.Exec store(Slot slot, Typed value) {
+        int i = slot.index();
+        Frame g = globals;
+        switch (slot.type()) {
+            case INT: {
+                Code.OfInt code = asInt(value);
+                return slot.global()
+                        ? f -> {
+                            g.slots[i] = code.eval(f);
+                            return Code.NORMAL;
+                        }
+                        : f -> {
+                            f.slots[i] = code.eval(f);
+                            return Code.NORMAL;
+                        };
+            }
+            case FLOAT: {
+                Code.OfFloat code = asFloat(value);
+                return slot.global()
+                        ? f -> {
+                            g.slots[i] = Float.floatToRawIntBits(code.eval(f));
+                            return Code.NORMAL;
+                        }
+                        : f -> {
+                            f.slots[i] = Float.floatToRawIntBits(code.eval(f));
+                            return Code.NORMAL;
+                        };
+            }
+            case DOUBLE: {
+                Code.OfDouble code = asDouble(value);
+                return slot.global()
+                        ? f -> {
+                            g.slots[i] = Double.doubleToRawLongBits(code.eval(f));
+                            return Code.NORMAL;
+                        }
+                        : f -> {
+                            f.slots[i] = Double.doubleToRawLongBits(code.eval(f));
+                            return Code.NORMAL;
+                        };
+            }
+            case STRING: {
+                Code.OfString code = asString(value);
+                return slot.global()
+                        ? f -> {
+                            g.refs[i] = code.eval(f);
+                            return Code.NORMAL;
+                        }
+                        : f -> {
+                            f.refs[i] = code.eval(f);
+                            return Code.NORMAL;
+                        };
+            }
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    /** {@code name = value} as an expression: stores, then yields the stored value. */
+    private Typed assignExpression(Slot slot, Typed value) {
+        int i = slot.index();
+        Frame g = globals;
+        boolean global = slot.global();
+        return switch (slot.type()) {
+            case INT -> {
+                Code.OfInt code = asInt(value);
+                yield new Typed(Type.INT, (Code.OfInt) f -> {
+                    int v = code.eval(f);
+                    (global ? g : f).slots[i] = v;
+                    return v;
+                });
+            }
+            case FLOAT -> {
+                Code.OfFloat code = asFloat(value);
+                yield new Typed(Type.FLOAT, (Code.OfFloat) f -> {
+                    float v = code.eval(f);
+                    (global ? g : f).slots[i] = Float.floatToRawIntBits(v);
+                    return v;
+                });
+            }
+            case DOUBLE -> {
+                Code.OfDouble code = asDouble(value);
+                yield new Typed(Type.DOUBLE, (Code.OfDouble) f -> {
+                    double v = code.eval(f);
+                    (global ? g : f).slots[i] = Double.doubleToRawLongBits(v);
+                    return v;
+                });
+            }
+            case STRING -> {
+                Code.OfString code = asString(value);
+                yield new Typed(Type.STRING, (Code.OfString) f -> {
+                    String v = code.eval(f);
+                    (global ? g : f).refs[i] = v;
+                    return v;
+                });
+            }
+            case VOID -> throw new AssertionError();
+        };
+    }
+
+    // Expressions
+
+    /** A compiled expression and its static type; {@code code} is the {@link Code} interface for the type. */
+    private record Typed(Type type, Object code) {
+    }
+
+    private Typed expression(Expr expr) {
+        if (expr instanceof Expr.IntLiteral literal) {
+            int value = (int) literal.value();
+            return new Typed(Type.INT, (Code.OfInt) f -> value);
+        } else if (expr instanceof Expr.FloatLiteral literal) {
+            double value = literal.value();
+            return new Typed(Type.DOUBLE, (Code.OfDouble) f -> value);
+        } else if (expr instanceof Expr.StringLiteral literal) {
+            String value = literal.value();
+            return new Typed(Type.STRING, (Code.OfString) f -> value);
+        } else if (expr instanceof Expr.Name name) {
+            return load(slots.get(resolution.variable(name)));
+        } else if (expr instanceof Expr.Assign assign) {
+            return assignExpression(slots.get(resolution.variable(assign)), expression(assign.value()));
+        } else if (expr instanceof Expr.Call call) {
+            return call(call);
+        } else if (expr instanceof Expr.Not || expr instanceof Expr.BinaryOp binary
+                && (binary.operator().isComparison() || binary.operator().isLogical())) {
+            Code.Test test = condition(expr);
+            return new Typed(Type.INT, (Code.OfInt) f -> test.test(f) ? 1 : 0);
+        } else if (expr instanceof Expr.BinaryOp binary) {
+            return binary(binary.operator(), expression(binary.left()), expression(binary.right()));
+        }
+        throw new IllegalArgumentException("Unknown expression " + expr);
+    }
+
+    /** An arithmetic operator, or {@code +} on strings, applied after the usual promotions. */
+    private Typed binary(BinaryOperator operator, Typed left, Typed right) {
+        if (left.type == Type.STRING || right.type == Type.STRING) {
+            Code.OfString l = text(left);
+            Code.OfString r = text(right);
+            return new Typed(Type.STRING, (Code.OfString) f -> l.eval(f).concat(r.eval(f)));
+        }
+        switch (Types.promote(left.type, right.type)) {
+            case INT: {
+                Code.OfInt l = asInt(left);
+                Code.OfInt r = asInt(right);
+                return new Typed(Type.INT, switch (operator) {
+                    case ADD -> (Code.OfInt) f -> l.eval(f) + r.eval(f);
+                    case SUB -> (Code.OfInt) f -> l.eval(f) - r.eval(f);
+                    case MUL -> (Code.OfInt) f -> l.eval(f) * r.eval(f);
+                    case DIV -> (Code.OfInt) f -> l.eval(f) / r.eval(f);
+                    case MOD -> (Code.OfInt) f -> l.eval(f) % r.eval(f);
+                    default -> throw new AssertionError(operator);
+                });
+            }
+            case FLOAT: {
+                Code.OfFloat l = asFloat(left);
+                Code.OfFloat r = asFloat(right);
+                return new Typed(Type.FLOAT, switch (operator) {
+                    case ADD -> (Code.OfFloat) f -> l.eval(f) + r.eval(f);
+                    case SUB -> (Code.OfFloat) f -> l.eval(f) - r.eval(f);
+                    case MUL -> (Code.OfFloat) f -> l.eval(f) * r.eval(f);
+                    case DIV -> (Code.OfFloat) f -> l.eval(f) / r.eval(f);
+                    case MOD -> (Code.OfFloat) f -> l.eval(f) % r.eval(f);
+                    default -> throw new AssertionError(operator);
+                });
+            }
+            default: {
+                Code.OfDouble l = asDouble(left);
+                Code.OfDouble r = asDouble(right);
+                return new Typed(Type.DOUBLE, switch (operator) {
+                    case ADD -> (Code.OfDouble) f -> l.eval(f) + r.eval(f);
+                    case SUB -> (Code.OfDouble) f -> l.eval(f) - r.eval(f);
+                    case MUL -> (Code.OfDouble) f -> l.eval(f) * r.eval(f);
+                    case DIV -> (Code.OfDouble) f -> l.eval(f) / r.eval(f);
+                    case MOD -> (Code.OfDouble) f -> l.eval(f) % r.eval(f);
+                    default -> throw new AssertionError(operator);
+                });
+            }
+        }
+    }
+
+    /** An expression used as a truth value: non-zero is true. */
+    private Code.Test condition(Expr expr) {
+        if (expr instanceof Expr.Not not) {
+            Code.Test operand = condition(not.operand());
+            return f -> !operand.test(f);
+        }
+        if (expr instanceof Expr.BinaryOp binary && binary.operator().isLogical()) {
+            Code.Test l = condition(binary.left());
+            Code.Test r = condition(binary.right());
+            return binary.operator() == BinaryOperator.AND
+                    ? f -> l.test(f) && r.test(f)
+                    : f -> l.test(f) || r.test(f);
+        }
+        if (expr instanceof Expr.BinaryOp binary && binary.operator().isComparison()) {
+            return comparison(binary.operator(), expression(binary.left()), expression(binary.right()));
+        }
+        Typed value = expression(expr);
+        return switch (value.type) {
+            case INT -> {
+                Code.OfInt code = (Code.OfInt) value.code;
+                yield f -> code.eval(f) != 0;
+            }
+            case FLOAT -> {
+                Code.OfFloat code = (Code.OfFloat) value.code;
+                yield f -> code.eval(f) != 0;
+            }
+            case DOUBLE -> {
+                Code.OfDouble code = (Code.OfDouble) value.code;
+                yield f -> code.eval(f) != 0;
+            }
+            default -> throw new AssertionError(value.type);
+        };
+    }
+
+    private Code.Test comparison(BinaryOperator operator, Typed left, Typed right) {
+        if (left.type == Type.STRING) {
+            Code.OfString l = (Code.OfString) left.code;
+            Code.OfString r = (Code.OfString) right.code;
+            return operator == BinaryOperator.EQ
+                    ? f -> l.eval(f).equals(r.eval(f))
+                    : f -> !l.eval(f).equals(r.eval(f));
+        }
+        switch (Types.promote(left.type, right.type)) {
+            case INT: {
+                Code.OfInt l = asInt(left);
+                Code.OfInt r = asInt(right);
+                return switch (operator) {
+                    case LT -> f -> l.eval(f) < r.eval(f);
+                    case GT -> f -> l.eval(f) > r.eval(f);
+                    case LE -> f -> l.eval(f) <= r.eval(f);
+                    case GE -> f -> l.eval(f) >= r.eval(f);
+                    case EQ -> f -> l.eval(f) == r.eval(f);
+                    case NE -> f -> l.eval(f) != r.eval(f);
+                    default -> throw new AssertionError(operator);
+                };
+            }
+            case FLOAT: {
+                Code.OfFloat l = asFloat(left);
+                Code.OfFloat r = asFloat(right);
+                return switch (operator) {
+                    case LT -> f -> l.eval(f) < r.eval(f);
+                    case GT -> f -> l.eval(f) > r.eval(f);
+                    case LE -> f -> l.eval(f) <= r.eval(f);
+                    case GE -> f -> l.eval(f) >= r.eval(f);
+                    case EQ -> f -> l.eval(f) == r.eval(f);
+                    case NE -> f -> l.eval(f) != r.eval(f);
+                    default -> throw new AssertionError(operator);
+                };
+            }
+            default: {
+                Code.OfDouble l = asDouble(left);
+                Code.OfDouble r = asDouble(right);
+                return switch (operator) {
+                    case LT -> f -> l.eval(f) < r.eval(f);
+                    case GT -> f -> l.eval(f) > r.eval(f);
+                    case LE -> f -> l.eval(f) <= r.eval(f);
+                    case GE -> f -> l.eval(f) >= r.eval(f);
+                    case EQ -> f -> l.eval(f) == r.eval(f);
+                    case NE -> f -> l.eval(f) != r.eval(f);
+                    default -> throw new AssertionError(operator);
+                };
+            }
+        }
+    }
+
+    private Typed call(Expr.Call call) {
+        Function function = functions.get(resolution.function(call));
+        if (function == null) {
+            return print(call);
+        }
+        Slot[] parameters = function.parameters;
+        Code.Argument[] arguments = new Code.Argument[parameters.length];
+        for (int a = 0; a < arguments.length; a++) {
+            Typed value = expression(call.arguments().get(a));
+            int i = parameters[a].index();
+            arguments[a] = switch (parameters[a].type()) {
+                case INT -> {
+                    Code.OfInt code = asInt(value);
+                    yield (caller, callee) -> callee.slots[i] = code.eval(caller);
+                }
+                case FLOAT -> {
+                    Code.OfFloat code = asFloat(value);
+                    yield (caller, callee) -> callee.slots[i] = Float.floatToRawIntBits(code.eval(caller));
+                }
+                case DOUBLE -> {
+                    Code.OfDouble code = asDouble(value);
+                    yield (caller, callee) -> callee.slots[i] = Double.doubleToRawLongBits(code.eval(caller));
+                }
+                case STRING -> {
+                    Code.OfString code = asString(value);
+                    yield (caller, callee) -> callee.refs[i] = code.eval(caller);
+                }
+                case VOID -> throw new AssertionError();
+            };
+        }
+        // A function that ends without return yields its type's zero.
+        return switch (function.returnType) {
+            case INT -> new Typed(Type.INT, (Code.OfInt) f -> (int) function.invoke(f, arguments).result);
+            case FLOAT -> new Typed(Type.FLOAT,
+                    (Code.OfFloat) f -> Float.intBitsToFloat((int) function.invoke(f, arguments).result));
+            case DOUBLE -> new Typed(Type.DOUBLE,
+                    (Code.OfDouble) f -> Double.longBitsToDouble(function.invoke(f, arguments).result));
+            case STRING -> new Typed(Type.STRING,
+                    (Code.OfString) f -> text(function.invoke(f, arguments).resultRef));
+            case VOID -> new Typed(Type.VOID, (Code.Exec) f -> {
+                function.invoke(f, arguments);
+                return Code.NORMAL;
+            });
+        };
+    }
+
+    /** The built-in {@code print}, unless the program declares its own: prints its arguments on one line. */
+    private Typed print(Expr.Call call) {
+        Code.OfString[] arguments = new Code.OfString[call.arguments().size()];
+        for (int a = 0; a < arguments.length; a++) {
+            arguments[a] = text(expression(call.arguments().get(a)));
+        }
+        PrintStream stream = out;
+        return new Typed(Type.VOID, (Code.Exec) f -> {
+            StringBuilder sb = new StringBuilder();
+            for (int a = 0; a < arguments.length; a++) {
+                sb.append(a == 0 ? "" : " ").append(arguments[a].eval(f));
+            }
+            stream.println(sb);
+            return Code.NORMAL;
+        });
+    }
+
+    // Conversions
+
+    private Code.OfInt asInt(Typed value) {
+        return switch (value.type) {
+            case INT -> (Code.OfInt) value.code;
+            case FLOAT -> {
+                Code.OfFloat code = (Code.OfFloat) value.code;
+                yield f -> (int) code.eval(f);
+            }
+            case DOUBLE -> {
+                Code.OfDouble code = (Code.OfDouble) value.code;
+                yield f -> (int) code.eval(f);
+            }
+            default -> throw new AssertionError(value.type);
+        };
+    }
+
+    private Code.OfFloat asFloat(Typed value) {
+        return switch (value.type) {
+            case INT -> {
+                Code.OfInt code = (Code.OfInt) value.code;
+                yield f -> code.eval(f);
+            }
+            case FLOAT -> (Code.OfFloat) value.code;
+            case DOUBLE -> {
+                Code.OfDouble code = (Code.OfDouble) value.code;
+                yield f -> (float) code.eval(f);
+            }
+            default -> throw new AssertionError(value.type);
+        };
+    }
+
+    private Code.OfDouble asDouble(Typed value) {
+        return switch (value.type) {
+            case INT -> {
+                Code.OfInt code = (Code.OfInt) value.code;
+                yield f -> code.eval(f);
+            }
+            case FLOAT -> {
+                Code.OfFloat code = (Code.OfFloat) value.code;
+                yield f -> code.eval(f);
+            }
+            case DOUBLE -> (Code.OfDouble) value.code;
+            default -> throw new AssertionError(value.type);
+        };
+    }
+
+    private Code.OfString asString(Typed value) {
+        return (Code.OfString) value.code;
+    }
+
+    /** Any value as text, for {@code +} with a string and for {@code print}. */
+    private Code.OfString text(Typed value) {
+        return switch (value.type) {
+            case INT -> {
+                Code.OfInt code = (Code.OfInt) value.code;
+                yield f -> Integer.toString(code.eval(f));
+            }
+            case FLOAT -> {
+                Code.OfFloat code = (Code.OfFloat) value.code;
+                yield f -> Float.toString(code.eval(f));
+            }
+            case DOUBLE -> {
+                Code.OfDouble code = (Code.OfDouble) value.code;
+                yield f -> Double.toString(code.eval(f));
+            }
+            case STRING -> (Code.OfString) value.code;
+            case VOID -> throw new AssertionError();
+        };
+    }
+
+    /** A string slot that was never assigned reads as the empty string. */
+    private static String text(Object ref) {
+        return ref == null ? "" : (String) ref;
+    }
+
+    private static Typed zero(Type type) {
+        return switch (type) {
+            case INT -> new Typed(Type.INT, (Code.OfInt) f -> 0);
+            case FLOAT -> new Typed(Type.FLOAT, (Code.OfFloat) f -> 0);
+            case DOUBLE -> new Typed(Type.DOUBLE, (Code.OfDouble) f -> 0);
+            case STRING -> new Typed(Type.STRING, (Code.OfString) f -> "");
+            case VOID -> throw new AssertionError();
+        };
+    }
+
+}
@@ -0,0 +1,28 @@
+package minilang.interp;
+
+/**
+ * The variables of one function activation, or of the top level.
+ *
+ * <p>Numbers live in {@link #slots}: an {@code int} as itself, a
+ * {@code float} or {@code double} as its raw bits. Strings live in
+ * {@link #refs}. A {@code return} leaves its value in {@link #result} or
+ * {@link #resultRef} the same way.</p>
+ */
+final class Frame {
+
+    private static final long[] NO_SLOTS = {};
+    private static final Object[] NO_REFS = {};
+
+    final long[] slots;
+
+    final Object[] refs;
+
+    long result;
+
+    Object resultRef;
+
+    Frame(int slotCount, int refCount) {
+        slots = slotCount == 0 ? NO_SLOTS : new long[slotCount];
+        refs = refCount == 0 ? NO_REFS : new Object[refCount];
+    }
+}
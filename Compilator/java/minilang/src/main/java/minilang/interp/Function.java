@@ -0,0 +1,47 @@
+package minilang.interp;
+
+import minilang.ast.Identifier;
+import minilang.ast.Type;
+
+/** A function resolved by the compiler; its body is filled in once every signature is known. */
+final class Function {
+
+    final Identifier name;
+
+    final Type returnType;
+
+    final Slot[] parameters;
+
+    int slotCount;
+
+    int refCount;
+
+    Code.Exec body;
+
+    Function(Identifier name, Type returnType, Slot[] parameters) {
+        this.name = name;
+        this.returnType = returnType;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Runs the function in a new frame whose parameters {@code arguments}
+     * fill from {@code caller}.
+     *
+     * @throws IllegalStateException if the calls it makes overflow the
+     *     thread's stack; the innermost call that can still build the
+     *     exception names its function
+     */
+    Frame invoke(Frame caller, Code.Argument[] arguments) {
+        Frame callee = new Frame(slotCount, refCount);
+        for (Code.Argument argument : arguments) {
+            argument.pass(caller, callee);
+        }
+        try {
+            body.exec(callee);
+        } catch (StackOverflowError e) {
+            throw new IllegalStateException("stack overflow in " + (name == null ? "the top level" : "'" + name + "'"));
+        }
+        return callee;
+    }
+}
@@ -0,0 +1,127 @@
+package minilang.interp;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import minilang.ast.ConstantFolder;
+import minilang.ast.Program;
+import minilang.ast.Type;
+import minilang.sema.Resolution;
+
+/**
+ * Runs MiniLang programs.
+ *
+ * <p>{@link #load} folds the program's constants with {@link ConstantFolder}
+ * and checks it with {@link Resolution}, then gives every variable a slot of
+ * a frame and compiles the AST into a tree of typed closures. Running it
+ * does no name lookups: a local variable is an index into an array of its
+ * function's frame, a global one into the globals' frame, and a call
+ * allocates one frame for the callee.</p>
+ *
+ * <p>The language has C semantics:</p>
+ * <ul>
+ *   <li>{@code int} is 32-bit, {@code float} and {@code double} are IEEE
+ *   single and double precision, and a {@code NUMBER} with a fraction is a
+ *   {@code double}. Arithmetic promotes to the wider operand; assignments,
+ *   arguments and return values convert to the declared type.</li>
+ *   <li>Comparisons and {@code &&}, {@code ||}, {@code !} yield the
+ *   {@code int} 1 or 0, and any non-zero number is true.</li>
+ *   <li>{@code +} with a string operand concatenates; strings compare with
+ *   {@code ==} and {@code !=} by content.</li>
+ *   <li>A variable declared without a value starts at zero or the empty
+ *   string, as does the result of a function that ends without
+ *   {@code return}.</li>
+ *   <li>{@code print(...)} writes its arguments on one line, unless the
+ *   program declares its own {@code print}.</li>
+ * </ul>
+ *
+ * <p>Errors that the source shows, such as an undeclared name or a string
+ * where a number is needed, are reported by {@link #load} as an
+ * {@link IllegalArgumentException} that names the line. An integer division
+ * by zero throws {@link ArithmeticException} when it runs, and recursion
+ * deeper than the thread's stack throws {@link IllegalStateException} with
+ * the message {@code stack overflow in 'f'}, rather than a
+ * {@link StackOverflowError}.</p>
+ */
+public final class Interpreter {
+
+    private final Compiler.Compiled program;
+
+    private Interpreter(Compiler.Compiled program) {
+        this.program = program;
+    }
+
+    /** Compiles {@code program}, printing to {@code System.out}. */
+    public static Interpreter load(Program program) {
+        return load(program, System.out);
+    }
+
+    public static Interpreter load(Program program, PrintStream out) {
+        return new Interpreter(Compiler.compile(ConstantFolder.fold(program), out));
+    }
+
+    /**
+     * Resets the globals and runs the top level of the program, then calls
+     * {@code main()} if the program declares it.
+     *
+     * @return what {@code main} returned, boxed, or {@code null} if there is
+     *     no {@code main} or it is {@code void}
+     */
+    public Object run() {
+        Frame globals = program.globals();
+        Arrays.fill(globals.slots, 0);
+        Arrays.fill(globals.refs, null);
+        program.topLevel().invoke(globals, new Code.Argument[0]);
+        return program.functions().containsKey("main") ? call("main") : null;
+    }
+
+    /**
+     * Calls the function {@code name} with {@code arguments} converted to its
+     * parameter types, and boxes its result. The globals are left as the
+     * last run or call left them.
+     *
+     * @throws IllegalArgumentException if there is no such function or the
+     *     arguments do not fit its parameters
+     */
+    public Object call(String name, Object... arguments) {
+        Function function = program.functions().get(name);
+        if (function == null) {
+            throw new IllegalArgumentException("No function '" + name + "'");
+        }
+        if (arguments.length != function.parameters.length) {
+            throw new IllegalArgumentException("'" + name + "' takes " + function.parameters.length
+                    + " arguments, not " + arguments.length);
+        }
+        Code.Argument[] passed = new Code.Argument[arguments.length];
+        for (int a = 0; a < arguments.length; a++) {
+            passed[a] = argument(function.parameters[a], arguments[a]);
+        }
+        Frame frame = function.invoke(program.globals(), passed);
+        return switch (function.returnType) {
+            case INT -> (int) frame.result;
+            case FLOAT -> Float.intBitsToFloat((int) frame.result);
+            case DOUBLE -> Double.longBitsToDouble(frame.result);
+            case STRING -> frame.resultRef == null ? "" : frame.resultRef;
+            case VOID -> null;
+        };
+    }
+
+    private static Code.Argument argument(Slot parameter, Object value) {
+        int i = parameter.index();
+        if (parameter.type() == Type.STRING) {
+            if (!(value instanceof String text)) {
+                throw new IllegalArgumentException("Expected a string, not " + value);
+            }
+            return (caller, callee) -> callee.refs[i] = text;
+        }
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException("Expected a number, not " + value);
+        }
+        long bits = switch (parameter.type()) {
+            case INT -> number.intValue();
+            case FLOAT -> Float.floatToRawIntBits(number.floatValue());
+            default -> Double.doubleToRawLongBits(number.doubleValue());
+        };
+        return (caller, callee) -> callee.slots[i] = bits;
+    }
+}
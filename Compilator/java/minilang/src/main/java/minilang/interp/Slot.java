@@ -0,0 +1,7 @@
+package minilang.interp;
+
+import minilang.ast.Type;
+
+/** Where a variable lives: an index into the slots of its function's frame or of the globals. */
+record Slot(Type type, int index, boolean global) {
+}
@@ -0,0 +1,22 @@
+package minilang.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** An analysis pass over the parse tree of a source. */
+@Name("minilang.Analysis")
+@Label("MiniLang Analysis")
+public final class AnalysisEvent extends PhaseEvent {
+
+    @Label("Pass")
+    public String pass;
+
+    @Label("Tokens")
+    public int tokens;
+
+    @Label("Functions")
+    public int functions;
+
+    @Label("Diagnostics")
+    public int diagnostics;
+}
@@ -0,0 +1,18 @@
+package minilang.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Turning a source into tokens. */
+@Name("minilang.Lex")
+@Label("MiniLang Lex")
+public final class LexEvent extends PhaseEvent {
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Tokens")
+    public int tokens;
+}
@@ -0,0 +1,30 @@
+package minilang.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Parsing the tokens of a source into a tree. */
+@Name("minilang.Parse")
+@Label("MiniLang Parse")
+public final class ParseEvent extends PhaseEvent {
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Tokens")
+    public int tokens;
+
+    @Label("Rules")
+    @Description("Rule contexts in the tree")
+    public int rules;
+
+    @Label("Stage")
+    @Description("The parser that produced the tree: DESCENT, SLL or LL")
+    public String stage;
+
+    @Label("Errors")
+    public int errors;
+}
@@ -0,0 +1,107 @@
+package minilang.jfr;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * A phase of compiling one MiniLang source, recorded by Java Flight
+ * Recorder with the source's name and the bytes the phase allocated.
+ *
+ * <p>A phase calls {@link #start} before its work and {@link #stop} after
+ * it, and fills in and commits the event only if {@code stop} returns
+ * {@code true}. While recording is off, or the event is below its
+ * threshold, that is all it costs:</p>
+ *
+ * <pre>{@code
+ * ParseEvent event = new ParseEvent();
+ * event.start();
+ * ProgramContext tree = parser.program();
+ * if (event.stop()) {
+ *     event.source = PhaseEvent.source(tree);
+ *     event.commit();
+ * }
+ * }</pre>
+ */
+@Category({"MiniLang", "Compiler"})
+@StackTrace(false)
+public abstract class PhaseEvent extends Event {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Label("Source")
+    @Description("Name of the source, usually its path")
+    public String source;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the thread during the phase")
+    @DataAmount
+    public long allocated;
+
+    /** Starts timing the phase and counting what the current thread allocates. */
+    public void start() {
+        if (isEnabled()) {
+            allocated = -THREADS.getCurrentThreadAllocatedBytes();
+        }
+        begin();
+    }
+
+    /** Stops timing; {@code true} if the event is to be filled in and committed. */
+    public boolean stop() {
+        end();
+        if (!shouldCommit()) {
+            return false;
+        }
+        allocated += THREADS.getCurrentThreadAllocatedBytes();
+        return true;
+    }
+
+    /** The source name of the input {@code tree} was parsed from, or {@code null}. */
+    public static String source(ParserRuleContext tree) {
+        CharStream input = tree == null || tree.getStart() == null ? null : tree.getStart().getInputStream();
+        return input == null ? null : input.getSourceName();
+    }
+
+    /** How many tokens {@code tree} spans. */
+    public static int tokens(ParserRuleContext tree) {
+        if (tree == null || tree.getStart() == null || tree.getStop() == null) {
+            return 0;
+        }
+        Token stop = tree.getStop();
+        return Math.max(0, stop.getTokenIndex() - tree.getStart().getTokenIndex() + 1);
+    }
+
+    /** How many rule contexts {@code tree} has, itself included. */
+    public static int rules(ParserRuleContext tree) {
+        int rules = 0;
+        Deque<ParserRuleContext> pending = new ArrayDeque<>();
+        if (tree != null) {
+            pending.push(tree);
+        }
+        while (!pending.isEmpty()) {
+            ParserRuleContext ctx = pending.pop();
+            rules++;
+            if (ctx.children != null) {
+                for (ParseTree child : ctx.children) {
+                    if (child instanceof ParserRuleContext rule) {
+                        pending.push(rule);
+                    }
+                }
+            }
+        }
+        return rules;
+    }
+}
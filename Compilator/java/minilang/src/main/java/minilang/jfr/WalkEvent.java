@@ -0,0 +1,24 @@
+package minilang.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Walking a parse tree with listeners. */
+@Name("minilang.Walk")
+@Label("MiniLang Walk")
+public final class WalkEvent extends PhaseEvent {
+
+    @Label("Walker")
+    public String walker;
+
+    @Label("Listeners")
+    public int listeners;
+
+    @Label("Tokens")
+    public int tokens;
+
+    @Label("Rules")
+    @Description("Rule contexts entered; subtrees a fused walk skips are not counted")
+    public int rules;
+}
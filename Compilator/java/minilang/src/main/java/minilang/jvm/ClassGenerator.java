@@ -0,0 +1,619 @@
+package minilang.jvm;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.ClassTooLargeException;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodTooLargeException;
+import org.objectweb.asm.MethodVisitor;
+
+import minilang.ast.BinaryOperator;
+import minilang.ast.Expr;
+import minilang.ast.FunctionDecl;
+import minilang.ast.Identifier;
+import minilang.ast.Item;
+import minilang.ast.Program;
+import minilang.ast.Stmt;
+import minilang.ast.Type;
+import minilang.sema.Resolution;
+import minilang.sema.Types;
+
+/**
+ * Writes the class file for a {@link Program}: one static method per
+ * function, one static field per global, and a method for the top level.
+ *
+ * <p>The program is compiled from what {@link Resolution} found in it, with
+ * its variables as JVM locals and fields: {@code int}, {@code float} and
+ * {@code double} values live in locals and on the operand stack as the JVM
+ * primitives, and a call is an {@code invokestatic}. Every declaration gets
+ * a local of its own, so no local ever changes type.</p>
+ */
+final class ClassGenerator {
+
+    /** Internal name of the generated class; a hidden class must be in the package of its lookup. */
+    static final String CLASS_NAME = "minilang/jvm/MiniLangProgram";
+
+    /** The stream the built-in {@code print} writes to; MiniLang names cannot contain {@code $}. */
+    static final String OUT = "$out";
+
+    /** The method that resets the globals and runs the top level. */
+    static final String TOP_LEVEL = "$topLevel";
+
+    private static final String STRING = "java/lang/String";
+
+    private static final String STRING_BUILDER = "java/lang/StringBuilder";
+
+    private final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            // Only strings, builders and the print stream are ever on the
+            // stack, and no branch merges two of them.
+            return type1.equals(type2) ? type1 : "java/lang/Object";
+        }
+    };
+
+    private final Resolution resolution;
+
+    private final Map<Resolution.Variable, Variable> variables = new HashMap<>();
+
+    private final List<Variable> globals = new ArrayList<>();
+
+    private final Map<Resolution.Function, Signature> functions = new HashMap<>();
+
+    private MethodVisitor method;
+
+    /** The function being generated; {@code null} for the top level. */
+    private Signature current;
+
+    private int nextLocal;
+
+    private ClassGenerator(Resolution resolution) {
+        this.resolution = resolution;
+        for (Resolution.Variable global : resolution.globals()) {
+            Variable variable = new Variable(global.name(), global.type(), -1);
+            variables.put(global, variable);
+            globals.add(variable);
+        }
+    }
+
+    /**
+     * The class file for {@code program}, and the signature of each of its functions by name.
+     *
+     * @throws IllegalArgumentException with the first error {@link Resolution} finds, or if the
+     *     program is too large for a class
+     */
+    static Generated generate(Program program) {
+        ClassGenerator generator = new ClassGenerator(Resolution.resolve(program).check());
+        ClassWriter writer = generator.writer;
+        writer.visit(V17, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, CLASS_NAME, null, "java/lang/Object", null);
+        writer.visitSource("MiniLang", null);
+        writer.visitField(ACC_STATIC, OUT, "Ljava/io/PrintStream;", null, null).visitEnd();
+        for (Variable global : generator.globals) {
+            writer.visitField(ACC_STATIC, global.name.name(), descriptor(global.type), null, null).visitEnd();
+        }
+        for (Item item : program.items()) {
+            if (item instanceof FunctionDecl function) {
+                generator.declare(function);
+            }
+        }
+        for (Item item : program.items()) {
+            if (item instanceof FunctionDecl function) {
+                generator.define(function);
+            }
+        }
+        generator.topLevel(program);
+        writer.visitEnd();
+
+        Map<String, Signature> byName = new HashMap<>();
+        generator.functions.values().forEach(signature -> byName.put(signature.name().name(), signature));
+        try {
+            return new Generated(writer.toByteArray(), byName);
+        } catch (MethodTooLargeException e) {
+            String name = e.getMethodName().equals(TOP_LEVEL) ? "the top level" : "'" + e.getMethodName() + "'";
+            throw new IllegalArgumentException(name + " is too large for a JVM method", e);
+        } catch (ClassTooLargeException e) {
+            throw new IllegalArgumentException("the program is too large for a JVM class", e);
+        }
+    }
+
+    record Generated(byte[] classFile, Map<String, Signature> functions) {
+    }
+
+    /** A function's MiniLang types and its method descriptor. */
+    record Signature(Identifier name, Type returnType, Type[] parameters, String descriptor) {
+    }
+
+    private void declare(FunctionDecl declaration) {
+        Resolution.Function function = resolution.function(declaration);
+        Type[] parameters = new Type[function.parameters().size()];
+        StringBuilder descriptor = new StringBuilder("(");
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = function.parameters().get(i).type();
+            descriptor.append(descriptor(parameters[i]));
+        }
+        descriptor.append(')').append(descriptor(declaration.returnType()));
+        functions.put(function,
+                new Signature(declaration.name(), declaration.returnType(), parameters, descriptor.toString()));
+    }
+
+    private void define(FunctionDecl declaration) {
+        Resolution.Function function = resolution.function(declaration);
+        current = functions.get(function);
+        begin(declaration.name().name(), current.descriptor);
+        for (Resolution.Variable parameter : function.parameters()) {
+            allocate(parameter);
+        }
+        statements(declaration.body());
+        // A function that ends without return yields its type's zero.
+        pushZero(current.returnType);
+        method.visitInsn(returnOpcode(current.returnType));
+        end();
+    }
+
+    /** The top level, as a method that first resets every global to zero. */
+    private void topLevel(Program program) {
+        current = null;
+        begin(TOP_LEVEL, "()V");
+        for (Variable global : globals) {
+            pushZero(global.type);
+            method.visitFieldInsn(PUTSTATIC, CLASS_NAME, global.name.name(), descriptor(global.type));
+        }
+        for (Stmt.VarDecl global : program.globals()) {
+            statement(global);
+        }
+        for (Item item : program.items()) {
+            if (item instanceof Stmt statement) {
+                statement(statement);
+            }
+        }
+        method.visitInsn(RETURN);
+        end();
+    }
+
+    private void begin(String name, String descriptor) {
+        method = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, name, descriptor, null, null);
+        method.visitCode();
+        nextLocal = 0;
+    }
+
+    private void end() {
+        // Computed from the frames by the class writer.
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        method = null;
+    }
+
+    // Statements
+
+    private void statements(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            statement(statement);
+        }
+    }
+
+    private void statement(Stmt statement) {
+        Label start = new Label();
+        method.visitLabel(start);
+        method.visitLineNumber(statement.line(), start);
+        if (statement instanceof Stmt.VarDecl declaration) {
+            declaration(declaration);
+        } else if (statement instanceof Stmt.Assign assignment) {
+            Variable variable = variables.get(resolution.variable(assignment));
+            Expr value = assignment.value();
+            BinaryOperator operator = assignment.operator().operator();
+            if (operator == null) {
+                convert(expression(value), variable.type);
+            } else {
+                convert(arithmetic(operator, variable.type, () -> load(variable), resolution.type(value),
+                        () -> expression(value)), variable.type);
+            }
+            store(variable);
+        } else if (statement instanceof Stmt.IncDec incDec) {
+            Variable variable = variables.get(resolution.variable(incDec));
+            if (variable.type == Type.INT && variable.local >= 0) {
+                method.visitIincInsn(variable.local, incDec.increment() ? 1 : -1);
+            } else {
+                BinaryOperator operator = incDec.increment() ? BinaryOperator.ADD : BinaryOperator.SUB;
+                convert(arithmetic(operator, variable.type, () -> load(variable), Type.INT, () -> pushInt(1)),
+                        variable.type);
+                store(variable);
+            }
+        } else if (statement instanceof Stmt.If ifStatement) {
+            Label otherwise = new Label();
+            branch(ifStatement.condition(), false, otherwise);
+            statements(ifStatement.then());
+            if (ifStatement.otherwise() == null) {
+                method.visitLabel(otherwise);
+            } else {
+                Label end = new Label();
+                method.visitJumpInsn(GOTO, end);
+                method.visitLabel(otherwise);
+                statements(ifStatement.otherwise());
+                method.visitLabel(end);
+            }
+        } else if (statement instanceof Stmt.While whileStatement) {
+            Label test = new Label();
+            Label end = new Label();
+            method.visitLabel(test);
+            branch(whileStatement.condition(), false, end);
+            statements(whileStatement.body());
+            method.visitJumpInsn(GOTO, test);
+            method.visitLabel(end);
+        } else if (statement instanceof Stmt.For forStatement) {
+            forStatement(forStatement);
+        } else if (statement instanceof Stmt.Return returnStatement) {
+            returnStatement(returnStatement);
+        } else if (statement instanceof Stmt.CallStmt call) {
+            Type type = call(call.call());
+            if (type == Type.DOUBLE) {
+                method.visitInsn(POP2);
+            } else if (type != Type.VOID) {
+                method.visitInsn(POP);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown statement " + statement);
+        }
+    }
+
+    private void declaration(Stmt.VarDecl declaration) {
+        if (declaration.init() != null) {
+            convert(expression(declaration.init()), declaration.type());
+        } else {
+            pushZero(declaration.type());
+        }
+        Resolution.Variable variable = resolution.variable(declaration);
+        store(variable.global() ? variables.get(variable) : allocate(variable));
+    }
+
+    private void forStatement(Stmt.For forStatement) {
+        statement(forStatement.init());
+        Label test = new Label();
+        Label end = new Label();
+        method.visitLabel(test);
+        branch(forStatement.condition(), false, end);
+        statements(forStatement.body());
+        statement(forStatement.update());
+        method.visitJumpInsn(GOTO, test);
+        method.visitLabel(end);
+    }
+
+    private void returnStatement(Stmt.Return returnStatement) {
+        Type type = current.returnType;
+        if (returnStatement.value() == null) {
+            pushZero(type);
+        } else {
+            convert(expression(returnStatement.value()), type);
+        }
+        method.visitInsn(returnOpcode(type));
+    }
+
+    // Variables
+
+    /** A global, which is a static field, or a local of the method being generated. */
+    private record Variable(Identifier name, Type type, int local) {
+    }
+
+    /** The next local of the method being generated, for {@code variable}. */
+    private Variable allocate(Resolution.Variable variable) {
+        Variable local = new Variable(variable.name(), variable.type(), nextLocal);
+        nextLocal += variable.type() == Type.DOUBLE ? 2 : 1;
+        variables.put(variable, local);
+        return local;
+    }
+
+    private void load(Variable variable) {
+        if (variable.local < 0) {
+            method.visitFieldInsn(GETSTATIC, CLASS_NAME, variable.name.name(), descriptor(variable.type));
+        } else {
+            method.visitVarInsn(ILOAD + offset(variable.type), variable.local);
+        }
+    }
+
+    private void store(Variable variable) {
+        if (variable.local < 0) {
+            method.visitFieldInsn(PUTSTATIC, CLASS_NAME, variable.name.name(), descriptor(variable.type));
+        } else {
+            method.visitVarInsn(ISTORE + offset(variable.type), variable.local);
+        }
+    }
+
+    // Expressions
+
+    /** Generates {@code expr}, leaving its value on the stack, and returns its type. */
+    private Type expression(Expr expr) {
+        if (expr instanceof Expr.IntLiteral literal) {
+            pushInt((int) literal.value());
+            return Type.INT;
+        } else if (expr instanceof Expr.FloatLiteral literal) {
+            double value = literal.value();
+            if (value == 0 && 1 / value > 0) {
+                method.visitInsn(DCONST_0);
+            } else if (value == 1) {
+                method.visitInsn(DCONST_1);
+            } else {
+                method.visitLdcInsn(value);
+            }
+            return Type.DOUBLE;
+        } else if (expr instanceof Expr.StringLiteral literal) {
+            method.visitLdcInsn(literal.value());
+            return Type.STRING;
+        } else if (expr instanceof Expr.Name name) {
+            Variable variable = variables.get(resolution.variable(name));
+            load(variable);
+            return variable.type;
+        } else if (expr instanceof Expr.Assign assign) {
+            Variable variable = variables.get(resolution.variable(assign));
+            convert(expression(assign.value()), variable.type);
+            method.visitInsn(variable.type == Type.DOUBLE ? DUP2 : DUP);
+            store(variable);
+            return variable.type;
+        } else if (expr instanceof Expr.Call call) {
+            return call(call);
+        } else if (expr instanceof Expr.Not || expr instanceof Expr.BinaryOp binary
+                && (binary.operator().isComparison() || binary.operator().isLogical())) {
+            Label isFalse = new Label();
+            Label end = new Label();
+            branch(expr, false, isFalse);
+            method.visitInsn(ICONST_1);
+            method.visitJumpInsn(GOTO, end);
+            method.visitLabel(isFalse);
+            method.visitInsn(ICONST_0);
+            method.visitLabel(end);
+            return Type.INT;
+        } else if (expr instanceof Expr.BinaryOp binary) {
+            // An operand's conversion has to follow it directly, before the other operand is pushed.
+            return arithmetic(binary.operator(), resolution.type(binary.left()), () -> expression(binary.left()),
+                    resolution.type(binary.right()), () -> expression(binary.right()));
+        }
+        throw new IllegalArgumentException("Unknown expression " + expr);
+    }
+
+    /**
+     * An arithmetic operator, or {@code +} on strings, applied after the
+     * usual promotions; {@code left} and {@code right} push the operands, of
+     * type {@code leftType} and {@code rightType}.
+     */
+    private Type arithmetic(BinaryOperator operator, Type leftType, Runnable left, Type rightType, Runnable right) {
+        if (leftType == Type.STRING || rightType == Type.STRING) {
+            left.run();
+            text(leftType);
+            right.run();
+            text(rightType);
+            method.visitMethodInsn(INVOKEVIRTUAL, STRING, "concat", "(Ljava/lang/String;)Ljava/lang/String;", false);
+            return Type.STRING;
+        }
+        Type type = Types.promote(leftType, rightType);
+        left.run();
+        convert(leftType, type);
+        right.run();
+        convert(rightType, type);
+        // The JVM numbers each arithmetic opcode's int, long, float and double forms in a row.
+        int opcode = switch (operator) {
+            case ADD -> IADD;
+            case SUB -> ISUB;
+            case MUL -> IMUL;
+            case DIV -> IDIV;
+            case MOD -> IREM;
+            default -> throw new AssertionError(operator);
+        };
+        method.visitInsn(opcode + offset(type));
+        return type;
+    }
+
+    /** Jumps to {@code target} if {@code expr}, as a truth value, is {@code when}; non-zero is true. */
+    private void branch(Expr expr, boolean when, Label target) {
+        if (expr instanceof Expr.Not not) {
+            branch(not.operand(), !when, target);
+            return;
+        }
+        if (expr instanceof Expr.BinaryOp binary && binary.operator().isLogical()) {
+            boolean and = binary.operator() == BinaryOperator.AND;
+            if (and != when) {
+                // false && x is false, true || x is true: either operand decides.
+                branch(binary.left(), when, target);
+                branch(binary.right(), when, target);
+            } else {
+                Label skip = new Label();
+                branch(binary.left(), !when, skip);
+                branch(binary.right(), when, target);
+                method.visitLabel(skip);
+            }
+            return;
+        }
+        if (expr instanceof Expr.BinaryOp binary && binary.operator().isComparison()) {
+            comparison(binary.operator(), binary.left(), binary.right(), when, target);
+            return;
+        }
+        Type type = expression(expr);
+        switch (type) {
+            case INT:
+                break;
+            case FLOAT:
+                method.visitInsn(FCONST_0);
+                method.visitInsn(FCMPL);
+                break;
+            case DOUBLE:
+                method.visitInsn(DCONST_0);
+                method.visitInsn(DCMPL);
+                break;
+            default:
+                throw new AssertionError(type);
+        }
+        method.visitJumpInsn(when ? IFNE : IFEQ, target);
+    }
+
+    private void comparison(BinaryOperator operator, Expr left, Expr right, boolean when, Label target) {
+        Type leftType = resolution.type(left);
+        Type rightType = resolution.type(right);
+        if (leftType == Type.STRING) {
+            expression(left);
+            expression(right);
+            method.visitMethodInsn(INVOKEVIRTUAL, STRING, "equals", "(Ljava/lang/Object;)Z", false);
+            method.visitJumpInsn((operator == BinaryOperator.EQ) == when ? IFNE : IFEQ, target);
+            return;
+        }
+        Type type = Types.promote(leftType, rightType);
+        convert(expression(left), type);
+        convert(expression(right), type);
+        int test = switch (operator) {
+            case LT -> IFLT;
+            case GT -> IFGT;
+            case LE -> IFLE;
+            case GE -> IFGE;
+            case EQ -> IFEQ;
+            case NE -> IFNE;
+            default -> throw new AssertionError(operator);
+        };
+        if (!when) {
+            test = negate(test);
+        }
+        if (type == Type.INT) {
+            method.visitJumpInsn(test - IFEQ + IF_ICMPEQ, target);
+            return;
+        }
+        // A comparison with NaN is false: pick the compare that makes NaN fail the test.
+        boolean nanIsGreater = operator == BinaryOperator.LT || operator == BinaryOperator.LE;
+        if (type == Type.FLOAT) {
+            method.visitInsn(nanIsGreater ? FCMPG : FCMPL);
+        } else {
+            method.visitInsn(nanIsGreater ? DCMPG : DCMPL);
+        }
+        method.visitJumpInsn(test, target);
+    }
+
+    /** The opposite conditional jump: the JVM pairs each with its negation. */
+    private static int negate(int opcode) {
+        return ((opcode - IFEQ) ^ 1) + IFEQ;
+    }
+
+    private Type call(Expr.Call call) {
+        Signature function = functions.get(resolution.function(call));
+        if (function == null) {
+            print(call);
+            return Type.VOID;
+        }
+        Type[] parameters = function.parameters;
+        for (int a = 0; a < parameters.length; a++) {
+            convert(expression(call.arguments().get(a)), parameters[a]);
+        }
+        method.visitMethodInsn(INVOKESTATIC, CLASS_NAME, function.name.name(), function.descriptor, false);
+        return function.returnType;
+    }
+
+    /** The built-in {@code print}, unless the program declares its own: prints its arguments on one line. */
+    private void print(Expr.Call call) {
+        method.visitFieldInsn(GETSTATIC, CLASS_NAME, OUT, "Ljava/io/PrintStream;");
+        method.visitTypeInsn(NEW, STRING_BUILDER);
+        method.visitInsn(DUP);
+        method.visitMethodInsn(INVOKESPECIAL, STRING_BUILDER, "<init>", "()V", false);
+        for (int a = 0; a < call.arguments().size(); a++) {
+            if (a > 0) {
+                pushInt(' ');
+                append("C");
+            }
+            Type type = expression(call.arguments().get(a));
+            append(switch (type) {
+                case INT -> "I";
+                case FLOAT -> "F";
+                case DOUBLE -> "D";
+                case STRING -> "Ljava/lang/String;";
+                case VOID -> throw new AssertionError();
+            });
+        }
+        method.visitMethodInsn(INVOKEVIRTUAL, STRING_BUILDER, "toString", "()Ljava/lang/String;", false);
+        method.visitMethodInsn(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(Ljava/lang/String;)V", false);
+    }
+
+    private void append(String descriptor) {
+        method.visitMethodInsn(INVOKEVIRTUAL, STRING_BUILDER, "append",
+                "(" + descriptor + ")Ljava/lang/StringBuilder;", false);
+    }
+
+    // Conversions
+
+    /** Converts the value on top of the stack from {@code from} to {@code to}. */
+    private void convert(Type from, Type to) {
+        if (from == to) {
+            return;
+        }
+        method.visitInsn(switch (from) {
+            case INT -> to == Type.FLOAT ? I2F : I2D;
+            case FLOAT -> to == Type.INT ? F2I : F2D;
+            default -> to == Type.INT ? D2I : D2F;
+        });
+    }
+
+    /** Converts any value on top of the stack to text, for {@code +} with a string. */
+    private void text(Type type) {
+        switch (type) {
+            case INT -> toString("java/lang/Integer", "I");
+            case FLOAT -> toString("java/lang/Float", "F");
+            case DOUBLE -> toString("java/lang/Double", "D");
+            case STRING -> {
+            }
+            case VOID -> throw new AssertionError();
+        }
+    }
+
+    private void toString(String owner, String descriptor) {
+        method.visitMethodInsn(INVOKESTATIC, owner, "toString", "(" + descriptor + ")Ljava/lang/String;", false);
+    }
+
+    private void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            method.visitInsn(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            method.visitIntInsn(BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            method.visitIntInsn(SIPUSH, value);
+        } else {
+            method.visitLdcInsn(value);
+        }
+    }
+
+    private void pushZero(Type type) {
+        switch (type) {
+            case INT -> method.visitInsn(ICONST_0);
+            case FLOAT -> method.visitInsn(FCONST_0);
+            case DOUBLE -> method.visitInsn(DCONST_0);
+            case STRING -> method.visitLdcInsn("");
+            case VOID -> {
+            }
+        }
+    }
+
+    static String descriptor(Type type) {
+        return switch (type) {
+            case INT -> "I";
+            case FLOAT -> "F";
+            case DOUBLE -> "D";
+            case STRING -> "Ljava/lang/String;";
+            case VOID -> "V";
+        };
+    }
+
+    /**
+     * Offset of a type's form of a typed instruction from its {@code int}
+     * form, as in {@code ILOAD}, {@code FLOAD}, {@code DLOAD}, {@code ALOAD}.
+     */
+    private static int offset(Type type) {
+        return switch (type) {
+            case INT -> 0;
+            case FLOAT -> 2;
+            case DOUBLE -> 3;
+            case STRING -> 4;
+            case VOID -> throw new AssertionError();
+        };
+    }
+
+    private static int returnOpcode(Type type) {
+        return type == Type.VOID ? RETURN : IRETURN + offset(type);
+    }
+
+}
@@ -0,0 +1,162 @@
+package minilang.jvm;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+import minilang.ast.ConstantFolder;
+import minilang.ast.Program;
+import minilang.ast.Type;
+import minilang.interp.Interpreter;
+
+/**
+ * Runs MiniLang programs as JVM bytecode.
+ *
+ * <p>{@link #load} folds a program's constants with {@link ConstantFolder}
+ * and compiles it to a class of its own, with a static method for each
+ * function whose {@code int}, {@code float} and {@code double} parameters,
+ * locals and results are the JVM primitives, and a static field for each
+ * global. The class is defined as a hidden class,
+ * so it can only be reached through this object and is unloaded with it.
+ * From then on the program is ordinary Java code to HotSpot, which profiles,
+ * inlines and compiles it like any other.</p>
+ *
+ * <p>The language is the one {@link Interpreter} runs, with the same
+ * semantics and the same load-time errors. A function or top level too large
+ * for one JVM method, 64 KB of bytecode, is rejected by {@link #load}.</p>
+ */
+public final class JvmProgram {
+
+    private final Class<?> programClass;
+
+    private final MethodHandle topLevel;
+
+    private final Map<String, ClassGenerator.Signature> signatures;
+
+    private final Map<String, MethodHandle> functions = new HashMap<>();
+
+    private JvmProgram(ClassGenerator.Generated generated, PrintStream out) {
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.lookup().defineHiddenClass(generated.classFile(), true);
+            programClass = lookup.lookupClass();
+            lookup.findStaticSetter(programClass, ClassGenerator.OUT, PrintStream.class).invoke(out);
+            topLevel = lookup.findStatic(programClass, ClassGenerator.TOP_LEVEL, MethodType.methodType(void.class));
+            for (ClassGenerator.Signature signature : generated.functions().values()) {
+                Class<?>[] parameters = new Class<?>[signature.parameters().length];
+                for (int i = 0; i < parameters.length; i++) {
+                    parameters[i] = javaType(signature.parameters()[i]);
+                }
+                functions.put(signature.name().name(), lookup.findStatic(programClass, signature.name().name(),
+                        MethodType.methodType(javaType(signature.returnType()), parameters)));
+            }
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot define the generated class", e);
+        }
+        this.signatures = generated.functions();
+    }
+
+    /** Compiles and defines {@code program}, printing to {@code System.out}. */
+    public static JvmProgram load(Program program) {
+        return load(program, System.out);
+    }
+
+    public static JvmProgram load(Program program, PrintStream out) {
+        return new JvmProgram(ClassGenerator.generate(ConstantFolder.fold(program)), out);
+    }
+
+    /**
+     * Resets the globals and runs the top level of the program, then calls
+     * {@code main()} if the program declares it.
+     *
+     * @return what {@code main} returned, boxed, or {@code null} if there is
+     *     no {@code main} or it is {@code void}
+     */
+    public Object run() {
+        try {
+            topLevel.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+        return functions.containsKey("main") ? call("main") : null;
+    }
+
+    /**
+     * Calls the function {@code name} with {@code arguments} converted to its
+     * parameter types, and boxes its result. The globals are left as the
+     * last run or call left them.
+     *
+     * @throws IllegalArgumentException if there is no such function or the
+     *     arguments do not fit its parameters
+     */
+    public Object call(String name, Object... arguments) {
+        MethodHandle function = function(name);
+        Type[] parameters = signatures.get(name).parameters();
+        if (arguments.length != parameters.length) {
+            throw new IllegalArgumentException("'" + name + "' takes " + parameters.length
+                    + " arguments, not " + arguments.length);
+        }
+        Object[] converted = new Object[arguments.length];
+        for (int a = 0; a < arguments.length; a++) {
+            converted[a] = argument(parameters[a], arguments[a]);
+        }
+        try {
+            return function.invokeWithArguments(converted);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The static method for the function {@code name}, with the primitive
+     * types of its declaration, for callers that invoke it exactly.
+     *
+     * @throws IllegalArgumentException if there is no such function
+     */
+    public MethodHandle function(String name) {
+        MethodHandle function = functions.get(name);
+        if (function == null) {
+            throw new IllegalArgumentException("No function '" + name + "'");
+        }
+        return function;
+    }
+
+    /** The hidden class the program was compiled to. */
+    public Class<?> programClass() {
+        return programClass;
+    }
+
+    private static Object argument(Type parameter, Object value) {
+        if (parameter == Type.STRING) {
+            if (!(value instanceof String)) {
+                throw new IllegalArgumentException("Expected a string, not " + value);
+            }
+            return value;
+        }
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException("Expected a number, not " + value);
+        }
+        return switch (parameter) {
+            case INT -> number.intValue();
+            case FLOAT -> number.floatValue();
+            default -> number.doubleValue();
+        };
+    }
+
+    private static Class<?> javaType(Type type) {
+        return switch (type) {
+            case INT -> int.class;
+            case FLOAT -> float.class;
+            case DOUBLE -> double.class;
+            case STRING -> String.class;
+            case VOID -> void.class;
+        };
+    }
+}
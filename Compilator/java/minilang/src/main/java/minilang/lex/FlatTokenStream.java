@@ -0,0 +1,367 @@
+package minilang.lex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.RuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+/**
+ * A {@link TokenStream} that buffers tokens as parallel arrays instead of
+ * {@link CommonToken} objects.
+ *
+ * <p>A token costs nine bytes: its type and its start and stop character
+ * indexes. Lines and columns are not stored per token; the stream records
+ * where each line that has a token starts, and derives both from the start
+ * index. {@link #LA} reads the type array directly, and a {@link Token}
+ * object is only created when the parser asks for one with {@link #LT} or
+ * {@link #get}, mostly to put it in the parse tree; recently created tokens
+ * are reused.</p>
+ *
+ * <p>The stream installs a factory on its token source that hands out one
+ * reused token, so lexing allocates nothing per token either. The source
+ * must not be shared with another stream.</p>
+ *
+ * <p>Every token the source emits is visible to the parser. MiniLang skips
+ * whitespace and comments rather than hiding them on a channel, so this is
+ * the behavior of {@code CommonTokenStream} for this grammar; a token's
+ * channel and any text set by a lexer action are still kept.</p>
+ */
+public final class FlatTokenStream implements TokenStream {
+
+    /** Number of created tokens kept for reuse; a power of two. */
+    private static final int RECENT = 64;
+
+    private final TokenSource source;
+
+    private final Pair<TokenSource, CharStream> sourcePair;
+
+    private byte[] types = new byte[1024];
+    private int[] starts = new int[1024];
+    private int[] stops = new int[1024];
+    private int size;
+
+    /** Line number and start index of each line that has a token, by increasing line. */
+    private int[] lineNumbers = new int[64];
+    private int[] lineStarts = new int[64];
+    private int lineCount;
+
+    /** The rare tokens whose text or channel is not derived from the input. */
+    private final Map<Integer, String> texts = new HashMap<>();
+    private final Map<Integer, Integer> channels = new HashMap<>();
+
+    private final Token[] recent = new Token[RECENT];
+
+    private final ReusedTokenFactory factory = new ReusedTokenFactory();
+
+    private boolean fetchedEOF;
+
+    private int p;
+
+    public FlatTokenStream(TokenSource source) {
+        this.source = source;
+        this.sourcePair = new Pair<>(source, source.getInputStream());
+        source.setTokenFactory(factory);
+    }
+
+    /** Reads tokens until {@code EOF}. */
+    public void fill() {
+        while (!fetchedEOF) {
+            fetch();
+        }
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i > 0) {
+            int index = p + i - 1;
+            if (index >= size && !sync(index)) {
+                return types[size - 1];
+            }
+            return types[index];
+        }
+        int index = p + i;
+        return i == 0 || index < 0 ? Token.INVALID_TYPE : types[index];
+    }
+
+    @Override
+    public Token LT(int k) {
+        if (k == 0) {
+            return null;
+        }
+        if (k < 0) {
+            return p + k < 0 ? null : get(p + k);
+        }
+        int index = p + k - 1;
+        if (index >= size && !sync(index)) {
+            // EOF must be last token
+            return get(size - 1);
+        }
+        return get(index);
+    }
+
+    @Override
+    public Token get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("token index " + index + " out of range 0.." + (size - 1));
+        }
+        int slot = index & (RECENT - 1);
+        Token token = recent[slot];
+        if (token == null || token.getTokenIndex() != index) {
+            token = materialize(index);
+            recent[slot] = token;
+        }
+        return token;
+    }
+
+    public int getType(int index) {
+        return types[index];
+    }
+
+    public int getStartIndex(int index) {
+        return starts[index];
+    }
+
+    public int getStopIndex(int index) {
+        return stops[index];
+    }
+
+    public int getLine(int index) {
+        return lineNumbers[lineOf(starts[index])];
+    }
+
+    public int getCharPositionInLine(int index) {
+        return starts[index] - lineStarts[lineOf(starts[index])];
+    }
+
+    @Override
+    public void consume() {
+        if (LA(1) == Token.EOF) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        if (sync(p + 1)) {
+            p++;
+        }
+    }
+
+    @Override
+    public int mark() {
+        return 0;
+    }
+
+    @Override
+    public void release(int marker) {
+        // no resources to release
+    }
+
+    @Override
+    public int index() {
+        return p;
+    }
+
+    @Override
+    public void seek(int index) {
+        p = index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return source.getSourceName();
+    }
+
+    @Override
+    public TokenSource getTokenSource() {
+        return source;
+    }
+
+    @Override
+    public String getText() {
+        fill();
+        return getText(Interval.of(0, size - 1));
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = interval.a;
+        int stop = interval.b;
+        if (start < 0 || stop < 0) {
+            return "";
+        }
+        sync(stop);
+        stop = Math.min(stop, size - 1);
+        CharStream input = sourcePair.b;
+        StringBuilder sb = new StringBuilder();
+        for (int i = start; i <= stop; i++) {
+            if (types[i] == Token.EOF) {
+                break;
+            }
+            String text = texts.isEmpty() ? null : texts.get(i);
+            sb.append(text != null ? text : input.getText(Interval.of(starts[i], stops[i])));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String getText(RuleContext ctx) {
+        return getText(ctx.getSourceInterval());
+    }
+
+    @Override
+    public String getText(Token start, Token stop) {
+        if (start != null && stop != null) {
+            return getText(Interval.of(start.getTokenIndex(), stop.getTokenIndex()));
+        }
+        return "";
+    }
+
+    /** Approximate heap used by the buffered tokens, for comparison with a list of {@link CommonToken}s. */
+    public long footprintBytes() {
+        return types.length + 4L * starts.length + 4L * stops.length
+                + 4L * lineNumbers.length + 4L * lineStarts.length;
+    }
+
+    /** Makes sure index {@code i} has a token; {@code false} if the input ends before it. */
+    private boolean sync(int i) {
+        while (size <= i) {
+            if (fetchedEOF) {
+                return false;
+            }
+            fetch();
+        }
+        return true;
+    }
+
+    private void fetch() {
+        factory.fetching = true;
+        Token token;
+        try {
+            token = source.nextToken();
+        } finally {
+            factory.fetching = false;
+        }
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            stops = Arrays.copyOf(stops, capacity);
+        }
+        int type = token.getType();
+        if (type > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Token type " + type + " does not fit the flat buffer");
+        }
+        types[size] = (byte) type;
+        starts[size] = token.getStartIndex();
+        stops[size] = token.getStopIndex();
+        if (lineCount == 0 || token.getLine() > lineNumbers[lineCount - 1]) {
+            if (lineCount == lineNumbers.length) {
+                lineNumbers = Arrays.copyOf(lineNumbers, lineCount * 2);
+                lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+            }
+            lineNumbers[lineCount] = token.getLine();
+            lineStarts[lineCount] = token.getStartIndex() - token.getCharPositionInLine();
+            lineCount++;
+        }
+        if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+            channels.put(size, token.getChannel());
+        }
+        if (token instanceof ReusedToken reused && reused.explicitText != null) {
+            texts.put(size, reused.explicitText);
+        }
+        size++;
+        if (type == Token.EOF) {
+            fetchedEOF = true;
+        }
+    }
+
+    /** The last recorded line starting at or before character {@code start}. */
+    private int lineOf(int start) {
+        int low = 0;
+        int high = lineCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (lineStarts[mid] <= start) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private Token materialize(int index) {
+        // The maps are nearly always empty; skip the boxed lookups then.
+        int channel = channels.isEmpty() ? Token.DEFAULT_CHANNEL : channels.getOrDefault(index, Token.DEFAULT_CHANNEL);
+        CommonToken token = new CommonToken(sourcePair, types[index], channel, starts[index], stops[index]);
+        int line = lineOf(starts[index]);
+        token.setLine(lineNumbers[line]);
+        token.setCharPositionInLine(starts[index] - lineStarts[line]);
+        token.setTokenIndex(index);
+        if (!texts.isEmpty() && texts.containsKey(index)) {
+            token.setText(texts.get(index));
+        }
+        return token;
+    }
+
+    /** The one token the source fills in for each {@link #fetch}; only its fields are kept. */
+    private static final class ReusedToken extends CommonToken {
+        private static final long serialVersionUID = 1L;
+
+        String explicitText;
+
+        ReusedToken() {
+            super(Token.INVALID_TYPE);
+        }
+    }
+
+    /**
+     * Hands out the reused token while the stream fetches. Anyone else, such
+     * as the parser's error strategy conjuring a missing token, gets a token
+     * of its own.
+     */
+    private static final class ReusedTokenFactory implements TokenFactory<CommonToken> {
+        private final ReusedToken token = new ReusedToken();
+
+        boolean fetching;
+
+        @Override
+        public CommonToken create(Pair<TokenSource, CharStream> source, int type, String text, int channel,
+                                  int start, int stop, int line, int charPositionInLine) {
+            if (!fetching) {
+                return CommonTokenFactory.DEFAULT.create(source, type, text, channel, start, stop, line,
+                        charPositionInLine);
+            }
+            token.setType(type);
+            token.explicitText = text;
+            token.setChannel(channel);
+            token.setStartIndex(start);
+            token.setStopIndex(stop);
+            token.setLine(line);
+            token.setCharPositionInLine(charPositionInLine);
+            return token;
+        }
+
+        @Override
+        public CommonToken create(int type, String text) {
+            if (!fetching) {
+                return CommonTokenFactory.DEFAULT.create(type, text);
+            }
+            token.setType(type);
+            token.explicitText = text;
+            return token;
+        }
+    }
+}
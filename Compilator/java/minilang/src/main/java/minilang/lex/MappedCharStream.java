@@ -0,0 +1,317 @@
+package minilang.lex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * A {@link CharStream} over UTF-8 bytes, typically a memory-mapped file,
+ * that decodes code points only as the lexer reaches them.
+ *
+ * <p>Indexes are code points, as in the streams built by
+ * {@code CharStreams}, so tokens and error positions are the same. The
+ * file is never copied to the heap: {@link #getText(Interval)} decodes just
+ * the requested range, which is all a token's text costs.</p>
+ *
+ * <p>For pure ASCII a code point index is also a byte offset. For the rest,
+ * the stream remembers the byte offset of every {@value #CHECKPOINT_INTERVAL}th
+ * code point and of the last few positions it visited, so the short seeks
+ * back that the lexer does after each token and any longer seek decode
+ * little or nothing again.</p>
+ *
+ * <p>Malformed UTF-8 decodes to U+FFFD one byte at a time.</p>
+ */
+public final class MappedCharStream implements CharStream {
+
+    private static final int CHECKPOINT_INTERVAL = 1024;
+
+    /** Number of recently visited positions remembered; a power of two. */
+    private static final int RECENT = 64;
+
+    private static final int REPLACEMENT = 0xFFFD;
+
+    /** Smallest code point that needs a 2, 3 or 4 byte sequence; anything lower is overlong. */
+    private static final int[] MIN_CODE_POINT = {0, 0, 0x80, 0x800, 0x10000};
+
+    private final ByteBuffer bytes;
+
+    private final int limit;
+
+    private final String sourceName;
+
+    /** Current code point index and its byte offset. */
+    private int index;
+    private int offset;
+
+    /** The furthest code point decoded so far and its byte offset. */
+    private int frontierIndex;
+    private int frontierOffset;
+
+    /** Length of the all-ASCII prefix decoded so far, in which indexes and offsets coincide. */
+    private int asciiPrefix;
+
+    /** Byte offset of code point {@code k * CHECKPOINT_INTERVAL}, up to the frontier. */
+    private int[] checkpoints = new int[16];
+    private int checkpointCount = 1;
+
+    private final int[] recentIndex = new int[RECENT];
+    private final int[] recentOffset = new int[RECENT];
+
+    /** The code point at {@link #offset}, or {@code EOF}, and its byte length. */
+    private int current;
+    private int currentWidth;
+
+    /** Byte length of the code point last returned by {@link #decode}. */
+    private int width;
+
+    public MappedCharStream(ByteBuffer bytes, String sourceName) {
+        this.bytes = bytes.slice();
+        this.limit = this.bytes.limit();
+        this.sourceName = sourceName;
+        Arrays.fill(recentIndex, -1);
+        load();
+    }
+
+    /** Maps {@code file} read-only; the mapping stays valid until the stream is garbage collected. */
+    public static MappedCharStream open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB");
+            }
+            return new MappedCharStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), file.toString());
+        }
+    }
+
+    @Override
+    public void consume() {
+        if (current == IntStream.EOF) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        int next = offset + currentWidth;
+        index++;
+        if (index > frontierIndex) {
+            extendFrontier(current, offset, next, currentWidth);
+        }
+        if (index > asciiPrefix) {
+            int slot = index & (RECENT - 1);
+            recentIndex[slot] = index;
+            recentOffset[slot] = next;
+        }
+        offset = next;
+        load();
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 1) {
+            return current;
+        }
+        if (i > 1) {
+            int at = offset;
+            for (int k = 1; k < i; k++) {
+                if (at >= limit) {
+                    return IntStream.EOF;
+                }
+                decode(at);
+                at += width;
+            }
+            return at >= limit ? IntStream.EOF : decode(at);
+        }
+        if (i < 0) {
+            int target = index + i;
+            if (target < 0) {
+                return IntStream.EOF;
+            }
+            int at = locate(target);
+            return at >= limit ? IntStream.EOF : decode(at);
+        }
+        // Undefined
+        return 0;
+    }
+
+    /** mark/release do nothing; the whole file is mapped. */
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    @Override
+    public void seek(int index) {
+        if (index != this.index) {
+            int target = Math.max(index, 0);
+            offset = locate(target);
+            this.index = target;
+            load();
+        }
+    }
+
+    /** Number of code points; the first call decodes the rest of the input. */
+    @Override
+    public int size() {
+        locate(Integer.MAX_VALUE);
+        return frontierIndex;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName == null || sourceName.isEmpty() ? UNKNOWN_SOURCE_NAME : sourceName;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        if (interval.b < interval.a) {
+            return "";
+        }
+        int start = locate(interval.a);
+        int stop = interval.b == Integer.MAX_VALUE ? limit : locate(interval.b + 1);
+        if (stop <= asciiPrefix) {
+            byte[] text = new byte[stop - start];
+            bytes.get(start, text);
+            return new String(text, StandardCharsets.ISO_8859_1);
+        }
+        StringBuilder sb = new StringBuilder(stop - start);
+        for (int at = start; at < stop; at += width) {
+            sb.appendCodePoint(decode(at));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Byte offset of the code point at {@code target}, or the end of the
+     * input if there are fewer code points.
+     */
+    private int locate(int target) {
+        if (target <= asciiPrefix) {
+            return Math.min(target, limit);
+        }
+        int slot = target & (RECENT - 1);
+        if (recentIndex[slot] == target) {
+            return recentOffset[slot];
+        }
+
+        int at;
+        int atOffset;
+        if (target >= frontierIndex) {
+            at = frontierIndex;
+            atOffset = frontierOffset;
+        } else {
+            int checkpoint = target / CHECKPOINT_INTERVAL;
+            at = checkpoint * CHECKPOINT_INTERVAL;
+            atOffset = checkpoints[checkpoint];
+            if (index <= target && index > at) {
+                at = index;
+                atOffset = offset;
+            }
+        }
+        while (at < target && atOffset < limit) {
+            int c = decode(atOffset);
+            int next = atOffset + width;
+            at++;
+            if (at > frontierIndex) {
+                extendFrontier(c, atOffset, next, width);
+            }
+            atOffset = next;
+        }
+        return atOffset;
+    }
+
+    private void load() {
+        if (offset >= limit) {
+            current = IntStream.EOF;
+            currentWidth = 0;
+            return;
+        }
+        byte b = bytes.get(offset);
+        if (b >= 0) {
+            current = b;
+            currentWidth = 1;
+        } else {
+            current = decode(offset);
+            currentWidth = width;
+        }
+    }
+
+    /**
+     * Records that the code point {@code c} at {@code from}, {@code length}
+     * bytes long, ends at {@code to}, one past the frontier.
+     */
+    private void extendFrontier(int c, int from, int to, int length) {
+        frontierIndex++;
+        frontierOffset = to;
+        if (asciiPrefix == from && length == 1 && c < 0x80) {
+            asciiPrefix = to;
+        }
+        if ((frontierIndex & (CHECKPOINT_INTERVAL - 1)) == 0) {
+            if (checkpointCount == checkpoints.length) {
+                checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+            }
+            checkpoints[checkpointCount++] = to;
+        }
+    }
+
+    /** Decodes the code point at byte offset {@code at} and sets {@link #width}. */
+    private int decode(int at) {
+        int b = bytes.get(at);
+        if (b >= 0) {
+            width = 1;
+            return b;
+        }
+        int length;
+        int c;
+        if ((b & 0xE0) == 0xC0) {
+            length = 2;
+            c = b & 0x1F;
+        } else if ((b & 0xF0) == 0xE0) {
+            length = 3;
+            c = b & 0x0F;
+        } else if ((b & 0xF8) == 0xF0) {
+            length = 4;
+            c = b & 0x07;
+        } else {
+            width = 1;
+            return REPLACEMENT;
+        }
+        if (at + length > limit) {
+            width = 1;
+            return REPLACEMENT;
+        }
+        for (int k = 1; k < length; k++) {
+            int continuation = bytes.get(at + k);
+            if ((continuation & 0xC0) != 0x80) {
+                width = 1;
+                return REPLACEMENT;
+            }
+            c = (c << 6) | (continuation & 0x3F);
+        }
+        if (c < MIN_CODE_POINT[length] || c > Character.MAX_CODE_POINT
+                || (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE)) {
+            width = 1;
+            return REPLACEMENT;
+        }
+        width = length;
+        return c;
+    }
+}
@@ -0,0 +1,456 @@
+package minilang.lex;
+
+import static minilang.MiniLangLexer.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+import minilang.MiniLangLexer;
+import minilang.TokenTypes;
+
+/**
+ * Hand-written MiniLang lexer that produces the same tokens as
+ * {@link MiniLangLexer} without simulating its ATN.
+ *
+ * <p>Each token is recognised by a switch on its first character and at most
+ * two characters of lookahead. Identifiers are checked against the keyword
+ * literals with a perfect hash on their length and first and last characters,
+ * so an identifier that is not a keyword costs one table probe.</p>
+ *
+ * <p>Invalid input is handled the way the generated lexer handles it: the
+ * error is reported to the error listeners as a {@code token recognition
+ * error} and the same characters are dropped, so the token stream after an
+ * error is identical as well.</p>
+ */
+public final class TableLexer implements TokenSource {
+
+    /** Marks whitespace, comments and unrecognised input, which produce no token. */
+    private static final int SKIP_TOKEN = 0;
+
+    private static final int TABLE_SIZE = 32;
+
+    private static final int LONGEST_KEYWORD = 6;
+
+    private static final char[][] KEYWORD_TEXT = new char[TABLE_SIZE][];
+
+    private static final int[] KEYWORD_TYPE = new int[TABLE_SIZE];
+
+    private static final int MULTIPLIER;
+
+    static {
+        int[] types = {
+            TokenTypes.RETURN, TokenTypes.IF, TokenTypes.ELSE, TokenTypes.FOR, TokenTypes.WHILE,
+            TokenTypes.TYPE_INT, TokenTypes.TYPE_FLOAT, TokenTypes.TYPE_DOUBLE, TokenTypes.TYPE_STRING,
+            TokenTypes.TYPE_VOID
+        };
+        MULTIPLIER = findMultiplier(types);
+        for (int type : types) {
+            char[] text = keyword(type);
+            int slot = hash(text[0], text[text.length - 1], text.length, MULTIPLIER);
+            KEYWORD_TEXT[slot] = text;
+            KEYWORD_TYPE[slot] = type;
+        }
+    }
+
+    private final CharStream input;
+
+    private final Pair<TokenSource, CharStream> source;
+
+    private final List<ANTLRErrorListener> listeners = new ArrayList<>(List.of(ConsoleErrorListener.INSTANCE));
+
+    private TokenFactory<?> factory = CommonTokenFactory.DEFAULT;
+
+    private int line = 1;
+
+    private int column;
+
+    private int tokenStart;
+
+    private int tokenLine;
+
+    private int tokenColumn;
+
+    /** The first characters of the identifier being scanned, for the keyword check. */
+    private final int[] prefix = new int[LONGEST_KEYWORD];
+
+    public TableLexer(CharStream input) {
+        this.input = input;
+        this.source = new Pair<>(this, input);
+    }
+
+    @Override
+    public Token nextToken() {
+        while (true) {
+            tokenStart = input.index();
+            tokenLine = line;
+            tokenColumn = column;
+            int c = input.LA(1);
+            if (c == IntStream.EOF) {
+                return factory.create(source, Token.EOF, null, Token.DEFAULT_CHANNEL,
+                        tokenStart, tokenStart - 1, line, column);
+            }
+            int type = scan(c);
+            if (type != SKIP_TOKEN) {
+                return factory.create(source, type, null, Token.DEFAULT_CHANNEL,
+                        tokenStart, input.index() - 1, tokenLine, tokenColumn);
+            }
+        }
+    }
+
+    private int scan(int c) {
+        switch (c) {
+            case ' ', '\t', '\r', '\n' -> {
+                do {
+                    consume();
+                    c = input.LA(1);
+                } while (c == ' ' || c == '\t' || c == '\r' || c == '\n');
+                return SKIP_TOKEN;
+            }
+            case '"' -> {
+                return string();
+            }
+            case '/' -> {
+                return slash();
+            }
+            case '+' -> {
+                return operator(ADD, '=', ADD_ASSIGN, '+', INCREMENT);
+            }
+            case '-' -> {
+                return operator(SUB, '=', SUB_ASSIGN, '-', DECREMENT);
+            }
+            case '*' -> {
+                return operator(MUL, '=', MUL_ASSIGN);
+            }
+            case '%' -> {
+                return operator(MOD, '=', MOD_ASSIGN);
+            }
+            case '<' -> {
+                return operator(LT, '=', LE);
+            }
+            case '>' -> {
+                return operator(GT, '=', GE);
+            }
+            case '=' -> {
+                return operator(ASSIGN, '=', EQ);
+            }
+            case '!' -> {
+                return operator(NOT, '=', NE);
+            }
+            case '&' -> {
+                return pair('&', AND);
+            }
+            case '|' -> {
+                return pair('|', OR);
+            }
+            case ';' -> {
+                return single(SEMICOLON);
+            }
+            case '(' -> {
+                return single(LPAREN);
+            }
+            case ')' -> {
+                return single(RPAREN);
+            }
+            case '{' -> {
+                return single(LBRACE);
+            }
+            case '}' -> {
+                return single(RBRACE);
+            }
+            case ',' -> {
+                return single(COMMA);
+            }
+            default -> {
+                if (isDigit(c)) {
+                    return number();
+                }
+                if (isIdentifierStart(c)) {
+                    return identifier(c);
+                }
+                // No rule starts with this character: it is reported and dropped.
+                return error();
+            }
+        }
+    }
+
+    private int single(int type) {
+        consume();
+        return type;
+    }
+
+    /** {@code type}, or {@code secondType} if {@code second} follows. */
+    private int operator(int type, int second, int secondType) {
+        consume();
+        if (input.LA(1) == second) {
+            consume();
+            return secondType;
+        }
+        return type;
+    }
+
+    /** {@code type}, or {@code secondType} or {@code alternativeType} if {@code second} or {@code alternative} follows. */
+    private int operator(int type, int second, int secondType, int alternative, int alternativeType) {
+        consume();
+        int c = input.LA(1);
+        if (c == second) {
+            consume();
+            return secondType;
+        }
+        if (c == alternative) {
+            consume();
+            return alternativeType;
+        }
+        return type;
+    }
+
+    /** {@code &&} and {@code ||}; a lone {@code &} or {@code |} fails on the character after it. */
+    private int pair(int c, int type) {
+        consume();
+        if (input.LA(1) == c) {
+            consume();
+            return type;
+        }
+        return error();
+    }
+
+    private int slash() {
+        consume();
+        int c = input.LA(1);
+        if (c == '=') {
+            consume();
+            return DIV_ASSIGN;
+        }
+        if (c == '/') {
+            do {
+                consume();
+                c = input.LA(1);
+            } while (c != '\n' && c != '\r' && c != IntStream.EOF);
+            return SKIP_TOKEN;
+        }
+        if (c == '*') {
+            return blockComment();
+        }
+        return DIV;
+    }
+
+    /**
+     * An unterminated {@code /*} is not a comment; like the generated lexer,
+     * fall back to the longest token that did match, the {@code /}.
+     */
+    private int blockComment() {
+        int afterSlash = input.index();
+        int marker = input.mark();
+        try {
+            consume();
+            int previous = 0;
+            while (true) {
+                int c = input.LA(1);
+                if (c == IntStream.EOF) {
+                    input.seek(afterSlash);
+                    line = tokenLine;
+                    column = tokenColumn + 1;
+                    return DIV;
+                }
+                consume();
+                if (previous == '*' && c == '/') {
+                    return SKIP_TOKEN;
+                }
+                previous = c;
+            }
+        } finally {
+            input.release(marker);
+        }
+    }
+
+    private int string() {
+        consume();
+        while (true) {
+            int c = input.LA(1);
+            if (c == IntStream.EOF) {
+                // An unterminated string swallows the rest of the input.
+                return error();
+            }
+            consume();
+            if (c == '"') {
+                return STRING;
+            }
+        }
+    }
+
+    private int number() {
+        do {
+            consume();
+        } while (isDigit(input.LA(1)));
+        if (input.LA(1) == '.' && isDigit(input.LA(2))) {
+            consume();
+            do {
+                consume();
+            } while (isDigit(input.LA(1)));
+        }
+        return NUMBER;
+    }
+
+    private int identifier(int first) {
+        int length = 0;
+        int last = first;
+        int c = first;
+        do {
+            if (length < LONGEST_KEYWORD) {
+                prefix[length] = c;
+            }
+            length++;
+            last = c;
+            consume();
+            c = input.LA(1);
+        } while (isIdentifierPart(c));
+
+        if (length <= LONGEST_KEYWORD) {
+            int slot = hash(first, last, length, MULTIPLIER);
+            char[] keyword = KEYWORD_TEXT[slot];
+            if (keyword != null && keyword.length == length && matches(keyword)) {
+                return KEYWORD_TYPE[slot];
+            }
+        }
+        return IDENTIFIER;
+    }
+
+    private boolean matches(char[] keyword) {
+        for (int i = 0; i < keyword.length; i++) {
+            if (prefix[i] != keyword[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reports the text from the token start through the current character
+     * and drops it, which is what {@code Lexer.notifyListeners} and
+     * {@code Lexer.recover} do for a {@code LexerNoViableAltException}.
+     */
+    private int error() {
+        String text = input.getText(Interval.of(tokenStart, input.index()));
+        String message = "token recognition error at: '" + errorDisplay(text) + "'";
+        for (ANTLRErrorListener listener : listeners) {
+            listener.syntaxError(null, null, tokenLine, tokenColumn, message, null);
+        }
+        if (input.LA(1) != IntStream.EOF) {
+            consume();
+        }
+        return SKIP_TOKEN;
+    }
+
+    private void consume() {
+        if (input.LA(1) == '\n') {
+            line++;
+            column = 0;
+        } else {
+            column++;
+        }
+        input.consume();
+    }
+
+    public void addErrorListener(ANTLRErrorListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeErrorListeners() {
+        listeners.clear();
+    }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return column;
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return input;
+    }
+
+    @Override
+    public String getSourceName() {
+        return input.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return factory;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+
+    private static String errorDisplay(String text) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '\n' -> sb.append("\\n");
+                case '\t' -> sb.append("\\t");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int hash(int first, int last, int length, int multiplier) {
+        return (first * multiplier + last + length) & (TABLE_SIZE - 1);
+    }
+
+    /** Smallest multiplier for which {@link #hash} has no collision between keywords. */
+    private static int findMultiplier(int[] types) {
+        for (int multiplier = 1; multiplier < 1024; multiplier++) {
+            boolean[] used = new boolean[TABLE_SIZE];
+            boolean perfect = true;
+            for (int type : types) {
+                char[] text = keyword(type);
+                int slot = hash(text[0], text[text.length - 1], text.length, multiplier);
+                if (used[slot]) {
+                    perfect = false;
+                    break;
+                }
+                used[slot] = true;
+            }
+            if (perfect) {
+                return multiplier;
+            }
+        }
+        throw new IllegalStateException("No perfect hash for the MiniLang keywords");
+    }
+
+    private static char[] keyword(int type) {
+        String literal = VOCABULARY.getLiteralName(type);
+        return literal.substring(1, literal.length() - 1).toCharArray();
+    }
+}
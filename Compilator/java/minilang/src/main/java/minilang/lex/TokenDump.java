@@ -0,0 +1,266 @@
+package minilang.lex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * The lexical units of a source, as a binary file in three columns, and a
+ * reader that maps such a file back.
+ *
+ * <p>{@link #write} reads tokens up to {@code EOF}, which is not written,
+ * and lays them out as:</p>
+ * <ul>
+ *   <li>a header: magic, format version, token count, and the byte lengths
+ *   of the two varint columns;</li>
+ *   <li>the token types, one unsigned byte each;</li>
+ *   <li>where each token is in the source, as two unsigned LEB128 varints:
+ *   the gap from the end of the previous token, and the length, in code
+ *   points;</li>
+ *   <li>the lines, each a varint of its difference from the line before.</li>
+ * </ul>
+ * <p>A token usually costs four bytes. The text of a token is not stored:
+ * it is the source between its start and stop index, as for every token
+ * MiniLang's lexer makes.</p>
+ *
+ * <p>The columns are filled in direct buffers and written with one
+ * gathering write on a {@link FileChannel}. {@link #open} maps the file
+ * read-only, reads types by index straight from the mapping and decodes
+ * the rest in order with a {@link Cursor}, so nothing is copied to the
+ * heap.</p>
+ */
+public final class TokenDump {
+
+    private static final int MAGIC = 0x4D4C544B;
+
+    /** Bumped whenever the layout changes. */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER = 5 * Integer.BYTES;
+
+    private final int size;
+
+    private final ByteBuffer types;
+
+    private final ByteBuffer offsets;
+
+    private final ByteBuffer lines;
+
+    private TokenDump(int size, ByteBuffer types, ByteBuffer offsets, ByteBuffer lines) {
+        this.size = size;
+        this.types = types;
+        this.offsets = offsets;
+        this.lines = lines;
+    }
+
+    /**
+     * Writes every token of {@code tokens} before {@code EOF} to
+     * {@code file}, replacing it.
+     *
+     * @return the number of tokens written
+     * @throws IllegalArgumentException if a token type does not fit a byte,
+     *     or tokens go back in the source
+     */
+    public static int write(TokenSource tokens, Path file) throws IOException {
+        Column types = new Column(1 << 12);
+        Column offsets = new Column(1 << 13);
+        Column lines = new Column(1 << 12);
+        int count = 0;
+        int end = 0;
+        int line = 0;
+        for (Token token = tokens.nextToken(); token.getType() != Token.EOF; token = tokens.nextToken()) {
+            int type = token.getType();
+            int start = token.getStartIndex();
+            int stop = token.getStopIndex();
+            if (type < 0 || type > 0xFF) {
+                throw new IllegalArgumentException("Token type " + type + " does not fit a byte");
+            }
+            if (start < end || stop < start - 1 || token.getLine() < line) {
+                throw new IllegalArgumentException("Token " + count + " at line " + token.getLine()
+                        + " is before the token preceding it");
+            }
+            types.put((byte) type);
+            offsets.varint(start - end);
+            offsets.varint(stop - start + 1);
+            lines.varint(token.getLine() - line);
+            end = stop + 1;
+            line = token.getLine();
+            count++;
+        }
+
+        ByteBuffer header = ByteBuffer.allocateDirect(HEADER);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(count)
+              .putInt(offsets.buffer.position()).putInt(lines.buffer.position()).flip();
+        ByteBuffer[] buffers = {header, types.buffer.flip(), offsets.buffer.flip(), lines.buffer.flip()};
+        long remaining = HEADER + count + offsets.buffer.limit() + lines.buffer.limit();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+        }
+        return count;
+    }
+
+    /** Maps {@code file} read-only; the mapping stays valid until the dump is garbage collected. */
+    public static TokenDump open(Path file) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB");
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (bytes.limit() < HEADER || bytes.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a MiniLang token dump");
+        }
+        if (bytes.getInt(4) != FORMAT_VERSION) {
+            throw new IOException(file + " has token dump format " + bytes.getInt(4) + ", not " + FORMAT_VERSION);
+        }
+        int count = bytes.getInt(8);
+        int offsetBytes = bytes.getInt(12);
+        int lineBytes = bytes.getInt(16);
+        if (count < 0 || offsetBytes < 0 || lineBytes < 0
+                || (long) HEADER + count + offsetBytes + lineBytes != bytes.limit()) {
+            throw new IOException(file + " is truncated or corrupt");
+        }
+        return new TokenDump(count, bytes.slice(HEADER, count), bytes.slice(HEADER + count, offsetBytes),
+                bytes.slice(HEADER + count + offsetBytes, lineBytes));
+    }
+
+    /** The number of tokens. */
+    public int size() {
+        return size;
+    }
+
+    public int type(int index) {
+        return types.get(index) & 0xFF;
+    }
+
+    /** A cursor before the first token. */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Reads the tokens of a dump in order.
+     *
+     * <p>A dump that is not as its header says fails with an
+     * {@link IllegalStateException}.</p>
+     */
+    public final class Cursor {
+
+        private final ByteBuffer offsets = TokenDump.this.offsets.duplicate();
+
+        private final ByteBuffer lines = TokenDump.this.lines.duplicate();
+
+        private int index = -1;
+
+        private int start;
+
+        private int stop = -1;
+
+        private int line;
+
+        private Cursor() {
+        }
+
+        /** Moves to the next token; {@code false} once past the last one. */
+        public boolean next() {
+            if (index + 1 >= size) {
+                index = size;
+                return false;
+            }
+            index++;
+            start = stop + 1 + varint(offsets);
+            stop = start + varint(offsets) - 1;
+            line += varint(lines);
+            return true;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public int type() {
+            return TokenDump.this.type(index);
+        }
+
+        /** The index of the token's first code point in the source. */
+        public int start() {
+            return start;
+        }
+
+        /** The index of the token's last code point in the source. */
+        public int stop() {
+            return stop;
+        }
+
+        public int line() {
+            return line;
+        }
+
+        /** The token's text, read from the source it was lexed from. */
+        public String text(CharStream source) {
+            return source.getText(Interval.of(start, stop));
+        }
+    }
+
+    private static int varint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new IllegalStateException("The token dump ends inside a token");
+            }
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("A varint in the token dump is too long");
+    }
+
+    /** A growing direct buffer. */
+    private static final class Column {
+
+        ByteBuffer buffer;
+
+        Column(int capacity) {
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+
+        void put(byte b) {
+            if (!buffer.hasRemaining()) {
+                grow();
+            }
+            buffer.put(b);
+        }
+
+        /** Writes non-negative {@code value} as an unsigned LEB128 varint. */
+        void varint(int value) {
+            if (buffer.remaining() < 5) {
+                grow();
+            }
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) (value | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private void grow() {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+            bigger.put(buffer.flip());
+            buffer = bigger;
+        }
+    }
+}
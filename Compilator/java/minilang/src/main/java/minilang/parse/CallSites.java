@@ -0,0 +1,74 @@
+package minilang.parse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.RuleTransition;
+import org.antlr.v4.runtime.atn.Transition;
+
+import minilang.MiniLangParser;
+
+/**
+ * ATN states from which one rule of {@code MiniLang.g4} invokes another.
+ *
+ * <p>Hand-written parsers use these as the {@code invokingState} of the
+ * contexts they create, so their trees carry the same states as the ones
+ * built by {@link MiniLangParser} and error recovery or follow-set queries on
+ * them behave identically.</p>
+ */
+final class CallSites {
+
+    private static final Map<Long, int[]> SITES = index(MiniLangParser._ATN);
+
+    private CallSites() {
+    }
+
+    /**
+     * The state of the {@code occurrence}-th reference (in grammar order) to
+     * {@code callee} inside {@code caller}.
+     */
+    static int of(int caller, int callee, int occurrence) {
+        int[] states = SITES.get(key(caller, callee));
+        if (states == null || occurrence >= states.length) {
+            throw new IllegalArgumentException("Rule " + MiniLangParser.ruleNames[caller]
+                    + " has no reference #" + occurrence + " to " + MiniLangParser.ruleNames[callee]);
+        }
+        return states[occurrence];
+    }
+
+    /** The state a rule returns to after the call made from {@code site}. */
+    static int follow(int site) {
+        return ((RuleTransition) MiniLangParser._ATN.states.get(site).transition(0)).followState.stateNumber;
+    }
+
+    /** The state a left-recursive rule hands to the operand it wraps. */
+    static int startState(int rule) {
+        return MiniLangParser._ATN.ruleToStartState[rule].stateNumber;
+    }
+
+    private static Map<Long, int[]> index(ATN atn) {
+        Map<Long, List<Integer>> found = new HashMap<>();
+        for (ATNState state : atn.states) {
+            if (state == null) {
+                continue;
+            }
+            for (Transition transition : state.getTransitions()) {
+                if (transition instanceof RuleTransition call) {
+                    found.computeIfAbsent(key(state.ruleIndex, call.target.ruleIndex), k -> new ArrayList<>())
+                         .add(state.stateNumber);
+                }
+            }
+        }
+        Map<Long, int[]> sites = new HashMap<>();
+        found.forEach((key, states) -> sites.put(key, states.stream().mapToInt(Integer::intValue).sorted().toArray()));
+        return sites;
+    }
+
+    private static long key(int caller, int callee) {
+        return ((long) caller << 32) | callee;
+    }
+}
@@ -0,0 +1,639 @@
+package minilang.parse;
+
+import static minilang.MiniLangParser.*;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.misc.IntervalSet;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.antlr.v4.runtime.tree.TerminalNodeImpl;
+
+import minilang.MiniLangParser;
+import minilang.TokenTypes;
+
+/**
+ * Hand-written recursive-descent parser for MiniLang that builds the same
+ * {@link MiniLangParser} contexts as the generated parser without running the
+ * ATN simulator.
+ *
+ * <p>Statements are chosen with at most two tokens of lookahead, and
+ * {@code expression} is parsed by precedence climbing over the operator table
+ * below instead of the generated {@code precpred} chain. Each binary
+ * alternative of {@code MiniLang.g4} keeps its precedence (the first listed
+ * binds tightest) and left associativity, {@code !} takes a full expression
+ * down to {@code ||}, and an assignment takes everything to its right.</p>
+ *
+ * <p>The parser only accepts valid programs: the first syntax error aborts
+ * with a {@link ParseCancellationException}. {@link #parse(MiniLangParser)}
+ * falls back to the generated parser in that case, so that callers still get
+ * its error reporting and recovery.</p>
+ *
+ * <p>{@link #outline(MiniLangParser)} parses everything but function
+ * bodies: it skips each body by matching braces on the token stream and
+ * leaves a {@link LazyBlockContext} over its tokens, which parses the body
+ * the first time it is read.</p>
+ */
+public final class DescentParser {
+
+    /**
+     * Number of alternatives of {@code expression}. ANTLR gives alternative
+     * {@code i} of a left-recursive rule the precedence {@code n - i + 1}, so
+     * the first one listed binds tightest.
+     */
+    private static final int EXPRESSION_ALTERNATIVES = 20;
+
+    /** The binary alternatives, which are listed first and in this order. */
+    private static final int[] BINARY_OPERATORS = {ADD, SUB, MUL, DIV, MOD, LT, GT, LE, GE, EQ, NE, AND, OR};
+
+    private static final int NOT_ALTERNATIVE = 14;
+    private static final int ASSIGN_ALTERNATIVE = 19;
+
+    /** Precedence of each binary operator token; 0 for anything else. */
+    private static final int[] BINARY_PRECEDENCE = new int[VOCABULARY.getMaxTokenType() + 1];
+
+    /** Invoking state of the right operand of each binary operator token. */
+    private static final int[] RIGHT_OPERAND_STATE = new int[VOCABULARY.getMaxTokenType() + 1];
+
+    static {
+        for (int i = 0; i < BINARY_OPERATORS.length; i++) {
+            BINARY_PRECEDENCE[BINARY_OPERATORS[i]] = precedence(i + 1);
+            // The prefix alternatives (!, parentheses, assignment) reference
+            // expression before the binary ones do.
+            RIGHT_OPERAND_STATE[BINARY_OPERATORS[i]] = CallSites.of(RULE_expression, RULE_expression, 3 + i);
+        }
+    }
+
+    private static final int EXPRESSION_START = CallSites.startState(RULE_expression);
+    private static final int NOT_OPERAND = CallSites.of(RULE_expression, RULE_expression, 0);
+    private static final int PAREN_OPERAND = CallSites.of(RULE_expression, RULE_expression, 1);
+    private static final int ASSIGN_OPERAND = CallSites.of(RULE_expression, RULE_expression, 2);
+    private static final int EXPRESSION_CALL = CallSites.of(RULE_expression, RULE_functionCall, 0);
+
+    private static final int PROGRAM_GLOBALS = CallSites.of(RULE_program, RULE_globalDeclarations, 0);
+    private static final int PROGRAM_FUNCTION = CallSites.of(RULE_program, RULE_functionDeclaration, 0);
+    private static final int PROGRAM_STATEMENT = CallSites.of(RULE_program, RULE_statement, 0);
+    private static final int GLOBALS_VARIABLE = CallSites.of(RULE_globalDeclarations, RULE_varDeclaration, 0);
+    private static final int VARIABLE_TYPE = CallSites.of(RULE_varDeclaration, RULE_type, 0);
+    private static final int VARIABLE_VALUE = CallSites.of(RULE_varDeclaration, RULE_expression, 0);
+    private static final int FUNCTION_TYPE = CallSites.of(RULE_functionDeclaration, RULE_type, 0);
+    private static final int FUNCTION_PARAMETERS = CallSites.of(RULE_functionDeclaration, RULE_parameterList, 0);
+    private static final int FUNCTION_BODY = CallSites.of(RULE_functionDeclaration, RULE_block, 0);
+    private static final int FUNCTION_BODY_FOLLOW = CallSites.follow(FUNCTION_BODY);
+    private static final int PARAMETERS_FIRST = CallSites.of(RULE_parameterList, RULE_parameter, 0);
+    private static final int PARAMETERS_NEXT = CallSites.of(RULE_parameterList, RULE_parameter, 1);
+    private static final int PARAMETER_TYPE = CallSites.of(RULE_parameter, RULE_type, 0);
+    private static final int BLOCK_STATEMENT = CallSites.of(RULE_block, RULE_statement, 0);
+    private static final int STATEMENT_DECLARATION = CallSites.of(RULE_statement, RULE_declaration, 0);
+    private static final int STATEMENT_ASSIGNMENT = CallSites.of(RULE_statement, RULE_assignment, 0);
+    private static final int STATEMENT_INC_DEC = CallSites.of(RULE_statement, RULE_incrementDecrementWithSemicolon, 0);
+    private static final int STATEMENT_IF = CallSites.of(RULE_statement, RULE_ifStatement, 0);
+    private static final int STATEMENT_FOR = CallSites.of(RULE_statement, RULE_forStatement, 0);
+    private static final int STATEMENT_WHILE = CallSites.of(RULE_statement, RULE_whileStatement, 0);
+    private static final int STATEMENT_RETURN = CallSites.of(RULE_statement, RULE_returnStatement, 0);
+    private static final int STATEMENT_CALL = CallSites.of(RULE_statement, RULE_functionCall, 0);
+    private static final int RETURN_VALUE = CallSites.of(RULE_returnStatement, RULE_expression, 0);
+    private static final int DECLARATION_TYPE = CallSites.of(RULE_declaration, RULE_type, 0);
+    private static final int DECLARATION_VALUE = CallSites.of(RULE_declaration, RULE_expression, 0);
+    private static final int ASSIGNMENT_VALUE = CallSites.of(RULE_assignment, RULE_expression, 0);
+    private static final int IF_CONDITION = CallSites.of(RULE_ifStatement, RULE_expression, 0);
+    private static final int IF_THEN = CallSites.of(RULE_ifStatement, RULE_block, 0);
+    private static final int IF_ELSE = CallSites.of(RULE_ifStatement, RULE_block, 1);
+    private static final int FOR_DECLARATION = CallSites.of(RULE_forStatement, RULE_declaration, 0);
+    private static final int FOR_CONDITION = CallSites.of(RULE_forStatement, RULE_expression, 0);
+    private static final int FOR_ASSIGNMENT = CallSites.of(RULE_forStatement, RULE_assignment, 0);
+    private static final int FOR_INC_DEC = CallSites.of(RULE_forStatement, RULE_incrementDecrementWithoutSemicolon, 0);
+    private static final int FOR_BODY = CallSites.of(RULE_forStatement, RULE_block, 0);
+    private static final int WHILE_CONDITION = CallSites.of(RULE_whileStatement, RULE_expression, 0);
+    private static final int WHILE_BODY = CallSites.of(RULE_whileStatement, RULE_block, 0);
+    private static final int CALL_ARGUMENTS = CallSites.of(RULE_functionCall, RULE_argumentList, 0);
+    private static final int ARGUMENTS_FIRST = CallSites.of(RULE_argumentList, RULE_expression, 0);
+    private static final int ARGUMENTS_NEXT = CallSites.of(RULE_argumentList, RULE_expression, 1);
+
+    private final TokenStream input;
+
+    /** Parses skipped bodies later, or {@code null} to parse them in place. */
+    private final MiniLangParser bodies;
+
+    public DescentParser(TokenStream input) {
+        this(input, null);
+    }
+
+    private DescentParser(TokenStream input, MiniLangParser bodies) {
+        this.input = input;
+        this.bodies = bodies;
+    }
+
+    /**
+     * Parses with the hand-written parser and, if the input has a syntax
+     * error, re-parses it with {@code parser} through {@link TwoStageParser}.
+     */
+    public static ParseResult parse(MiniLangParser parser) {
+        try {
+            return new ParseResult(new DescentParser(parser.getTokenStream()).program(), ParseStage.DESCENT);
+        } catch (ParseCancellationException e) {
+            parser.reset();
+            return new TwoStageParser(parser).program();
+        }
+    }
+
+    /**
+     * Parses the globals, function signatures and top-level statements with
+     * the hand-written parser, leaving every function body as an unparsed
+     * {@link LazyBlockContext}; if any of those has a syntax error, or a
+     * body's braces do not match, parses the whole program with
+     * {@code parser} through {@link TwoStageParser} instead.
+     *
+     * <p>The bodies are parsed from {@code parser}'s token stream, so it
+     * has to keep its tokens until they are.</p>
+     */
+    public static ParseResult outline(MiniLangParser parser) {
+        try {
+            return new ParseResult(new DescentParser(parser.getTokenStream(), parser).program(), ParseStage.DESCENT);
+        } catch (ParseCancellationException e) {
+            parser.reset();
+            return new TwoStageParser(parser).program();
+        }
+    }
+
+    /**
+     * Parses the tokens of {@code body} into it, with {@code parser}'s
+     * error reporting and recovery if they are not a valid block.
+     *
+     * <p>Recovery can end the block before the brace the outline matched.
+     * The tokens it leaves before that brace are reported as extraneous
+     * input, once, at the first of them, and kept as error nodes of the
+     * body, whose {@code stop} stays the matched brace.</p>
+     */
+    static void body(LazyBlockContext body, MiniLangParser parser) {
+        TokenStream input = parser.getTokenStream();
+        Token close = body.stop;
+        try {
+            input.seek(body.start.getTokenIndex());
+            new DescentParser(input).block(body);
+        } catch (ParseCancellationException e) {
+            body.children = null;
+            parser.reset();
+            input.seek(body.start.getTokenIndex());
+            BlockContext block = parser.block();
+            if (block.children != null) {
+                for (ParseTree child : block.children) {
+                    if (child instanceof ParserRuleContext rule) {
+                        rule.setParent(body);
+                    } else if (child instanceof TerminalNode terminal) {
+                        terminal.setParent(body);
+                    }
+                }
+            }
+            body.children = block.children;
+            body.exception = block.exception;
+            int next = block.stop == null ? block.start.getTokenIndex() : block.stop.getTokenIndex() + 1;
+            if (next <= close.getTokenIndex()) {
+                extraneous(parser, input.get(next), body);
+                for (int i = next; i <= close.getTokenIndex(); i++) {
+                    body.addErrorNode(parser.createErrorNode(body, input.get(i)));
+                }
+            }
+            body.stop = close;
+        }
+    }
+
+    /**
+     * Reports {@code token} as {@code DefaultErrorStrategy} reports a token
+     * it deletes, expecting what may follow a function body.
+     */
+    private static void extraneous(MiniLangParser parser, Token token, LazyBlockContext body) {
+        IntervalSet expected = parser.getATN().getExpectedTokens(FUNCTION_BODY_FOLLOW, body.getParent());
+        if (parser.getErrorHandler() instanceof StacklessErrorStrategy strategy) {
+            strategy.diagnostics().add(Diagnostics.Kind.EXTRANEOUS_INPUT, token, -1, expected,
+                    parser.getTokenStream(), parser.getVocabulary());
+        } else {
+            parser.notifyErrorListeners(token, "extraneous input " + Diagnostics.quote(token.getText())
+                    + " expecting " + expected.toString(parser.getVocabulary()), null);
+        }
+    }
+
+    /**
+     * Parses a whole program from the start of the token stream.
+     *
+     * @throws ParseCancellationException at the first syntax error
+     */
+    public ProgramContext program() {
+        input.seek(0);
+        ProgramContext program = enter(new ProgramContext(null, -1));
+
+        // globalDeclarations* is greedy, but the program still needs one
+        // item after it: a trailing run of initialised declarations leaves
+        // its last entry to be parsed as a statement.
+        if (startsVarDeclaration()) {
+            int mark = input.index();
+            int last = mark;
+            int count = 0;
+            while (startsVarDeclaration()) {
+                last = input.index();
+                skipVarDeclaration();
+                count++;
+            }
+            boolean itemFollows = startsItem(input.LA(1));
+            input.seek(mark);
+            if (itemFollows || count > 1) {
+                GlobalDeclarationsContext globals = enter(new GlobalDeclarationsContext(program, PROGRAM_GLOBALS));
+                int stopAt = itemFollows ? -1 : last;
+                do {
+                    varDeclaration(globals);
+                } while (startsVarDeclaration() && input.index() != stopAt);
+                exit(globals);
+            }
+        }
+
+        do {
+            if (TokenTypes.isType(input.LA(1)) && input.LA(2) == IDENTIFIER && input.LA(3) == LPAREN) {
+                functionDeclaration(program, PROGRAM_FUNCTION);
+            } else {
+                statement(program, PROGRAM_STATEMENT);
+            }
+        } while (startsItem(input.LA(1)));
+        return exit(program);
+    }
+
+    private boolean startsVarDeclaration() {
+        return TokenTypes.isType(input.LA(1)) && input.LA(2) == IDENTIFIER && input.LA(3) == ASSIGN;
+    }
+
+    private static boolean startsItem(int type) {
+        return TokenTypes.isStatementStart(type);
+    }
+
+    /** Moves past {@code type IDENTIFIER = expression ;} without building a tree. */
+    private void skipVarDeclaration() {
+        while (input.LA(1) != SEMICOLON) {
+            if (input.LA(1) == Token.EOF) {
+                throw error("';'");
+            }
+            input.consume();
+        }
+        input.consume();
+    }
+
+    private void varDeclaration(GlobalDeclarationsContext parent) {
+        VarDeclarationContext ctx = enter(new VarDeclarationContext(parent, GLOBALS_VARIABLE));
+        type(ctx, VARIABLE_TYPE);
+        match(ctx, IDENTIFIER);
+        match(ctx, ASSIGN);
+        ctx.addChild(expression(ctx, VARIABLE_VALUE, 0));
+        match(ctx, SEMICOLON);
+        exit(ctx);
+    }
+
+    private void functionDeclaration(ParserRuleContext parent, int invokingState) {
+        FunctionDeclarationContext ctx = enter(new FunctionDeclarationContext(parent, invokingState));
+        type(ctx, FUNCTION_TYPE);
+        match(ctx, IDENTIFIER);
+        match(ctx, LPAREN);
+        if (TokenTypes.isType(input.LA(1))) {
+            ParameterListContext parameters = enter(new ParameterListContext(ctx, FUNCTION_PARAMETERS));
+            parameter(parameters, PARAMETERS_FIRST);
+            while (input.LA(1) == COMMA) {
+                match(parameters, COMMA);
+                parameter(parameters, PARAMETERS_NEXT);
+            }
+            exit(parameters);
+        }
+        match(ctx, RPAREN);
+        if (bodies == null) {
+            block(ctx, FUNCTION_BODY);
+        } else {
+            skipBlock(ctx);
+        }
+        exit(ctx);
+    }
+
+    /** Moves past a brace-matched block, leaving a {@link LazyBlockContext} over it. */
+    private void skipBlock(FunctionDeclarationContext parent) {
+        if (input.LA(1) != LBRACE) {
+            throw error("'{'");
+        }
+        Token open = input.LT(1);
+        int depth = 0;
+        do {
+            switch (input.LA(1)) {
+                case LBRACE -> depth++;
+                case RBRACE -> depth--;
+                case Token.EOF -> throw error("'}'");
+                default -> {
+                }
+            }
+            input.consume();
+        } while (depth > 0);
+        LazyBlockContext body = new LazyBlockContext(parent, FUNCTION_BODY, bodies);
+        body.start = open;
+        body.stop = input.LT(-1);
+        parent.addChild(body);
+    }
+
+    private void parameter(ParameterListContext parent, int invokingState) {
+        ParameterContext ctx = enter(new ParameterContext(parent, invokingState));
+        type(ctx, PARAMETER_TYPE);
+        match(ctx, IDENTIFIER);
+        exit(ctx);
+    }
+
+    private void block(ParserRuleContext parent, int invokingState) {
+        block(enter(new BlockContext(parent, invokingState)));
+    }
+
+    private void block(BlockContext ctx) {
+        match(ctx, LBRACE);
+        while (TokenTypes.isStatementStart(input.LA(1))) {
+            statement(ctx, BLOCK_STATEMENT);
+        }
+        match(ctx, RBRACE);
+        exit(ctx);
+    }
+
+    private void statement(ParserRuleContext parent, int invokingState) {
+        StatementContext ctx = enter(new StatementContext(parent, invokingState));
+        int type = input.LA(1);
+        if (TokenTypes.isType(type)) {
+            declaration(ctx, STATEMENT_DECLARATION);
+        } else if (type == IDENTIFIER) {
+            int next = input.LA(2);
+            if (TokenTypes.isAssignmentOperator(next)) {
+                assignment(ctx, STATEMENT_ASSIGNMENT);
+            } else if (next == INCREMENT || next == DECREMENT) {
+                incrementDecrementWithSemicolon(ctx);
+            } else if (next == LPAREN) {
+                functionCall(ctx, STATEMENT_CALL);
+                match(ctx, SEMICOLON);
+            } else {
+                throw error("statement");
+            }
+        } else if (type == INCREMENT || type == DECREMENT) {
+            incrementDecrementWithSemicolon(ctx);
+        } else if (type == TokenTypes.IF) {
+            ifStatement(ctx);
+        } else if (type == TokenTypes.FOR) {
+            forStatement(ctx);
+        } else if (type == TokenTypes.WHILE) {
+            whileStatement(ctx);
+        } else if (type == TokenTypes.RETURN) {
+            returnStatement(ctx);
+        } else {
+            throw error("statement");
+        }
+        exit(ctx);
+    }
+
+    private void returnStatement(StatementContext parent) {
+        ReturnStatementContext ctx = enter(new ReturnStatementContext(parent, STATEMENT_RETURN));
+        match(ctx, TokenTypes.RETURN);
+        if (TokenTypes.isExpressionStart(input.LA(1))) {
+            ctx.addChild(expression(ctx, RETURN_VALUE, 0));
+        }
+        match(ctx, SEMICOLON);
+        exit(ctx);
+    }
+
+    private void declaration(ParserRuleContext parent, int invokingState) {
+        DeclarationContext ctx = enter(new DeclarationContext(parent, invokingState));
+        type(ctx, DECLARATION_TYPE);
+        match(ctx, IDENTIFIER);
+        if (input.LA(1) == ASSIGN) {
+            match(ctx, ASSIGN);
+            ctx.addChild(expression(ctx, DECLARATION_VALUE, 0));
+        }
+        match(ctx, SEMICOLON);
+        exit(ctx);
+    }
+
+    private void assignment(ParserRuleContext parent, int invokingState) {
+        AssignmentContext ctx = enter(new AssignmentContext(parent, invokingState));
+        match(ctx, IDENTIFIER);
+        if (!TokenTypes.isAssignmentOperator(input.LA(1))) {
+            throw error("assignment operator");
+        }
+        match(ctx, input.LA(1));
+        ctx.addChild(expression(ctx, ASSIGNMENT_VALUE, 0));
+        match(ctx, SEMICOLON);
+        exit(ctx);
+    }
+
+    private void incrementDecrementWithSemicolon(StatementContext parent) {
+        IncrementDecrementWithSemicolonContext ctx =
+                enter(new IncrementDecrementWithSemicolonContext(parent, STATEMENT_INC_DEC));
+        incrementDecrement(ctx);
+        match(ctx, SEMICOLON);
+        exit(ctx);
+    }
+
+    private void incrementDecrement(ParserRuleContext ctx) {
+        if (input.LA(1) == IDENTIFIER) {
+            match(ctx, IDENTIFIER);
+            matchIncrementOrDecrement(ctx);
+        } else {
+            matchIncrementOrDecrement(ctx);
+            match(ctx, IDENTIFIER);
+        }
+    }
+
+    private void matchIncrementOrDecrement(ParserRuleContext ctx) {
+        match(ctx, input.LA(1) == DECREMENT ? DECREMENT : INCREMENT);
+    }
+
+    private void ifStatement(StatementContext parent) {
+        IfStatementContext ctx = enter(new IfStatementContext(parent, STATEMENT_IF));
+        match(ctx, TokenTypes.IF);
+        match(ctx, LPAREN);
+        ctx.addChild(expression(ctx, IF_CONDITION, 0));
+        match(ctx, RPAREN);
+        block(ctx, IF_THEN);
+        if (input.LA(1) == TokenTypes.ELSE) {
+            match(ctx, TokenTypes.ELSE);
+            block(ctx, IF_ELSE);
+        }
+        exit(ctx);
+    }
+
+    private void forStatement(StatementContext parent) {
+        ForStatementContext ctx = enter(new ForStatementContext(parent, STATEMENT_FOR));
+        match(ctx, TokenTypes.FOR);
+        match(ctx, LPAREN);
+        declaration(ctx, FOR_DECLARATION);
+        ctx.addChild(expression(ctx, FOR_CONDITION, 0));
+        match(ctx, SEMICOLON);
+        if (input.LA(1) == IDENTIFIER && TokenTypes.isAssignmentOperator(input.LA(2))) {
+            assignment(ctx, FOR_ASSIGNMENT);
+        } else {
+            IncrementDecrementWithoutSemicolonContext step =
+                    enter(new IncrementDecrementWithoutSemicolonContext(ctx, FOR_INC_DEC));
+            incrementDecrement(step);
+            exit(step);
+        }
+        match(ctx, RPAREN);
+        block(ctx, FOR_BODY);
+        exit(ctx);
+    }
+
+    private void whileStatement(StatementContext parent) {
+        WhileStatementContext ctx = enter(new WhileStatementContext(parent, STATEMENT_WHILE));
+        match(ctx, TokenTypes.WHILE);
+        match(ctx, LPAREN);
+        ctx.addChild(expression(ctx, WHILE_CONDITION, 0));
+        match(ctx, RPAREN);
+        block(ctx, WHILE_BODY);
+        exit(ctx);
+    }
+
+    private void functionCall(ParserRuleContext parent, int invokingState) {
+        FunctionCallContext ctx = enter(new FunctionCallContext(parent, invokingState));
+        match(ctx, IDENTIFIER);
+        match(ctx, LPAREN);
+        if (TokenTypes.isExpressionStart(input.LA(1))) {
+            ArgumentListContext arguments = enter(new ArgumentListContext(ctx, CALL_ARGUMENTS));
+            arguments.addChild(expression(arguments, ARGUMENTS_FIRST, 0));
+            while (input.LA(1) == COMMA) {
+                match(arguments, COMMA);
+                arguments.addChild(expression(arguments, ARGUMENTS_NEXT, 0));
+            }
+            exit(arguments);
+        }
+        match(ctx, RPAREN);
+        exit(ctx);
+    }
+
+    private void type(ParserRuleContext parent, int invokingState) {
+        TypeContext ctx = enter(new TypeContext(parent, invokingState));
+        if (!TokenTypes.isType(input.LA(1))) {
+            throw error("type");
+        }
+        match(ctx, input.LA(1));
+        exit(ctx);
+    }
+
+    /**
+     * Parses an expression whose binary operators all have at least
+     * {@code precedence}. Like the generated left-recursive rule, the result
+     * is not yet attached to {@code parent}; the caller adds it.
+     */
+    private ExpressionContext expression(ParserRuleContext parent, int invokingState, int precedence) {
+        ExpressionContext left = primary(parent, invokingState);
+        while (true) {
+            int operator = input.LA(1);
+            int operatorPrecedence = BINARY_PRECEDENCE[operator < 0 ? 0 : operator];
+            if (operatorPrecedence == 0 || operatorPrecedence < precedence) {
+                return left;
+            }
+            ExpressionContext binary = binary(operator, base(parent, invokingState));
+            left.parent = binary;
+            left.invokingState = EXPRESSION_START;
+            binary.start = left.start;
+            binary.addChild(left);
+            match(binary, operator);
+            binary.addChild(expression(binary, RIGHT_OPERAND_STATE[operator], operatorPrecedence + 1));
+            binary.stop = input.LT(-1);
+            left = binary;
+        }
+    }
+
+    private ExpressionContext primary(ParserRuleContext parent, int invokingState) {
+        ExpressionContext ctx;
+        switch (input.LA(1)) {
+            case NOT -> {
+                ctx = new NotExprContext(base(parent, invokingState));
+                match(ctx, NOT);
+                ctx.addChild(expression(ctx, NOT_OPERAND, precedence(NOT_ALTERNATIVE)));
+            }
+            case LPAREN -> {
+                ctx = new ParenExprContext(base(parent, invokingState));
+                match(ctx, LPAREN);
+                ctx.addChild(expression(ctx, PAREN_OPERAND, 0));
+                match(ctx, RPAREN);
+            }
+            case IDENTIFIER -> {
+                int next = input.LA(2);
+                if (next == ASSIGN) {
+                    ctx = new AssignExprContext(base(parent, invokingState));
+                    match(ctx, IDENTIFIER);
+                    match(ctx, ASSIGN);
+                    ctx.addChild(expression(ctx, ASSIGN_OPERAND, precedence(ASSIGN_ALTERNATIVE)));
+                } else if (next == LPAREN) {
+                    ctx = new FunctionCallExprContext(base(parent, invokingState));
+                    functionCall(ctx, EXPRESSION_CALL);
+                } else {
+                    ctx = new IdentifierExprContext(base(parent, invokingState));
+                    match(ctx, IDENTIFIER);
+                }
+            }
+            case NUMBER -> {
+                ctx = new NumberExprContext(base(parent, invokingState));
+                match(ctx, NUMBER);
+            }
+            case STRING -> {
+                ctx = new StringExprContext(base(parent, invokingState));
+                match(ctx, STRING);
+            }
+            default -> throw error("expression");
+        }
+        ctx.stop = input.LT(-1);
+        return ctx;
+    }
+
+    private static int precedence(int alternative) {
+        return EXPRESSION_ALTERNATIVES - alternative + 1;
+    }
+
+    private ExpressionContext base(ParserRuleContext parent, int invokingState) {
+        ExpressionContext ctx = new ExpressionContext(parent, invokingState);
+        ctx.start = input.LT(1);
+        return ctx;
+    }
+
+    private static ExpressionContext binary(int operator, ExpressionContext ctx) {
+        return switch (operator) {
+            case ADD -> new AddExprContext(ctx);
+            case SUB -> new SubExprContext(ctx);
+            case MUL -> new MulExprContext(ctx);
+            case DIV -> new DivExprContext(ctx);
+            case MOD -> new ModExprContext(ctx);
+            case LT -> new LessThanExprContext(ctx);
+            case GT -> new GreaterThanExprContext(ctx);
+            case LE -> new LessEqualExprContext(ctx);
+            case GE -> new GreaterEqualExprContext(ctx);
+            case EQ -> new EqualExprContext(ctx);
+            case NE -> new NotEqualExprContext(ctx);
+            case AND -> new AndExprContext(ctx);
+            case OR -> new OrExprContext(ctx);
+            default -> throw new IllegalArgumentException("Not a binary operator: " + operator);
+        };
+    }
+
+    private <T extends ParserRuleContext> T enter(T ctx) {
+        ctx.start = input.LT(1);
+        if (ctx.parent != null) {
+            ((ParserRuleContext) ctx.parent).addChild(ctx);
+        }
+        return ctx;
+    }
+
+    private <T extends ParserRuleContext> T exit(T ctx) {
+        ctx.stop = input.LT(-1);
+        return ctx;
+    }
+
+    private void match(ParserRuleContext ctx, int type) {
+        Token token = input.LT(1);
+        if (token.getType() != type) {
+            throw error(VOCABULARY.getDisplayName(type));
+        }
+        ctx.addChild(new TerminalNodeImpl(token));
+        input.consume();
+    }
+
+    private ParseCancellationException error(String expected) {
+        Token token = input.LT(1);
+        return new ParseCancellationException("line " + token.getLine() + ":" + token.getCharPositionInLine()
+                + " expected " + expected + " at '" + token.getText() + "'");
+    }
+}
@@ -0,0 +1,183 @@
+package minilang.parse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.Vocabulary;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+/**
+ * Syntax errors of one source, kept as columns of positions and token
+ * indexes rather than as message strings.
+ *
+ * <p>A {@link StacklessErrorStrategy} records parser errors here; anything
+ * that reports through an error listener, such as the lexer, can use the
+ * buffer as one and is kept with its message. {@link #message} builds the
+ * text {@link org.antlr.v4.runtime.DefaultErrorStrategy} would have
+ * reported, from the token stream the error was found in, so it has to be
+ * called before that stream is given another source. {@link #clear} keeps
+ * the arrays, so a buffer reused for every source only grows to the
+ * largest error count it has seen.</p>
+ */
+public final class Diagnostics extends BaseErrorListener {
+
+    public enum Kind {
+        /** {@code no viable alternative at input ...}: prediction found no alternative. */
+        NO_VIABLE_ALTERNATIVE,
+        /** {@code mismatched input ... expecting ...}. */
+        INPUT_MISMATCH,
+        /** {@code extraneous input ... expecting ...}: recovery deleted the token. */
+        EXTRANEOUS_INPUT,
+        /** {@code missing ... at ...}: recovery made up the expected token. */
+        MISSING_TOKEN,
+        /** Reported with its message, through {@link #syntaxError}. */
+        REPORTED
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private int size;
+
+    private byte[] kinds;
+
+    private int[] lines;
+
+    private int[] columns;
+
+    /** Index of the offending token, or -1. */
+    private int[] tokens;
+
+    /** Index of the first token prediction looked at, for {@code NO_VIABLE_ALTERNATIVE}. */
+    private int[] starts;
+
+    /** The expected tokens, or the message of a {@code REPORTED} error. */
+    private Object[] details;
+
+    private TokenStream input;
+
+    private Vocabulary vocabulary;
+
+    public Diagnostics() {
+        this(16);
+    }
+
+    public Diagnostics(int capacity) {
+        kinds = new byte[capacity];
+        lines = new int[capacity];
+        columns = new int[capacity];
+        tokens = new int[capacity];
+        starts = new int[capacity];
+        details = new Object[capacity];
+    }
+
+    /** Forgets every error, keeping the storage. */
+    public void clear() {
+        Arrays.fill(details, 0, size, null);
+        size = 0;
+        input = null;
+        vocabulary = null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Kind kind(int index) {
+        return KINDS[kinds[check(index)]];
+    }
+
+    public int line(int index) {
+        return lines[check(index)];
+    }
+
+    /** The error's position in its line, from 0. */
+    public int column(int index) {
+        return columns[check(index)];
+    }
+
+    /** The message {@code DefaultErrorStrategy} would have reported for the error. */
+    public String message(int index) {
+        check(index);
+        return switch (KINDS[kinds[index]]) {
+            case NO_VIABLE_ALTERNATIVE -> "no viable alternative at input "
+                    + quote(input.get(starts[index]).getType() == Token.EOF
+                            ? "<EOF>" : input.getText(input.get(starts[index]), input.get(tokens[index])));
+            case INPUT_MISMATCH -> "mismatched input " + display(tokens[index]) + " expecting "
+                    + ((IntervalSet) details[index]).toString(vocabulary);
+            case EXTRANEOUS_INPUT -> "extraneous input " + display(tokens[index]) + " expecting "
+                    + ((IntervalSet) details[index]).toString(vocabulary);
+            case MISSING_TOKEN -> "missing " + ((IntervalSet) details[index]).toString(vocabulary) + " at "
+                    + display(tokens[index]);
+            case REPORTED -> (String) details[index];
+        };
+    }
+
+    /** Every error as {@code prefix + line:column: message}, in the order they were found. */
+    public List<String> format(String prefix) {
+        List<String> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            messages.add(prefix + lines[i] + ":" + columns[i] + ": " + message(i));
+        }
+        return messages;
+    }
+
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine,
+                            String msg, RecognitionException e) {
+        int token = offendingSymbol instanceof Token t ? t.getTokenIndex() : -1;
+        add(Kind.REPORTED, line, charPositionInLine, token, token, msg);
+    }
+
+    void add(Kind kind, Token offending, int start, Object detail, TokenStream input, Vocabulary vocabulary) {
+        this.input = input;
+        this.vocabulary = vocabulary;
+        add(kind, offending.getLine(), offending.getCharPositionInLine(), offending.getTokenIndex(), start, detail);
+    }
+
+    private void add(Kind kind, int line, int column, int token, int start, Object detail) {
+        if (size == kinds.length) {
+            int capacity = Math.max(16, size * 2);
+            kinds = Arrays.copyOf(kinds, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            tokens = Arrays.copyOf(tokens, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            details = Arrays.copyOf(details, capacity);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        lines[size] = line;
+        columns[size] = column;
+        tokens[size] = token;
+        starts[size] = start;
+        details[size] = detail;
+        size++;
+    }
+
+    private int check(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Diagnostic " + index + " of " + size);
+        }
+        return index;
+    }
+
+    /** As {@code DefaultErrorStrategy.getTokenErrorDisplay}. */
+    private String display(int token) {
+        Token t = input.get(token);
+        String text = t.getText();
+        if (text == null) {
+            text = t.getType() == Token.EOF ? "<EOF>" : "<" + t.getType() + ">";
+        }
+        return quote(text);
+    }
+
+    /** As {@code DefaultErrorStrategy.escapeWSAndQuote}. */
+    static String quote(String s) {
+        return "'" + s.replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t") + "'";
+    }
+}
@@ -0,0 +1,170 @@
+package minilang.parse;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.RuleTransition;
+import org.antlr.v4.runtime.atn.Transition;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import minilang.MiniLangListener;
+import minilang.MiniLangParser;
+import minilang.jfr.WalkEvent;
+
+/**
+ * Drives several {@link MiniLangListener}s through a parse tree in one
+ * traversal, like {@link IterativeWalker} does one.
+ *
+ * <p>Each listener is {@linkplain #add added} with the rules it subscribes
+ * to, by {@code MiniLangParser.RULE_*} index, and {@link #TERMINALS} if it
+ * wants {@code visitTerminal} and {@code visitErrorNode}. It gets
+ * {@code enterEveryRule}, {@code enterXxx}, {@code exitXxx} and
+ * {@code exitEveryRule} on the nodes of those rules only, in the order
+ * {@link org.antlr.v4.runtime.tree.ParseTreeWalker} would make them, and
+ * listeners are called in the order they were added.</p>
+ *
+ * <p>Which rules can appear below a node of each rule is read once from the
+ * parser's ATN. A subtree where no listener subscribes to any of them, nor
+ * to terminals, is not entered at all, so a walk that only looks at
+ * declarations and statements skips every expression.</p>
+ */
+public final class FusedWalker {
+
+    /** Subscribes to terminal and error nodes. */
+    public static final int TERMINALS = -1;
+
+    /** The rules that can appear anywhere below a node of each rule, as bit masks. */
+    private static final long[] BELOW = below();
+
+    /** The listeners of each rule, in the order they were added. */
+    private final MiniLangListener[][] byRule = new MiniLangListener[MiniLangParser.ruleNames.length][0];
+
+    private MiniLangListener[] terminals = new MiniLangListener[0];
+
+    /** The rules anyone subscribes to. */
+    private long subscribed;
+
+    private int listeners;
+
+    /** Adds {@code listener} for the rules {@code rules} and, with {@link #TERMINALS}, terminals. */
+    public FusedWalker add(MiniLangListener listener, int... rules) {
+        long mask = 0;
+        for (int rule : rules) {
+            if (rule == TERMINALS) {
+                terminals = append(terminals, listener);
+            } else if (rule < 0 || rule >= byRule.length) {
+                throw new IllegalArgumentException("No rule " + rule);
+            } else if ((mask & (1L << rule)) == 0) {
+                mask |= 1L << rule;
+                byRule[rule] = append(byRule[rule], listener);
+            }
+        }
+        subscribed |= mask;
+        listeners++;
+        return this;
+    }
+
+    public void walk(ParseTree tree) {
+        if (!(tree instanceof ParserRuleContext root)) {
+            for (MiniLangListener listener : terminals) {
+                IterativeWalker.terminal(listener, tree);
+            }
+            return;
+        }
+        WalkEvent event = new WalkEvent();
+        event.start();
+        ParserRuleContext[] path = new ParserRuleContext[64];
+        int[] next = new int[64];
+        int depth = 0;
+        int rules = 1;
+        enter(root);
+        path[depth] = root;
+        next[depth++] = descend(root) ? 0 : Integer.MAX_VALUE;
+        while (depth > 0) {
+            ParserRuleContext node = path[depth - 1];
+            List<ParseTree> children = node.children;
+            if (children == null || next[depth - 1] >= children.size()) {
+                exit(node);
+                path[--depth] = null;
+                continue;
+            }
+            ParseTree child = children.get(next[depth - 1]++);
+            if (child instanceof ParserRuleContext ctx) {
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                    next = Arrays.copyOf(next, depth * 2);
+                }
+                enter(ctx);
+                path[depth] = ctx;
+                next[depth++] = descend(ctx) ? 0 : Integer.MAX_VALUE;
+                rules++;
+            } else {
+                for (MiniLangListener listener : terminals) {
+                    IterativeWalker.terminal(listener, child);
+                }
+            }
+        }
+        IterativeWalker.commit(event, "fused", listeners, root, rules);
+    }
+
+    /** Whether anyone listens to a node below {@code ctx}. */
+    private boolean descend(ParserRuleContext ctx) {
+        return terminals.length > 0 || (BELOW[ctx.getRuleIndex()] & subscribed) != 0;
+    }
+
+    private void enter(ParserRuleContext ctx) {
+        for (MiniLangListener listener : byRule[ctx.getRuleIndex()]) {
+            IterativeWalker.enter(listener, ctx);
+        }
+    }
+
+    private void exit(ParserRuleContext ctx) {
+        for (MiniLangListener listener : byRule[ctx.getRuleIndex()]) {
+            IterativeWalker.exit(listener, ctx);
+        }
+    }
+
+    private static MiniLangListener[] append(MiniLangListener[] listeners, MiniLangListener listener) {
+        MiniLangListener[] result = Arrays.copyOf(listeners, listeners.length + 1);
+        result[listeners.length] = listener;
+        return result;
+    }
+
+    private static long[] below() {
+        int rules = MiniLangParser.ruleNames.length;
+        if (rules > Long.SIZE) {
+            throw new IllegalStateException("More than " + Long.SIZE + " rules");
+        }
+        long[] below = new long[rules];
+        for (ATNState state : MiniLangParser._ATN.states) {
+            if (state == null) {
+                continue;
+            }
+            for (Transition transition : state.getTransitions()) {
+                if (transition instanceof RuleTransition call) {
+                    below[state.ruleIndex] |= 1L << call.target.ruleIndex;
+                }
+            }
+        }
+        // Close over calls made by the rules called.
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int rule = 0; rule < rules; rule++) {
+                long mask = below[rule];
+                for (int callee = 0; callee < rules; callee++) {
+                    if ((below[rule] & (1L << callee)) != 0) {
+                        mask |= below[callee];
+                    }
+                }
+                if (mask != below[rule]) {
+                    below[rule] = mask;
+                    changed = true;
+                }
+            }
+        }
+        return below;
+    }
+}
@@ -0,0 +1,229 @@
+package minilang.parse;
+
+import static minilang.MiniLangParser.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import minilang.MiniLangListener;
+import minilang.MiniLangParser;
+import minilang.jfr.PhaseEvent;
+import minilang.jfr.WalkEvent;
+
+/**
+ * Walks a {@link MiniLangParser} tree depth first and calls a
+ * {@link MiniLangListener} in the same order as
+ * {@link org.antlr.v4.runtime.tree.ParseTreeWalker#DEFAULT}, without
+ * recursion.
+ *
+ * <p>The default walker recurses once per node. A left-recursive
+ * {@code expression} such as {@code a + b + c + ...} parses into a tree as
+ * deep as it is long, so generated code overflows the stack. Here the path
+ * from the root is kept in an array, with the next child to visit of each
+ * node on it, so depth costs only heap.</p>
+ *
+ * <p>Rules are dispatched by a switch on {@link ParserRuleContext#getRuleIndex},
+ * not through each context's {@code enterRule}, which checks the type of the
+ * listener on every call. The labelled alternatives of {@code expression}
+ * share one rule index, so they are told apart by their context class,
+ * numbered once per class in the order of the grammar.</p>
+ */
+public final class IterativeWalker {
+
+    /** The contexts of the labelled {@code expression} alternatives, in the order of the grammar. */
+    private static final List<Class<?>> EXPRESSIONS = List.of(
+            AddExprContext.class, SubExprContext.class, MulExprContext.class, DivExprContext.class,
+            ModExprContext.class, LessThanExprContext.class, GreaterThanExprContext.class,
+            LessEqualExprContext.class, GreaterEqualExprContext.class, EqualExprContext.class,
+            NotEqualExprContext.class, AndExprContext.class, OrExprContext.class, NotExprContext.class,
+            ParenExprContext.class, IdentifierExprContext.class, NumberExprContext.class,
+            StringExprContext.class, AssignExprContext.class, FunctionCallExprContext.class);
+
+    /** The alternative of each expression context class, from 1; 0 for an unlabelled one. */
+    private static final ClassValue<Integer> ALTERNATIVES = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return EXPRESSIONS.indexOf(type) + 1;
+        }
+    };
+
+    private IterativeWalker() {
+    }
+
+    public static void walk(MiniLangListener listener, ParseTree tree) {
+        if (!(tree instanceof ParserRuleContext root)) {
+            terminal(listener, tree);
+            return;
+        }
+        WalkEvent event = new WalkEvent();
+        event.start();
+        ParserRuleContext[] path = new ParserRuleContext[64];
+        int[] next = new int[64];
+        int depth = 0;
+        int rules = 1;
+        enter(listener, root);
+        path[depth] = root;
+        next[depth++] = 0;
+        while (depth > 0) {
+            ParserRuleContext node = path[depth - 1];
+            List<ParseTree> children = node.children;
+            if (children == null || next[depth - 1] == children.size()) {
+                exit(listener, node);
+                path[--depth] = null;
+                continue;
+            }
+            ParseTree child = children.get(next[depth - 1]++);
+            if (child instanceof ParserRuleContext ctx) {
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                    next = Arrays.copyOf(next, depth * 2);
+                }
+                enter(listener, ctx);
+                path[depth] = ctx;
+                next[depth++] = 0;
+                rules++;
+            } else {
+                terminal(listener, child);
+            }
+        }
+        commit(event, "iterative", 1, root, rules);
+    }
+
+    static void commit(WalkEvent event, String walker, int listeners, ParserRuleContext root, int rules) {
+        if (event.stop()) {
+            event.walker = walker;
+            event.listeners = listeners;
+            event.source = PhaseEvent.source(root);
+            event.tokens = PhaseEvent.tokens(root);
+            event.rules = rules;
+            event.commit();
+        }
+    }
+
+    static void terminal(MiniLangListener listener, ParseTree node) {
+        if (node instanceof ErrorNode error) {
+            listener.visitErrorNode(error);
+        } else if (node instanceof TerminalNode terminal) {
+            listener.visitTerminal(terminal);
+        }
+    }
+
+    static void enter(MiniLangListener listener, ParserRuleContext ctx) {
+        listener.enterEveryRule(ctx);
+        switch (ctx.getRuleIndex()) {
+            case RULE_program -> listener.enterProgram((ProgramContext) ctx);
+            case RULE_globalDeclarations -> listener.enterGlobalDeclarations((GlobalDeclarationsContext) ctx);
+            case RULE_varDeclaration -> listener.enterVarDeclaration((VarDeclarationContext) ctx);
+            case RULE_functionDeclaration -> listener.enterFunctionDeclaration((FunctionDeclarationContext) ctx);
+            case RULE_parameterList -> listener.enterParameterList((ParameterListContext) ctx);
+            case RULE_parameter -> listener.enterParameter((ParameterContext) ctx);
+            case RULE_block -> listener.enterBlock((BlockContext) ctx);
+            case RULE_statement -> listener.enterStatement((StatementContext) ctx);
+            case RULE_returnStatement -> listener.enterReturnStatement((ReturnStatementContext) ctx);
+            case RULE_declaration -> listener.enterDeclaration((DeclarationContext) ctx);
+            case RULE_assignment -> listener.enterAssignment((AssignmentContext) ctx);
+            case RULE_incrementDecrementWithoutSemicolon -> listener.enterIncrementDecrementWithoutSemicolon(
+                    (IncrementDecrementWithoutSemicolonContext) ctx);
+            case RULE_incrementDecrementWithSemicolon -> listener.enterIncrementDecrementWithSemicolon(
+                    (IncrementDecrementWithSemicolonContext) ctx);
+            case RULE_ifStatement -> listener.enterIfStatement((IfStatementContext) ctx);
+            case RULE_forStatement -> listener.enterForStatement((ForStatementContext) ctx);
+            case RULE_whileStatement -> listener.enterWhileStatement((WhileStatementContext) ctx);
+            case RULE_expression -> enterExpression(listener, ctx);
+            case RULE_functionCall -> listener.enterFunctionCall((FunctionCallContext) ctx);
+            case RULE_argumentList -> listener.enterArgumentList((ArgumentListContext) ctx);
+            case RULE_type -> listener.enterType((TypeContext) ctx);
+            default -> {
+            }
+        }
+    }
+
+    static void exit(MiniLangListener listener, ParserRuleContext ctx) {
+        switch (ctx.getRuleIndex()) {
+            case RULE_program -> listener.exitProgram((ProgramContext) ctx);
+            case RULE_globalDeclarations -> listener.exitGlobalDeclarations((GlobalDeclarationsContext) ctx);
+            case RULE_varDeclaration -> listener.exitVarDeclaration((VarDeclarationContext) ctx);
+            case RULE_functionDeclaration -> listener.exitFunctionDeclaration((FunctionDeclarationContext) ctx);
+            case RULE_parameterList -> listener.exitParameterList((ParameterListContext) ctx);
+            case RULE_parameter -> listener.exitParameter((ParameterContext) ctx);
+            case RULE_block -> listener.exitBlock((BlockContext) ctx);
+            case RULE_statement -> listener.exitStatement((StatementContext) ctx);
+            case RULE_returnStatement -> listener.exitReturnStatement((ReturnStatementContext) ctx);
+            case RULE_declaration -> listener.exitDeclaration((DeclarationContext) ctx);
+            case RULE_assignment -> listener.exitAssignment((AssignmentContext) ctx);
+            case RULE_incrementDecrementWithoutSemicolon -> listener.exitIncrementDecrementWithoutSemicolon(
+                    (IncrementDecrementWithoutSemicolonContext) ctx);
+            case RULE_incrementDecrementWithSemicolon -> listener.exitIncrementDecrementWithSemicolon(
+                    (IncrementDecrementWithSemicolonContext) ctx);
+            case RULE_ifStatement -> listener.exitIfStatement((IfStatementContext) ctx);
+            case RULE_forStatement -> listener.exitForStatement((ForStatementContext) ctx);
+            case RULE_whileStatement -> listener.exitWhileStatement((WhileStatementContext) ctx);
+            case RULE_expression -> exitExpression(listener, ctx);
+            case RULE_functionCall -> listener.exitFunctionCall((FunctionCallContext) ctx);
+            case RULE_argumentList -> listener.exitArgumentList((ArgumentListContext) ctx);
+            case RULE_type -> listener.exitType((TypeContext) ctx);
+            default -> {
+            }
+        }
+        listener.exitEveryRule(ctx);
+    }
+
+    private static void enterExpression(MiniLangListener listener, ParserRuleContext ctx) {
+        switch (ALTERNATIVES.get(ctx.getClass())) {
+            case 1 -> listener.enterAddExpr((AddExprContext) ctx);
+            case 2 -> listener.enterSubExpr((SubExprContext) ctx);
+            case 3 -> listener.enterMulExpr((MulExprContext) ctx);
+            case 4 -> listener.enterDivExpr((DivExprContext) ctx);
+            case 5 -> listener.enterModExpr((ModExprContext) ctx);
+            case 6 -> listener.enterLessThanExpr((LessThanExprContext) ctx);
+            case 7 -> listener.enterGreaterThanExpr((GreaterThanExprContext) ctx);
+            case 8 -> listener.enterLessEqualExpr((LessEqualExprContext) ctx);
+            case 9 -> listener.enterGreaterEqualExpr((GreaterEqualExprContext) ctx);
+            case 10 -> listener.enterEqualExpr((EqualExprContext) ctx);
+            case 11 -> listener.enterNotEqualExpr((NotEqualExprContext) ctx);
+            case 12 -> listener.enterAndExpr((AndExprContext) ctx);
+            case 13 -> listener.enterOrExpr((OrExprContext) ctx);
+            case 14 -> listener.enterNotExpr((NotExprContext) ctx);
+            case 15 -> listener.enterParenExpr((ParenExprContext) ctx);
+            case 16 -> listener.enterIdentifierExpr((IdentifierExprContext) ctx);
+            case 17 -> listener.enterNumberExpr((NumberExprContext) ctx);
+            case 18 -> listener.enterStringExpr((StringExprContext) ctx);
+            case 19 -> listener.enterAssignExpr((AssignExprContext) ctx);
+            case 20 -> listener.enterFunctionCallExpr((FunctionCallExprContext) ctx);
+            default -> {
+            }
+        }
+    }
+
+    private static void exitExpression(MiniLangListener listener, ParserRuleContext ctx) {
+        switch (ALTERNATIVES.get(ctx.getClass())) {
+            case 1 -> listener.exitAddExpr((AddExprContext) ctx);
+            case 2 -> listener.exitSubExpr((SubExprContext) ctx);
+            case 3 -> listener.exitMulExpr((MulExprContext) ctx);
+            case 4 -> listener.exitDivExpr((DivExprContext) ctx);
+            case 5 -> listener.exitModExpr((ModExprContext) ctx);
+            case 6 -> listener.exitLessThanExpr((LessThanExprContext) ctx);
+            case 7 -> listener.exitGreaterThanExpr((GreaterThanExprContext) ctx);
+            case 8 -> listener.exitLessEqualExpr((LessEqualExprContext) ctx);
+            case 9 -> listener.exitGreaterEqualExpr((GreaterEqualExprContext) ctx);
+            case 10 -> listener.exitEqualExpr((EqualExprContext) ctx);
+            case 11 -> listener.exitNotEqualExpr((NotEqualExprContext) ctx);
+            case 12 -> listener.exitAndExpr((AndExprContext) ctx);
+            case 13 -> listener.exitOrExpr((OrExprContext) ctx);
+            case 14 -> listener.exitNotExpr((NotExprContext) ctx);
+            case 15 -> listener.exitParenExpr((ParenExprContext) ctx);
+            case 16 -> listener.exitIdentifierExpr((IdentifierExprContext) ctx);
+            case 17 -> listener.exitNumberExpr((NumberExprContext) ctx);
+            case 18 -> listener.exitStringExpr((StringExprContext) ctx);
+            case 19 -> listener.exitAssignExpr((AssignExprContext) ctx);
+            case 20 -> listener.exitFunctionCallExpr((FunctionCallExprContext) ctx);
+            default -> {
+            }
+        }
+    }
+}
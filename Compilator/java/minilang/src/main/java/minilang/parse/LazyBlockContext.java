@@ -0,0 +1,114 @@
+package minilang.parse;
+
+import java.util.List;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import minilang.MiniLangParser;
+import minilang.MiniLangParser.BlockContext;
+import minilang.MiniLangParser.FunctionDeclarationContext;
+import minilang.MiniLangParser.ProgramContext;
+
+/**
+ * The body of a function in a tree from {@link DescentParser#outline},
+ * parsed from its tokens the first time it is read.
+ *
+ * <p>Until then it only has its {@code start} and {@code stop} braces. The
+ * generated accessors, such as {@link #statement()}, and the child
+ * accessors that {@code ParseTreeWalker}, visitors and {@code getText} go
+ * through parse it first, so they see the same block a full parse builds.
+ * Code that reads the {@code children} field directly, as the walkers and
+ * analyses in this project do, sees an unparsed body as empty: call
+ * {@link #parse()} or {@link #parseAll} before handing them the tree.</p>
+ *
+ * <p>A body with a syntax error is parsed by the parser the outline was
+ * made with, which reports and recovers from it as it would in a full
+ * parse. The body still ends at the brace the outline matched: tokens that
+ * recovery leaves before it are reported as extraneous input and kept as
+ * error nodes. Bodies share that parser and its token stream, so they must be
+ * parsed from one thread at a time.</p>
+ */
+public final class LazyBlockContext extends BlockContext {
+
+    private MiniLangParser parser;
+
+    LazyBlockContext(FunctionDeclarationContext parent, int invokingState, MiniLangParser parser) {
+        super(parent, invokingState);
+        this.parser = parser;
+    }
+
+    /** Whether the body has been parsed. */
+    public boolean isParsed() {
+        return parser == null;
+    }
+
+    /** Parses the body, if it has not been yet, and returns it. */
+    public BlockContext parse() {
+        if (parser != null) {
+            MiniLangParser bodies = parser;
+            parser = null;
+            DescentParser.body(this, bodies);
+        }
+        return this;
+    }
+
+    /**
+     * Parses every unparsed body of {@code program}.
+     *
+     * @return the number of bodies parsed
+     */
+    public static int parseAll(ProgramContext program) {
+        int parsed = 0;
+        for (FunctionDeclarationContext function : program.functionDeclaration()) {
+            if (function.block() instanceof LazyBlockContext body && !body.isParsed()) {
+                body.parse();
+                parsed++;
+            }
+        }
+        return parsed;
+    }
+
+    @Override
+    public ParseTree getChild(int i) {
+        parse();
+        return super.getChild(i);
+    }
+
+    @Override
+    public <T extends ParseTree> T getChild(Class<? extends T> ctxType, int i) {
+        parse();
+        return super.getChild(ctxType, i);
+    }
+
+    @Override
+    public int getChildCount() {
+        parse();
+        return super.getChildCount();
+    }
+
+    @Override
+    public TerminalNode getToken(int ttype, int i) {
+        parse();
+        return super.getToken(ttype, i);
+    }
+
+    @Override
+    public List<TerminalNode> getTokens(int ttype) {
+        parse();
+        return super.getTokens(ttype);
+    }
+
+    @Override
+    public <T extends ParserRuleContext> T getRuleContext(Class<? extends T> ctxType, int i) {
+        parse();
+        return super.getRuleContext(ctxType, i);
+    }
+
+    @Override
+    public <T extends ParserRuleContext> List<T> getRuleContexts(Class<? extends T> ctxType) {
+        parse();
+        return super.getRuleContexts(ctxType);
+    }
+}
@@ -0,0 +1,140 @@
+package minilang.parse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+
+/**
+ * Parses sources with {@link MiniLangParser} in ANTLR's profiling mode and
+ * reports the cost of each decision, by rule name.
+ *
+ * <p>The profiling simulator times every {@code adaptivePredict} call and
+ * counts its lookahead, its fallbacks from SLL to full LL prediction, and
+ * the ambiguities and errors it meets. The counts add up over every source
+ * parsed with the same profiler. Prediction shares its DFA with every other
+ * parser in the JVM, so a profile taken after other parses, or after
+ * {@link minilang.dfa.DfaCache#load}, shows the steady state rather than
+ * the DFA being built.</p>
+ *
+ * <p>From the command line:</p>
+ * <pre>
+ * ParseProfiler &lt;file&gt;... [--warmup N] [--top N] [--json FILE]
+ * </pre>
+ * <p>parses every file {@code N} times with a plain parser first, then
+ * once with profiling, prints the {@code top} slowest decisions (default
+ * 20), and writes the whole report as JSON to {@code FILE}.</p>
+ */
+public final class ParseProfiler {
+
+    private final MiniLangLexer lexer = new MiniLangLexer(null);
+
+    private final CommonTokenStream tokens = new CommonTokenStream(lexer);
+
+    private final MiniLangParser parser = new MiniLangParser((TokenStream) null);
+
+    private int sources;
+
+    private long tokenCount;
+
+    private long parseNanos;
+
+    public ParseProfiler() {
+        lexer.removeErrorListeners();
+        parser.removeErrorListeners();
+        parser.setProfile(true);
+    }
+
+    /** Parses {@code input}, adding to the profile. */
+    public MiniLangParser.ProgramContext parse(CharStream input) {
+        lexer.setInputStream(input);
+        tokens.setTokenSource(lexer);
+        parser.setTokenStream(tokens);
+        long start = System.nanoTime();
+        MiniLangParser.ProgramContext tree = parser.program();
+        parseNanos += System.nanoTime() - start;
+        sources++;
+        tokenCount += tokens.size();
+        return tree;
+    }
+
+    /** The profile of everything parsed so far. */
+    public ProfileReport report() {
+        List<ProfileReport.Decision> decisions = new ArrayList<>();
+        for (DecisionInfo info : parser.getParseInfo().getDecisionInfo()) {
+            if (info.invocations == 0) {
+                continue;
+            }
+            int rule = parser.getATN().getDecisionState(info.decision).ruleIndex;
+            decisions.add(new ProfileReport.Decision(info.decision, MiniLangParser.ruleNames[rule], info.invocations,
+                    info.timeInPrediction, info.SLL_TotalLook, info.SLL_MaxLook, info.LL_Fallback, info.LL_MaxLook,
+                    info.SLL_ATNTransitions + info.LL_ATNTransitions, info.ambiguities.size(),
+                    info.contextSensitivities.size(), info.errors.size()));
+        }
+        return new ProfileReport(decisions, sources, tokenCount, parseNanos);
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        int warmup = 0;
+        int top = 20;
+        Path json = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--warmup" -> warmup = Integer.parseInt(argument(args, ++i));
+                case "--top" -> top = Integer.parseInt(argument(args, ++i));
+                case "--json" -> json = Path.of(argument(args, ++i));
+                default -> {
+                    if (args[i].startsWith("--")) {
+                        usage();
+                    }
+                    files.add(Path.of(args[i]));
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            usage();
+        }
+
+        for (int i = 0; i < warmup; i++) {
+            for (Path file : files) {
+                MiniLangLexer lexer = new MiniLangLexer(CharStreams.fromPath(file));
+                lexer.removeErrorListeners();
+                MiniLangParser parser = new MiniLangParser(new CommonTokenStream(lexer));
+                parser.removeErrorListeners();
+                parser.program();
+            }
+        }
+        ParseProfiler profiler = new ParseProfiler();
+        for (Path file : files) {
+            profiler.parse(CharStreams.fromPath(file));
+        }
+        ProfileReport report = profiler.report();
+        report.print(System.out, top);
+        if (json != null) {
+            Files.writeString(json, report.toJson());
+        }
+    }
+
+    private static String argument(String[] args, int index) {
+        if (index >= args.length) {
+            usage();
+        }
+        return args[index];
+    }
+
+    private static void usage() {
+        System.err.println("usage: ParseProfiler <file>... [--warmup N] [--top N] [--json FILE]");
+        System.exit(2);
+    }
+}
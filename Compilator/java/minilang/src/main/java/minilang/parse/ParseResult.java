@@ -0,0 +1,9 @@
+package minilang.parse;
+
+import minilang.MiniLangParser;
+
+/**
+ * A parsed program together with the prediction stage that produced it.
+ */
+public record ParseResult(MiniLangParser.ProgramContext tree, ParseStage stage) {
+}
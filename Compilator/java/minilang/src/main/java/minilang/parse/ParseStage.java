@@ -0,0 +1,13 @@
+package minilang.parse;
+
+/**
+ * The parsing strategy that produced a tree.
+ */
+public enum ParseStage {
+    /** The hand-written {@link DescentParser} accepted the input. */
+    DESCENT,
+    /** The fast SLL pass parsed the whole input without a syntax error. */
+    SLL,
+    /** SLL bailed out and the input was re-parsed with full-context LL prediction. */
+    LL
+}
@@ -0,0 +1,92 @@
+package minilang.parse;
+
+import java.io.PrintStream;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Where {@link minilang.MiniLangParser} spent its prediction time, decision
+ * by decision, as measured by a {@link ParseProfiler}.
+ *
+ * @param decisions every decision that was predicted at least once, by
+ *     decision number
+ * @param sources number of sources parsed
+ * @param tokens number of tokens in them, {@code EOF} included
+ * @param parseNanos time spent parsing them, prediction included
+ */
+public record ProfileReport(List<Decision> decisions, int sources, long tokens, long parseNanos) {
+
+    /**
+     * One decision of the grammar.
+     *
+     * @param decision the number passed to {@code adaptivePredict}
+     * @param rule the rule it is in, from {@code ruleNames}
+     * @param invocations times it was predicted
+     * @param nanos time spent predicting it
+     * @param sllLookahead tokens looked at by SLL prediction, over all invocations
+     * @param sllMaxLookahead most tokens one SLL prediction looked at
+     * @param llFallbacks invocations where SLL found a conflict and full LL ran
+     * @param llMaxLookahead most tokens one LL prediction looked at
+     * @param atnTransitions transitions computed from the ATN because the DFA
+     *     did not have them yet
+     * @param ambiguities ambiguities LL prediction reported
+     * @param contextSensitivities invocations where SLL and LL disagreed
+     * @param errors invocations that ended in a syntax error
+     */
+    public record Decision(int decision, String rule, long invocations, long nanos, long sllLookahead,
+                           long sllMaxLookahead, long llFallbacks, long llMaxLookahead, long atnTransitions,
+                           int ambiguities, int contextSensitivities, int errors) {
+
+        public double averageLookahead() {
+            return invocations == 0 ? 0 : (double) sllLookahead / invocations;
+        }
+    }
+
+    public long predictionNanos() {
+        return decisions.stream().mapToLong(Decision::nanos).sum();
+    }
+
+    /** Prints the {@code top} decisions that took the most time, then the totals. */
+    public void print(PrintStream out, int top) {
+        out.printf("%8s %-36s %12s %10s %6s %8s %6s %6s %10s %6s %6s%n", "Decision", "Rule", "Invocations", "ms",
+                "%", "Avg look", "Max", "LL", "ATN", "Ambig", "Errors");
+        long prediction = Math.max(1, predictionNanos());
+        decisions.stream()
+                .sorted(Comparator.comparingLong(Decision::nanos).reversed())
+                .limit(top)
+                .forEach(d -> out.printf("%8d %-36s %12d %10.2f %6.1f %8.2f %6d %6d %10d %6d %6d%n",
+                        d.decision(), d.rule(), d.invocations(), d.nanos() / 1e6, 100.0 * d.nanos() / prediction,
+                        d.averageLookahead(), Math.max(d.sllMaxLookahead(), d.llMaxLookahead()), d.llFallbacks(),
+                        d.atnTransitions(), d.ambiguities(), d.errors()));
+        out.printf("%d sources, %d tokens: parsed in %.1f ms, %.1f ms of it predicting%n",
+                sources, tokens, parseNanos / 1e6, predictionNanos() / 1e6);
+    }
+
+    /** The report as one JSON object, decisions in decision order, for comparing runs. */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"sources\":").append(sources)
+          .append(",\"tokens\":").append(tokens)
+          .append(",\"parseNanos\":").append(parseNanos)
+          .append(",\"predictionNanos\":").append(predictionNanos())
+          .append(",\"decisions\":[");
+        for (int i = 0; i < decisions.size(); i++) {
+            Decision d = decisions.get(i);
+            sb.append(i == 0 ? "\n" : ",\n")
+              .append("{\"decision\":").append(d.decision())
+              .append(",\"rule\":\"").append(d.rule()).append('"')
+              .append(",\"invocations\":").append(d.invocations())
+              .append(",\"nanos\":").append(d.nanos())
+              .append(",\"sllLookahead\":").append(d.sllLookahead())
+              .append(",\"sllMaxLookahead\":").append(d.sllMaxLookahead())
+              .append(",\"llFallbacks\":").append(d.llFallbacks())
+              .append(",\"llMaxLookahead\":").append(d.llMaxLookahead())
+              .append(",\"atnTransitions\":").append(d.atnTransitions())
+              .append(",\"ambiguities\":").append(d.ambiguities())
+              .append(",\"contextSensitivities\":").append(d.contextSensitivities())
+              .append(",\"errors\":").append(d.errors())
+              .append('}');
+        }
+        return sb.append("\n]}\n").toString();
+    }
+}
@@ -0,0 +1,196 @@
+package minilang.parse;
+
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.FailedPredicateException;
+import org.antlr.v4.runtime.InputMismatchException;
+import org.antlr.v4.runtime.NoViableAltException;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+/**
+ * {@link DefaultErrorStrategy}'s recovery, with errors recorded in a
+ * {@link Diagnostics} buffer instead of reported as messages, and the
+ * exceptions it unwinds with made without a stack trace.
+ *
+ * <p>The generated rules still leave a failing alternative by throwing a
+ * {@link RecognitionException} to their own {@code catch} block, but filling
+ * in the stack trace, which grows with the rule nesting, is most of what
+ * that costs. {@link #install} also replaces the parser's simulator with one
+ * whose {@link NoViableAltException}s have no stack trace. The few
+ * exceptions the generated code makes itself, for an LL(1) decision or a
+ * precedence predicate, keep theirs.</p>
+ *
+ * <p>The parser sees the same tokens consumed, the same tokens conjured and
+ * the same tree as with the default strategy, and the buffer produces the
+ * same messages at the same positions. The parser's error listeners are not
+ * called and {@link Parser#getNumberOfSyntaxErrors()} does not count these
+ * errors: {@link Diagnostics#size()} does.</p>
+ */
+public final class StacklessErrorStrategy extends DefaultErrorStrategy {
+
+    private final Diagnostics diagnostics;
+
+    public StacklessErrorStrategy(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Makes {@code parser} record its errors in {@code diagnostics} with a
+     * new strategy and a simulator that shares the parser's DFA.
+     */
+    public static void install(Parser parser, Diagnostics diagnostics) {
+        ParserATNSimulator interpreter = parser.getInterpreter();
+        Simulator simulator = new Simulator(parser, interpreter);
+        simulator.setPredictionMode(interpreter.getPredictionMode());
+        parser.setInterpreter(simulator);
+        parser.setErrorHandler(new StacklessErrorStrategy(diagnostics));
+    }
+
+    public Diagnostics diagnostics() {
+        return diagnostics;
+    }
+
+    /** {@link DefaultErrorStrategy#sync}, throwing a stackless exception. */
+    @Override
+    public void sync(Parser recognizer) throws RecognitionException {
+        ATNState s = recognizer.getInterpreter().atn.states.get(recognizer.getState());
+        if (inErrorRecoveryMode(recognizer)) {
+            return;
+        }
+        int la = recognizer.getInputStream().LA(1);
+        IntervalSet nextTokens = recognizer.getATN().nextTokens(s);
+        if (nextTokens.contains(la)) {
+            nextTokensContext = null;
+            nextTokensState = ATNState.INVALID_STATE_NUMBER;
+            return;
+        }
+        if (nextTokens.contains(Token.EPSILON)) {
+            if (nextTokensContext == null) {
+                nextTokensContext = recognizer.getContext();
+                nextTokensState = recognizer.getState();
+            }
+            return;
+        }
+        switch (s.getStateType()) {
+            case ATNState.BLOCK_START, ATNState.STAR_BLOCK_START, ATNState.PLUS_BLOCK_START,
+                 ATNState.STAR_LOOP_ENTRY -> {
+                if (singleTokenDeletion(recognizer) == null) {
+                    throw new Mismatch(recognizer);
+                }
+            }
+            case ATNState.PLUS_LOOP_BACK, ATNState.STAR_LOOP_BACK -> {
+                reportUnwantedToken(recognizer);
+                consumeUntil(recognizer, recognizer.getExpectedTokens().or(getErrorRecoverySet(recognizer)));
+            }
+            default -> {
+            }
+        }
+    }
+
+    /** {@link DefaultErrorStrategy#recoverInline}, throwing a stackless exception. */
+    @Override
+    public Token recoverInline(Parser recognizer) throws RecognitionException {
+        Token matched = singleTokenDeletion(recognizer);
+        if (matched != null) {
+            recognizer.consume();
+            return matched;
+        }
+        if (singleTokenInsertion(recognizer)) {
+            return getMissingSymbol(recognizer);
+        }
+        throw nextTokensContext == null ? new Mismatch(recognizer)
+                : new Mismatch(recognizer, nextTokensState, nextTokensContext);
+    }
+
+    @Override
+    protected void reportNoViableAlternative(Parser recognizer, NoViableAltException e) {
+        diagnostics.add(Diagnostics.Kind.NO_VIABLE_ALTERNATIVE, e.getOffendingToken(),
+                e.getStartToken().getTokenIndex(), null, recognizer.getInputStream(), recognizer.getVocabulary());
+    }
+
+    @Override
+    protected void reportInputMismatch(Parser recognizer, InputMismatchException e) {
+        diagnostics.add(Diagnostics.Kind.INPUT_MISMATCH, e.getOffendingToken(), -1, e.getExpectedTokens(),
+                recognizer.getInputStream(), recognizer.getVocabulary());
+    }
+
+    @Override
+    protected void reportFailedPredicate(Parser recognizer, FailedPredicateException e) {
+        Token token = e.getOffendingToken();
+        diagnostics.syntaxError(recognizer, token, token.getLine(), token.getCharPositionInLine(),
+                "rule " + recognizer.getRuleNames()[recognizer.getContext().getRuleIndex()] + " " + e.getMessage(), e);
+    }
+
+    @Override
+    protected void reportUnwantedToken(Parser recognizer) {
+        if (inErrorRecoveryMode(recognizer)) {
+            return;
+        }
+        beginErrorCondition(recognizer);
+        diagnostics.add(Diagnostics.Kind.EXTRANEOUS_INPUT, recognizer.getCurrentToken(), -1,
+                getExpectedTokens(recognizer), recognizer.getInputStream(), recognizer.getVocabulary());
+    }
+
+    @Override
+    protected void reportMissingToken(Parser recognizer) {
+        if (inErrorRecoveryMode(recognizer)) {
+            return;
+        }
+        beginErrorCondition(recognizer);
+        diagnostics.add(Diagnostics.Kind.MISSING_TOKEN, recognizer.getCurrentToken(), -1,
+                getExpectedTokens(recognizer), recognizer.getInputStream(), recognizer.getVocabulary());
+    }
+
+    private static final class Mismatch extends InputMismatchException {
+
+        private static final long serialVersionUID = 1L;
+
+        Mismatch(Parser recognizer) {
+            super(recognizer);
+        }
+
+        Mismatch(Parser recognizer, int state, ParserRuleContext ctx) {
+            super(recognizer, state, ctx);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class NoViableAlternative extends NoViableAltException {
+
+        private static final long serialVersionUID = 1L;
+
+        NoViableAlternative(Parser recognizer, TokenStream input, Token start, Token offending,
+                            ATNConfigSet configs, ParserRuleContext ctx) {
+            super(recognizer, input, start, offending, configs, ctx);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class Simulator extends ParserATNSimulator {
+
+        Simulator(Parser parser, ParserATNSimulator shared) {
+            super(parser, shared.atn, shared.decisionToDFA, shared.getSharedContextCache());
+        }
+
+        @Override
+        protected NoViableAltException noViableAlt(TokenStream input, ParserRuleContext outerContext,
+                                                   ATNConfigSet configs, int startIndex) {
+            return new NoViableAlternative(parser, input, input.get(startIndex), input.LT(1), configs, outerContext);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package minilang.parse;
+
+import static minilang.MiniLangParser.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+import org.antlr.v4.runtime.atn.DecisionState;
+import org.antlr.v4.runtime.atn.PlusBlockStartState;
+import org.antlr.v4.runtime.atn.StarLoopEntryState;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.TokenTypes;
+import minilang.lex.MappedCharStream;
+
+/**
+ * Parses a program one top-level item at a time, in memory that does not
+ * grow with the program.
+ *
+ * <p>{@link #program(Consumer)} hands each global variable declaration,
+ * function declaration and top-level statement to a handler as soon as it is
+ * parsed, and keeps no reference to it afterwards. Given a parser over an
+ * {@link UnbufferedTokenStream}, as {@link #of(TokenSource)} builds, the
+ * tokens of an item are released with it, so only the item being parsed and
+ * the parser's lookahead are ever held.</p>
+ *
+ * <p>Items are the children the generated {@code program} rule would give
+ * the tree, except that a run of {@code globalDeclarations} is handed over
+ * one {@code varDeclaration} at a time. Each item is parsed by the generated
+ * rule method from the state {@code program} would call it from, so
+ * prediction, error reporting and recovery are those of a whole-program
+ * parse. Its parents are placeholders that only hold the item being
+ * handled.</p>
+ *
+ * <p>Telling the last global from a top-level declaration statement needs
+ * one declaration of lookahead; that declaration's tokens are buffered while
+ * it is scanned. The generated rule instead predicts over the whole run of
+ * globals, so on a syntax error inside the run it may reject the run as a
+ * whole, where this parser still hands over the declarations before the
+ * error.</p>
+ */
+public final class StreamingParser {
+
+    private static final int PROGRAM_GLOBALS = CallSites.of(RULE_program, RULE_globalDeclarations, 0);
+    private static final int PROGRAM_FUNCTION = CallSites.of(RULE_program, RULE_functionDeclaration, 0);
+    private static final int PROGRAM_STATEMENT = CallSites.of(RULE_program, RULE_statement, 0);
+    private static final int GLOBALS_VARIABLE = CallSites.of(RULE_globalDeclarations, RULE_varDeclaration, 0);
+
+    // The loops of program, where the generated rule syncs with the error strategy.
+    private static final StarLoopEntryState GLOBALS = programDecision(StarLoopEntryState.class);
+    private static final PlusBlockStartState ITEMS = programDecision(PlusBlockStartState.class);
+    private static final int GLOBALS_LOOP = GLOBALS.stateNumber;
+    private static final int GLOBALS_LOOP_BACK = GLOBALS.loopBackState.stateNumber;
+    private static final int ITEM_BLOCK = ITEMS.stateNumber;
+    private static final int ITEM_LOOP_BACK = ITEMS.loopBackState.stateNumber;
+    private static final int ITEM_DECISION = ITEMS.decision;
+
+    private final MiniLangParser parser;
+
+    private final TokenStream input;
+
+    public StreamingParser(MiniLangParser parser) {
+        this.parser = parser;
+        this.input = parser.getTokenStream();
+    }
+
+    /** A streaming parser that reads tokens from {@code source} without buffering them. */
+    public static StreamingParser of(TokenSource source) {
+        return new StreamingParser(new MiniLangParser(new UnbufferedTokenStream<>(source)));
+    }
+
+    /** A streaming parser over a memory-mapped {@code file}, which is never copied to the heap. */
+    public static StreamingParser open(Path file) throws IOException {
+        return of(new MiniLangLexer(MappedCharStream.open(file)));
+    }
+
+    /** The parser items are parsed with, for installing error listeners or strategies. */
+    public MiniLangParser parser() {
+        return parser;
+    }
+
+    /**
+     * Parses the program from the current position of the token stream,
+     * passing every top-level item to {@code handler}. The handler may keep
+     * an item, but that keeps its tokens too.
+     *
+     * @return the number of items parsed
+     */
+    public long program(Consumer<? super ParserRuleContext> handler) {
+        ProgramContext program = new ProgramContext(null, -1);
+        ANTLRErrorStrategy errors = parser.getErrorHandler();
+        long items = 0;
+        parser.setContext(program);
+        try {
+            parser.setState(GLOBALS_LOOP);
+            errors.sync(parser);
+            // DescentParser.program() makes the same decision as the generated
+            // one, but in bounded lookahead: a declaration is a global if
+            // another item follows it.
+            GlobalDeclarationsContext globals = null;
+            while (startsVarDeclaration()) {
+                int marker = input.mark();
+                boolean global;
+                try {
+                    int start = input.index();
+                    skipVarDeclaration();
+                    global = startsItem(input.LA(1));
+                    input.seek(start);
+                } finally {
+                    input.release(marker);
+                }
+                if (!global) {
+                    break;
+                }
+                if (globals == null) {
+                    globals = new GlobalDeclarationsContext(program, PROGRAM_GLOBALS);
+                    program.addChild(globals);
+                }
+                parser.setContext(globals);
+                parser.setState(GLOBALS_VARIABLE);
+                handler.accept(parser.varDeclaration());
+                globals.removeLastChild();
+                items++;
+            }
+            if (globals != null) {
+                program.removeLastChild();
+                parser.setContext(program);
+                parser.setState(GLOBALS_LOOP_BACK);
+                errors.sync(parser);
+            }
+
+            parser.setState(ITEM_BLOCK);
+            errors.sync(parser);
+            do {
+                parser.setState(ITEM_BLOCK);
+                errors.sync(parser);
+                ParserRuleContext item;
+                if (parser.getInterpreter().adaptivePredict(input, ITEM_DECISION, program) == 1) {
+                    parser.setState(PROGRAM_FUNCTION);
+                    item = parser.functionDeclaration();
+                } else {
+                    parser.setState(PROGRAM_STATEMENT);
+                    item = parser.statement();
+                }
+                handler.accept(item);
+                program.removeLastChild();
+                items++;
+                parser.setState(ITEM_LOOP_BACK);
+                errors.sync(parser);
+            } while (startsItem(input.LA(1)));
+        } catch (RecognitionException e) {
+            // Where the generated rule gives up on the rest of the program.
+            program.exception = e;
+            errors.reportError(parser, e);
+            errors.recover(parser, e);
+        } finally {
+            parser.setContext(null);
+        }
+        return items;
+    }
+
+    private static <T extends DecisionState> T programDecision(Class<T> kind) {
+        for (DecisionState state : _ATN.decisionToState) {
+            if (state.ruleIndex == RULE_program && kind.isInstance(state)) {
+                return kind.cast(state);
+            }
+        }
+        throw new IllegalStateException("program has no " + kind.getSimpleName());
+    }
+
+    private boolean startsVarDeclaration() {
+        return TokenTypes.isType(input.LA(1)) && input.LA(2) == IDENTIFIER && input.LA(3) == ASSIGN;
+    }
+
+    private static boolean startsItem(int type) {
+        return TokenTypes.isStatementStart(type);
+    }
+
+    /** Moves past the next {@code ;}, or to {@code EOF} if there is none. */
+    private void skipVarDeclaration() {
+        while (input.LA(1) != SEMICOLON && input.LA(1) != Token.EOF) {
+            input.consume();
+        }
+        if (input.LA(1) == SEMICOLON) {
+            input.consume();
+        }
+    }
+}
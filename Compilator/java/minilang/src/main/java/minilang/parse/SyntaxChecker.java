@@ -0,0 +1,98 @@
+package minilang.parse;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+import minilang.MiniLangLexer;
+import minilang.MiniLangParser;
+import minilang.lex.FlatTokenStream;
+
+/**
+ * Tells whether sources are valid MiniLang without building parse trees.
+ *
+ * <p>The checker keeps one lexer, parser and {@link Diagnostics} buffer for
+ * every source. The parser runs with tree building off, so each rule's
+ * context only lives until the rule returns, and reads a
+ * {@link FlatTokenStream}, which keeps tokens as arrays and reuses its token
+ * objects. It parses with SLL prediction first, as {@link TwoStageParser}
+ * does, and only a source with an error is parsed again with full LL
+ * prediction and a {@link StacklessErrorStrategy}.</p>
+ *
+ * <p>{@code program} does not end with {@code EOF} in the grammar, so the
+ * parser alone accepts any valid prefix. The checker also reports the first
+ * token a parse leaves unread, as the parser reports extraneous input.</p>
+ *
+ * <p>From the command line:</p>
+ * <pre>
+ * SyntaxChecker &lt;file&gt;...
+ * </pre>
+ * <p>prints every error as {@code file:line:column: message} and exits
+ * with status 1 if there was any.</p>
+ */
+public final class SyntaxChecker {
+
+    private final MiniLangLexer lexer = new MiniLangLexer(null);
+
+    private final MiniLangParser parser = new MiniLangParser((TokenStream) null);
+
+    private final Diagnostics diagnostics = new Diagnostics();
+
+    public SyntaxChecker() {
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(diagnostics);
+        parser.removeErrorListeners();
+        parser.setBuildParseTree(false);
+        StacklessErrorStrategy.install(parser, diagnostics);
+    }
+
+    /**
+     * Checks {@code input}.
+     *
+     * @return its syntax errors as {@code source:line:column: message}, in
+     *     order; empty if the source is valid
+     */
+    public List<String> check(CharStream input) {
+        diagnostics.clear();
+        lexer.setInputStream(input);
+        FlatTokenStream tokens = new FlatTokenStream(lexer);
+        try {
+            // Lex to the end first, so that lexer errors after the point
+            // where the parse stops are reported too.
+            tokens.fill();
+            parser.setTokenStream(tokens);
+            new TwoStageParser(parser).program();
+            if (tokens.LA(1) != Token.EOF) {
+                diagnostics.add(Diagnostics.Kind.EXTRANEOUS_INPUT, tokens.LT(1), -1, IntervalSet.of(Token.EOF), tokens,
+                        parser.getVocabulary());
+            }
+            return diagnostics.format(input.getSourceName() + ":");
+        } finally {
+            parser.setTokenStream(null);
+            diagnostics.clear();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            System.err.println("usage: SyntaxChecker <file>...");
+            System.exit(2);
+        }
+        SyntaxChecker checker = new SyntaxChecker();
+        List<String> errors = new ArrayList<>();
+        for (String file : args) {
+            errors.addAll(checker.check(CharStreams.fromPath(Path.of(file))));
+        }
+        errors.forEach(System.out::println);
+        if (!errors.isEmpty()) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package minilang.parse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import minilang.MiniLangParser;
+
+/**
+ * Parses a program with SLL prediction first and only falls back to full LL
+ * prediction when the SLL pass hits a syntax error.
+ *
+ * <p>SLL never accepts an invalid input, but it may reject a valid one when a
+ * decision needs the full parser context; the LL pass settles both cases, so
+ * the tree and the reported errors are the same as with
+ * {@link MiniLangParser#program()}.</p>
+ *
+ * <p>The fallback resets the parser, so it re-reads the token stream from its
+ * first token, with the parser's own prediction mode, or LL if that was SLL.
+ * The parser's own error strategy, listeners and prediction mode are restored
+ * once the parse is finished.</p>
+ */
+public final class TwoStageParser {
+
+    private final MiniLangParser parser;
+
+    public TwoStageParser(MiniLangParser parser) {
+        this.parser = parser;
+    }
+
+    public ParseResult program() {
+        ANTLRErrorStrategy errorHandler = parser.getErrorHandler();
+        List<? extends ANTLRErrorListener> listeners = new ArrayList<>(parser.getErrorListeners());
+        PredictionMode mode = parser.getInterpreter().getPredictionMode();
+
+        try {
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(new BailErrorStrategy());
+            parser.removeErrorListeners();
+            try {
+                return new ParseResult(parser.program(), ParseStage.SLL);
+            } catch (ParseCancellationException e) {
+                parser.reset();
+                parser.getInterpreter().setPredictionMode(mode == PredictionMode.SLL ? PredictionMode.LL : mode);
+                parser.setErrorHandler(errorHandler);
+                listeners.forEach(parser::addErrorListener);
+                return new ParseResult(parser.program(), ParseStage.LL);
+            }
+        } finally {
+            parser.getInterpreter().setPredictionMode(mode);
+            parser.setErrorHandler(errorHandler);
+            parser.removeErrorListeners();
+            listeners.forEach(parser::addErrorListener);
+        }
+    }
+}
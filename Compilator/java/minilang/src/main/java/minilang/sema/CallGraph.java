@@ -0,0 +1,263 @@
+package minilang.sema;
+
+import static minilang.MiniLangParser.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import minilang.jfr.AnalysisEvent;
+import minilang.jfr.PhaseEvent;
+
+/**
+ * Which functions of a program call which, and which are recursive.
+ *
+ * <p>{@link #build} numbers the functions in declaration order and collects,
+ * for each, the distinct functions named by the {@link FunctionCallContext}s
+ * in its body; calls to undeclared functions and to the built-in
+ * {@code print} are not edges, and a function declared twice keeps its
+ * first number. The edges are kept in one array, indexed by caller.</p>
+ *
+ * <p>The strongly connected components are then found with Tarjan's
+ * algorithm, run with explicit stacks so a call chain of any length fits.
+ * A function is {@link Recursion#MUTUAL mutually} recursive if its
+ * component has other functions, and {@link Recursion#DIRECT directly}
+ * recursive if it only calls itself. Components are numbered callees
+ * first: a function only calls functions of its own component or of lower
+ * numbers. Everything is linear in the size of the parse tree.</p>
+ */
+public final class CallGraph {
+
+    /** How a function can reach itself through calls. */
+    public enum Recursion {
+        NONE,
+        /** It calls itself, and is in no cycle with other functions. */
+        DIRECT,
+        /** It is in a cycle of calls with other functions. */
+        MUTUAL
+    }
+
+    private final FunctionDeclarationContext[] functions;
+
+    private final Names names;
+
+    /** The number + 1 of the function named by each {@link Names} id, or 0. */
+    private final int[] byName;
+
+    /** The callees of function {@code f} are {@code edges[starts[f]]} to {@code edges[starts[f + 1] - 1]}. */
+    private final int[] starts;
+
+    private final int[] edges;
+
+    private final int[] components;
+
+    private final int componentCount;
+
+    private final Recursion[] recursion;
+
+    private CallGraph(FunctionDeclarationContext[] functions, Names names, int[] byName, int[] starts, int[] edges) {
+        this.functions = functions;
+        this.names = names;
+        this.byName = byName;
+        this.starts = starts;
+        this.edges = edges;
+        this.components = new int[functions.length];
+        this.componentCount = components();
+        this.recursion = classify();
+    }
+
+    public static CallGraph build(ProgramContext program) {
+        AnalysisEvent event = new AnalysisEvent();
+        event.start();
+        Names names = new Names();
+        int[] byName = new int[64];
+        List<FunctionDeclarationContext> declared = program.functionDeclaration();
+        FunctionDeclarationContext[] functions = new FunctionDeclarationContext[declared.size()];
+        int count = 0;
+        for (FunctionDeclarationContext function : declared) {
+            int name = names.intern(function.IDENTIFIER().getText());
+            if (name == byName.length) {
+                byName = Arrays.copyOf(byName, name * 2);
+            }
+            if (byName[name] == 0) {
+                functions[count] = function;
+                byName[name] = ++count;
+            }
+        }
+        functions = Arrays.copyOf(functions, count);
+
+        int[] starts = new int[count + 1];
+        int[] edges = new int[Math.max(count, 16)];
+        int edgeCount = 0;
+        // The caller that last added each callee, so that each edge is kept once.
+        int[] lastCaller = new int[count];
+        Arrays.fill(lastCaller, -1);
+        ParseTree[] stack = new ParseTree[64];
+        for (int caller = 0; caller < count; caller++) {
+            starts[caller] = edgeCount;
+            int depth = 0;
+            stack[depth++] = functions[caller].block();
+            while (depth > 0) {
+                ParseTree node = stack[--depth];
+                if (node instanceof FunctionCallContext call) {
+                    int name = names.find(call.IDENTIFIER().getText());
+                    int callee = name < 0 || name >= byName.length ? -1 : byName[name] - 1;
+                    if (callee >= 0 && lastCaller[callee] != caller) {
+                        lastCaller[callee] = caller;
+                        if (edgeCount == edges.length) {
+                            edges = Arrays.copyOf(edges, edgeCount * 2);
+                        }
+                        edges[edgeCount++] = callee;
+                    }
+                }
+                if (node instanceof ParserRuleContext ctx && ctx.children != null) {
+                    if (depth + ctx.children.size() > stack.length) {
+                        stack = Arrays.copyOf(stack, Math.max(stack.length * 2, depth + ctx.children.size()));
+                    }
+                    // Pushed last to first, so calls are met in source order.
+                    for (int i = ctx.children.size() - 1; i >= 0; i--) {
+                        if (ctx.children.get(i) instanceof ParserRuleContext child) {
+                            stack[depth++] = child;
+                        }
+                    }
+                }
+            }
+        }
+        starts[count] = edgeCount;
+        CallGraph graph = new CallGraph(functions, names, byName, starts, Arrays.copyOf(edges, edgeCount));
+        if (event.stop()) {
+            event.pass = "call graph";
+            event.source = PhaseEvent.source(program);
+            event.tokens = PhaseEvent.tokens(program);
+            event.functions = count;
+            event.commit();
+        }
+        return graph;
+    }
+
+    /** The number of functions. */
+    public int size() {
+        return functions.length;
+    }
+
+    public FunctionDeclarationContext declaration(int function) {
+        return functions[function];
+    }
+
+    public String name(int function) {
+        return functions[function].IDENTIFIER().getText();
+    }
+
+    /** The number of the function declared as {@code name}, or -1. */
+    public int function(String name) {
+        int id = names.find(name);
+        return id < 0 || id >= byName.length ? -1 : byName[id] - 1;
+    }
+
+    /** The distinct functions that {@code function} calls, in the order of their first call. */
+    public int[] callees(int function) {
+        return Arrays.copyOfRange(edges, starts[function], starts[function + 1]);
+    }
+
+    /** The total number of distinct caller-callee pairs. */
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    public int component(int function) {
+        return components[function];
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+
+    public Recursion recursion(int function) {
+        return recursion[function];
+    }
+
+    public boolean isRecursive(int function) {
+        return recursion[function] != Recursion.NONE;
+    }
+
+    /** Tarjan's algorithm; fills {@link #components} and returns how many there are. */
+    private int components() {
+        int n = functions.length;
+        int[] index = new int[n];
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+        // The functions of components still open, and the depth-first path with each one's next edge.
+        int[] stack = new int[n];
+        int[] path = new int[n];
+        int[] nextEdge = new int[n];
+        int stackSize = 0;
+        int next = 0;
+        int count = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            path[depth++] = root;
+            index[root] = low[root] = next++;
+            nextEdge[root] = starts[root];
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth > 0) {
+                int f = path[depth - 1];
+                if (nextEdge[f] < starts[f + 1]) {
+                    int callee = edges[nextEdge[f]++];
+                    if (index[callee] < 0) {
+                        index[callee] = low[callee] = next++;
+                        nextEdge[callee] = starts[callee];
+                        stack[stackSize++] = callee;
+                        onStack[callee] = true;
+                        path[depth++] = callee;
+                    } else if (onStack[callee]) {
+                        low[f] = Math.min(low[f], index[callee]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (depth > 0) {
+                    int caller = path[depth - 1];
+                    low[caller] = Math.min(low[caller], low[f]);
+                }
+                if (low[f] == index[f]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        components[member] = count;
+                    } while (member != f);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private Recursion[] classify() {
+        int[] sizes = new int[componentCount];
+        for (int component : components) {
+            sizes[component]++;
+        }
+        Recursion[] result = new Recursion[functions.length];
+        for (int f = 0; f < functions.length; f++) {
+            if (sizes[components[f]] > 1) {
+                result[f] = Recursion.MUTUAL;
+            } else {
+                result[f] = Recursion.NONE;
+                for (int e = starts[f]; e < starts[f + 1]; e++) {
+                    if (edges[e] == f) {
+                        result[f] = Recursion.DIRECT;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package minilang.sema;
+
+import minilang.ast.Type;
+
+/** The text of each error {@link Resolution} and {@link SemanticAnalyzer} report, without its line. */
+final class Messages {
+
+    private Messages() {
+    }
+
+    static String voidVariable(Object name) {
+        return "variable '" + name + "' cannot be void";
+    }
+
+    static String globalDeclared(Object name) {
+        return "global variable '" + name + "' is already declared";
+    }
+
+    static String functionDeclared(Object name) {
+        return "function '" + name + "' is already declared";
+    }
+
+    static String voidParameter(Object name) {
+        return "parameter '" + name + "' cannot be void";
+    }
+
+    static String parameterDeclared(Object name, Object function) {
+        return "parameter '" + name + "' is already declared in '" + function + "'";
+    }
+
+    static String variableDeclared(Object name) {
+        return "variable '" + name + "' is already declared in this scope";
+    }
+
+    static String returnOutside() {
+        return "return outside a function";
+    }
+
+    static String voidReturn(Object function) {
+        return "'" + function + "' is void and cannot return a value";
+    }
+
+    static String variableNotDeclared(Object name) {
+        return "variable '" + name + "' is not declared";
+    }
+
+    static String functionNotDeclared(Object name) {
+        return "function '" + name + "' is not declared";
+    }
+
+    static String arguments(Object function, int expected, int actual) {
+        return "'" + function + "' takes " + expected + " arguments, not " + actual;
+    }
+
+    static String voidValue(Object function) {
+        return "'" + function + "' is void and has no value";
+    }
+
+    static String intRange(Object literal) {
+        return "integer literal " + literal + " does not fit an int";
+    }
+
+    static String stringOperator(String operator) {
+        return "operator " + operator + " is not defined for strings";
+    }
+
+    static String compare(String operator, Type left, Type right) {
+        return "operator " + operator + " cannot compare " + left.keyword() + " and " + right.keyword();
+    }
+
+    static String stringCondition() {
+        return "a string is not a condition";
+    }
+
+    static String convert(Type from, Type to) {
+        return "cannot convert " + from.keyword() + " to " + to.keyword();
+    }
+}
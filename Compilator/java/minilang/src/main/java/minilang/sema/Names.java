@@ -0,0 +1,67 @@
+package minilang.sema;
+
+import java.util.Arrays;
+
+/**
+ * Interns identifiers to dense {@code int} ids, numbered from zero in order
+ * of first appearance, so that later passes compare and hash names as ints.
+ *
+ * <p>The ids are kept in an open-addressing table with linear probing,
+ * never more than half full.</p>
+ */
+public final class Names {
+
+    private String[] names = new String[64];
+
+    /** Id + 1 of the name in each slot; 0 is empty. */
+    private int[] table = new int[128];
+
+    private int size;
+
+    /** The id of {@code name}, assigning the next one if it is new. */
+    public int intern(String name) {
+        int slot = slot(name);
+        if (table[slot] != 0) {
+            return table[slot] - 1;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = name;
+        table[slot] = ++size;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /** The id of {@code name}, or -1 if it was never interned. */
+    public int find(String name) {
+        return table[slot(name)] - 1;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** The slot that holds {@code name}, or the empty one where it belongs. */
+    private int slot(String name) {
+        int mask = table.length - 1;
+        int slot = SymbolTable.hash(name.hashCode(), table.length);
+        while (table[slot] != 0 && !names[table[slot] - 1].equals(name)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        for (int id = 0; id < size; id++) {
+            table[slot(names[id])] = id + 1;
+        }
+    }
+}
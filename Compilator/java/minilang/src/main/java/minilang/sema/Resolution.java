@@ -0,0 +1,521 @@
+package minilang.sema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import minilang.ast.BinaryOperator;
+import minilang.ast.Expr;
+import minilang.ast.FunctionDecl;
+import minilang.ast.Identifier;
+import minilang.ast.Item;
+import minilang.ast.Program;
+import minilang.ast.Stmt;
+import minilang.ast.Type;
+
+/**
+ * The names and types of a {@link Program}: the variable or function every
+ * name refers to, the type of every expression, and the errors the
+ * backends report on load.
+ *
+ * <p>{@link #resolve} checks the AST once, with the rules and messages of
+ * {@link SemanticAnalyzer}. Globals are declared first, then every function
+ * signature, so functions may call each other in any order and read any
+ * global; the function bodies are checked next, then the top level. Names
+ * resolve in a {@link SymbolTable} with a scope per function and per
+ * block: an inner block may shadow an outer name but not redeclare one of
+ * its own, and a declaration's initialiser is checked before its name is in
+ * scope. Every error is collected, in the order a backend compiling the
+ * program meets them; an expression in error has no type, and nothing that
+ * depends on it is reported again.</p>
+ *
+ * <p>Each global, parameter and local declaration is a {@link Variable},
+ * and each function a {@link Function}. The nodes that name them map to
+ * them by identity, so a backend gives each variable its storage when it
+ * meets the declaration and never looks a name up.</p>
+ */
+public final class Resolution {
+
+    private static final String PRINT = "print";
+
+    private final SymbolTable scopes = new SymbolTable();
+
+    /** The variable of each symbol of {@link #scopes}. */
+    private Variable[] symbols = new Variable[64];
+
+    private final Map<Identifier, Function> byName = new HashMap<>();
+
+    private final List<Variable> globals = new ArrayList<>();
+
+    private final List<Function> functions = new ArrayList<>();
+
+    /** The variable each declaration declares and each name, assignment or increment refers to. */
+    private final Map<Object, Variable> variables = new IdentityHashMap<>();
+
+    /** The function each declaration declares and each call calls; a call to the built-in {@code print} has none. */
+    private final Map<Object, Function> calls = new IdentityHashMap<>();
+
+    private final Map<Expr, Type> types = new IdentityHashMap<>();
+
+    private final List<String> diagnostics = new ArrayList<>();
+
+    /** The function being checked; {@code null} at the top level. */
+    private Function current;
+
+    private int line;
+
+    private Resolution() {
+    }
+
+    /** A global, a parameter or a local variable. */
+    public static final class Variable {
+
+        private final Identifier name;
+
+        private final Type type;
+
+        private final boolean global;
+
+        Variable(Identifier name, Type type, boolean global) {
+            this.name = name;
+            this.type = type;
+            this.global = global;
+        }
+
+        public Identifier name() {
+            return name;
+        }
+
+        /** The declared type; {@code null} if it is {@code void}, which is an error. */
+        public Type type() {
+            return type;
+        }
+
+        public boolean global() {
+            return global;
+        }
+    }
+
+    /** A declared function. */
+    public static final class Function {
+
+        private final Identifier name;
+
+        private final Type returnType;
+
+        private final List<Variable> parameters;
+
+        Function(Identifier name, Type returnType, List<Variable> parameters) {
+            this.name = name;
+            this.returnType = returnType;
+            this.parameters = parameters;
+        }
+
+        public Identifier name() {
+            return name;
+        }
+
+        public Type returnType() {
+            return returnType;
+        }
+
+        public List<Variable> parameters() {
+            return parameters;
+        }
+    }
+
+    /** Resolves every name of {@code program} and checks its types, collecting every error. */
+    public static Resolution resolve(Program program) {
+        Resolution resolution = new Resolution();
+        resolution.scopes.push();
+        for (Stmt.VarDecl global : program.globals()) {
+            resolution.global(global);
+        }
+        for (Item item : program.items()) {
+            if (item instanceof Stmt.VarDecl global) {
+                resolution.global(global);
+            }
+        }
+        for (Item item : program.items()) {
+            if (item instanceof FunctionDecl function) {
+                resolution.declare(function);
+            }
+        }
+        for (Item item : program.items()) {
+            if (item instanceof FunctionDecl function) {
+                resolution.define(function);
+            }
+        }
+        for (Stmt.VarDecl global : program.globals()) {
+            resolution.statement(global);
+        }
+        for (Item item : program.items()) {
+            if (item instanceof Stmt statement) {
+                resolution.statement(statement);
+            }
+        }
+        return resolution;
+    }
+
+    /** The errors in the program, in the order a backend meets them, as {@code line N: message}. */
+    public List<String> diagnostics() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    /**
+     * This resolution, if the program has no errors.
+     *
+     * @throws IllegalArgumentException with the first error otherwise
+     */
+    public Resolution check() {
+        if (!diagnostics.isEmpty()) {
+            throw new IllegalArgumentException(diagnostics.get(0));
+        }
+        return this;
+    }
+
+    /** The globals, in declaration order. */
+    public List<Variable> globals() {
+        return Collections.unmodifiableList(globals);
+    }
+
+    /** The functions, in declaration order. */
+    public List<Function> functions() {
+        return Collections.unmodifiableList(functions);
+    }
+
+    public Function function(FunctionDecl declaration) {
+        return calls.get(declaration);
+    }
+
+    /** The function {@code call} calls, or {@code null} for the built-in {@code print} or an undeclared one. */
+    public Function function(Expr.Call call) {
+        return calls.get(call);
+    }
+
+    /** The global or local variable {@code declaration} declares. */
+    public Variable variable(Stmt.VarDecl declaration) {
+        return variables.get(declaration);
+    }
+
+    /** The variable {@code name} reads, or {@code null} if it is not declared. */
+    public Variable variable(Expr.Name name) {
+        return variables.get(name);
+    }
+
+    public Variable variable(Expr.Assign assignment) {
+        return variables.get(assignment);
+    }
+
+    public Variable variable(Stmt.Assign assignment) {
+        return variables.get(assignment);
+    }
+
+    public Variable variable(Stmt.IncDec incDec) {
+        return variables.get(incDec);
+    }
+
+    /**
+     * The type of {@code expr}, {@code VOID} for a call made as a statement
+     * to a {@code void} function; {@code null} if {@code expr} or anything
+     * in it is in error.
+     */
+    public Type type(Expr expr) {
+        return types.get(expr);
+    }
+
+    // Declarations
+
+    private void global(Stmt.VarDecl declaration) {
+        line = declaration.line();
+        Type type = declaration.type();
+        if (type == Type.VOID) {
+            error(Messages.voidVariable(declaration.name()));
+            type = null;
+        }
+        Variable variable = new Variable(declaration.name(), type, true);
+        variables.put(declaration, variable);
+        if (declare(variable)) {
+            globals.add(variable);
+        } else {
+            error(Messages.globalDeclared(declaration.name()));
+        }
+    }
+
+    /** Declares {@code variable} in the innermost scope, unless that scope already declares its name. */
+    private boolean declare(Variable variable) {
+        int symbol = scopes.declare(variable.name.id(), variable.type, line);
+        if (symbol == SymbolTable.NONE) {
+            return false;
+        }
+        if (symbol == symbols.length) {
+            symbols = Arrays.copyOf(symbols, symbol * 2);
+        }
+        symbols[symbol] = variable;
+        return true;
+    }
+
+    private void declare(FunctionDecl declaration) {
+        line = declaration.line();
+        List<Variable> parameters = new ArrayList<>(declaration.parameters().size());
+        for (FunctionDecl.Param parameter : declaration.parameters()) {
+            Type type = parameter.type();
+            if (type == Type.VOID) {
+                error(Messages.voidParameter(parameter.name()));
+                type = null;
+            }
+            parameters.add(new Variable(parameter.name(), type, false));
+        }
+        Function function = new Function(declaration.name(), declaration.returnType(), List.copyOf(parameters));
+        calls.put(declaration, function);
+        if (byName.putIfAbsent(declaration.name(), function) != null) {
+            error(Messages.functionDeclared(declaration.name()));
+            return;
+        }
+        functions.add(function);
+    }
+
+    private void define(FunctionDecl declaration) {
+        current = calls.get(declaration);
+        line = declaration.line();
+        scopes.push();
+        for (Variable parameter : current.parameters) {
+            if (!declare(parameter)) {
+                error(Messages.parameterDeclared(parameter.name, declaration.name()));
+            }
+        }
+        // The body shares the parameters' scope.
+        statements(declaration.body());
+        scopes.pop();
+        current = null;
+    }
+
+    // Statements
+
+    private void statements(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            statement(statement);
+        }
+    }
+
+    /** Checks a block in a scope of its own. */
+    private void block(List<Stmt> statements) {
+        scopes.push();
+        statements(statements);
+        scopes.pop();
+    }
+
+    private void statement(Stmt statement) {
+        line = statement.line();
+        if (statement instanceof Stmt.VarDecl declaration) {
+            declaration(declaration);
+        } else if (statement instanceof Stmt.Assign assignment) {
+            Type target = resolve(assignment, assignment.name());
+            Type value = expression(assignment.value());
+            if (assignment.operator().operator() != null) {
+                value = arithmetic(assignment.operator().operator(), target, value);
+            }
+            convert(value, target);
+        } else if (statement instanceof Stmt.IncDec incDec) {
+            // name++ is name += 1, which concatenates to a string.
+            Type target = resolve(incDec, incDec.name());
+            convert(arithmetic(incDec.increment() ? BinaryOperator.ADD : BinaryOperator.SUB, target, Type.INT),
+                    target);
+        } else if (statement instanceof Stmt.If ifStatement) {
+            condition(ifStatement.condition());
+            block(ifStatement.then());
+            if (ifStatement.otherwise() != null) {
+                block(ifStatement.otherwise());
+            }
+        } else if (statement instanceof Stmt.For forStatement) {
+            scopes.push();
+            statement(forStatement.init());
+            line = forStatement.line();
+            condition(forStatement.condition());
+            statement(forStatement.update());
+            block(forStatement.body());
+            scopes.pop();
+        } else if (statement instanceof Stmt.While whileStatement) {
+            condition(whileStatement.condition());
+            block(whileStatement.body());
+        } else if (statement instanceof Stmt.Return returnStatement) {
+            returnStatement(returnStatement);
+        } else if (statement instanceof Stmt.CallStmt call) {
+            int errors = diagnostics.size();
+            typed(call.call(), errors, call(call.call()));
+        } else {
+            throw new IllegalArgumentException("Unknown statement " + statement);
+        }
+    }
+
+    private void declaration(Stmt.VarDecl declaration) {
+        Type type = declaration.type();
+        // Outside any function or block this is a global, declared and reported already.
+        boolean local = scopes.depth() > 0;
+        if (type == Type.VOID) {
+            if (local) {
+                error(Messages.voidVariable(declaration.name()));
+            }
+            type = null;
+        }
+        // The initialiser is checked before the name is in scope.
+        if (declaration.init() != null) {
+            convert(expression(declaration.init()), type);
+        }
+        if (local) {
+            Variable variable = new Variable(declaration.name(), type, false);
+            variables.put(declaration, variable);
+            if (!declare(variable)) {
+                error(Messages.variableDeclared(declaration.name()));
+            }
+        }
+    }
+
+    private void returnStatement(Stmt.Return returnStatement) {
+        if (current == null) {
+            error(Messages.returnOutside());
+            return;
+        }
+        if (returnStatement.value() == null) {
+            return;
+        }
+        if (current.returnType == Type.VOID) {
+            error(Messages.voidReturn(current.name));
+            return;
+        }
+        convert(expression(returnStatement.value()), current.returnType);
+    }
+
+    /** Checks a call and returns the type of its result, {@code VOID} included. */
+    private Type call(Expr.Call call) {
+        Function function = byName.get(call.function());
+        if (function == null) {
+            boolean print = call.function().name().equals(PRINT);
+            if (!print) {
+                error(Messages.functionNotDeclared(call.function()));
+            }
+            for (Expr argument : call.arguments()) {
+                expression(argument);
+            }
+            return print ? Type.VOID : null;
+        }
+        calls.put(call, function);
+        List<Variable> parameters = function.parameters;
+        if (call.arguments().size() != parameters.size()) {
+            error(Messages.arguments(call.function(), parameters.size(), call.arguments().size()));
+            return function.returnType;
+        }
+        for (int i = 0; i < parameters.size(); i++) {
+            convert(expression(call.arguments().get(i)), parameters.get(i).type);
+        }
+        return function.returnType;
+    }
+
+    // Expressions
+
+    /** Checks {@code expr} and returns its type, or {@code null} if it is in error. */
+    private Type expression(Expr expr) {
+        int errors = diagnostics.size();
+        return typed(expr, errors, check(expr));
+    }
+
+    /** Records {@code type} as the type of {@code expr}, or none if an error was reported since {@code errors}. */
+    private Type typed(Expr expr, int errors, Type type) {
+        types.put(expr, diagnostics.size() == errors ? type : null);
+        return type;
+    }
+
+    private Type check(Expr expr) {
+        if (expr instanceof Expr.IntLiteral literal) {
+            if (literal.value() > Integer.MAX_VALUE) {
+                error(Messages.intRange(literal.value()));
+                return null;
+            }
+            return Type.INT;
+        } else if (expr instanceof Expr.FloatLiteral) {
+            return Type.DOUBLE;
+        } else if (expr instanceof Expr.StringLiteral) {
+            return Type.STRING;
+        } else if (expr instanceof Expr.Name name) {
+            return resolve(name, name.name());
+        } else if (expr instanceof Expr.Assign assign) {
+            Type target = resolve(assign, assign.name());
+            convert(expression(assign.value()), target);
+            return target;
+        } else if (expr instanceof Expr.Call call) {
+            Type type = call(call);
+            if (type == Type.VOID) {
+                error(Messages.voidValue(call.function()));
+                return null;
+            }
+            return type;
+        } else if (expr instanceof Expr.Not not) {
+            condition(not.operand());
+            return Type.INT;
+        } else if (expr instanceof Expr.BinaryOp binary) {
+            BinaryOperator operator = binary.operator();
+            if (operator.isLogical()) {
+                condition(binary.left());
+                condition(binary.right());
+                return Type.INT;
+            }
+            Type left = expression(binary.left());
+            Type right = expression(binary.right());
+            if (!operator.isComparison()) {
+                return arithmetic(operator, left, right);
+            }
+            if (left != null && right != null && !Types.compares(operator, left, right)) {
+                error(Messages.compare(operator.symbol(), left, right));
+            }
+            return Type.INT;
+        }
+        throw new IllegalArgumentException("Unknown expression " + expr);
+    }
+
+    /** An expression used as a truth value: any number. */
+    private void condition(Expr expr) {
+        if (expression(expr) == Type.STRING) {
+            error(Messages.stringCondition());
+        }
+    }
+
+    private Type arithmetic(BinaryOperator operator, Type left, Type right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        Type type = Types.arithmetic(operator, left, right);
+        if (type == null) {
+            error(Messages.stringOperator(operator.symbol()));
+        }
+        return type;
+    }
+
+    // Names and types
+
+    /** The type of the variable {@code name}, which {@code node} refers to, or {@code null} if it is in error. */
+    private Type resolve(Object node, Identifier name) {
+        int symbol = scopes.lookup(name.id());
+        if (symbol == SymbolTable.NONE) {
+            error(Messages.variableNotDeclared(name));
+            return null;
+        }
+        Variable variable = symbols[symbol];
+        variables.put(node, variable);
+        return variable.type;
+    }
+
+    /** Reports a value of type {@code from} used where {@code to} is needed. */
+    private void convert(Type from, Type to) {
+        if (from != null && to != null && !Types.converts(from, to)) {
+            error(Messages.convert(from, to));
+        }
+    }
+
+    private void error(String message) {
+        diagnostics.add("line " + line + ": " + message);
+    }
+}
@@ -0,0 +1,644 @@
+package minilang.sema;
+
+import static minilang.MiniLangParser.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import minilang.MiniLangBaseVisitor;
+import minilang.ast.BinaryOperator;
+import minilang.ast.Type;
+import minilang.jfr.AnalysisEvent;
+import minilang.jfr.PhaseEvent;
+
+/**
+ * Checks names and types of a program straight from its parse tree,
+ * without building the AST.
+ *
+ * <p>The rules and messages are those of {@link Resolution}, which the
+ * backends check the AST with on load, taken from {@link Types} and
+ * {@link Messages}. Every error is collected, not only the first: an
+ * expression in error has no type, and nothing that depends on it is
+ * reported again. Globals are collected first, then every function
+ * signature, so functions may call each other in any order and read any
+ * global.</p>
+ *
+ * <p>Names are interned to ints by {@link Names} and resolved in a
+ * {@link SymbolTable} with a scope per function and per block, so the cost
+ * of resolving a name does not grow with the number of declarations. The
+ * visitor returns the type of each expression, or {@code null} if it is in
+ * error.</p>
+ *
+ * <p>Analysis is in two phases. The globals and function signatures are
+ * declared first, by one analyzer; after that they are only read, and each
+ * function body, like the top-level statements, only needs them and scopes
+ * of its own. The bodies are then checked by analyzers that resolve locals
+ * in their own tables and fall back to the read-only globals, either one
+ * after another or, with {@link #analyze(ProgramContext, ForkJoinPool)},
+ * as tasks on a pool. Either way the diagnostics come out in the same
+ * order.</p>
+ *
+ * <p>The parse tree must come from a parse without syntax errors; a context
+ * left incomplete by error recovery is rejected with an
+ * {@link IllegalArgumentException}.</p>
+ */
+public final class SemanticAnalyzer extends MiniLangBaseVisitor<Type> {
+
+    private static final String PRINT = "print";
+
+    /** Functions per task, at least, when bodies are checked on a pool. */
+    private static final int MIN_CHUNK = 64;
+
+    /** The analyzer that declared the globals and functions; itself for that one. */
+    private final SemanticAnalyzer globals;
+
+    private final Names names = new Names();
+
+    /** The globals, in the analyzer that declared them; otherwise only local scopes. */
+    private final SymbolTable variables = new SymbolTable();
+
+    private final SymbolTable functions;
+
+    /** The parameter types of each function symbol. */
+    private Type[][] parameters;
+
+    private final List<String> diagnostics = new ArrayList<>();
+
+    /** The function being checked; {@code null} at the top level. */
+    private FunctionDeclarationContext current;
+
+    private Type returnType;
+
+    private int line;
+
+    /** An analyzer for the globals and function signatures. */
+    private SemanticAnalyzer() {
+        this.globals = this;
+        this.functions = new SymbolTable();
+        this.parameters = new Type[64][];
+    }
+
+    /** An analyzer for bodies and top-level statements, reading the declarations of {@code globals}. */
+    private SemanticAnalyzer(SemanticAnalyzer globals) {
+        this.globals = globals;
+        this.functions = globals.functions;
+        this.parameters = globals.parameters;
+    }
+
+    /** The errors in {@code program}, in the order the interpreter would meet them, as {@code line N: message}. */
+    public static List<String> analyze(ProgramContext program) {
+        AnalysisEvent event = new AnalysisEvent();
+        event.start();
+        SemanticAnalyzer globals = declarations(program);
+        SemanticAnalyzer bodies = new SemanticAnalyzer(globals);
+        for (FunctionDeclarationContext function : program.functionDeclaration()) {
+            bodies.define(function);
+        }
+        bodies.statements(program);
+        globals.diagnostics.addAll(bodies.diagnostics);
+        commit(event, "semantic", program, globals.diagnostics);
+        return globals.diagnostics;
+    }
+
+    /**
+     * The same errors as {@link #analyze(ProgramContext)}, with the function
+     * bodies split into runs checked as tasks on {@code pool}.
+     */
+    public static List<String> analyze(ProgramContext program, ForkJoinPool pool) {
+        AnalysisEvent event = new AnalysisEvent();
+        event.start();
+        SemanticAnalyzer globals = declarations(program);
+        List<FunctionDeclarationContext> declared = program.functionDeclaration();
+        int tasks = pool.getParallelism() * 4;
+        int chunk = Math.max(MIN_CHUNK, (declared.size() + tasks - 1) / tasks);
+        List<ForkJoinTask<List<String>>> results = new ArrayList<>();
+        for (int from = 0; from < declared.size(); from += chunk) {
+            List<FunctionDeclarationContext> run = declared.subList(from, Math.min(declared.size(), from + chunk));
+            results.add(pool.submit(() -> {
+                SemanticAnalyzer bodies = new SemanticAnalyzer(globals);
+                for (FunctionDeclarationContext function : run) {
+                    bodies.define(function);
+                }
+                return bodies.diagnostics;
+            }));
+        }
+        SemanticAnalyzer statements = new SemanticAnalyzer(globals);
+        statements.statements(program);
+        for (ForkJoinTask<List<String>> result : results) {
+            globals.diagnostics.addAll(result.join());
+        }
+        globals.diagnostics.addAll(statements.diagnostics);
+        commit(event, "semantic on pool", program, globals.diagnostics);
+        return globals.diagnostics;
+    }
+
+    private static void commit(AnalysisEvent event, String pass, ProgramContext program, List<String> diagnostics) {
+        if (event.stop()) {
+            event.pass = pass;
+            event.source = PhaseEvent.source(program);
+            event.tokens = PhaseEvent.tokens(program);
+            event.functions = program.functionDeclaration().size();
+            event.diagnostics = diagnostics.size();
+            event.commit();
+        }
+    }
+
+    /** Declares the globals and function signatures of {@code program}, in an analyzer of their own. */
+    private static SemanticAnalyzer declarations(ProgramContext program) {
+        SemanticAnalyzer globals = new SemanticAnalyzer();
+        globals.declare(program);
+        return globals;
+    }
+
+    private void declare(ProgramContext ctx) {
+        if (ctx.exception != null || ctx.children == null) {
+            throw syntaxError(ctx);
+        }
+        variables.push();
+        functions.push();
+        for (ParseTree child : ctx.children) {
+            if (child instanceof GlobalDeclarationsContext run) {
+                for (VarDeclarationContext declaration : run.varDeclaration()) {
+                    global(declaration, declaration.type(), declaration.IDENTIFIER());
+                }
+            } else if (child instanceof StatementContext statement
+                    && statement.getChild(0) instanceof DeclarationContext declaration) {
+                global(declaration, declaration.type(), declaration.IDENTIFIER());
+            }
+        }
+        for (ParseTree child : ctx.children) {
+            if (child instanceof FunctionDeclarationContext function) {
+                declare(function);
+            }
+        }
+    }
+
+    /** Checks the initialisers of the globals and the top-level statements. */
+    private void statements(ProgramContext ctx) {
+        for (ParseTree child : ctx.children) {
+            if (child instanceof GlobalDeclarationsContext run) {
+                for (VarDeclarationContext declaration : run.varDeclaration()) {
+                    line = line(declaration);
+                    declaration(declaration.type(), declaration.IDENTIFIER(), declaration.expression());
+                }
+            } else if (child instanceof StatementContext statement) {
+                statement(statement);
+            }
+        }
+    }
+
+    private void global(ParserRuleContext ctx, TypeContext typeCtx, TerminalNode name) {
+        line = line(check(ctx));
+        Type type = type(typeCtx);
+        if (type == Type.VOID) {
+            error(Messages.voidVariable(name.getText()));
+            type = null;
+        }
+        if (variables.declare(identifier(name), type, line) == SymbolTable.NONE) {
+            error(Messages.globalDeclared(name.getText()));
+        }
+    }
+
+    private void declare(FunctionDeclarationContext ctx) {
+        line = line(check(ctx));
+        Type[] types = new Type[0];
+        if (ctx.parameterList() != null) {
+            List<ParameterContext> list = check(ctx.parameterList()).parameter();
+            types = new Type[list.size()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = type(check(list.get(i)).type());
+                if (types[i] == Type.VOID) {
+                    error(Messages.voidParameter(list.get(i).IDENTIFIER().getText()));
+                    types[i] = null;
+                }
+            }
+        }
+        int function = functions.declare(identifier(ctx.IDENTIFIER()), type(ctx.type()), line);
+        if (function == SymbolTable.NONE) {
+            error(Messages.functionDeclared(ctx.IDENTIFIER().getText()));
+            return;
+        }
+        if (function == parameters.length) {
+            parameters = Arrays.copyOf(parameters, function * 2);
+        }
+        parameters[function] = types;
+    }
+
+    private void define(FunctionDeclarationContext ctx) {
+        current = ctx;
+        returnType = type(ctx.type());
+        line = line(ctx);
+        variables.push();
+        if (ctx.parameterList() != null) {
+            for (ParameterContext parameter : ctx.parameterList().parameter()) {
+                Type type = type(parameter.type());
+                if (variables.declare(identifier(parameter.IDENTIFIER()), type == Type.VOID ? null : type, line)
+                        == SymbolTable.NONE) {
+                    error(Messages.parameterDeclared(parameter.IDENTIFIER().getText(), ctx.IDENTIFIER().getText()));
+                }
+            }
+        }
+        // The body shares the parameters' scope.
+        for (StatementContext statement : check(ctx.block()).statement()) {
+            statement(statement);
+        }
+        variables.pop();
+        current = null;
+        returnType = null;
+    }
+
+    // Statements
+
+    /** Checks a block in a scope of its own. */
+    private void block(BlockContext ctx) {
+        variables.push();
+        for (StatementContext statement : check(ctx).statement()) {
+            statement(statement);
+        }
+        variables.pop();
+    }
+
+    private void statement(StatementContext ctx) {
+        line = line(check(ctx));
+        ParseTree first = ctx.getChild(0);
+        if (first instanceof DeclarationContext declaration) {
+            check(declaration);
+            declaration(declaration.type(), declaration.IDENTIFIER(), declaration.expression());
+        } else if (first instanceof AssignmentContext assignment) {
+            assignment(assignment);
+        } else if (first instanceof IncrementDecrementWithSemicolonContext incDec) {
+            incDec(check(incDec).IDENTIFIER(), incDec.INCREMENT() != null);
+        } else if (first instanceof IfStatementContext ifStatement) {
+            condition(check(ifStatement).expression());
+            block(ifStatement.block(0));
+            if (ifStatement.block().size() > 1) {
+                block(ifStatement.block(1));
+            }
+        } else if (first instanceof ForStatementContext forStatement) {
+            forStatement(check(forStatement));
+        } else if (first instanceof WhileStatementContext whileStatement) {
+            condition(check(whileStatement).expression());
+            block(whileStatement.block());
+        } else if (first instanceof ReturnStatementContext returnStatement) {
+            returnStatement(check(returnStatement));
+        } else if (first instanceof FunctionCallContext call) {
+            call(call);
+        } else {
+            throw syntaxError(ctx);
+        }
+    }
+
+    private void declaration(TypeContext typeCtx, TerminalNode name, ExpressionContext init) {
+        Type type = type(typeCtx);
+        // Outside any scope this is a global, declared and reported already.
+        boolean local = variables.depth() >= 0;
+        if (type == Type.VOID) {
+            if (local) {
+                error(Messages.voidVariable(name.getText()));
+            }
+            type = null;
+        }
+        // The initialiser is checked before the name is in scope.
+        if (init != null) {
+            convert(expression(init), type);
+        }
+        if (local && variables.declare(identifier(name), type, line) == SymbolTable.NONE) {
+            error(Messages.variableDeclared(name.getText()));
+        }
+    }
+
+    private void assignment(AssignmentContext ctx) {
+        check(ctx);
+        Type target = resolve(ctx.IDENTIFIER());
+        Type value = expression(ctx.expression());
+        int operator = ((TerminalNode) ctx.getChild(1)).getSymbol().getType();
+        if (operator != ASSIGN) {
+            value = arithmetic(switch (operator) {
+                case ADD_ASSIGN -> BinaryOperator.ADD;
+                case SUB_ASSIGN -> BinaryOperator.SUB;
+                case MUL_ASSIGN -> BinaryOperator.MUL;
+                case DIV_ASSIGN -> BinaryOperator.DIV;
+                case MOD_ASSIGN -> BinaryOperator.MOD;
+                default -> throw syntaxError(ctx);
+            }, target, value);
+        }
+        convert(value, target);
+    }
+
+    /** {@code name++} is {@code name += 1}, which concatenates to a string. */
+    private void incDec(TerminalNode name, boolean increment) {
+        Type target = resolve(name);
+        convert(arithmetic(increment ? BinaryOperator.ADD : BinaryOperator.SUB, target, Type.INT), target);
+    }
+
+    private void forStatement(ForStatementContext ctx) {
+        variables.push();
+        DeclarationContext init = check(ctx.declaration());
+        line = line(init);
+        declaration(init.type(), init.IDENTIFIER(), init.expression());
+        line = line(ctx);
+        condition(ctx.expression());
+        if (ctx.assignment() != null) {
+            line = line(ctx.assignment());
+            assignment(ctx.assignment());
+        } else {
+            IncrementDecrementWithoutSemicolonContext incDec = ctx.incrementDecrementWithoutSemicolon();
+            if (incDec == null) {
+                throw syntaxError(ctx);
+            }
+            line = line(check(incDec));
+            incDec(incDec.IDENTIFIER(), incDec.INCREMENT() != null);
+        }
+        block(ctx.block());
+        variables.pop();
+    }
+
+    private void returnStatement(ReturnStatementContext ctx) {
+        if (current == null) {
+            error(Messages.returnOutside());
+            return;
+        }
+        if (ctx.expression() == null) {
+            return;
+        }
+        if (returnType == Type.VOID) {
+            error(Messages.voidReturn(current.IDENTIFIER().getText()));
+            return;
+        }
+        convert(expression(ctx.expression()), returnType);
+    }
+
+    /** Checks a call and returns the type of its result, {@code VOID} included. */
+    private Type call(FunctionCallContext ctx) {
+        check(ctx);
+        List<ExpressionContext> arguments = ctx.argumentList() == null ? List.of()
+                : check(ctx.argumentList()).expression();
+        String name = ctx.IDENTIFIER().getText();
+        int function = global(functions, ctx.IDENTIFIER());
+        if (function == SymbolTable.NONE) {
+            if (!name.equals(PRINT)) {
+                error(Messages.functionNotDeclared(name));
+            }
+            for (ExpressionContext argument : arguments) {
+                expression(argument);
+            }
+            return name.equals(PRINT) ? Type.VOID : null;
+        }
+        Type[] types = parameters[function];
+        if (arguments.size() != types.length) {
+            error(Messages.arguments(name, types.length, arguments.size()));
+            return functions.type(function);
+        }
+        for (int i = 0; i < types.length; i++) {
+            convert(expression(arguments.get(i)), types[i]);
+        }
+        return functions.type(function);
+    }
+
+    // Expressions
+
+    private Type expression(ExpressionContext ctx) {
+        ParserRuleContext checked = check(ctx);
+        if (checked.getChildCount() == 0) {
+            throw syntaxError(ctx);
+        }
+        return checked.accept(this);
+    }
+
+    /** An expression used as a truth value: any number. */
+    private void condition(ExpressionContext ctx) {
+        if (expression(ctx) == Type.STRING) {
+            error(Messages.stringCondition());
+        }
+    }
+
+    private Type arithmetic(BinaryOperator operator, ExpressionContext ctx) {
+        Type left = expression(ctx.getChild(ExpressionContext.class, 0));
+        Type right = expression(ctx.getChild(ExpressionContext.class, 1));
+        return arithmetic(operator, left, right);
+    }
+
+    /** An arithmetic operator, or {@code +} on strings, applied after the usual promotions. */
+    private Type arithmetic(BinaryOperator operator, Type left, Type right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        Type type = Types.arithmetic(operator, left, right);
+        if (type == null) {
+            error(Messages.stringOperator(operator.symbol()));
+        }
+        return type;
+    }
+
+    private Type comparison(BinaryOperator operator, ExpressionContext ctx) {
+        Type left = expression(ctx.getChild(ExpressionContext.class, 0));
+        Type right = expression(ctx.getChild(ExpressionContext.class, 1));
+        if (left != null && right != null && !Types.compares(operator, left, right)) {
+            error(Messages.compare(operator.symbol(), left, right));
+        }
+        return Type.INT;
+    }
+
+    private Type logical(ExpressionContext ctx) {
+        condition(ctx.getChild(ExpressionContext.class, 0));
+        condition(ctx.getChild(ExpressionContext.class, 1));
+        return Type.INT;
+    }
+
+    @Override
+    public Type visitAddExpr(AddExprContext ctx) {
+        return arithmetic(BinaryOperator.ADD, ctx);
+    }
+
+    @Override
+    public Type visitSubExpr(SubExprContext ctx) {
+        return arithmetic(BinaryOperator.SUB, ctx);
+    }
+
+    @Override
+    public Type visitMulExpr(MulExprContext ctx) {
+        return arithmetic(BinaryOperator.MUL, ctx);
+    }
+
+    @Override
+    public Type visitDivExpr(DivExprContext ctx) {
+        return arithmetic(BinaryOperator.DIV, ctx);
+    }
+
+    @Override
+    public Type visitModExpr(ModExprContext ctx) {
+        return arithmetic(BinaryOperator.MOD, ctx);
+    }
+
+    @Override
+    public Type visitLessThanExpr(LessThanExprContext ctx) {
+        return comparison(BinaryOperator.LT, ctx);
+    }
+
+    @Override
+    public Type visitGreaterThanExpr(GreaterThanExprContext ctx) {
+        return comparison(BinaryOperator.GT, ctx);
+    }
+
+    @Override
+    public Type visitLessEqualExpr(LessEqualExprContext ctx) {
+        return comparison(BinaryOperator.LE, ctx);
+    }
+
+    @Override
+    public Type visitGreaterEqualExpr(GreaterEqualExprContext ctx) {
+        return comparison(BinaryOperator.GE, ctx);
+    }
+
+    @Override
+    public Type visitEqualExpr(EqualExprContext ctx) {
+        return comparison(BinaryOperator.EQ, ctx);
+    }
+
+    @Override
+    public Type visitNotEqualExpr(NotEqualExprContext ctx) {
+        return comparison(BinaryOperator.NE, ctx);
+    }
+
+    @Override
+    public Type visitAndExpr(AndExprContext ctx) {
+        return logical(ctx);
+    }
+
+    @Override
+    public Type visitOrExpr(OrExprContext ctx) {
+        return logical(ctx);
+    }
+
+    @Override
+    public Type visitNotExpr(NotExprContext ctx) {
+        condition(ctx.expression());
+        return Type.INT;
+    }
+
+    @Override
+    public Type visitParenExpr(ParenExprContext ctx) {
+        return expression(ctx.expression());
+    }
+
+    @Override
+    public Type visitIdentifierExpr(IdentifierExprContext ctx) {
+        return resolve(ctx.IDENTIFIER());
+    }
+
+    @Override
+    public Type visitNumberExpr(NumberExprContext ctx) {
+        String text = ctx.NUMBER().getText();
+        if (text.indexOf('.') >= 0) {
+            return Type.DOUBLE;
+        }
+        long value;
+        try {
+            value = Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            value = Long.MAX_VALUE;
+        }
+        if (value > Integer.MAX_VALUE) {
+            error(Messages.intRange(text));
+            return null;
+        }
+        return Type.INT;
+    }
+
+    @Override
+    public Type visitStringExpr(StringExprContext ctx) {
+        return Type.STRING;
+    }
+
+    @Override
+    public Type visitAssignExpr(AssignExprContext ctx) {
+        Type target = resolve(ctx.IDENTIFIER());
+        convert(expression(ctx.expression()), target);
+        return target;
+    }
+
+    @Override
+    public Type visitFunctionCallExpr(FunctionCallExprContext ctx) {
+        Type type = call(ctx.functionCall());
+        if (type == Type.VOID) {
+            error(Messages.voidValue(ctx.functionCall().IDENTIFIER().getText()));
+            return null;
+        }
+        return type;
+    }
+
+    // Names and types
+
+    /** The type of the variable {@code name}, local or global, or {@code null} if it is in error. */
+    private Type resolve(TerminalNode name) {
+        SymbolTable table = variables;
+        int variable = table.lookup(identifier(name));
+        if (variable == SymbolTable.NONE) {
+            table = globals.variables;
+            variable = global(table, name);
+        }
+        if (variable == SymbolTable.NONE) {
+            error(Messages.variableNotDeclared(name.getText()));
+            return null;
+        }
+        return table.type(variable);
+    }
+
+    /** The symbol named {@code name} in {@code table} of {@link #globals}, which are no longer changed. */
+    private int global(SymbolTable table, TerminalNode name) {
+        int id = globals.names.find(text(name));
+        return id < 0 ? SymbolTable.NONE : table.lookup(id);
+    }
+
+    private int identifier(TerminalNode node) {
+        return names.intern(text(node));
+    }
+
+    private static String text(TerminalNode node) {
+        // Tokens conjured by error recovery have no index.
+        if (node == null || node.getSymbol().getTokenIndex() < 0) {
+            throw new IllegalArgumentException("Missing identifier in the parse tree");
+        }
+        return node.getText();
+    }
+
+    /** Reports a value of type {@code from} used where {@code to} is needed. */
+    private void convert(Type from, Type to) {
+        if (from != null && to != null && !Types.converts(from, to)) {
+            error(Messages.convert(from, to));
+        }
+    }
+
+    private static Type type(TypeContext ctx) {
+        return Type.of(check(ctx).getStart().getType());
+    }
+
+    private void error(String message) {
+        diagnostics.add("line " + line + ": " + message);
+    }
+
+    private static int line(ParserRuleContext ctx) {
+        return ctx.getStart().getLine();
+    }
+
+    private static <T extends ParserRuleContext> T check(T ctx) {
+        if (ctx == null) {
+            throw new IllegalArgumentException("Missing node in the parse tree");
+        }
+        if (ctx.exception != null) {
+            throw syntaxError(ctx);
+        }
+        return ctx;
+    }
+
+    private static IllegalArgumentException syntaxError(ParserRuleContext ctx) {
+        return new IllegalArgumentException("Syntax error in the parse tree at line " + line(ctx));
+    }
+}
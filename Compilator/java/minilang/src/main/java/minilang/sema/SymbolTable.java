@@ -0,0 +1,159 @@
+package minilang.sema;
+
+import java.util.Arrays;
+
+import minilang.ast.Type;
+
+/**
+ * Nested scopes of symbols, keyed by {@link Names} ids.
+ *
+ * <p>Each open scope has an open-addressing hash table of its own, so a
+ * lookup probes one table per enclosing scope, whatever the number of
+ * symbols in them. Symbols are numbered in declaration order and their
+ * attributes kept in parallel arrays; closing a scope clears exactly the
+ * slots its symbols took and frees their numbers, and its table is kept for
+ * the next scope opened at the same depth. Nothing is allocated once the
+ * arrays have grown to the largest program seen.</p>
+ *
+ * <p>A type of {@code null} is allowed, for a symbol whose declaration was
+ * in error.</p>
+ */
+public final class SymbolTable {
+
+    /** Returned when there is no such symbol. */
+    public static final int NONE = -1;
+
+    private int[] names = new int[64];
+
+    private Type[] types = new Type[64];
+
+    private int[] lines = new int[64];
+
+    /** Where each symbol is in the table of its scope. */
+    private int[] slots = new int[64];
+
+    private int count;
+
+    /** Symbol + 1 in each slot of each scope's table; 0 is empty. */
+    private int[][] tables = new int[16][];
+
+    /** The first symbol of each open scope. */
+    private int[] starts = new int[16];
+
+    private int depth = -1;
+
+    /** Opens a scope inside the current one. */
+    public void push() {
+        depth++;
+        if (depth == tables.length) {
+            tables = Arrays.copyOf(tables, depth * 2);
+            starts = Arrays.copyOf(starts, depth * 2);
+        }
+        if (tables[depth] == null) {
+            tables[depth] = new int[16];
+        }
+        starts[depth] = count;
+    }
+
+    /** Closes the current scope, forgetting its symbols. */
+    public void pop() {
+        int[] table = tables[depth];
+        for (int symbol = starts[depth]; symbol < count; symbol++) {
+            table[slots[symbol]] = 0;
+        }
+        count = starts[depth];
+        depth--;
+    }
+
+    /** How many scopes are open; the outermost is depth 0. */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Declares {@code name} in the current scope.
+     *
+     * @return the new symbol, or {@link #NONE} if the scope already declares
+     *     {@code name}
+     */
+    public int declare(int name, Type type, int line) {
+        int[] table = tables[depth];
+        if ((count - starts[depth] + 1) * 2 > table.length) {
+            table = rehash(table.length * 2);
+        }
+        int slot = slot(table, name);
+        if (table[slot] != 0) {
+            return NONE;
+        }
+        if (count == names.length) {
+            int capacity = count * 2;
+            names = Arrays.copyOf(names, capacity);
+            types = Arrays.copyOf(types, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        names[count] = name;
+        types[count] = type;
+        lines[count] = line;
+        slots[count] = slot;
+        table[slot] = count + 1;
+        return count++;
+    }
+
+    /** The innermost symbol named {@code name} in any open scope, or {@link #NONE}. */
+    public int lookup(int name) {
+        for (int d = depth; d >= 0; d--) {
+            int[] table = tables[d];
+            int entry = table[slot(table, name)];
+            if (entry != 0) {
+                return entry - 1;
+            }
+        }
+        return NONE;
+    }
+
+    /** The symbol named {@code name} in the current scope only, or {@link #NONE}. */
+    public int lookupLocal(int name) {
+        int[] table = tables[depth];
+        return table[slot(table, name)] - 1;
+    }
+
+    public int name(int symbol) {
+        return names[symbol];
+    }
+
+    public Type type(int symbol) {
+        return types[symbol];
+    }
+
+    public int line(int symbol) {
+        return lines[symbol];
+    }
+
+    /** The slot of {@code table} that holds {@code name}, or the empty one where it belongs. */
+    private int slot(int[] table, int name) {
+        int mask = table.length - 1;
+        int slot = hash(name, table.length);
+        while (table[slot] != 0 && names[table[slot] - 1] != name) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Replaces the current scope's table with one of {@code capacity} slots. */
+    private int[] rehash(int capacity) {
+        int[] table = new int[capacity];
+        for (int symbol = starts[depth]; symbol < count; symbol++) {
+            int slot = slot(table, names[symbol]);
+            table[slot] = symbol + 1;
+            slots[symbol] = slot;
+        }
+        tables[depth] = table;
+        return table;
+    }
+
+    /** Fibonacci hashing of {@code key} to a slot of a power-of-two {@code capacity}. */
+    static int hash(int key, int capacity) {
+        return (key * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(capacity) + 1);
+    }
+}
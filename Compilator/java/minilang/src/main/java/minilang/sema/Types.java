@@ -0,0 +1,48 @@
+package minilang.sema;
+
+import minilang.ast.BinaryOperator;
+import minilang.ast.Type;
+
+/**
+ * The typing rules of MiniLang, which {@link Resolution} and
+ * {@link SemanticAnalyzer} check and the backends compile by.
+ */
+public final class Types {
+
+    private Types() {
+    }
+
+    /** The type two numbers are converted to before an operator applies: the wider one. */
+    public static Type promote(Type left, Type right) {
+        if (left == Type.DOUBLE || right == Type.DOUBLE) {
+            return Type.DOUBLE;
+        }
+        return left == Type.FLOAT || right == Type.FLOAT ? Type.FLOAT : Type.INT;
+    }
+
+    /**
+     * The type of an arithmetic operator applied to {@code left} and
+     * {@code right}, or {@code null} if it is not defined: {@code +} with a
+     * string operand concatenates, and no other operator takes a string.
+     */
+    public static Type arithmetic(BinaryOperator operator, Type left, Type right) {
+        if (left == Type.STRING || right == Type.STRING) {
+            return operator == BinaryOperator.ADD ? Type.STRING : null;
+        }
+        return promote(left, right);
+    }
+
+    /**
+     * Whether a comparison applies to {@code left} and {@code right}: a
+     * string only compares to a string, with {@code ==} and {@code !=}.
+     */
+    public static boolean compares(BinaryOperator operator, Type left, Type right) {
+        return left != Type.STRING && right != Type.STRING
+                || left == right && (operator == BinaryOperator.EQ || operator == BinaryOperator.NE);
+    }
+
+    /** Whether a value of type {@code from} can be stored as {@code to}; numbers convert to each other. */
+    public static boolean converts(Type from, Type to) {
+        return from != Type.VOID && to != Type.VOID && (from == Type.STRING) == (to == Type.STRING);
+    }
+}
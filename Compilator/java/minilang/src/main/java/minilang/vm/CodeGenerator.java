@@ -0,0 +1,896 @@
+package minilang.vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+import minilang.ast.BinaryOperator;
+import minilang.ast.Expr;
+import minilang.ast.FunctionDecl;
+import minilang.ast.Identifier;
+import minilang.ast.Item;
+import minilang.ast.Program;
+import minilang.ast.Stmt;
+import minilang.ast.Type;
+import minilang.sema.Resolution;
+import minilang.sema.Types;
+
+/**
+ * Compiles a {@link Program} to the register code of {@link Op}.
+ *
+ * <p>The program is compiled from what {@link Resolution} found in it. A
+ * local variable gets a register of its type's file for the rest
+ * of its block, and the registers of a block are reused by the blocks after
+ * it. Temporaries are allocated above the locals and released at the end of
+ * the statement, so a register's number is also its depth on a stack; a call
+ * evaluates its arguments into the next free registers, which become the
+ * first registers of the callee's frame without being copied.</p>
+ *
+ * <p>Each literal of a function gets a register after its parameters,
+ * loaded once when the function is entered, so a literal in a loop costs no
+ * instruction.</p>
+ */
+final class CodeGenerator {
+
+    private static final int I = 0;
+    private static final int D = 1;
+    private static final int S = 2;
+
+    private static final int MAX_OPERAND = (1 << 24) - 1;
+
+    private int[] code = new int[256];
+    private int size;
+
+    private double[] doubles = new double[16];
+    private int doubleCount;
+    private final Map<Long, Integer> doubleIndex = new HashMap<>();
+
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+
+    private final Resolution resolution;
+
+    private final Map<Resolution.Variable, Variable> variables = new HashMap<>();
+    private final int[] globalCount = new int[3];
+
+    private final Map<Resolution.Function, Signature> functions = new HashMap<>();
+    private final List<Signature> functionList = new ArrayList<>();
+
+    /** The function being compiled; its name is {@code null} for the top level. */
+    private Signature current;
+
+    /** The first free register of each file. */
+    private final int[] top = new int[3];
+
+    /** The register holding each literal of the current function, by its boxed value. */
+    private final Map<Object, Integer> literals = new HashMap<>();
+
+    private int line;
+
+    private CodeGenerator(Resolution resolution) {
+        this.resolution = resolution;
+        for (Resolution.Variable global : resolution.globals()) {
+            variables.put(global,
+                    new Variable(global.name(), global.type(), globalCount[file(global.type())]++, true));
+        }
+    }
+
+    /**
+     * The register code of {@code program}.
+     *
+     * @throws IllegalArgumentException with the first error {@link Resolution} finds, or if a
+     *     function needs too many registers
+     */
+    static Image compile(Program program) {
+        CodeGenerator generator = new CodeGenerator(Resolution.resolve(program).check());
+        for (Item item : program.items()) {
+            if (item instanceof FunctionDecl function) {
+                generator.declare(function);
+            }
+        }
+        for (Item item : program.items()) {
+            if (item instanceof FunctionDecl function) {
+                generator.define(function);
+            }
+        }
+        int topLevel = generator.topLevel(program);
+
+        Image.Function[] functions = new Image.Function[generator.functionList.size()];
+        for (int f = 0; f < functions.length; f++) {
+            Signature s = generator.functionList.get(f);
+            functions[f] = new Image.Function(s.name == null ? null : s.name.name(), s.returnType, s.parameters,
+                    s.entry, s.max[I], s.max[D], s.max[S]);
+        }
+        return new Image(Arrays.copyOf(generator.code, generator.size),
+                Arrays.copyOf(generator.doubles, generator.doubleCount), generator.strings.toArray(new String[0]),
+                functions, topLevel, generator.globalCount[I], generator.globalCount[D], generator.globalCount[S]);
+    }
+
+    private void declare(FunctionDecl declaration) {
+        Resolution.Function function = resolution.function(declaration);
+        Type[] parameters = new Type[function.parameters().size()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = function.parameters().get(i).type();
+        }
+        Signature signature = new Signature(functionList.size(), declaration.name(), declaration.returnType(),
+                parameters);
+        functions.put(function, signature);
+        functionList.add(signature);
+    }
+
+    private void define(FunctionDecl declaration) {
+        Resolution.Function function = resolution.function(declaration);
+        line = declaration.line();
+        begin(functions.get(function));
+        for (Resolution.Variable parameter : function.parameters()) {
+            variables.put(parameter,
+                    new Variable(parameter.name(), parameter.type(), allocate(file(parameter.type())), false));
+        }
+        loadLiterals(declaration.body());
+        statements(declaration.body());
+        // A function that ends without return yields its type's zero.
+        returnZero(current.returnType);
+    }
+
+    /** Compiles the top level as a function of its own, whose frame holds the variables of its blocks. */
+    private int topLevel(Program program) {
+        Signature script = new Signature(functionList.size(), null, Type.VOID, new Type[0]);
+        functionList.add(script);
+        begin(script);
+        List<Stmt> statements = new ArrayList<>(program.globals());
+        for (Item item : program.items()) {
+            if (item instanceof Stmt statement) {
+                statements.add(statement);
+            }
+        }
+        loadLiterals(statements);
+        for (Stmt.VarDecl global : program.globals()) {
+            statement(global);
+        }
+        for (Item item : program.items()) {
+            if (item instanceof Stmt statement) {
+                statement(statement);
+            }
+        }
+        emit(Op.RET, 0);
+        return script.index;
+    }
+
+    private void begin(Signature function) {
+        current = function;
+        function.entry = size;
+        Arrays.fill(top, 0);
+        literals.clear();
+    }
+
+    /** Gives every distinct literal in {@code statements} a register, and loads them all. */
+    private void loadLiterals(List<Stmt> statements) {
+        List<Expr> found = new ArrayList<>();
+        for (Stmt statement : statements) {
+            collectLiterals(statement, found);
+        }
+        for (Expr literal : found) {
+            if (literal instanceof Expr.IntLiteral value && value.value() <= Integer.MAX_VALUE) {
+                if (!literals.containsKey((int) value.value())) {
+                    int register = allocate(I);
+                    emit(Op.LOAD_I, register, (int) value.value());
+                    literals.put((int) value.value(), register);
+                }
+            } else if (literal instanceof Expr.FloatLiteral value) {
+                if (!literals.containsKey(value.value())) {
+                    int register = allocate(D);
+                    emit(Op.CONST_D, register, constant(value.value()));
+                    literals.put(value.value(), register);
+                }
+            } else if (literal instanceof Expr.StringLiteral value) {
+                if (!literals.containsKey(value.value())) {
+                    int register = allocate(S);
+                    emit(Op.CONST_S, register, constant(value.value()));
+                    literals.put(value.value(), register);
+                }
+            }
+        }
+    }
+
+    private static void collectLiterals(Stmt statement, List<Expr> found) {
+        if (statement instanceof Stmt.VarDecl declaration) {
+            collectLiterals(declaration.init(), found);
+        } else if (statement instanceof Stmt.Assign assignment) {
+            collectLiterals(assignment.value(), found);
+        } else if (statement instanceof Stmt.If ifStatement) {
+            collectLiterals(ifStatement.condition(), found);
+            ifStatement.then().forEach(s -> collectLiterals(s, found));
+            if (ifStatement.otherwise() != null) {
+                ifStatement.otherwise().forEach(s -> collectLiterals(s, found));
+            }
+        } else if (statement instanceof Stmt.For forStatement) {
+            collectLiterals(forStatement.init(), found);
+            collectLiterals(forStatement.condition(), found);
+            collectLiterals(forStatement.update(), found);
+            forStatement.body().forEach(s -> collectLiterals(s, found));
+        } else if (statement instanceof Stmt.While whileStatement) {
+            collectLiterals(whileStatement.condition(), found);
+            whileStatement.body().forEach(s -> collectLiterals(s, found));
+        } else if (statement instanceof Stmt.Return returnStatement) {
+            collectLiterals(returnStatement.value(), found);
+        } else if (statement instanceof Stmt.CallStmt call) {
+            collectLiterals(call.call(), found);
+        }
+    }
+
+    private static void collectLiterals(Expr expr, List<Expr> found) {
+        if (expr instanceof Expr.IntLiteral || expr instanceof Expr.FloatLiteral || expr instanceof Expr.StringLiteral) {
+            found.add(expr);
+        } else if (expr instanceof Expr.BinaryOp binary) {
+            collectLiterals(binary.left(), found);
+            collectLiterals(binary.right(), found);
+        } else if (expr instanceof Expr.Not not) {
+            collectLiterals(not.operand(), found);
+        } else if (expr instanceof Expr.Assign assign) {
+            collectLiterals(assign.value(), found);
+        } else if (expr instanceof Expr.Call call) {
+            call.arguments().forEach(argument -> collectLiterals(argument, found));
+        }
+    }
+
+    // Statements
+
+    private void statements(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            statement(statement);
+        }
+    }
+
+    /** Compiles a block, whose registers are free again after it. */
+    private void scoped(List<Stmt> statements) {
+        int[] mark = top.clone();
+        statements(statements);
+        release(mark);
+    }
+
+    private void statement(Stmt statement) {
+        line = statement.line();
+        if (statement instanceof Stmt.VarDecl declaration) {
+            declaration(declaration);
+            return;
+        }
+        int[] mark = top.clone();
+        if (statement instanceof Stmt.Assign assignment) {
+            Variable variable = variables.get(resolution.variable(assignment));
+            Expr value = assignment.value();
+            BinaryOperator operator = assignment.operator().operator();
+            if (operator == null) {
+                assign(variable, register -> expressionTo(value, variable.type, register));
+            } else {
+                Type type = resolution.type(value);
+                assign(variable, register -> update(variable, operator, type, () -> expression(value, -1),
+                        assigns(value), register));
+            }
+        } else if (statement instanceof Stmt.IncDec incDec) {
+            Variable variable = variables.get(resolution.variable(incDec));
+            if (variable.type == Type.INT && !variable.global) {
+                emit(Op.INC_I, variable.register, incDec.increment() ? 1 : -1);
+            } else {
+                BinaryOperator operator = incDec.increment() ? BinaryOperator.ADD : BinaryOperator.SUB;
+                assign(variable, register -> update(variable, operator, Type.INT, () -> literal(1, I, -1), false,
+                        register));
+            }
+        } else if (statement instanceof Stmt.If ifStatement) {
+            Label otherwise = new Label();
+            branch(ifStatement.condition(), false, otherwise);
+            scoped(ifStatement.then());
+            if (ifStatement.otherwise() == null) {
+                place(otherwise);
+            } else {
+                Label end = new Label();
+                jump(end);
+                place(otherwise);
+                scoped(ifStatement.otherwise());
+                place(end);
+            }
+        } else if (statement instanceof Stmt.While whileStatement) {
+            // The test is at the bottom, so each iteration takes one jump.
+            Label body = new Label();
+            Label test = new Label();
+            jump(test);
+            place(body);
+            scoped(whileStatement.body());
+            place(test);
+            branch(whileStatement.condition(), true, body);
+        } else if (statement instanceof Stmt.For forStatement) {
+            forStatement(forStatement);
+        } else if (statement instanceof Stmt.Return returnStatement) {
+            returnStatement(returnStatement);
+        } else if (statement instanceof Stmt.CallStmt call) {
+            call(call.call(), -1);
+        } else {
+            throw new IllegalArgumentException("Unknown statement " + statement);
+        }
+        release(mark);
+    }
+
+    private void declaration(Stmt.VarDecl declaration) {
+        Resolution.Variable variable = resolution.variable(declaration);
+        int file = file(declaration.type());
+        int[] mark = top.clone();
+        if (variable.global()) {
+            Variable global = variables.get(variable);
+            int value = allocate(file);
+            initialise(declaration, value);
+            emit(Op.SET_I + file, global.register, value);
+            release(mark);
+            return;
+        }
+        int register = allocate(file);
+        initialise(declaration, register);
+        release(mark);
+        top[file] = register + 1;
+        variables.put(variable, new Variable(declaration.name(), declaration.type(), register, false));
+    }
+
+    private void initialise(Stmt.VarDecl declaration, int register) {
+        if (declaration.init() != null) {
+            expressionTo(declaration.init(), declaration.type(), register);
+        } else {
+            loadZero(declaration.type(), register);
+        }
+    }
+
+    private void forStatement(Stmt.For forStatement) {
+        int[] mark = top.clone();
+        statement(forStatement.init());
+        line = forStatement.line();
+        Label body = new Label();
+        Label test = new Label();
+        jump(test);
+        place(body);
+        scoped(forStatement.body());
+        statement(forStatement.update());
+        line = forStatement.line();
+        place(test);
+        branch(forStatement.condition(), true, body);
+        release(mark);
+    }
+
+    private void returnStatement(Stmt.Return returnStatement) {
+        Type type = current.returnType;
+        if (returnStatement.value() == null) {
+            returnZero(type);
+            return;
+        }
+        emit(Op.RET_I + file(type), operand(returnStatement.value(), type));
+    }
+
+    private void returnZero(Type type) {
+        if (type == Type.VOID) {
+            emit(Op.RET, 0);
+            return;
+        }
+        int register = allocate(file(type));
+        loadZero(type, register);
+        emit(Op.RET_I + file(type), register);
+    }
+
+    // Variables
+
+    /** A global, whose register is in the global files, or a local of the current frame. */
+    private record Variable(Identifier name, Type type, int register, boolean global) {
+    }
+
+    /**
+     * Stores in {@code variable} what {@code value} compiles into the register
+     * it is given, of the variable's type; a local is computed in place.
+     */
+    private void assign(Variable variable, IntConsumer value) {
+        if (variable.global) {
+            int register = allocate(file(variable.type));
+            value.accept(register);
+            emit(Op.SET_I + file(variable.type), variable.register, register);
+        } else {
+            value.accept(variable.register);
+        }
+    }
+
+    /**
+     * Compiles {@code variable op value} into {@code target}, converted to the
+     * variable's type; {@code value} pushes the right operand, of type
+     * {@code type}, and {@code assigns} tells whether it assigns to variables.
+     */
+    private void update(Variable variable, BinaryOperator operator, Type type, IntSupplier value, boolean assigns,
+            int target) {
+        Type result = Types.arithmetic(operator, variable.type, type);
+        convertTo(result, variable.type, target,
+                register -> arithmetic(operator, variable.type, () -> load(variable, -1), type, value, assigns,
+                        register));
+    }
+
+    /** The register holding {@code variable}: {@code target} if it is not negative, else its own or a temporary. */
+    private int load(Variable variable, int target) {
+        int file = file(variable.type);
+        if (variable.global) {
+            int register = target >= 0 ? target : allocate(file);
+            emit(Op.GET_I + file, register, variable.register);
+            return register;
+        }
+        if (target >= 0 && target != variable.register) {
+            emit(Op.MOVE_I + file, target, variable.register);
+            return target;
+        }
+        return variable.register;
+    }
+
+    /** The next free register of {@code file}. */
+    private int allocate(int file) {
+        int register = top[file]++;
+        if (register > MAX_OPERAND) {
+            throw error("too many registers");
+        }
+        current.max[file] = Math.max(current.max[file], top[file]);
+        return register;
+    }
+
+    /** Frees every register allocated since {@code mark} was taken. */
+    private void release(int[] mark) {
+        System.arraycopy(mark, 0, top, 0, top.length);
+    }
+
+    // Expressions
+
+    /** Compiles {@code expr} into {@code target} of {@code type}'s file, converting it to {@code type}. */
+    private void expressionTo(Expr expr, Type type, int target) {
+        convertTo(resolution.type(expr), type, target, register -> expression(expr, register));
+    }
+
+    /**
+     * Compiles a value of type {@code from} into {@code target}, converting it
+     * to {@code type}: {@code value} compiles it into the register it is
+     * given, or a register of its choice for {@code -1}, and returns that.
+     */
+    private void convertTo(Type from, Type type, int target, IntUnaryOperator value) {
+        if (from == type || from == Type.FLOAT && type == Type.DOUBLE) {
+            value.applyAsInt(target);
+            return;
+        }
+        int[] mark = top.clone();
+        convert(from, type, target, value.applyAsInt(-1));
+        release(mark);
+    }
+
+    /** A register holding {@code expr} converted to {@code type}, which may be the register of a variable. */
+    private int operand(Expr expr, Type type) {
+        return operand(resolution.type(expr), expression(expr, -1), type);
+    }
+
+    /** Register {@code value}, of type {@code from}, or a new temporary holding it converted to {@code type}. */
+    private int operand(Type from, int value, Type type) {
+        if (from == type || from == Type.FLOAT && type == Type.DOUBLE) {
+            return value;
+        }
+        int register = allocate(file(type));
+        convert(from, type, register, value);
+        return register;
+    }
+
+    /**
+     * Compiles {@code expr} and returns the register that holds its value:
+     * {@code target} if it is not negative, otherwise a new temporary or the
+     * register of the variable it names.
+     */
+    private int expression(Expr expr, int target) {
+        if (expr instanceof Expr.IntLiteral literal) {
+            return literal((int) literal.value(), I, target);
+        } else if (expr instanceof Expr.FloatLiteral literal) {
+            return literal(literal.value(), D, target);
+        } else if (expr instanceof Expr.StringLiteral literal) {
+            return literal(literal.value(), S, target);
+        } else if (expr instanceof Expr.Name name) {
+            return load(variables.get(resolution.variable(name)), target);
+        } else if (expr instanceof Expr.Assign assign) {
+            Variable variable = variables.get(resolution.variable(assign));
+            int file = file(variable.type);
+            if (variable.global) {
+                int register = target >= 0 ? target : allocate(file);
+                expressionTo(assign.value(), variable.type, register);
+                emit(Op.SET_I + file, variable.register, register);
+                return register;
+            }
+            expressionTo(assign.value(), variable.type, variable.register);
+            if (target >= 0 && target != variable.register) {
+                emit(Op.MOVE_I + file, target, variable.register);
+                return target;
+            }
+            return variable.register;
+        } else if (expr instanceof Expr.Call call) {
+            return call(call, target);
+        } else if (expr instanceof Expr.Not || expr instanceof Expr.BinaryOp binary
+                && (binary.operator().isComparison() || binary.operator().isLogical())) {
+            int register = target >= 0 ? target : allocate(I);
+            Label isFalse = new Label();
+            Label end = new Label();
+            branch(expr, false, isFalse);
+            emit(Op.LOAD_I, register, 1);
+            jump(end);
+            place(isFalse);
+            emit(Op.LOAD_I, register, 0);
+            place(end);
+            return register;
+        } else if (expr instanceof Expr.BinaryOp binary) {
+            return arithmetic(binary.operator(), resolution.type(binary.left()), () -> expression(binary.left(), -1),
+                    resolution.type(binary.right()), () -> expression(binary.right(), -1), assigns(binary.right()),
+                    target);
+        }
+        throw new IllegalArgumentException("Unknown expression " + expr);
+    }
+
+    /** The register of a literal, which must never be written, or {@code target} with the literal copied to it. */
+    private int literal(Object value, int file, int target) {
+        Integer loaded = literals.get(value);
+        if (loaded == null) {
+            // Only the literals the compiler makes up, such as the 1 of ++, are not loaded on entry.
+            int register = target >= 0 ? target : allocate(file);
+            switch (file) {
+                case I -> emit(Op.LOAD_I, register, (Integer) value);
+                case D -> emit(Op.CONST_D, register, constant((double) value));
+                default -> emit(Op.CONST_S, register, constant((String) value));
+            }
+            return register;
+        }
+        int register = loaded;
+        if (target >= 0 && target != register) {
+            emit(Op.MOVE_I + file, target, register);
+            return target;
+        }
+        return register;
+    }
+
+    /**
+     * An arithmetic operator, or {@code +} on strings, applied after the
+     * usual promotions; {@code left} and {@code right} compile the operands,
+     * of type {@code leftType} and {@code rightType}, and return their
+     * registers, and {@code rightAssigns} tells whether the right one assigns
+     * to variables.
+     */
+    private int arithmetic(BinaryOperator operator, Type leftType, IntSupplier left, Type rightType,
+            IntSupplier right, boolean rightAssigns, int target) {
+        int[] mark = top.clone();
+        if (leftType == Type.STRING || rightType == Type.STRING) {
+            int l = stable(text(leftType, left.getAsInt()), S, mark, rightAssigns);
+            int r = text(rightType, right.getAsInt());
+            release(mark);
+            int register = target >= 0 ? target : allocate(S);
+            emit(Op.CONCAT, register, l, r);
+            return register;
+        }
+        Type type = Types.promote(leftType, rightType);
+        int file = file(type);
+        int l = stable(operand(leftType, left.getAsInt(), type), file, mark, rightAssigns);
+        int r = operand(rightType, right.getAsInt(), type);
+        // The operands are read before the result is written, so it may reuse their registers.
+        release(mark);
+        int register = target >= 0 ? target : allocate(file);
+        int base = switch (type) {
+            case INT -> Op.ADD_I;
+            case FLOAT -> Op.ADD_F;
+            default -> Op.ADD_D;
+        };
+        int offset = switch (operator) {
+            case ADD -> 0;
+            case SUB -> 1;
+            case MUL -> 2;
+            case DIV -> 3;
+            case MOD -> 4;
+            default -> throw new AssertionError(operator);
+        };
+        emit(base + offset, register, l, r);
+        return register;
+    }
+
+    /**
+     * {@code register}, or a copy of it if it is a variable's and what is
+     * evaluated before it is used {@code assigns} to variables.
+     */
+    private int stable(int register, int file, int[] mark, boolean assigns) {
+        if (register >= mark[file] || !assigns) {
+            return register;
+        }
+        int copy = allocate(file);
+        emit(Op.MOVE_I + file, copy, register);
+        return copy;
+    }
+
+    private static boolean assigns(Expr expr) {
+        if (expr instanceof Expr.Assign) {
+            return true;
+        } else if (expr instanceof Expr.BinaryOp binary) {
+            return assigns(binary.left()) || assigns(binary.right());
+        } else if (expr instanceof Expr.Not not) {
+            return assigns(not.operand());
+        } else if (expr instanceof Expr.Call call) {
+            return call.arguments().stream().anyMatch(CodeGenerator::assigns);
+        }
+        return false;
+    }
+
+    /** Jumps to {@code target} if {@code expr}, as a truth value, is {@code when}; non-zero is true. */
+    private void branch(Expr expr, boolean when, Label target) {
+        if (expr instanceof Expr.Not not) {
+            branch(not.operand(), !when, target);
+            return;
+        }
+        if (expr instanceof Expr.BinaryOp binary && binary.operator().isLogical()) {
+            boolean and = binary.operator() == BinaryOperator.AND;
+            if (and != when) {
+                // false && x is false, true || x is true: either operand decides.
+                branch(binary.left(), when, target);
+                branch(binary.right(), when, target);
+            } else {
+                Label skip = new Label();
+                branch(binary.left(), !when, skip);
+                branch(binary.right(), when, target);
+                place(skip);
+            }
+            return;
+        }
+        if (expr instanceof Expr.BinaryOp binary && binary.operator().isComparison()) {
+            comparison(binary.operator(), binary.left(), binary.right(), when, target);
+            return;
+        }
+        Type type = resolution.type(expr);
+        int[] mark = top.clone();
+        int register = expression(expr, -1);
+        release(mark);
+        if (type == Type.INT) {
+            emit(when ? Op.JNZ_I : Op.JZ_I, register);
+        } else {
+            emit(when ? Op.JNZ_D : Op.JZ_D, register);
+        }
+        jumpTarget(target);
+    }
+
+    private void comparison(BinaryOperator operator, Expr left, Expr right, boolean when, Label target) {
+        Type leftType = resolution.type(left);
+        Type rightType = resolution.type(right);
+        int[] mark = top.clone();
+        if (leftType == Type.STRING) {
+            int l = stable(expression(left, -1), S, mark, assigns(right));
+            int r = expression(right, -1);
+            release(mark);
+            emit((operator == BinaryOperator.EQ) == when ? Op.JEQ_S : Op.JNE_S, l, r);
+            jumpTarget(target);
+            return;
+        }
+        Type type = Types.promote(leftType, rightType);
+        int file = file(type);
+        int l = stable(operand(left, type), file, mark, assigns(right));
+        int r = operand(right, type);
+        release(mark);
+        if (file == I) {
+            // The negation of an int comparison is the opposite comparison.
+            BinaryOperator test = when ? operator : switch (operator) {
+                case LT -> BinaryOperator.GE;
+                case GT -> BinaryOperator.LE;
+                case LE -> BinaryOperator.GT;
+                case GE -> BinaryOperator.LT;
+                case EQ -> BinaryOperator.NE;
+                case NE -> BinaryOperator.EQ;
+                default -> throw new AssertionError(operator);
+            };
+            switch (test) {
+                case LT -> emit(Op.JLT_I, l, r);
+                case GT -> emit(Op.JLT_I, r, l);
+                case LE -> emit(Op.JLE_I, l, r);
+                case GE -> emit(Op.JLE_I, r, l);
+                case EQ -> emit(Op.JEQ_I, l, r);
+                case NE -> emit(Op.JNE_I, l, r);
+                default -> throw new AssertionError(test);
+            }
+        } else {
+            // A comparison with NaN is false, so the negation of a < b is not a >= b.
+            switch (operator) {
+                case LT -> emit(when ? Op.JLT_D : Op.JNLT_D, l, r);
+                case GT -> emit(when ? Op.JLT_D : Op.JNLT_D, r, l);
+                case LE -> emit(when ? Op.JLE_D : Op.JNLE_D, l, r);
+                case GE -> emit(when ? Op.JLE_D : Op.JNLE_D, r, l);
+                case EQ -> emit(when ? Op.JEQ_D : Op.JNE_D, l, r);
+                case NE -> emit(when ? Op.JNE_D : Op.JEQ_D, l, r);
+                default -> throw new AssertionError(operator);
+            }
+        }
+        jumpTarget(target);
+    }
+
+    /** Compiles a call into {@code target}, or a new temporary, and returns the register of its result. */
+    private int call(Expr.Call call, int target) {
+        Signature function = functions.get(resolution.function(call));
+        if (function == null) {
+            print(call);
+            return -1;
+        }
+        Type[] parameters = function.parameters;
+        // The arguments go to the next free registers, where the callee's frame starts.
+        int[] mark = top.clone();
+        for (int a = 0; a < parameters.length; a++) {
+            int register = allocate(file(parameters[a]));
+            int[] argument = top.clone();
+            expressionTo(call.arguments().get(a), parameters[a], register);
+            release(argument);
+        }
+        release(mark);
+        int result = 0;
+        if (function.returnType != Type.VOID) {
+            result = target >= 0 ? target : allocate(file(function.returnType));
+        }
+        emit(Op.CALL, function.index, result, mark[I], mark[D]);
+        word(mark[S]);
+        return result;
+    }
+
+    /** The built-in {@code print}, unless the program declares its own: prints its arguments on one line. */
+    private void print(Expr.Call call) {
+        int[] mark = top.clone();
+        int first = top[S];
+        for (Expr argument : call.arguments()) {
+            int register = allocate(S);
+            int[] next = top.clone();
+            Type type = resolution.type(argument);
+            if (type == Type.STRING) {
+                expression(argument, register);
+            } else {
+                toText(type, register, expression(argument, -1));
+            }
+            release(next);
+        }
+        emit(Op.PRINT, first, call.arguments().size());
+        release(mark);
+    }
+
+    // Conversions
+
+    /** Converts register {@code value} from {@code from} to {@code to} into register {@code target}. */
+    private void convert(Type from, Type to, int target, int value) {
+        if (from == Type.INT) {
+            emit(to == Type.FLOAT ? Op.I2F : Op.I2D, target, value);
+        } else if (to == Type.INT) {
+            emit(Op.D2I, target, value);
+        } else if (to == Type.FLOAT) {
+            emit(Op.D2F, target, value);
+        } else if (target != value) {
+            // A float is held as the double of the same value.
+            emit(Op.MOVE_D, target, value);
+        }
+    }
+
+    /** A register holding {@code value}, of type {@code type}, as text, for {@code +} with a string. */
+    private int text(Type type, int value) {
+        if (type == Type.STRING) {
+            return value;
+        }
+        int register = allocate(S);
+        toText(type, register, value);
+        return register;
+    }
+
+    private void toText(Type type, int target, int value) {
+        emit(switch (type) {
+            case INT -> Op.STR_I;
+            case FLOAT -> Op.STR_F;
+            case DOUBLE -> Op.STR_D;
+            default -> throw new AssertionError(type);
+        }, target, value);
+    }
+
+    private void loadZero(Type type, int register) {
+        switch (type) {
+            case INT -> emit(Op.LOAD_I, register, 0);
+            case FLOAT, DOUBLE -> emit(Op.CONST_D, register, constant(0.0));
+            case STRING -> emit(Op.CONST_S, register, constant(""));
+            case VOID -> throw new AssertionError();
+        }
+    }
+
+    /** The register file of {@code type}: {@code float} shares the {@code double} registers. */
+    private static int file(Type type) {
+        return switch (type) {
+            case INT -> I;
+            case FLOAT, DOUBLE -> D;
+            case STRING -> S;
+            case VOID -> throw new AssertionError();
+        };
+    }
+
+    // Code
+
+    private int constant(double value) {
+        return doubleIndex.computeIfAbsent(Double.doubleToRawLongBits(value), bits -> {
+            if (doubleCount == doubles.length) {
+                doubles = Arrays.copyOf(doubles, doubleCount * 2);
+            }
+            doubles[doubleCount] = value;
+            return doubleCount++;
+        });
+    }
+
+    private int constant(String value) {
+        return stringIndex.computeIfAbsent(value, v -> {
+            strings.add(v);
+            return strings.size() - 1;
+        });
+    }
+
+    private void emit(int op, int a) {
+        word(op | a << 8);
+    }
+
+    private void emit(int op, int a, int b) {
+        emit(op, a);
+        word(b);
+    }
+
+    private void emit(int op, int a, int b, int c) {
+        emit(op, a, b);
+        word(c);
+    }
+
+    private void emit(int op, int a, int b, int c, int d) {
+        emit(op, a, b, c);
+        word(d);
+    }
+
+    private void word(int word) {
+        if (size == code.length) {
+            code = Arrays.copyOf(code, size * 2);
+        }
+        code[size++] = word;
+    }
+
+    private void jump(Label target) {
+        emit(Op.JUMP, 0);
+        jumpTarget(target);
+    }
+
+    /** The target word of the jump being emitted; filled in when the label is placed. */
+    private void jumpTarget(Label target) {
+        if (target.pc < 0) {
+            target.uses.add(size);
+        }
+        word(target.pc);
+    }
+
+    private void place(Label label) {
+        label.pc = size;
+        for (int use : label.uses) {
+            code[use] = size;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("line " + line + ": " + message);
+    }
+
+    /** A position in the code that jumps may be emitted to before it is known. */
+    private static final class Label {
+        int pc = -1;
+        final List<Integer> uses = new ArrayList<>();
+    }
+
+    private static final class Signature {
+        final int index;
+        final Identifier name;
+        final Type returnType;
+        final Type[] parameters;
+        int entry;
+        final int[] max = new int[3];
+
+        Signature(int index, Identifier name, Type returnType, Type[] parameters) {
+            this.index = index;
+            this.name = name;
+            this.returnType = returnType;
+            this.parameters = parameters;
+        }
+    }
+}
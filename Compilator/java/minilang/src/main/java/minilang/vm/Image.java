@@ -0,0 +1,21 @@
+package minilang.vm;
+
+import minilang.ast.Type;
+
+/**
+ * A compiled program: the code of all its functions in one array, the
+ * constant pools its literals are loaded from, and the size of every
+ * register file.
+ *
+ * @param topLevel index of the function that runs the top level
+ */
+record Image(int[] code, double[] doubles, String[] strings, Function[] functions, int topLevel,
+             int globalInts, int globalDoubles, int globalStrings) {
+
+    /**
+     * A function's signature, where its code starts, and how many registers
+     * of each file its frame uses; its parameters are its first registers.
+     */
+    record Function(String name, Type returnType, Type[] parameters, int entry, int ints, int doubles, int strings) {
+    }
+}
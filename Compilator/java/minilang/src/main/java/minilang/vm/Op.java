@@ -0,0 +1,122 @@
+package minilang.vm;
+
+/**
+ * The instruction set of the {@link VirtualMachine}.
+ *
+ * <p>An instruction is one word holding the opcode in its low 8 bits and
+ * its first operand, {@code a}, in the high 24, followed by a fixed number
+ * of operand words {@code b}, {@code c}, ... The length of each instruction,
+ * in words, is in the comment after it.</p>
+ *
+ * <p>Registers are numbered from the base of the current frame in one of
+ * three register files: {@code I} holds {@code int}s as {@code long}s,
+ * {@code D} holds {@code double}s and {@code float}s, the latter rounded to
+ * {@code float} after every operation, and {@code S} holds strings. Globals
+ * have files of their own, numbered from zero. Jump targets are absolute
+ * word indexes into the code.</p>
+ */
+final class Op {
+
+    /** {@code I[a] = I[b]}. */
+    static final int MOVE_I = 0; // 2
+    /** {@code D[a] = D[b]}. */
+    static final int MOVE_D = 1; // 2
+    /** {@code S[a] = S[b]}. */
+    static final int MOVE_S = 2; // 2
+    /** {@code I[a] = b}: an int literal, inline. */
+    static final int LOAD_I = 3; // 2
+    /** {@code D[a] = doubles[b]}: a literal from the constant pool. */
+    static final int CONST_D = 4; // 2
+    /** {@code S[a] = strings[b]}: a literal from the constant pool. */
+    static final int CONST_S = 5; // 2
+
+    /** {@code I[a] = globals.I[b]}. */
+    static final int GET_I = 6; // 2
+    static final int GET_D = 7; // 2
+    static final int GET_S = 8; // 2
+    /** {@code globals.I[a] = I[b]}. */
+    static final int SET_I = 9; // 2
+    static final int SET_D = 10; // 2
+    static final int SET_S = 11; // 2
+
+    /** {@code I[a] = I[b] + I[c]} in 32 bits; likewise the other arithmetic. */
+    static final int ADD_I = 12; // 3
+    static final int SUB_I = 13; // 3
+    static final int MUL_I = 14; // 3
+    static final int DIV_I = 15; // 3
+    static final int MOD_I = 16; // 3
+    /** {@code D[a] = (float) D[b] + (float) D[c]}. */
+    static final int ADD_F = 17; // 3
+    static final int SUB_F = 18; // 3
+    static final int MUL_F = 19; // 3
+    static final int DIV_F = 20; // 3
+    static final int MOD_F = 21; // 3
+    static final int ADD_D = 22; // 3
+    static final int SUB_D = 23; // 3
+    static final int MUL_D = 24; // 3
+    static final int DIV_D = 25; // 3
+    static final int MOD_D = 26; // 3
+    /** {@code I[a] += b} in 32 bits. */
+    static final int INC_I = 27; // 2
+
+    /** {@code D[a] = (double) I[b]}. */
+    static final int I2D = 28; // 2
+    /** {@code D[a] = (float) I[b]}. */
+    static final int I2F = 29; // 2
+    /** {@code I[a] = (int) D[b]}; also converts a {@code float}, which a double holds exactly. */
+    static final int D2I = 30; // 2
+    /** {@code D[a] = (float) D[b]}. */
+    static final int D2F = 31; // 2
+
+    /** {@code S[a] = S[b] + S[c]}. */
+    static final int CONCAT = 32; // 3
+    /** {@code S[a] = Integer.toString(I[b])}. */
+    static final int STR_I = 33; // 2
+    /** {@code S[a] = Float.toString(D[b])}. */
+    static final int STR_F = 34; // 2
+    /** {@code S[a] = Double.toString(D[b])}. */
+    static final int STR_D = 35; // 2
+
+    /** Jump to {@code b}; {@code a} is unused. */
+    static final int JUMP = 36; // 2
+    /** Jump to {@code b} if {@code I[a] == 0}. */
+    static final int JZ_I = 37; // 2
+    static final int JNZ_I = 38; // 2
+    /** Jump to {@code b} if {@code D[a] == 0}; NaN is not zero. */
+    static final int JZ_D = 39; // 2
+    static final int JNZ_D = 40; // 2
+    /** Jump to {@code c} if {@code I[a] < I[b]}; likewise the other comparisons. */
+    static final int JLT_I = 41; // 3
+    static final int JLE_I = 42; // 3
+    static final int JEQ_I = 43; // 3
+    static final int JNE_I = 44; // 3
+    static final int JLT_D = 45; // 3
+    static final int JLE_D = 46; // 3
+    /** Jump to {@code c} unless {@code D[a] < D[b]}, which also jumps on NaN. */
+    static final int JNLT_D = 47; // 3
+    static final int JNLE_D = 48; // 3
+    static final int JEQ_D = 49; // 3
+    static final int JNE_D = 50; // 3
+    /** Jump to {@code c} if {@code S[a]} equals {@code S[b]}. */
+    static final int JEQ_S = 51; // 3
+    static final int JNE_S = 52; // 3
+
+    /**
+     * Call function {@code a}, whose frame starts at registers {@code c},
+     * {@code d} and {@code e} of the I, D and S files, where the arguments
+     * are; its result goes to register {@code b} of the file of its type.
+     */
+    static final int CALL = 53; // 5
+    /** Return from a {@code void} function. */
+    static final int RET = 54; // 1
+    /** Return {@code I[a]}. */
+    static final int RET_I = 55; // 1
+    static final int RET_D = 56; // 1
+    static final int RET_S = 57; // 1
+
+    /** Print {@code S[a]} to {@code S[a + b - 1]} on one line, separated by spaces. */
+    static final int PRINT = 58; // 2
+
+    private Op() {
+    }
+}
@@ -0,0 +1,412 @@
+package minilang.vm;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import minilang.ast.ConstantFolder;
+import minilang.ast.Program;
+import minilang.ast.Type;
+import minilang.interp.Interpreter;
+
+/**
+ * Runs MiniLang programs compiled to a register-based instruction set.
+ *
+ * <p>{@link #load} folds a program's constants with {@link ConstantFolder}
+ * and compiles it to one {@code int[]} of code, a pool of its
+ * {@code double} and string literals, and the size of each function's frame;
+ * see {@link Op} for the encoding. Nothing else is kept, so a loaded
+ * program costs a few bytes per instruction, and neither its parse tree nor
+ * its AST is needed after loading.</p>
+ *
+ * <p>The machine keeps three register files, {@code long[]} for
+ * {@code int}s, {@code double[]} for {@code float}s and {@code double}s and
+ * {@code String[]} for strings, and a call stack of {@code int}s. A call
+ * moves the frame bases up to where the caller put the arguments, so it
+ * copies nothing and allocates nothing once the files are large enough.
+ * Only string operations allocate.</p>
+ *
+ * <p>The language is the one {@link Interpreter} runs, with the same
+ * semantics and the same load-time errors. A machine is not thread-safe;
+ * load a program once per thread to run it concurrently.</p>
+ */
+public final class VirtualMachine {
+
+    /** Words per saved frame: return address, the caller's three bases, and the result register. */
+    private static final int FRAME = 5;
+
+    /** Calls deeper than this overflow, like a Java stack would. */
+    private static final int MAX_DEPTH = 1 << 20;
+
+    private final Image image;
+
+    private final PrintStream out;
+
+    private final Map<String, Image.Function> functions = new HashMap<>();
+
+    private final long[] globalInts;
+    private final double[] globalDoubles;
+    private final String[] globalStrings;
+
+    private long[] ints = new long[256];
+    private double[] doubles = new double[256];
+    private String[] strings = new String[256];
+    private int[] frames = new int[64 * FRAME];
+
+    private long intResult;
+    private double doubleResult;
+    private String stringResult;
+
+    private VirtualMachine(Image image, PrintStream out) {
+        this.image = image;
+        this.out = out;
+        for (Image.Function function : image.functions()) {
+            if (function.name() != null) {
+                functions.put(function.name(), function);
+            }
+        }
+        globalInts = new long[image.globalInts()];
+        globalDoubles = new double[image.globalDoubles()];
+        globalStrings = new String[image.globalStrings()];
+    }
+
+    /** Compiles {@code program}, printing to {@code System.out}. */
+    public static VirtualMachine load(Program program) {
+        return load(program, System.out);
+    }
+
+    public static VirtualMachine load(Program program, PrintStream out) {
+        return new VirtualMachine(CodeGenerator.compile(ConstantFolder.fold(program)), out);
+    }
+
+    /** Number of {@code int} words of code the program compiled to. */
+    public int codeSize() {
+        return image.code().length;
+    }
+
+    /**
+     * Resets the globals and runs the top level of the program, then calls
+     * {@code main()} if the program declares it.
+     *
+     * @return what {@code main} returned, boxed, or {@code null} if there is
+     *     no {@code main} or it is {@code void}
+     */
+    public Object run() {
+        Arrays.fill(globalInts, 0);
+        Arrays.fill(globalDoubles, 0);
+        Arrays.fill(globalStrings, "");
+        execute(image.functions()[image.topLevel()]);
+        return functions.containsKey("main") ? call("main") : null;
+    }
+
+    /**
+     * Calls the function {@code name} with {@code arguments} converted to its
+     * parameter types, and boxes its result. The globals are left as the
+     * last run or call left them.
+     *
+     * @throws IllegalArgumentException if there is no such function or the
+     *     arguments do not fit its parameters
+     */
+    public Object call(String name, Object... arguments) {
+        Image.Function function = functions.get(name);
+        if (function == null) {
+            throw new IllegalArgumentException("No function '" + name + "'");
+        }
+        Type[] parameters = function.parameters();
+        if (arguments.length != parameters.length) {
+            throw new IllegalArgumentException("'" + name + "' takes " + parameters.length
+                    + " arguments, not " + arguments.length);
+        }
+        ensureRegisters(function, 0, 0, 0);
+        int i = 0;
+        int d = 0;
+        int s = 0;
+        for (int a = 0; a < arguments.length; a++) {
+            Object value = arguments[a];
+            if (parameters[a] == Type.STRING) {
+                if (!(value instanceof String text)) {
+                    throw new IllegalArgumentException("Expected a string, not " + value);
+                }
+                strings[s++] = text;
+            } else if (!(value instanceof Number number)) {
+                throw new IllegalArgumentException("Expected a number, not " + value);
+            } else {
+                switch (parameters[a]) {
+                    case INT -> ints[i++] = number.intValue();
+                    case FLOAT -> doubles[d++] = number.floatValue();
+                    default -> doubles[d++] = number.doubleValue();
+                }
+            }
+        }
+        execute(function);
+        return switch (function.returnType()) {
+            case INT -> (int) intResult;
+            case FLOAT -> (float) doubleResult;
+            case DOUBLE -> doubleResult;
+            case STRING -> stringResult;
+            case VOID -> null;
+        };
+    }
+
+    /** Runs {@code function}, whose arguments are in the first registers, until it returns. */
+    private void execute(Image.Function function) {
+        final int[] code = image.code();
+        final double[] doubleConstants = image.doubles();
+        final String[] stringConstants = image.strings();
+        final Image.Function[] functions = image.functions();
+        final long[] globalInts = this.globalInts;
+        final double[] globalDoubles = this.globalDoubles;
+        final String[] globalStrings = this.globalStrings;
+        long[] ints = this.ints;
+        double[] doubles = this.doubles;
+        String[] strings = this.strings;
+        int[] frames = this.frames;
+        int depth = 0;
+        int ib = 0;
+        int db = 0;
+        int sb = 0;
+        int pc = function.entry();
+        while (true) {
+            int word = code[pc];
+            int a = word >>> 8;
+            switch (word & 0xFF) {
+                case Op.MOVE_I -> {
+                    ints[ib + a] = ints[ib + code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.MOVE_D -> {
+                    doubles[db + a] = doubles[db + code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.MOVE_S -> {
+                    strings[sb + a] = strings[sb + code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.LOAD_I -> {
+                    ints[ib + a] = code[pc + 1];
+                    pc += 2;
+                }
+                case Op.CONST_D -> {
+                    doubles[db + a] = doubleConstants[code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.CONST_S -> {
+                    strings[sb + a] = stringConstants[code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.GET_I -> {
+                    ints[ib + a] = globalInts[code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.GET_D -> {
+                    doubles[db + a] = globalDoubles[code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.GET_S -> {
+                    strings[sb + a] = globalStrings[code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.SET_I -> {
+                    globalInts[a] = ints[ib + code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.SET_D -> {
+                    globalDoubles[a] = doubles[db + code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.SET_S -> {
+                    globalStrings[a] = strings[sb + code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.ADD_I -> {
+                    ints[ib + a] = (int) (ints[ib + code[pc + 1]] + ints[ib + code[pc + 2]]);
+                    pc += 3;
+                }
+                case Op.SUB_I -> {
+                    ints[ib + a] = (int) (ints[ib + code[pc + 1]] - ints[ib + code[pc + 2]]);
+                    pc += 3;
+                }
+                case Op.MUL_I -> {
+                    ints[ib + a] = (int) (ints[ib + code[pc + 1]] * ints[ib + code[pc + 2]]);
+                    pc += 3;
+                }
+                case Op.DIV_I -> {
+                    ints[ib + a] = (int) ints[ib + code[pc + 1]] / (int) ints[ib + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.MOD_I -> {
+                    ints[ib + a] = (int) ints[ib + code[pc + 1]] % (int) ints[ib + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.ADD_F -> {
+                    doubles[db + a] = (float) doubles[db + code[pc + 1]] + (float) doubles[db + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.SUB_F -> {
+                    doubles[db + a] = (float) doubles[db + code[pc + 1]] - (float) doubles[db + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.MUL_F -> {
+                    doubles[db + a] = (float) doubles[db + code[pc + 1]] * (float) doubles[db + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.DIV_F -> {
+                    doubles[db + a] = (float) doubles[db + code[pc + 1]] / (float) doubles[db + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.MOD_F -> {
+                    doubles[db + a] = (float) doubles[db + code[pc + 1]] % (float) doubles[db + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.ADD_D -> {
+                    doubles[db + a] = doubles[db + code[pc + 1]] + doubles[db + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.SUB_D -> {
+                    doubles[db + a] = doubles[db + code[pc + 1]] - doubles[db + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.MUL_D -> {
+                    doubles[db + a] = doubles[db + code[pc + 1]] * doubles[db + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.DIV_D -> {
+                    doubles[db + a] = doubles[db + code[pc + 1]] / doubles[db + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.MOD_D -> {
+                    doubles[db + a] = doubles[db + code[pc + 1]] % doubles[db + code[pc + 2]];
+                    pc += 3;
+                }
+                case Op.INC_I -> {
+                    ints[ib + a] = (int) (ints[ib + a] + code[pc + 1]);
+                    pc += 2;
+                }
+                case Op.I2D -> {
+                    doubles[db + a] = ints[ib + code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.I2F -> {
+                    doubles[db + a] = (float) ints[ib + code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.D2I -> {
+                    ints[ib + a] = (int) doubles[db + code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.D2F -> {
+                    doubles[db + a] = (float) doubles[db + code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.CONCAT -> {
+                    strings[sb + a] = strings[sb + code[pc + 1]].concat(strings[sb + code[pc + 2]]);
+                    pc += 3;
+                }
+                case Op.STR_I -> {
+                    strings[sb + a] = Integer.toString((int) ints[ib + code[pc + 1]]);
+                    pc += 2;
+                }
+                case Op.STR_F -> {
+                    strings[sb + a] = Float.toString((float) doubles[db + code[pc + 1]]);
+                    pc += 2;
+                }
+                case Op.STR_D -> {
+                    strings[sb + a] = Double.toString(doubles[db + code[pc + 1]]);
+                    pc += 2;
+                }
+                case Op.JUMP -> pc = code[pc + 1];
+                case Op.JZ_I -> pc = ints[ib + a] == 0 ? code[pc + 1] : pc + 2;
+                case Op.JNZ_I -> pc = ints[ib + a] != 0 ? code[pc + 1] : pc + 2;
+                case Op.JZ_D -> pc = doubles[db + a] == 0 ? code[pc + 1] : pc + 2;
+                case Op.JNZ_D -> pc = doubles[db + a] != 0 ? code[pc + 1] : pc + 2;
+                case Op.JLT_I -> pc = ints[ib + a] < ints[ib + code[pc + 1]] ? code[pc + 2] : pc + 3;
+                case Op.JLE_I -> pc = ints[ib + a] <= ints[ib + code[pc + 1]] ? code[pc + 2] : pc + 3;
+                case Op.JEQ_I -> pc = ints[ib + a] == ints[ib + code[pc + 1]] ? code[pc + 2] : pc + 3;
+                case Op.JNE_I -> pc = ints[ib + a] != ints[ib + code[pc + 1]] ? code[pc + 2] : pc + 3;
+                case Op.JLT_D -> pc = doubles[db + a] < doubles[db + code[pc + 1]] ? code[pc + 2] : pc + 3;
+                case Op.JLE_D -> pc = doubles[db + a] <= doubles[db + code[pc + 1]] ? code[pc + 2] : pc + 3;
+                case Op.JNLT_D -> pc = !(doubles[db + a] < doubles[db + code[pc + 1]]) ? code[pc + 2] : pc + 3;
+                case Op.JNLE_D -> pc = !(doubles[db + a] <= doubles[db + code[pc + 1]]) ? code[pc + 2] : pc + 3;
+                case Op.JEQ_D -> pc = doubles[db + a] == doubles[db + code[pc + 1]] ? code[pc + 2] : pc + 3;
+                case Op.JNE_D -> pc = doubles[db + a] != doubles[db + code[pc + 1]] ? code[pc + 2] : pc + 3;
+                case Op.JEQ_S -> pc = strings[sb + a].equals(strings[sb + code[pc + 1]]) ? code[pc + 2] : pc + 3;
+                case Op.JNE_S -> pc = !strings[sb + a].equals(strings[sb + code[pc + 1]]) ? code[pc + 2] : pc + 3;
+                case Op.CALL -> {
+                    if (depth == frames.length) {
+                        if (depth == MAX_DEPTH * FRAME) {
+                            throw new StackOverflowError("MiniLang calls nested deeper than " + MAX_DEPTH);
+                        }
+                        frames = this.frames = Arrays.copyOf(frames, depth * 2);
+                    }
+                    frames[depth] = pc + 5;
+                    frames[depth + 1] = ib;
+                    frames[depth + 2] = db;
+                    frames[depth + 3] = sb;
+                    frames[depth + 4] = code[pc + 1];
+                    depth += FRAME;
+                    ib += code[pc + 2];
+                    db += code[pc + 3];
+                    sb += code[pc + 4];
+                    Image.Function callee = functions[a];
+                    if (ib + callee.ints() > ints.length || db + callee.doubles() > doubles.length
+                            || sb + callee.strings() > strings.length) {
+                        ensureRegisters(callee, ib, db, sb);
+                        ints = this.ints;
+                        doubles = this.doubles;
+                        strings = this.strings;
+                    }
+                    pc = callee.entry();
+                }
+                case Op.RET, Op.RET_I, Op.RET_D, Op.RET_S -> {
+                    int op = word & 0xFF;
+                    if (depth == 0) {
+                        switch (op) {
+                            case Op.RET_I -> intResult = ints[ib + a];
+                            case Op.RET_D -> doubleResult = doubles[db + a];
+                            case Op.RET_S -> stringResult = strings[sb + a];
+                            default -> {
+                            }
+                        }
+                        return;
+                    }
+                    depth -= FRAME;
+                    int result = frames[depth + 4];
+                    switch (op) {
+                        case Op.RET_I -> ints[frames[depth + 1] + result] = ints[ib + a];
+                        case Op.RET_D -> doubles[frames[depth + 2] + result] = doubles[db + a];
+                        case Op.RET_S -> strings[frames[depth + 3] + result] = strings[sb + a];
+                        default -> {
+                        }
+                    }
+                    pc = frames[depth];
+                    ib = frames[depth + 1];
+                    db = frames[depth + 2];
+                    sb = frames[depth + 3];
+                }
+                case Op.PRINT -> {
+                    StringBuilder line = new StringBuilder();
+                    for (int i = 0; i < code[pc + 1]; i++) {
+                        line.append(i == 0 ? "" : " ").append(strings[sb + a + i]);
+                    }
+                    out.println(line);
+                    pc += 2;
+                }
+                default -> throw new IllegalStateException("Bad opcode " + (word & 0xFF) + " at " + pc);
+            }
+        }
+    }
+
+    /** Grows the register files to hold a frame of {@code function} at the given bases. */
+    private void ensureRegisters(Image.Function function, int ib, int db, int sb) {
+        if (ib + function.ints() > ints.length) {
+            ints = Arrays.copyOf(ints, Math.max(ints.length * 2, ib + function.ints()));
+        }
+        if (db + function.doubles() > doubles.length) {
+            doubles = Arrays.copyOf(doubles, Math.max(doubles.length * 2, db + function.doubles()));
+        }
+        if (sb + function.strings() > strings.length) {
+            strings = Arrays.copyOf(strings, Math.max(strings.length * 2, sb + function.strings()));
+        }
+    }
+}